@@ -0,0 +1,102 @@
+package org.displaytag.benchmark;
+
+import java.util.Date;
+
+import org.displaytag.test.KnownTypes;
+
+
+/**
+ * Synthetic row for benchmarks, with the same kind of properties as KnownTypes and NumberedItem.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class BenchmarkItem
+{
+
+    /**
+     * Number of rows with the same group.
+     */
+    private static final int GROUP_SIZE = 100;
+
+    /**
+     * Item number.
+     */
+    private final int number;
+
+    /**
+     * Item name.
+     */
+    private final String name;
+
+    /**
+     * Amount.
+     */
+    private final Double amount;
+
+    /**
+     * Instantiates a new item.
+     * @param num item number
+     */
+    public BenchmarkItem(int num)
+    {
+        this.number = num;
+        this.name = "item " + num;
+        this.amount = new Double(num % 1000 + 0.25);
+    }
+
+    /**
+     * @return item number
+     */
+    public int getNumber()
+    {
+        return this.number;
+    }
+
+    /**
+     * @return item name
+     */
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * @return group name, shared by <code>GROUP_SIZE</code> consecutive items
+     */
+    public String getGroup()
+    {
+        return "group " + this.number / GROUP_SIZE;
+    }
+
+    /**
+     * @return amount
+     */
+    public Double getAmount()
+    {
+        return this.amount;
+    }
+
+    /**
+     * @return <code>KnownTypes.TIME_VALUE</code>
+     */
+    public Date getTime()
+    {
+        return KnownTypes.TIME_VALUE;
+    }
+
+    /**
+     * @return <code>KnownTypes.LONG_VALUE</code>
+     */
+    public Long getLong()
+    {
+        return KnownTypes.LONG_VALUE;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    public String toString()
+    {
+        return this.name;
+    }
+}
@@ -0,0 +1,432 @@
+package org.displaytag.benchmark;
+
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.apache.commons.lang.StringUtils;
+import org.displaytag.export.ExportViewFactory;
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.stats.TableStats;
+import org.displaytag.tags.TableTagParameters;
+import org.displaytag.test.AllocationMeter;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.util.ParamEncoder;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.HttpUnitOptions;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+import com.meterware.servletunit.ServletRunner;
+import com.meterware.servletunit.ServletUnitClient;
+
+
+/**
+ * <p>
+ * End to end load test: representative jsps (paging, sorting, grouping and totals, split tables and exports) are
+ * rendered concurrently from several threads through the same servletunit/jasper stack used by the jsp tests, and
+ * requests per second, latency percentiles and bytes allocated per request are reported for each scenario. Running it
+ * with one thread and then with more threads shows contention on shared state, such as static caches.
+ * </p>
+ * <p>
+ * Usage: <code>LoadHarness [-threads n] [-requests n] [-rows n]</code>, where <code>requests</code> is the number
+ * of requests for each thread and <code>rows</code> the size of the rendered lists. With maven:
+ * </p>
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=org.displaytag.benchmark.LoadHarness
+ *     -Dbenchmark.args="-threads 8 -requests 500"
+ * </pre>
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public final class LoadHarness
+{
+
+    /**
+     * Base url of the load test jsps.
+     */
+    private static final String BASE_URL = "http://localhost" + DisplaytagCase.CONTEXT + "/standard/";
+
+    /**
+     * Requests run by each thread for each scenario before measuring, so that jsps are compiled and the jvm is warm.
+     */
+    private static final int WARMUP = 5;
+
+    /**
+     * Servlet engine.
+     */
+    private final ServletRunner runner;
+
+    /**
+     * Scenarios.
+     */
+    private final Scenario[] scenarios;
+
+    /**
+     * Number of threads.
+     */
+    private final int threads;
+
+    /**
+     * Requests for each thread.
+     */
+    private final int requests;
+
+    /**
+     * Instantiates a new harness.
+     * @param servletRunner servlet engine
+     * @param threadCount number of threads
+     * @param requestCount requests for each thread
+     * @param rows size of the rendered lists
+     */
+    public LoadHarness(ServletRunner servletRunner, int threadCount, int requestCount, int rows)
+    {
+        this.runner = servletRunner;
+        this.threads = threadCount;
+        this.requests = requestCount;
+        this.scenarios = createScenarios(rows);
+    }
+
+    /**
+     * Runs the harness and prints the results.
+     * @param args <code>-threads n</code>, <code>-requests n</code>, <code>-rows n</code>
+     * @throws Exception any exception thrown by the servlet engine
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int threads = 4;
+        int requests = 200;
+        int rows = 100;
+        for (int j = 0; j + 1 < args.length; j += 2)
+        {
+            int value = Integer.parseInt(args[j + 1]);
+            if ("-threads".equals(args[j]))
+            {
+                threads = value;
+            }
+            else if ("-requests".equals(args[j]))
+            {
+                requests = value;
+            }
+            else if ("-rows".equals(args[j]))
+            {
+                rows = value;
+            }
+            else
+            {
+                throw new IllegalArgumentException("Unknown option " + args[j]);
+            }
+        }
+
+        // split tables contain scripts which need a browser
+        HttpUnitOptions.setScriptingEnabled(false);
+
+        ServletRunner servletRunner = DisplaytagCase.createServletRunner();
+        try
+        {
+            System.out.println(new LoadHarness(servletRunner, threads, requests, rows).run());
+        }
+        finally
+        {
+            servletRunner.shutDown();
+        }
+    }
+
+    /**
+     * Runs the load test.
+     * @return report
+     * @throws Exception any exception thrown while running requests
+     */
+    public String run() throws Exception
+    {
+        // compile jsps before starting concurrent requests
+        ServletUnitClient client = this.runner.newClient();
+        for (int j = 0; j < this.scenarios.length; j++)
+        {
+            for (int k = 0; k < WARMUP; k++)
+            {
+                this.scenarios[j].execute(client);
+            }
+        }
+
+        Worker[] workers = new Worker[this.threads];
+        for (int j = 0; j < workers.length; j++)
+        {
+            workers[j] = new Worker(j);
+        }
+
+        long start = TableStats.now();
+        for (int j = 0; j < workers.length; j++)
+        {
+            workers[j].start();
+        }
+        for (int j = 0; j < workers.length; j++)
+        {
+            workers[j].join();
+            if (workers[j].error != null)
+            {
+                throw workers[j].error;
+            }
+        }
+        long elapsed = TableStats.now() - start;
+
+        return report(workers, elapsed);
+    }
+
+    /**
+     * Builds the report.
+     * @param workers finished workers
+     * @param elapsed total time, in nanoseconds
+     * @return report
+     */
+    private String report(Worker[] workers, long elapsed)
+    {
+        int total = this.threads * this.requests;
+        StringBuffer buffer = new StringBuffer();
+        buffer.append("threads: ").append(this.threads);
+        buffer.append(", requests: ").append(total);
+        buffer.append(", time: ").append(elapsed / 1000000).append(" ms");
+        buffer.append(", throughput: ").append(Math.round(total * 1e9d / elapsed)).append(" req/s\n");
+
+        buffer.append(StringUtils.rightPad("scenario", 16));
+        buffer.append(StringUtils.leftPad("requests", 10));
+        buffer.append(StringUtils.leftPad("p50 ms", 10));
+        buffer.append(StringUtils.leftPad("p90 ms", 10));
+        buffer.append(StringUtils.leftPad("p99 ms", 10));
+        buffer.append(StringUtils.leftPad("max ms", 10));
+        buffer.append(StringUtils.leftPad("bytes/req", 12));
+        buffer.append('\n');
+
+        for (int j = 0; j < this.scenarios.length; j++)
+        {
+            int count = 0;
+            long allocated = 0;
+            for (int k = 0; k < workers.length; k++)
+            {
+                count += workers[k].counts[j];
+                allocated += workers[k].allocated[j];
+            }
+            long[] latencies = new long[count];
+            int offset = 0;
+            for (int k = 0; k < workers.length; k++)
+            {
+                System.arraycopy(workers[k].latencies[j], 0, latencies, offset, workers[k].counts[j]);
+                offset += workers[k].counts[j];
+            }
+            Arrays.sort(latencies);
+
+            buffer.append(StringUtils.rightPad(this.scenarios[j].name, 16));
+            buffer.append(StringUtils.leftPad(String.valueOf(count), 10));
+            buffer.append(StringUtils.leftPad(toMillis(percentile(latencies, 50)), 10));
+            buffer.append(StringUtils.leftPad(toMillis(percentile(latencies, 90)), 10));
+            buffer.append(StringUtils.leftPad(toMillis(percentile(latencies, 99)), 10));
+            buffer.append(StringUtils.leftPad(toMillis(percentile(latencies, 100)), 10));
+            buffer.append(StringUtils.leftPad(AllocationMeter.isSupported() && count > 0 ? String
+                .valueOf(allocated / count) : "n/a", 12));
+            buffer.append('\n');
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Returns a percentile.
+     * @param sorted sorted values
+     * @param percent percentile
+     * @return value, 0 if there are no values
+     */
+    private static long percentile(long[] sorted, int percent)
+    {
+        if (sorted.length == 0)
+        {
+            return 0;
+        }
+        int index = (int) Math.ceil(sorted.length * percent / 100d) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    /**
+     * Formats nanoseconds as milliseconds.
+     * @param nanos time in nanoseconds
+     * @return milliseconds, with two decimals
+     */
+    private static String toMillis(long nanos)
+    {
+        return String.valueOf(Math.round(nanos / 10000d) / 100d);
+    }
+
+    /**
+     * Creates the load test scenarios.
+     * @param rows size of the rendered lists
+     * @return scenarios
+     */
+    private static Scenario[] createScenarios(int rows)
+    {
+        ParamEncoder encoder = new ParamEncoder("load");
+        String page = encoder.encodeParameterName(TableTagParameters.PARAMETER_PAGE);
+        String sort = encoder.encodeParameterName(TableTagParameters.PARAMETER_SORT);
+        String order = encoder.encodeParameterName(TableTagParameters.PARAMETER_ORDER);
+        String export = encoder.encodeParameterName(TableTagParameters.PARAMETER_EXPORTTYPE);
+
+        // register the export media types
+        ExportViewFactory.getInstance();
+
+        return new Scenario[]{
+            new Scenario("paging", "load-table.jsp", rows, new String[]{page, "2"}),
+            new Scenario("sorting", "load-table.jsp", rows, new String[]{sort, "2", order, "2"}),
+            new Scenario("totals", "load-multilevel.jsp", rows, new String[0]),
+            new Scenario("split", "load-split.jsp", rows, new String[]{page, "2"}),
+            new Scenario("export-csv", "load-table.jsp", rows, new String[]{export, mediaCode(MediaTypeEnum.CSV)}),
+            new Scenario("export-excel", "load-table.jsp", rows, new String[]{export, mediaCode(MediaTypeEnum.EXCEL)}),
+            new Scenario("export-xml", "load-table.jsp", rows, new String[]{export, mediaCode(MediaTypeEnum.XML)}),
+            new Scenario("export-pdf", "load-table.jsp", rows, new String[]{
+                export,
+                mediaCode(MediaTypeEnum.fromName("pdf"))})};
+    }
+
+    /**
+     * Returns the code of a media type, as a request parameter.
+     * @param media media type
+     * @return code
+     */
+    private static String mediaCode(MediaTypeEnum media)
+    {
+        return Integer.toString(media.getCode());
+    }
+
+    /**
+     * A request, executed many times.
+     */
+    private static class Scenario
+    {
+
+        /**
+         * Scenario name.
+         */
+        final String name;
+
+        /**
+         * Jsp url.
+         */
+        private final String url;
+
+        /**
+         * Size of the rendered list.
+         */
+        private final String rows;
+
+        /**
+         * Request parameters, name and value.
+         */
+        private final String[] parameters;
+
+        /**
+         * Instantiates a new scenario.
+         * @param scenarioName scenario name
+         * @param jspName jsp name
+         * @param listSize size of the rendered list
+         * @param params request parameters, name and value
+         */
+        Scenario(String scenarioName, String jspName, int listSize, String[] params)
+        {
+            this.name = scenarioName;
+            this.url = BASE_URL + jspName;
+            this.rows = String.valueOf(listSize);
+            this.parameters = params;
+        }
+
+        /**
+         * Executes the request and reads the full response.
+         * @param client ServletUnitClient, not shared among threads
+         * @throws Exception any exception thrown by the servlet engine
+         */
+        void execute(ServletUnitClient client) throws Exception
+        {
+            WebRequest request = new GetMethodWebRequest(this.url);
+            request.setParameter("rows", this.rows);
+            for (int j = 0; j < this.parameters.length; j += 2)
+            {
+                request.setParameter(this.parameters[j], this.parameters[j + 1]);
+            }
+
+            WebResponse response = client.getResponse(request);
+            InputStream in = response.getInputStream();
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1)
+            {
+                // discard content
+            }
+            in.close();
+        }
+    }
+
+    /**
+     * Thread running requests, cycling through the scenarios.
+     */
+    private class Worker extends Thread
+    {
+
+        /**
+         * Latencies for each scenario, in nanoseconds.
+         */
+        final long[][] latencies;
+
+        /**
+         * Requests for each scenario.
+         */
+        final int[] counts;
+
+        /**
+         * Bytes allocated for each scenario.
+         */
+        final long[] allocated;
+
+        /**
+         * Error thrown while running requests.
+         */
+        Exception error;
+
+        /**
+         * Index of this worker, used to start from a different scenario in each thread.
+         */
+        private final int index;
+
+        /**
+         * Instantiates a new worker.
+         * @param workerIndex index of this worker
+         */
+        Worker(int workerIndex)
+        {
+            super("LoadHarness-" + workerIndex);
+            this.index = workerIndex;
+            this.latencies = new long[scenarios.length][requests];
+            this.counts = new int[scenarios.length];
+            this.allocated = new long[scenarios.length];
+        }
+
+        /**
+         * @see java.lang.Thread#run()
+         */
+        public void run()
+        {
+            ServletUnitClient client = runner.newClient();
+            try
+            {
+                for (int j = 0; j < requests; j++)
+                {
+                    int scenario = (this.index + j) % scenarios.length;
+                    long allocatedBefore = AllocationMeter.getAllocatedBytes();
+                    long start = TableStats.now();
+
+                    scenarios[scenario].execute(client);
+
+                    this.latencies[scenario][this.counts[scenario]++] = TableStats.now() - start;
+                    this.allocated[scenario] += AllocationMeter.getAllocatedBytes() - allocatedBefore;
+                }
+            }
+            catch (Exception e)
+            {
+                this.error = e;
+            }
+        }
+    }
+}
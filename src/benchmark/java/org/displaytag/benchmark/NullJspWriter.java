@@ -0,0 +1,245 @@
+package org.displaytag.benchmark;
+
+import javax.servlet.jsp.JspWriter;
+
+
+/**
+ * JspWriter discarding everything, so benchmarks measure rendering only.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class NullJspWriter extends JspWriter
+{
+
+    /**
+     * Instantiates a new unbuffered writer.
+     */
+    public NullJspWriter()
+    {
+        super(NO_BUFFER, false);
+    }
+
+    /**
+     * @see java.io.Writer#write(char[], int, int)
+     */
+    public void write(char[] cbuf, int off, int len)
+    {
+        // discarded
+    }
+
+    /**
+     * @see java.io.Writer#write(java.lang.String)
+     */
+    public void write(String str)
+    {
+        // discarded
+    }
+
+    /**
+     * @see java.io.Writer#write(java.lang.String, int, int)
+     */
+    public void write(String str, int off, int len)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#newLine()
+     */
+    public void newLine()
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#print(boolean)
+     */
+    public void print(boolean b)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#print(char)
+     */
+    public void print(char c)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#print(int)
+     */
+    public void print(int i)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#print(long)
+     */
+    public void print(long l)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#print(float)
+     */
+    public void print(float f)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#print(double)
+     */
+    public void print(double d)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#print(char[])
+     */
+    public void print(char[] s)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#print(java.lang.String)
+     */
+    public void print(String s)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#print(java.lang.Object)
+     */
+    public void print(Object obj)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#println()
+     */
+    public void println()
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#println(boolean)
+     */
+    public void println(boolean x)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#println(char)
+     */
+    public void println(char x)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#println(int)
+     */
+    public void println(int x)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#println(long)
+     */
+    public void println(long x)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#println(float)
+     */
+    public void println(float x)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#println(double)
+     */
+    public void println(double x)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#println(char[])
+     */
+    public void println(char[] x)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#println(java.lang.String)
+     */
+    public void println(String x)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#println(java.lang.Object)
+     */
+    public void println(Object x)
+    {
+        // discarded
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#clear()
+     */
+    public void clear()
+    {
+        // nothing buffered
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#clearBuffer()
+     */
+    public void clearBuffer()
+    {
+        // nothing buffered
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#flush()
+     */
+    public void flush()
+    {
+        // nothing buffered
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#close()
+     */
+    public void close()
+    {
+        // nothing to close
+    }
+
+    /**
+     * @see javax.servlet.jsp.JspWriter#getRemaining()
+     */
+    public int getRemaining()
+    {
+        return 0;
+    }
+}
@@ -0,0 +1,123 @@
+package org.displaytag.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.displaytag.model.Cell;
+import org.displaytag.model.HeaderCell;
+import org.displaytag.model.Row;
+import org.displaytag.model.TableModel;
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.properties.TableProperties;
+import org.displaytag.util.HtmlAttributeMap;
+
+
+/**
+ * Builds table models without a jsp container, the same way the table tag does: one header for each column, one row
+ * for each item with empty cells, so values are looked up from the item while rendering.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public final class TableFixture
+{
+
+    /**
+     * Columns of the table, properties of BenchmarkItem.
+     */
+    public static final String[] COLUMNS = new String[]{"group", "number", "name", "amount", "time"};
+
+    /**
+     * Index of the column grouped when totals are enabled.
+     */
+    public static final int GROUP_COLUMN = 0;
+
+    /**
+     * Index of the column totaled when totals are enabled.
+     */
+    public static final int TOTAL_COLUMN = 3;
+
+    /**
+     * Seed for shuffling, so all the runs sort the same data.
+     */
+    private static final long SEED = 42L;
+
+    /**
+     * Don't instantiate.
+     */
+    private TableFixture()
+    {
+    }
+
+    /**
+     * Creates a list of items.
+     * @param rows number of items
+     * @return list of BenchmarkItem, in number order
+     */
+    public static List createList(int rows)
+    {
+        List list = new ArrayList(rows);
+        for (int j = 0; j < rows; j++)
+        {
+            list.add(new BenchmarkItem(j));
+        }
+        return list;
+    }
+
+    /**
+     * Creates a table model containing all the items in a single page.
+     * @param list list of BenchmarkItem
+     * @param media media type
+     * @param totals group on the first column and total the amount column
+     * @return TableModel
+     */
+    public static TableModel createModel(List list, MediaTypeEnum media, boolean totals)
+    {
+        TableProperties properties = TableProperties.getInstance(null);
+        TableModel model = new TableModel(properties, "UTF-8", null);
+        model.setId("benchmark");
+        model.setMedia(media);
+
+        for (int j = 0; j < COLUMNS.length; j++)
+        {
+            HeaderCell header = new HeaderCell();
+            header.setBeanPropertyName(COLUMNS[j]);
+            header.setTitle(COLUMNS[j]);
+            header.setSortable(true);
+            header.setComparator(properties.getDefaultComparator());
+            header.setHtmlAttributes(new HtmlAttributeMap());
+            header.setHeaderAttributes(new HtmlAttributeMap());
+            if (totals && j == GROUP_COLUMN)
+            {
+                header.setGroup(1);
+            }
+            if (totals && j == TOTAL_COLUMN)
+            {
+                header.setTotaled(true);
+            }
+            model.addColumnHeader(header);
+        }
+
+        for (int j = 0; j < list.size(); j++)
+        {
+            Row row = new Row(list.get(j), j);
+            for (int k = 0; k < COLUMNS.length; k++)
+            {
+                row.addCell(Cell.EMPTY_CELL);
+            }
+            model.addRow(row);
+        }
+        model.setRowListPage(model.getRowListFull());
+        return model;
+    }
+
+    /**
+     * Shuffles the rows of a model, always in the same order.
+     * @param model TableModel
+     */
+    public static void shuffle(TableModel model)
+    {
+        Collections.shuffle(model.getRowListFull(), new Random(SEED));
+    }
+}
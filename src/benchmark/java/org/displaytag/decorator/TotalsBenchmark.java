@@ -0,0 +1,97 @@
+package org.displaytag.decorator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.displaytag.benchmark.TableFixture;
+import org.displaytag.model.TableModel;
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.render.HtmlTableWriter;
+import org.displaytag.render.HtmlTableWriterBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Html rendering of a grouped table with subtotals and grand totals computed by the totals decorators.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dlog4j.configuration=log4j-benchmark.xml"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class TotalsBenchmark
+{
+
+    /**
+     * Number of rows.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    /**
+     * Table decorator class.
+     */
+    @Param({"TotalTableDecorator", "MultilevelTotalTableDecorator"})
+    public String decorator;
+
+    /**
+     * Decorated list.
+     */
+    private List list;
+
+    /**
+     * Rendered model.
+     */
+    private TableModel model;
+
+    /**
+     * Table decorator.
+     */
+    private TableDecorator tableDecorator;
+
+    /**
+     * Table writer.
+     */
+    private HtmlTableWriter writer;
+
+    /**
+     * Creates the model and the decorator.
+     * @throws Exception if the decorator can't be instantiated
+     */
+    @Setup
+    public void setUp() throws Exception
+    {
+        this.list = TableFixture.createList(this.rows);
+        this.model = TableFixture.createModel(this.list, MediaTypeEnum.HTML, true);
+        this.tableDecorator = (TableDecorator) Class.forName(
+            TableDecorator.class.getPackage().getName() + "." + this.decorator).newInstance();
+        this.model.setTableDecorator(this.tableDecorator);
+        this.writer = HtmlTableWriterBenchmark.createWriter(this.model);
+    }
+
+    /**
+     * Renders the table body, totals are reset by init() as done by the table tag.
+     * @return number of characters written
+     * @throws Exception exception thrown while writing
+     */
+    @Benchmark
+    public long writeTotals() throws Exception
+    {
+        this.tableDecorator.init(null, this.list, this.model);
+        this.writer.writeTable(this.model, this.model.getId());
+        return this.writer.getSize();
+    }
+}
@@ -0,0 +1,148 @@
+package org.displaytag.export;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.displaytag.benchmark.TableFixture;
+import org.displaytag.model.TableModel;
+import org.displaytag.properties.MediaTypeEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Export of the full list with each configured export view: the BaseExportView subclasses (csv, excel, xml), json and
+ * pdf. Content is discarded.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dlog4j.configuration=log4j-benchmark.xml"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ExportViewBenchmark
+{
+
+    /**
+     * Number of rows.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    /**
+     * Exported media, as in the <code>export.types</code> property.
+     */
+    @Param({"csv", "excel", "xml", "json", "ndjson", "pdf"})
+    public String media;
+
+    /**
+     * Exported model.
+     */
+    private TableModel model;
+
+    /**
+     * Creates the model.
+     */
+    @Setup
+    public void setUp()
+    {
+        // media types are registered by the factory
+        ExportViewFactory.getInstance();
+        MediaTypeEnum mediaType = MediaTypeEnum.fromName(this.media);
+        this.model = TableFixture.createModel(TableFixture.createList(this.rows), mediaType, false);
+    }
+
+    /**
+     * Exports the table. A new view is needed for each export, as done by the table tag.
+     * @return export view
+     * @throws Exception exception thrown by the export view
+     */
+    @Benchmark
+    public ExportView export() throws Exception
+    {
+        ExportView view = ExportViewFactory.getInstance().getView(this.model.getMedia(), this.model, true, true, true);
+        if (view instanceof BinaryExportView)
+        {
+            ((BinaryExportView) view).doExport(new NullOutputStream());
+        }
+        else
+        {
+            ((TextExportView) view).doExport(new NullWriter());
+        }
+        return view;
+    }
+
+    /**
+     * Writer discarding everything.
+     */
+    private static class NullWriter extends Writer
+    {
+
+        /**
+         * @see java.io.Writer#write(char[], int, int)
+         */
+        public void write(char[] cbuf, int off, int len)
+        {
+            // discarded
+        }
+
+        /**
+         * @see java.io.Writer#write(java.lang.String, int, int)
+         */
+        public void write(String str, int off, int len)
+        {
+            // discarded
+        }
+
+        /**
+         * @see java.io.Writer#flush()
+         */
+        public void flush()
+        {
+            // nothing buffered
+        }
+
+        /**
+         * @see java.io.Writer#close()
+         */
+        public void close()
+        {
+            // nothing to close
+        }
+    }
+
+    /**
+     * OutputStream discarding everything.
+     */
+    private static class NullOutputStream extends OutputStream
+    {
+
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        public void write(int b)
+        {
+            // discarded
+        }
+
+        /**
+         * @see java.io.OutputStream#write(byte[], int, int)
+         */
+        public void write(byte[] b, int off, int len)
+        {
+            // discarded
+        }
+    }
+}
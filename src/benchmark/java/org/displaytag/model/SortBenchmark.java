@@ -0,0 +1,84 @@
+package org.displaytag.model;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.displaytag.benchmark.TableFixture;
+import org.displaytag.properties.MediaTypeEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * TableModel.sortFullList() (RowSorter) on shuffled rows.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dlog4j.configuration=log4j-benchmark.xml"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SortBenchmark
+{
+
+    /**
+     * Number of rows.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    /**
+     * Sorted column.
+     */
+    @Param({"number", "name", "amount"})
+    public String column;
+
+    /**
+     * Sorted model.
+     */
+    private TableModel model;
+
+    /**
+     * Creates the model.
+     */
+    @Setup
+    public void setUp()
+    {
+        this.model = TableFixture.createModel(TableFixture.createList(this.rows), MediaTypeEnum.HTML, false);
+        this.model.setSortedColumnNumber(Arrays.asList(TableFixture.COLUMNS).indexOf(this.column));
+        this.model.setSortFullTable(true);
+        this.model.setSortOrderAscending(true);
+    }
+
+    /**
+     * Shuffles rows before each sort, so every invocation sorts the same data.
+     */
+    @Setup(Level.Invocation)
+    public void shuffle()
+    {
+        TableFixture.shuffle(this.model);
+    }
+
+    /**
+     * Sorts the full list.
+     * @return sorted model
+     */
+    @Benchmark
+    public TableModel sortFullList()
+    {
+        this.model.sortFullList();
+        return this.model;
+    }
+}
@@ -0,0 +1,97 @@
+package org.displaytag.render;
+
+import java.util.concurrent.TimeUnit;
+
+import org.displaytag.benchmark.NullJspWriter;
+import org.displaytag.benchmark.TableFixture;
+import org.displaytag.model.TableModel;
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.util.DefaultHref;
+import org.displaytag.util.HtmlAttributeMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * TableWriterTemplate.writeTableBody() through HtmlTableWriter, writing to a JspWriter which discards everything.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dlog4j.configuration=log4j-benchmark.xml"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class HtmlTableWriterBenchmark
+{
+
+    /**
+     * Number of rows.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    /**
+     * Rendered model.
+     */
+    private TableModel model;
+
+    /**
+     * Table writer.
+     */
+    private HtmlTableWriter writer;
+
+    /**
+     * Creates the model and the writer.
+     */
+    @Setup
+    public void setUp()
+    {
+        this.model = TableFixture.createModel(TableFixture.createList(this.rows), MediaTypeEnum.HTML, false);
+        this.writer = createWriter(this.model);
+    }
+
+    /**
+     * Writes the table body.
+     * @return number of characters written
+     * @throws Exception exception thrown while writing
+     */
+    @Benchmark
+    public long writeTableBody() throws Exception
+    {
+        this.writer.writeTableBody(this.model);
+        return this.writer.getSize();
+    }
+
+    /**
+     * Creates an HtmlTableWriter for the given model, writing to a NullJspWriter. Without a list helper the
+     * paging banners are not written.
+     * @param tableModel TableModel
+     * @return HtmlTableWriter
+     */
+    public static HtmlTableWriter createWriter(TableModel tableModel)
+    {
+        return new HtmlTableWriter(
+            tableModel,
+            tableModel.getProperties(),
+            new DefaultHref("/benchmark.jsp"),
+            false,
+            new NullJspWriter(),
+            null,
+            null,
+            null,
+            tableModel.getRowListFull().size(),
+            new HtmlAttributeMap(),
+            tableModel.getId());
+    }
+}
@@ -0,0 +1,89 @@
+package org.displaytag.util;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.displaytag.benchmark.TableFixture;
+import org.displaytag.exception.ObjectLookupException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Property lookup on every row of a list, as done for each cell of a table.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dlog4j.configuration=log4j-benchmark.xml"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LookupUtilBenchmark
+{
+
+    /**
+     * Number of rows.
+     */
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    /**
+     * Looked up property.
+     */
+    @Param({"name", "amount"})
+    public String property;
+
+    /**
+     * list of BenchmarkItem.
+     */
+    private List list;
+
+    /**
+     * Creates the list.
+     */
+    @Setup
+    public void setUp()
+    {
+        this.list = TableFixture.createList(this.rows);
+    }
+
+    /**
+     * LookupUtil.getProperty().
+     * @param blackhole Blackhole
+     * @throws Exception exception thrown during lookup
+     */
+    @Benchmark
+    public void getProperty(Blackhole blackhole) throws Exception
+    {
+        for (int j = 0; j < this.list.size(); j++)
+        {
+            blackhole.consume(LookupUtil.getProperty(this.list.get(j), this.property));
+        }
+    }
+
+    /**
+     * LookupUtil.getBeanProperty(), used by columns.
+     * @param blackhole Blackhole
+     * @throws ObjectLookupException exception thrown during lookup
+     */
+    @Benchmark
+    public void getBeanProperty(Blackhole blackhole) throws ObjectLookupException
+    {
+        for (int j = 0; j < this.list.size(); j++)
+        {
+            blackhole.consume(LookupUtil.getBeanProperty(this.list.get(j), this.property));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.displaytag.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.displaytag.decorator.TableDecorator;
+import org.displaytag.decorator.TotalTableDecorator;
+import org.displaytag.export.ExportViewFactory;
+import org.displaytag.properties.TableProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Metadata caches read by many render threads at the same time: decorator getters, properties for a locale and the
+ * export view factory. Run with <code>-t 1</code> to compare with the uncontended case.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Dlog4j.configuration=log4j-benchmark.xml"})
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(8)
+public class MetadataCacheBenchmark
+{
+
+    /**
+     * Decorator, shared by all the threads like its getter cache.
+     */
+    private TableDecorator decorator;
+
+    /**
+     * Loads the caches.
+     */
+    @Setup
+    public void setUp()
+    {
+        this.decorator = new TotalTableDecorator();
+        this.decorator.hasGetterFor("totals");
+        this.decorator.hasGetterFor("amount");
+        TableProperties.getInstance(null);
+        ExportViewFactory.getInstance();
+    }
+
+    /**
+     * Decorator.hasGetterFor(), called for each column of each row.
+     * @return found getter
+     */
+    @Benchmark
+    public boolean hasGetterFor()
+    {
+        return this.decorator.hasGetterFor("amount");
+    }
+
+    /**
+     * TableProperties.getInstance(), called for each table.
+     * @return properties
+     */
+    @Benchmark
+    public TableProperties getTableProperties()
+    {
+        return TableProperties.getInstance(null);
+    }
+
+    /**
+     * ExportViewFactory.getInstance(), called for each table.
+     * @return factory
+     */
+    @Benchmark
+    public ExportViewFactory getExportViewFactory()
+    {
+        return ExportViewFactory.getInstance();
+    }
+}
@@ -0,0 +1,32 @@
+<jsp:root version="1.2" xmlns:jsp="http://java.sun.com/JSP/Page"
+  xmlns:display="urn:jsptld:http://displaytag.sf.net">
+  <jsp:text> <![CDATA[<!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Strict//EN"
+        "http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd"> ]]> </jsp:text>
+  <jsp:directive.page contentType="text/html; charset=UTF8"/>
+  <html xmlns="http://www.w3.org/1999/xhtml" lang="en">
+    <head>
+      <meta http-equiv="content-type" content="text/html; charset=UTF-8" />
+      <title>Displaytag load test</title>
+    </head>
+    <body>
+      <jsp:scriptlet> <![CDATA[
+          String rows = request.getParameter("rows");
+          int size = rows != null ? Integer.parseInt(rows) : 100;
+          java.util.List testData = new java.util.ArrayList(size);
+          for (int j = 0; j < size; j++)
+          {
+              testData.add(new org.displaytag.benchmark.BenchmarkItem(j));
+          }
+          request.setAttribute( "test", testData);
+      ]]> </jsp:scriptlet>
+      <display:table name="requestScope.test" uid="load" pagesize="25" splitAt="3">
+        <display:column property="number" style="width:100px" />
+        <display:column property="name" style="width:100px" />
+        <display:column property="group" style="width:100px" />
+        <display:column property="amount" style="width:100px" />
+        <display:column property="time" style="width:100px" />
+        <display:column property="long" style="width:100px" />
+      </display:table>
+    </body>
+  </html>
+</jsp:root>
@@ -25,7 +25,7 @@ import org.displaytag.util.TagConstants;
  * @author Fabrizio Giustina
  * @version $Revision: 1081 $ ($Author: fgiust $)
  */
-public class AutolinkColumnDecorator implements DisplaytagColumnDecorator
+public class AutolinkColumnDecorator implements StatelessColumnDecorator
 {
 
     /**
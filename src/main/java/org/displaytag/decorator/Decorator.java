@@ -14,15 +14,13 @@ package org.displaytag.decorator;
 import java.beans.IndexedPropertyDescriptor;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
-import java.util.Map;
 
 import javax.servlet.jsp.PageContext;
 
 import org.apache.commons.beanutils.MappedPropertyDescriptor;
 import org.apache.commons.beanutils.PropertyUtils;
-import org.apache.commons.lang.BooleanUtils;
 import org.displaytag.model.TableModel;
+import org.displaytag.util.CopyOnWriteCache;
 
 
 /**
@@ -41,14 +39,10 @@ abstract class Decorator
 {
 
     /**
-     * Char used to separate class name and property in the cache key.
+     * property info cache contains decorator class names as keys and, as values, caches with property names as keys and
+     * Booleans as values.
      */
-    private static final char CLASS_PROPERTY_SEPARATOR = '#';
-
-    /**
-     * property info cache contains classname#propertyname Strings as keys and Booleans as values.
-     */
-    private static Map propertyMap = new HashMap();
+    private static CopyOnWriteCache propertyMap = new CopyOnWriteCache();
 
     /**
      * page context.
@@ -138,9 +132,14 @@ abstract class Decorator
             simpleProperty = simpleProperty.substring(0, indexOfDot);
         }
 
-        Boolean cachedResult = (Boolean) propertyMap.get(getClass().getName()
-            + CLASS_PROPERTY_SEPARATOR
-            + simpleProperty);
+        String className = getClass().getName();
+        CopyOnWriteCache classProperties = (CopyOnWriteCache) propertyMap.get(className);
+        if (classProperties == null)
+        {
+            classProperties = (CopyOnWriteCache) propertyMap.putIfAbsent(className, new CopyOnWriteCache());
+        }
+
+        Boolean cachedResult = (Boolean) classProperties.get(simpleProperty);
 
         if (cachedResult != null)
         {
@@ -151,8 +150,7 @@ abstract class Decorator
         boolean hasGetter = searchGetterFor(propertyName);
 
         // save in cache
-        propertyMap.put(getClass().getName() + CLASS_PROPERTY_SEPARATOR + simpleProperty, BooleanUtils
-            .toBooleanObject(hasGetter));
+        classProperties.putIfAbsent(simpleProperty, Boolean.valueOf(hasGetter));
 
         // and return
         return hasGetter;
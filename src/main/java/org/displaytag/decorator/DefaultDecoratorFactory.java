@@ -11,6 +11,12 @@
  */
 package org.displaytag.decorator;
 
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import javax.servlet.jsp.PageContext;
 
 import org.apache.commons.lang.StringUtils;
@@ -21,13 +27,34 @@ import org.displaytag.util.ReflectHelper;
 
 
 /**
- * Factory for TableDecorator or ColumnDecorator object.
+ * Factory for TableDecorator or ColumnDecorator object. Decorator classes are loaded only once, and a single shared
+ * instance is used for column decorators implementing <code>StatelessColumnDecorator</code>. Since names are resolved
+ * using the context classloader, caches are kept for each classloader, so that web applications sharing the displaytag
+ * library don't see each other's decorators. Classloaders are weakly referenced, and decorators loaded from another
+ * classloader than the displaytag one are softly referenced: the cache doesn't prevent an undeployed application from
+ * being garbage collected, but its entries are not dropped at every collection.
  * @author Fabrizio Giustina
  * @version $Id$
  */
 public class DefaultDecoratorFactory implements DecoratorFactory
 {
 
+    /**
+     * Map containing classloader - map of decorator name - decorator Class.
+     */
+    private static Map classes = new WeakHashMap();
+
+    /**
+     * Map containing classloader - map of decorator name - shared instance of a stateless column decorator.
+     */
+    private static Map statelessDecorators = new WeakHashMap();
+
+    /**
+     * Map containing classloader - map of decorator names - array of shared stateless column decorators, for
+     * whitespace separated chains.
+     */
+    private static Map statelessChains = new WeakHashMap();
+
     /**
      * <p>
      * If the user has specified a decorator, then this method takes care of creating the decorator (and checking to
@@ -61,22 +88,7 @@ public class DefaultDecoratorFactory implements DecoratorFactory
         // reflection
         if (decorator == null)
         {
-            try
-            {
-                decorator = ReflectHelper.classForName(decoratorName).newInstance();
-            }
-            catch (ClassNotFoundException e)
-            {
-                throw new DecoratorInstantiationException(DefaultDecoratorFactory.class, decoratorName, e);
-            }
-            catch (InstantiationException e)
-            {
-                throw new DecoratorInstantiationException(DefaultDecoratorFactory.class, decoratorName, e);
-            }
-            catch (IllegalAccessException e)
-            {
-                throw new DecoratorInstantiationException(DefaultDecoratorFactory.class, decoratorName, e);
-            }
+            decorator = newInstance(decoratorName);
         }
 
         if (decorator instanceof TableDecorator)
@@ -126,22 +138,7 @@ public class DefaultDecoratorFactory implements DecoratorFactory
         // reflection
         if (decorator == null)
         {
-            try
-            {
-                decorator = ReflectHelper.classForName(decoratorName).newInstance();
-            }
-            catch (ClassNotFoundException e)
-            {
-                throw new DecoratorInstantiationException(DefaultDecoratorFactory.class, decoratorName, e);
-            }
-            catch (InstantiationException e)
-            {
-                throw new DecoratorInstantiationException(DefaultDecoratorFactory.class, decoratorName, e);
-            }
-            catch (IllegalAccessException e)
-            {
-                throw new DecoratorInstantiationException(DefaultDecoratorFactory.class, decoratorName, e);
-            }
+            decorator = getColumnDecoratorInstance(decoratorName);
         }
 
         if (decorator instanceof DisplaytagColumnDecorator)
@@ -161,6 +158,190 @@ public class DefaultDecoratorFactory implements DecoratorFactory
         }
     }
 
+    /**
+     * Loads a chain of whitespace separated column decorators. The same array is returned for chains made only of
+     * stateless decorators, so it must not be modified.
+     * @param pageContext PageContext
+     * @param decoratorNames whitespace separated decorator names
+     * @return decorators, in the given order
+     * @throws DecoratorInstantiationException if unable to load one of the decorators
+     */
+    public DisplaytagColumnDecorator[] loadColumnDecorators(PageContext pageContext, String decoratorNames)
+        throws DecoratorInstantiationException
+    {
+        String[] names = StringUtils.split(decoratorNames);
+
+        // objects in scope always take precedence
+        boolean inScope = false;
+        for (int j = 0; j < names.length && !inScope; j++)
+        {
+            inScope = pageContext.findAttribute(names[j]) != null;
+        }
+
+        if (!inScope)
+        {
+            DisplaytagColumnDecorator[] chain = (DisplaytagColumnDecorator[]) getCached(
+                statelessChains,
+                decoratorNames);
+            if (chain != null)
+            {
+                return chain;
+            }
+        }
+
+        DisplaytagColumnDecorator[] chain = new DisplaytagColumnDecorator[names.length];
+        boolean stateless = !inScope;
+        for (int j = 0; j < names.length; j++)
+        {
+            chain[j] = loadColumnDecorator(pageContext, names[j]);
+            stateless = stateless && chain[j] instanceof StatelessColumnDecorator;
+        }
+
+        if (stateless)
+        {
+            putCached(statelessChains, decoratorNames, chain);
+        }
+        return chain;
+    }
+
+    /**
+     * Returns a column decorator loaded by class name: the shared instance for stateless decorators, else a new
+     * instance.
+     * @param decoratorName decorator class name
+     * @return decorator instance
+     * @throws DecoratorInstantiationException if unable to load or instantiate the decorator
+     */
+    private static Object getColumnDecoratorInstance(String decoratorName) throws DecoratorInstantiationException
+    {
+        Object decorator = getCached(statelessDecorators, decoratorName);
+        if (decorator != null)
+        {
+            return decorator;
+        }
+
+        decorator = newInstance(decoratorName);
+        if (decorator instanceof StatelessColumnDecorator)
+        {
+            putCached(statelessDecorators, decoratorName, decorator);
+        }
+        return decorator;
+    }
+
+    /**
+     * Instantiates a decorator, loading its class only the first time.
+     * @param decoratorName decorator class name
+     * @return new decorator instance
+     * @throws DecoratorInstantiationException if unable to load or instantiate the decorator
+     */
+    private static Object newInstance(String decoratorName) throws DecoratorInstantiationException
+    {
+        try
+        {
+            Class decoratorClass = (Class) getCached(classes, decoratorName);
+            if (decoratorClass == null)
+            {
+                decoratorClass = ReflectHelper.classForName(decoratorName);
+                putCached(classes, decoratorName, decoratorClass);
+            }
+            return decoratorClass.newInstance();
+        }
+        catch (ClassNotFoundException e)
+        {
+            throw new DecoratorInstantiationException(DefaultDecoratorFactory.class, decoratorName, e);
+        }
+        catch (InstantiationException e)
+        {
+            throw new DecoratorInstantiationException(DefaultDecoratorFactory.class, decoratorName, e);
+        }
+        catch (IllegalAccessException e)
+        {
+            throw new DecoratorInstantiationException(DefaultDecoratorFactory.class, decoratorName, e);
+        }
+    }
+
+    /**
+     * Returns a value cached for the context classloader.
+     * @param cache one of the classloader caches
+     * @param name decorator name
+     * @return cached value, null if not cached or garbage collected
+     */
+    private static Object getCached(Map cache, String name)
+    {
+        synchronized (cache)
+        {
+            Map values = (Map) cache.get(getClassLoader());
+            Object value = values != null ? values.get(name) : null;
+            return value instanceof Reference ? ((Reference) value).get() : value;
+        }
+    }
+
+    /**
+     * Caches a value for the context classloader. Values loaded from an application classloader are softly
+     * referenced, since they would otherwise keep their classloader, the weak key, alive. A weak reference would be
+     * cleared at the next collection, since nothing else holds the shared instance between requests.
+     * @param cache one of the classloader caches
+     * @param name decorator name
+     * @param value value to cache
+     */
+    private static void putCached(Map cache, String name, Object value)
+    {
+        ClassLoader classLoader = getClassLoader();
+        synchronized (cache)
+        {
+            Map values = (Map) cache.get(classLoader);
+            if (values == null)
+            {
+                values = new HashMap();
+                cache.put(classLoader, values);
+            }
+            values.put(name, isSharedClass(value) ? value : new SoftReference(value));
+        }
+    }
+
+    /**
+     * Is a cached value made only of classes loaded by the displaytag classloader or one of its parents? Such values
+     * can't keep an application classloader alive.
+     * @param value Class, decorator or array of decorators
+     * @return <code>true</code> if the value can be strongly referenced
+     */
+    private static boolean isSharedClass(Object value)
+    {
+        if (value instanceof Object[])
+        {
+            Object[] array = (Object[]) value;
+            for (int j = 0; j < array.length; j++)
+            {
+                if (!isSharedClass(array[j]))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Class valueClass = value instanceof Class ? (Class) value : value.getClass();
+        ClassLoader valueClassLoader = valueClass.getClassLoader();
+        for (ClassLoader loader = DefaultDecoratorFactory.class.getClassLoader(); loader != null; loader = loader
+            .getParent())
+        {
+            if (loader == valueClassLoader)
+            {
+                return true;
+            }
+        }
+        return valueClassLoader == null;
+    }
+
+    /**
+     * Returns the classloader used to resolve decorator names.
+     * @return the context classloader, or the displaytag one if not set
+     */
+    private static ClassLoader getClassLoader()
+    {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : DefaultDecoratorFactory.class.getClassLoader();
+    }
+
     /**
      * Wrapper class for handling decorators implementing the deprecated ColumnDecorator interface as 1.1
      * <code>DisplaytagColumnDecorator</code>s.
@@ -22,7 +22,7 @@ import org.displaytag.properties.MediaTypeEnum;
  * @author Fabrizio Giustina
  * @version $Revision$ ($Author$)
  */
-public class EscapeXmlColumnDecorator implements DisplaytagColumnDecorator
+public class EscapeXmlColumnDecorator implements StatelessColumnDecorator
 {
 
     /**
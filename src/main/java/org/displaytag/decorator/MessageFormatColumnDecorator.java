@@ -11,8 +11,12 @@
  */
 package org.displaytag.decorator;
 
+import java.text.Format;
 import java.text.MessageFormat;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import javax.servlet.jsp.PageContext;
 
@@ -23,23 +27,69 @@ import org.displaytag.properties.MediaTypeEnum;
 
 
 /**
+ * <p>
  * A decorator that simply formats input Objects using a <code>java.text.messageFormat</code>. By design, this
  * implementations handle MessageFormat errors by returning the unformatted value and logging the exception.
+ * </p>
+ * <p>
+ * Patterns made only of a number, date or time element, such as <code>{0,number,#,##0.00}</code>, are formatted
+ * directly by the <code>NumberFormat</code> or <code>DateFormat</code> of the element. Instances returned by
+ * <code>getInstance()</code> are compiled once for each pattern and locale and shared: formats are not thread safe, so
+ * each thread formats values with its own copy of the compiled format, without locking.
+ * </p>
  * @author Fabrizio Giustina
  * @version $Id$
  */
-public class MessageFormatColumnDecorator implements DisplaytagColumnDecorator
+public class MessageFormatColumnDecorator implements StatelessColumnDecorator
 {
 
+    /**
+     * Max number of cached decorators, the cache is cleared when it is reached.
+     */
+    private static final int MAX_CACHED = 500;
+
+    /**
+     * Patterns with a single number, date or time element and no text.
+     */
+    private static final Pattern SINGLE_ELEMENT = Pattern.compile(
+        "\\{\\s*0\\s*,\\s*(number|date|time)\\b[^{}']*\\}"); //$NON-NLS-1$
+
     /**
      * Logger.
      */
     private static Log log = LogFactory.getLog(MessageFormatColumnDecorator.class);
 
     /**
-     * Pre-compiled messageFormat.
+     * Map containing pattern and locale - shared decorator.
+     */
+    private static Map instances = new HashMap();
+
+    /**
+     * Pattern, used in error messages.
+     */
+    private final String pattern;
+
+    /**
+     * Pre-compiled messageFormat, or the format of its only element. Never used for formatting, only cloned.
      */
-    private MessageFormat format;
+    private final Format format;
+
+    /**
+     * Copy of format used by the current thread.
+     */
+    private final ThreadLocal threadFormat = new ThreadLocal()
+    {
+
+        protected Object initialValue()
+        {
+            return format.clone();
+        }
+    };
+
+    /**
+     * Is format the format of the only element of the pattern?
+     */
+    private final boolean singleElement;
 
     /**
      * Instantiates a new MessageFormatColumnDecorator with a given pattern and locale.
@@ -49,7 +99,38 @@ public class MessageFormatColumnDecorator implements DisplaytagColumnDecorator
      */
     public MessageFormatColumnDecorator(String pattern, Locale locale)
     {
-        this.format = new MessageFormat(pattern, locale);
+        MessageFormat messageFormat = new MessageFormat(pattern, locale);
+        this.pattern = pattern;
+        this.singleElement = SINGLE_ELEMENT.matcher(pattern).matches()
+            && messageFormat.getFormats().length == 1
+            && messageFormat.getFormats()[0] != null;
+        this.format = this.singleElement ? messageFormat.getFormats()[0] : messageFormat;
+    }
+
+    /**
+     * Returns a shared decorator for the given pattern and locale, compiling the pattern only the first time.
+     * @param pattern see <code>java.text.messageFormat</code>
+     * @param locale current locale
+     * @return MessageFormatColumnDecorator instance
+     */
+    public static MessageFormatColumnDecorator getInstance(String pattern, Locale locale)
+    {
+        String key = locale + "|" + pattern; //$NON-NLS-1$
+        synchronized (instances)
+        {
+            MessageFormatColumnDecorator decorator = (MessageFormatColumnDecorator) instances.get(key);
+            if (decorator == null)
+            {
+                if (instances.size() >= MAX_CACHED)
+                {
+                    // patterns evaluated from expressions should not fill the memory
+                    instances.clear();
+                }
+                decorator = new MessageFormatColumnDecorator(pattern, locale);
+                instances.put(key, decorator);
+            }
+            return decorator;
+        }
     }
 
     /**
@@ -59,12 +140,22 @@ public class MessageFormatColumnDecorator implements DisplaytagColumnDecorator
     {
         try
         {
-            return this.format.format(new Object[]{columnValue});
+            Format threadCopy = (Format) this.threadFormat.get();
+            if (this.singleElement)
+            {
+                if (columnValue == null)
+                {
+                    // as MessageFormat does
+                    return "null"; //$NON-NLS-1$
+                }
+                return threadCopy.format(columnValue);
+            }
+            return threadCopy.format(new Object[]{columnValue});
         }
         catch (IllegalArgumentException e)
         {
             log.error(Messages.getString("MessageFormatColumnDecorator.invalidArgument", new Object[]{ //$NON-NLS-1$
-                this.format.toPattern(), columnValue != null ? columnValue.getClass().getName() : "null"})); //$NON-NLS-1$
+                this.pattern, columnValue != null ? columnValue.getClass().getName() : "null"})); //$NON-NLS-1$
 
             return columnValue;
         }
@@ -22,8 +22,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.displaytag.exception.DecoratorException;
 import org.displaytag.exception.ObjectLookupException;
+import org.displaytag.model.Cell;
 import org.displaytag.model.Column;
-import org.displaytag.model.ColumnIterator;
 import org.displaytag.model.HeaderCell;
 import org.displaytag.model.Row;
 import org.displaytag.model.TableModel;
@@ -33,6 +33,10 @@ import org.displaytag.util.TagConstants;
 /**
  * A TableDecorator that, in conjunction with totaled and grouped columns, produces multi level subtotals on arbitrary
  * String groupings.  Use it directly, subclass it, or use it as an example to better meet your local needs.
+ * Totals are computed in a single pass while rows are rendered: each value is added to the totals of the innermost
+ * group only, and the totals of a group are added to the enclosing group (or to the grand total) when the group ends.
+ * Subclasses which override <code>getTotalForColumn()</code> get the totals from that method instead, computed on the
+ * rows of each group as in previous versions.
  * @author rapruitt
  * @author Fabrizio Giustina
  */
@@ -50,9 +54,31 @@ public class MultilevelTotalTableDecorator extends TableDecorator
     private static final int NO_RESET_GROUP = 4200;
 
     /**
-     * Maps the groups to their current totals.
+     * Current totals of the groups, indexed by group number. Null for group numbers which are not used.
      */
-    private Map groupNumberToGroupTotal = new HashMap();
+    private GroupTotals[] groupTotals = new GroupTotals[0];
+
+    /**
+     * Numbers of the totaled columns.
+     */
+    private int[] totaledColumns = new int[0];
+
+    /**
+     * Columns passed to <code>add()</code>, indexed by column number. Not bound to any row, so that the totals can be
+     * computed without creating a Column for each cell.
+     */
+    private Column[] columns = new Column[0];
+
+    /**
+     * Does the subclass override <code>getTotalForColumn()</code>? If so totals are read from that method.
+     */
+    private boolean totalForColumnOverridden;
+
+    /**
+     * Totals of rows which are not in any group (all rows, if there are no grouped columns) and of ended outermost
+     * groups, indexed by column number.
+     */
+    private Object[] grandTotals = new Object[0];
 
     /**
      * The deepest reset group. Resets on an outer group will force any deeper groups to reset as well.
@@ -119,22 +145,71 @@ public class MultilevelTotalTableDecorator extends TableDecorator
     public void init(PageContext context, Object decorated, TableModel model)
     {
         super.init(context, decorated, model);
+
+        // reset
+        containsTotaledColumns = false;
+        innermostGroup = 0;
+        deepestResetGroup = NO_RESET_GROUP;
+        headerRows.clear();
+        totalForColumnOverridden = isTotalForColumnOverridden(getClass());
+
         List headerCells = model.getHeaderCellList();
-        // go through each column, looking for grouped columns; add them to the group number map
+        int[] totaled = new int[headerCells.size()];
+        int totaledCount = 0;
+        columns = new Column[headerCells.size()];
+        // go through each column, looking for totaled and grouped columns
         for (Iterator iterator = headerCells.iterator(); iterator.hasNext();)
         {
             HeaderCell headerCell = (HeaderCell) iterator.next();
             containsTotaledColumns = containsTotaledColumns || headerCell.isTotaled();
+            if (headerCell.isTotaled())
+            {
+                totaled[totaledCount++] = headerCell.getColumnNumber();
+            }
+            if (headerCell.getGroup() > innermostGroup)
+            {
+                innermostGroup = headerCell.getGroup();
+            }
+            columns[headerCell.getColumnNumber()] = new Column(headerCell, Cell.EMPTY_CELL, null);
+        }
+
+        groupTotals = new GroupTotals[innermostGroup + 1];
+        for (Iterator iterator = headerCells.iterator(); iterator.hasNext();)
+        {
+            HeaderCell headerCell = (HeaderCell) iterator.next();
             if (headerCell.getGroup() > 0)
             {
-                groupNumberToGroupTotal.put(new Integer(headerCell.getGroup()), new GroupTotals(headerCell
-                    .getColumnNumber()));
-                if (headerCell.getGroup() > innermostGroup)
-                {
-                    innermostGroup = headerCell.getGroup();
-                }
+                groupTotals[headerCell.getGroup()] = new GroupTotals(headerCell.getColumnNumber());
+            }
+        }
+
+        totaledColumns = new int[totaledCount];
+        System.arraycopy(totaled, 0, totaledColumns, 0, totaledCount);
+        grandTotals = new Object[headerCells.size()];
+    }
+
+    /**
+     * Checks if a decorator class overrides <code>getTotalForColumn()</code>.
+     * @param decoratorClass MultilevelTotalTableDecorator or a subclass
+     * @return <code>true</code> if a subclass declares <code>getTotalForColumn()</code>
+     */
+    private static boolean isTotalForColumnOverridden(Class decoratorClass)
+    {
+        Class[] parameterTypes = new Class[]{Integer.TYPE, Integer.TYPE, Integer.TYPE};
+        for (Class current = decoratorClass; current != MultilevelTotalTableDecorator.class; current = current
+            .getSuperclass())
+        {
+            try
+            {
+                current.getDeclaredMethod("getTotalForColumn", parameterTypes); //$NON-NLS-1$
+                return true;
+            }
+            catch (NoSuchMethodException e)
+            {
+                // not declared in this class
             }
         }
+        return false;
     }
 
     public String getGrandTotalDescription()
@@ -224,8 +299,7 @@ public class MultilevelTotalTableDecorator extends TableDecorator
         {
             StringBuffer tr = new StringBuffer();
             tr.append("<tr>");
-            GroupTotals groupTotals = (GroupTotals) groupNumberToGroupTotal.get(new Integer(group));
-            int myColumnNumber = groupTotals.columnNumber;
+            int myColumnNumber = groupTotals[group].columnNumber;
             for (int i = 0; i < myColumnNumber; i++)
             {
                 tr.append("<td></td>\n");
@@ -262,9 +336,84 @@ public class MultilevelTotalTableDecorator extends TableDecorator
             StringBuffer stringBuffer = (StringBuffer) iterator.next();
             sb.append(stringBuffer);
         }
+        if (containsTotaledColumns && !totalForColumnOverridden)
+        {
+            addToTotals();
+        }
         return sb.toString();
     }
 
+    /**
+     * Adds the values of the current row to the totals of the innermost group.
+     */
+    private void addToTotals()
+    {
+        GroupTotals innermost = groupTotals[innermostGroup];
+        Object[] totals = innermost != null ? innermost.totals : grandTotals;
+        Row row = (Row) tableModel.getRowListFull().get(getListIndex());
+        List cells = row.getCellList();
+        List headerCells = tableModel.getHeaderCellList();
+
+        for (int j = 0; j < totaledColumns.length; j++)
+        {
+            int columnNumber = totaledColumns[j];
+
+            // same value as Column.getValue(false), read without creating a Column
+            Object value = columnNumber < cells.size() ? ((Cell) cells.get(columnNumber)).getStaticValue() : null;
+            String propertyName = ((HeaderCell) headerCells.get(columnNumber)).getBeanPropertyName();
+            if (value == null && propertyName != null)
+            {
+                try
+                {
+                    value = tableModel.getRowAdapter().getProperty(row.getObject(), propertyName);
+                }
+                catch (ObjectLookupException e)
+                {
+                    logger.error(e);
+                }
+            }
+            if (value != null && ! TagConstants.EMPTY_STRING.equals(value))
+            {
+                totals[columnNumber] = add(columns[columnNumber], totals[columnNumber], value);
+            }
+        }
+    }
+
+    /**
+     * Returns the totals of the group enclosing the given one, or the grand totals for the outermost group.
+     * @param groupNumber group number
+     * @return totals, indexed by column number
+     */
+    private Object[] getEnclosingTotals(int groupNumber)
+    {
+        for (int i = groupNumber - 1; i > 0; i--)
+        {
+            if (groupTotals[i] != null)
+            {
+                return groupTotals[i].totals;
+            }
+        }
+        return grandTotals;
+    }
+
+    /**
+     * Returns a column of a row, without iterating on the other columns.
+     * @param row Row
+     * @param columnNumber column number
+     * @return Column
+     */
+    private Column getColumn(Row row, int columnNumber)
+    {
+        List headerCells = tableModel.getHeaderCellList();
+        if (columnNumber < 0 || columnNumber >= headerCells.size())
+        {
+            throw new RuntimeException("Unable to find column " + columnNumber + " in the list of columns");
+        }
+        List cells = row.getCellList();
+        Cell cell = columnNumber < cells.size() ? (Cell) cells.get(columnNumber) : Cell.EMPTY_CELL;
+        return new Column((HeaderCell) headerCells.get(columnNumber), cell, row);
+    }
+
     public void endOfGroup(String value, int groupNumber)
     {
         if (deepestResetGroup > groupNumber)
@@ -284,15 +433,14 @@ public class MultilevelTotalTableDecorator extends TableDecorator
                 // Starting with the deepest group, print the current total and reset. Do not reset unaffected groups.
                 for (int i = innermostGroup; i >= deepestResetGroup; i--)
                 {
-                    Integer groupNumber = new Integer(i);
-
-                    GroupTotals totals = (GroupTotals) groupNumberToGroupTotal.get(groupNumber);
+                    GroupTotals totals = groupTotals[i];
                     if (totals == null)
                     {
-                        logger.warn("There is a gap in the defined groups - no group defined for " + groupNumber);
+                        logger.warn("There is a gap in the defined groups - no group defined for " + i);
                         continue;
                     }
                     totals.printTotals(getListIndex(), out);
+                    totals.addTo(getEnclosingTotals(i));
                     totals.setStartRow(getListIndex() + 1);
                 }
                 returnValue = out.toString();
@@ -322,7 +470,7 @@ public class MultilevelTotalTableDecorator extends TableDecorator
         {
             List headerCells = tableModel.getHeaderCellList();
             StringBuffer output = new StringBuffer();
-            int currentRow = getListIndex();
+            Row currentRow = (Row) tableModel.getRowListFull().get(getListIndex());
             output.append(TagConstants.TAG_OPEN + TagConstants.TAGNAME_ROW
                     + " class=\"grandtotal-row\"" + TagConstants.TAG_CLOSE);
             boolean first = true;
@@ -338,7 +486,9 @@ public class MultilevelTotalTableDecorator extends TableDecorator
                 else if (headerCell.isTotaled())
                 {
                     // a total if the column should be totaled
-                    Object total = getTotalForColumn(headerCell.getColumnNumber(), 0, currentRow);
+                    Object total = totalForColumnOverridden
+                        ? getTotalForColumn(headerCell.getColumnNumber(), 0, getListIndex())
+                        : getGrandTotal(headerCell.getColumnNumber(), currentRow);
                     output.append(getTotalsTdOpen(headerCell, getGrandTotalSum()));
                     output.append(formatTotal(headerCell, total));
                 }
@@ -363,69 +513,107 @@ public class MultilevelTotalTableDecorator extends TableDecorator
     {
         List fullList = tableModel.getRowListFull();
         Row row = (Row) fullList.get(rowNumber);
-        ColumnIterator columnIterator = row.getColumnIterator(tableModel.getHeaderCellList());
-        while (columnIterator.hasNext())
+        Column column = getColumn(row, columnNumber);
+        try
+        {
+            column.initialize();
+            return column.getChoppedAndLinkedValue();
+        }
+        catch (ObjectLookupException e)
+        {
+            logger.error("Error: " + e.getMessage(), e);
+            throw new RuntimeException("Error: " + e.getMessage(), e);
+        }
+        catch (DecoratorException e)
+        {
+            logger.error("Error: " + e.getMessage(), e);
+            throw new RuntimeException("Error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the function requested from an AggregatingPaginatedList for the grand totals. Defaults to
+     * <code>TotalTableDecorator.SUM</code>; subclasses can return any other function supported by the list.
+     * @return aggregate function name
+     */
+    protected String getGrandTotalFunction()
+    {
+        return TotalTableDecorator.SUM;
+    }
+
+    /**
+     * Returns the grand total of a column: the grand totals plus the totals of any group which has not ended yet, or
+     * the aggregate computed on the full list if the table is backed by an AggregatingPaginatedList.
+     * @param columnNumber column number
+     * @param row current row
+     * @return total, null if the column has no values
+     */
+    protected Object getGrandTotal(int columnNumber, Row row)
+    {
+        Column column = columns[columnNumber];
+        Number aggregate = tableModel.getAggregate(column.getHeaderCell().getBeanPropertyName(),
+            getGrandTotalFunction());
+        if (aggregate != null)
+        {
+            return aggregate;
+        }
+
+        Object total = grandTotals[columnNumber];
+        for (int i = 1; i < groupTotals.length; i++)
         {
-            Column column = columnIterator.nextColumn();
-            if (column.getHeaderCell().getColumnNumber() == columnNumber)
+            Object groupTotal = groupTotals[i] != null ? groupTotals[i].totals[columnNumber] : null;
+            if (groupTotal != null)
             {
-                try
-                {
-                    column.initialize();
-                    return column.getChoppedAndLinkedValue();
-                }
-                catch (ObjectLookupException e)
-                {
-                    logger.error("Error: " + e.getMessage(), e);
-                    throw new RuntimeException("Error: " + e.getMessage(), e);
-                }
-                catch (DecoratorException e)
-                {
-                    logger.error("Error: " + e.getMessage(), e);
-                    throw new RuntimeException("Error: " + e.getMessage(), e);
-                }
+                total = add(column, total, groupTotal);
             }
         }
-        throw new RuntimeException("Unable to find column " + columnNumber + " in the list of columns");
+        return total;
     }
 
+    /**
+     * Computes the total of a column for a range of rows, scanning the rows. Totals printed by the decorator are
+     * computed incrementally, unless a subclass overrides this method: then all the printed totals, including the
+     * grand total, are read from it.
+     * @param columnNumber column number
+     * @param startRow first row
+     * @param stopRow last row, included
+     * @return total, null if the column has no values
+     */
     protected Object getTotalForColumn(int columnNumber, int startRow, int stopRow)
     {
         List fullList = tableModel.getRowListFull();
-        List window = fullList.subList(startRow, stopRow + 1);
         Object total = null;
-        for (Iterator iterator = window.iterator(); iterator.hasNext();)
+        for (int rowNumber = startRow; rowNumber <= stopRow; rowNumber++)
         {
-            Row row = (Row) iterator.next();
-            ColumnIterator columnIterator = row.getColumnIterator(tableModel.getHeaderCellList());
-            while (columnIterator.hasNext())
+            Column column = getColumn((Row) fullList.get(rowNumber), columnNumber);
+            Object value = null;
+            try
             {
-                Column column = columnIterator.nextColumn();
-                if (column.getHeaderCell().getColumnNumber() == columnNumber)
-                {
-                    Object value = null;
-                    try
-                    {
-                        value = column.getValue(false);
-                    }
-                    catch (ObjectLookupException e)
-                    {
-                        logger.error(e);
-                    }
-                    catch (DecoratorException e)
-                    {
-                        logger.error(e);
-                    }
-                    if (value != null && ! TagConstants.EMPTY_STRING.equals(value))
-                    {
-                        total = add(column, total, value);
-                    }
-                }
+                value = column.getValue(false);
+            }
+            catch (ObjectLookupException e)
+            {
+                logger.error(e);
+            }
+            catch (DecoratorException e)
+            {
+                logger.error(e);
+            }
+            if (value != null && ! TagConstants.EMPTY_STRING.equals(value))
+            {
+                total = add(column, total, value);
             }
         }
         return total;
     }
 
+    /**
+     * Adds a value to a total.
+     * @param column totaled column. Only the header cell is meaningful: the column may not be bound to a row
+     * @param total current total, null if no value has been added yet
+     * @param value value to add
+     * @return new total
+     */
     protected Object add(Column column, Object total, Object value) {
         if (value == null)
         {
@@ -529,10 +717,33 @@ public class MultilevelTotalTableDecorator extends TableDecorator
 
         private int firstRowOfCurrentSet;
 
+        /**
+         * Running totals of the current set, indexed by column number.
+         */
+        private Object[] totals;
+
         public GroupTotals(int headerCellColumn)
         {
             this.columnNumber = headerCellColumn;
             this.firstRowOfCurrentSet = 0;
+            this.totals = new Object[tableModel.getHeaderCellList().size()];
+        }
+
+        /**
+         * Adds the totals of the current set to the enclosing totals, and resets them.
+         * @param enclosingTotals totals of the enclosing group, or grand totals
+         */
+        public void addTo(Object[] enclosingTotals)
+        {
+            for (int j = 0; j < totaledColumns.length; j++)
+            {
+                int column = totaledColumns[j];
+                if (totals[column] != null)
+                {
+                    enclosingTotals[column] = add(columns[column], enclosingTotals[column], totals[column]);
+                    totals[column] = null;
+                }
+            }
         }
 
         public void printTotals(int currentRow, StringBuffer out)
@@ -557,8 +768,9 @@ public class MultilevelTotalTableDecorator extends TableDecorator
                     else if (headerCell.isTotaled())
                     {
                         // a total if the column should be totaled
-                        Object total = getTotalForColumn(headerCell.getColumnNumber(),
-                                firstRowOfCurrentSet, currentRow);
+                        Object total = totalForColumnOverridden
+                            ? getTotalForColumn(headerCell.getColumnNumber(), firstRowOfCurrentSet, currentRow)
+                            : totals[headerCell.getColumnNumber()];
                         out.append(getTotalsTdOpen(headerCell, getTotalValueClass() + " group-" + (columnNumber + 1)));
                         out.append(formatTotal(headerCell, total));
                     }
@@ -0,0 +1,25 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.decorator;
+
+/**
+ * <p>
+ * Marker interface for column decorators which keep no state between calls to <code>decorate()</code> and are safe to
+ * be called concurrently. When loaded by class name from the <code>DefaultDecoratorFactory</code>, a single shared
+ * instance of a stateless decorator is reused for every column and request, instead of creating a new one each time.
+ * </p>
+ * @version $Revision$ ($Author$)
+ * @since 1.2
+ */
+public interface StatelessColumnDecorator extends DisplaytagColumnDecorator
+{
+}
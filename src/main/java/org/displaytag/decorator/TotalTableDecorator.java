@@ -11,11 +11,14 @@
  */
 package org.displaytag.decorator;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.text.MessageFormat;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.servlet.jsp.PageContext;
 
@@ -29,14 +32,51 @@ import org.displaytag.model.TableModel;
 
 
 /**
+ * <p>
  * A table decorator which adds rows with totals (for column with the "total" attribute set) and subtotals (grouping by
  * the column with a group="1" attribute).
+ * </p>
+ * <p>
+ * By default totaled columns show the sum of their values, as a Double. Subclasses can choose a different function
+ * for a column with <code>setTotalFunction()</code> (<code>count</code>, <code>min</code>, <code>max</code> or
+ * <code>avg</code>), and use <code>setExactTotal()</code> for columns which must be totaled as BigDecimals, like
+ * money amounts. Totals are kept in primitive arrays indexed by column number, so no object is allocated while rows
+ * are processed unless exact totals are used.
+ * </p>
+ * <p>
+ * If the table is backed by an AggregatingPaginatedList, grand totals are the aggregates computed on the full list.
+ * </p>
  * @author Fabrizio Giustina
  * @version $Id$
  */
 public class TotalTableDecorator extends TableDecorator
 {
 
+    /**
+     * Sum of the values, the default.
+     */
+    public static final String SUM = "sum"; //$NON-NLS-1$
+
+    /**
+     * Number of not null values.
+     */
+    public static final String COUNT = "count"; //$NON-NLS-1$
+
+    /**
+     * Min value.
+     */
+    public static final String MIN = "min"; //$NON-NLS-1$
+
+    /**
+     * Max value.
+     */
+    public static final String MAX = "max"; //$NON-NLS-1$
+
+    /**
+     * Average of the not null values. Exact averages keep the scale of the sum.
+     */
+    public static final String AVG = "avg"; //$NON-NLS-1$
+
     /**
      * Logger.
      */
@@ -45,17 +85,37 @@ public class TotalTableDecorator extends TableDecorator
     /**
      * total amount.
      */
-    private Map grandTotals = new HashMap();
+    private Accumulator grandTotals = new Accumulator(0);
 
     /**
      * total amount for current group.
      */
-    private Map subTotals = new HashMap();
+    private Accumulator subTotals = new Accumulator(0);
 
     /**
-     * Previous values needed for grouping.
+     * Map containing property name - function, for columns which are not simply summed.
      */
-    private Map previousValues = new HashMap();
+    private Map functions = new HashMap();
+
+    /**
+     * Names of the properties totaled as BigDecimals.
+     */
+    private Set exactProperties = new HashSet();
+
+    /**
+     * Column numbers of totaled columns.
+     */
+    private int[] totaledColumns = new int[0];
+
+    /**
+     * Properties of totaled columns, indexed by column number.
+     */
+    private String[] totaledProperties = new String[0];
+
+    /**
+     * Previous value needed for grouping.
+     */
+    private Object previousGroupValue;
 
     /**
      * Name of the property used for grouping.
@@ -90,6 +150,33 @@ public class TotalTableDecorator extends TableDecorator
         this.totalLabel = totalLabel;
     }
 
+    /**
+     * Sets the function used for totals of a column.
+     * @param propertyName column property
+     * @param function <code>SUM</code>, <code>COUNT</code>, <code>MIN</code>, <code>MAX</code> or <code>AVG</code>
+     */
+    public void setTotalFunction(String propertyName, String function)
+    {
+        this.functions.put(propertyName, function);
+    }
+
+    /**
+     * Totals a column as BigDecimals, avoiding rounding errors. Slower, since a BigDecimal is created for each value.
+     * @param propertyName column property
+     * @param exact <code>true</code> to use BigDecimals
+     */
+    public void setExactTotal(String propertyName, boolean exact)
+    {
+        if (exact)
+        {
+            this.exactProperties.add(propertyName);
+        }
+        else
+        {
+            this.exactProperties.remove(propertyName);
+        }
+    }
+
     /**
      * @see org.displaytag.decorator.Decorator#init(PageContext, Object, TableModel)
      */
@@ -99,17 +186,38 @@ public class TotalTableDecorator extends TableDecorator
 
         // reset
         groupPropertyName = null;
-        grandTotals.clear();
-        subTotals.clear();
-        previousValues.clear();
+        previousGroupValue = null;
 
-        for (Iterator it = tableModel.getHeaderCellList().iterator(); it.hasNext();)
+        List headerCells = tableModel.getHeaderCellList();
+        int size = headerCells.size();
+        int totaledCount = 0;
+        int[] columns = new int[size];
+        boolean[] exact = new boolean[size];
+        totaledProperties = new String[size];
+
+        for (int j = 0; j < size; j++)
         {
-            HeaderCell cell = (HeaderCell) it.next();
+            HeaderCell cell = (HeaderCell) headerCells.get(j);
             if (cell.getGroup() == 1)
             {
                 groupPropertyName = cell.getBeanPropertyName();
             }
+            if (cell.isTotaled())
+            {
+                columns[totaledCount++] = j;
+                totaledProperties[j] = cell.getBeanPropertyName();
+                exact[j] = exactProperties.contains(totaledProperties[j]);
+            }
+        }
+
+        totaledColumns = new int[totaledCount];
+        System.arraycopy(columns, 0, totaledColumns, 0, totaledCount);
+        grandTotals = new Accumulator(size);
+        subTotals = new Accumulator(size);
+        if (!exactProperties.isEmpty())
+        {
+            grandTotals.setExact(exact);
+            subTotals.setExact(exact);
         }
     }
 
@@ -120,35 +228,22 @@ public class TotalTableDecorator extends TableDecorator
         if (groupPropertyName != null)
         {
             Object groupedPropertyValue = evaluate(groupPropertyName);
-            Object previousGroupedPropertyValue = previousValues.get(groupPropertyName);
             // subtotals
-            if (previousGroupedPropertyValue != null
-                && !ObjectUtils.equals(previousGroupedPropertyValue, groupedPropertyValue))
+            if (previousGroupValue != null && !ObjectUtils.equals(previousGroupValue, groupedPropertyValue))
             {
                 subtotalRow = createTotalRow(false);
             }
-            previousValues.put(groupPropertyName, groupedPropertyValue);
+            previousGroupValue = groupedPropertyValue;
         }
 
-        for (Iterator it = tableModel.getHeaderCellList().iterator(); it.hasNext();)
+        for (int j = 0; j < totaledColumns.length; j++)
         {
-            HeaderCell cell = (HeaderCell) it.next();
-            if (cell.isTotaled())
+            int column = totaledColumns[j];
+            Number amount = (Number) evaluate(totaledProperties[column]);
+            if (amount != null)
             {
-                String totalPropertyName = cell.getBeanPropertyName();
-                Number amount = (Number) evaluate(totalPropertyName);
-
-                Number previousSubTotal = (Number) subTotals.get(totalPropertyName);
-                Number previousGrandTotals = (Number) grandTotals.get(totalPropertyName);
-
-                subTotals.put(totalPropertyName, new Double((previousSubTotal != null
-                    ? previousSubTotal.doubleValue()
-                    : 0)
-                    + (amount != null ? amount.doubleValue() : 0)));
-
-                grandTotals.put(totalPropertyName, new Double((previousGrandTotals != null ? previousGrandTotals
-                    .doubleValue() : 0)
-                    + (amount != null ? amount.doubleValue() : 0)));
+                subTotals.add(column, amount);
+                grandTotals.add(column, amount);
             }
         }
 
@@ -177,6 +272,31 @@ public class TotalTableDecorator extends TableDecorator
 
     }
 
+    /**
+     * Returns the undecorated total of a column.
+     * @param column column number
+     * @param grandTotal <code>true</code> for the grand total, <code>false</code> for the subtotal of the current group
+     * @return total, as a Double (Long for counts, BigDecimal for exact totals), null for min, max and avg of a column
+     * without values. Grand totals of tables backed by an AggregatingPaginatedList are returned as computed by the list
+     */
+    protected Object getTotal(int column, boolean grandTotal)
+    {
+        String function = (String) functions.get(totaledProperties[column]);
+        if (function == null)
+        {
+            function = SUM;
+        }
+        if (grandTotal)
+        {
+            Number aggregate = tableModel.getAggregate(totaledProperties[column], function);
+            if (aggregate != null)
+            {
+                return aggregate;
+            }
+        }
+        return (grandTotal ? grandTotals : subTotals).get(column, function);
+    }
+
     protected String createTotalRow(boolean grandTotal)
     {
         StringBuffer buffer = new StringBuffer(1000);
@@ -184,9 +304,9 @@ public class TotalTableDecorator extends TableDecorator
 
         List headerCells = tableModel.getHeaderCellList();
 
-        for (Iterator it = headerCells.iterator(); it.hasNext();)
+        for (int j = 0; j < headerCells.size(); j++)
         {
-            HeaderCell cell = (HeaderCell) it.next();
+            HeaderCell cell = (HeaderCell) headerCells.get(j);
             String cssClass = ObjectUtils.toString(cell.getHtmlAttributes().get("class"));
 
             buffer.append("<td"); //$NON-NLS-1$
@@ -200,15 +320,14 @@ public class TotalTableDecorator extends TableDecorator
 
             if (cell.isTotaled())
             {
-                String totalPropertyName = cell.getBeanPropertyName();
-                Object total = grandTotal ? grandTotals.get(totalPropertyName) : subTotals.get(totalPropertyName);
+                Object total = getTotal(j, grandTotal);
 
                 DisplaytagColumnDecorator[] decorators = cell.getColumnDecorators();
-                for (int j = 0; j < decorators.length; j++)
+                for (int k = 0; k < decorators.length; k++)
                 {
                     try
                     {
-                        total = decorators[j].decorate(total, this.getPageContext(), tableModel.getMedia());
+                        total = decorators[k].decorate(total, this.getPageContext(), tableModel.getMedia());
                     }
                     catch (DecoratorException e)
                     {
@@ -216,12 +335,16 @@ public class TotalTableDecorator extends TableDecorator
                         // ignore, use undecorated value for totals
                     }
                 }
-                buffer.append(total);
+                if (total != null)
+                {
+                    buffer.append(total);
+                }
             }
             else if (groupPropertyName != null && groupPropertyName.equals(cell.getBeanPropertyName()))
             {
-                buffer.append(grandTotal ? totalLabel : MessageFormat.format(subtotalLabel, new Object[]{previousValues
-                    .get(groupPropertyName)}));
+                buffer.append(grandTotal ? totalLabel : MessageFormat.format(
+                    subtotalLabel,
+                    new Object[]{previousGroupValue}));
             }
 
             buffer.append("</td>"); //$NON-NLS-1$
@@ -231,9 +354,208 @@ public class TotalTableDecorator extends TableDecorator
         buffer.append("</tr>"); //$NON-NLS-1$
 
         // reset subtotal
-        this.subTotals.clear();
+        this.subTotals.reset();
 
         return buffer.toString();
     }
 
+    /**
+     * Running totals for all the columns, indexed by column number.
+     */
+    static final class Accumulator
+    {
+
+        /**
+         * Sum of values.
+         */
+        private final double[] sum;
+
+        /**
+         * Min value.
+         */
+        private final double[] min;
+
+        /**
+         * Max value.
+         */
+        private final double[] max;
+
+        /**
+         * Number of values.
+         */
+        private final long[] count;
+
+        /**
+         * Columns totaled as BigDecimals, null if none.
+         */
+        private boolean[] exact;
+
+        /**
+         * Exact sum, min and max of values, only for exact columns.
+         */
+        private BigDecimal[] exactSum;
+
+        /**
+         * Exact min value.
+         */
+        private BigDecimal[] exactMin;
+
+        /**
+         * Exact max value.
+         */
+        private BigDecimal[] exactMax;
+
+        /**
+         * Instantiates a new Accumulator.
+         * @param columns number of columns
+         */
+        Accumulator(int columns)
+        {
+            this.sum = new double[columns];
+            this.min = new double[columns];
+            this.max = new double[columns];
+            this.count = new long[columns];
+        }
+
+        /**
+         * Sets the columns totaled as BigDecimals.
+         * @param exactColumns <code>true</code> for exact columns, indexed by column number
+         */
+        void setExact(boolean[] exactColumns)
+        {
+            this.exact = exactColumns;
+            this.exactSum = new BigDecimal[exactColumns.length];
+            this.exactMin = new BigDecimal[exactColumns.length];
+            this.exactMax = new BigDecimal[exactColumns.length];
+            reset();
+        }
+
+        /**
+         * Adds a value.
+         * @param column column number
+         * @param value not null value
+         */
+        void add(int column, Number value)
+        {
+            double doubleValue = value.doubleValue();
+            if (this.count[column]++ == 0)
+            {
+                this.min[column] = doubleValue;
+                this.max[column] = doubleValue;
+            }
+            else if (doubleValue < this.min[column])
+            {
+                this.min[column] = doubleValue;
+            }
+            else if (doubleValue > this.max[column])
+            {
+                this.max[column] = doubleValue;
+            }
+            this.sum[column] += doubleValue;
+
+            if (this.exact != null && this.exact[column])
+            {
+                BigDecimal decimal = toBigDecimal(value);
+                this.exactSum[column] = this.exactSum[column].add(decimal);
+                if (this.exactMin[column] == null || decimal.compareTo(this.exactMin[column]) < 0)
+                {
+                    this.exactMin[column] = decimal;
+                }
+                if (this.exactMax[column] == null || decimal.compareTo(this.exactMax[column]) > 0)
+                {
+                    this.exactMax[column] = decimal;
+                }
+            }
+        }
+
+        /**
+         * Returns a total.
+         * @param column column number
+         * @param function <code>SUM</code>, <code>COUNT</code>, <code>MIN</code>, <code>MAX</code> or
+         * <code>AVG</code>
+         * @return total
+         */
+        Object get(int column, String function)
+        {
+            boolean exactColumn = this.exact != null && this.exact[column];
+            long columnCount = this.count[column];
+
+            if (COUNT.equals(function))
+            {
+                return new Long(columnCount);
+            }
+            if (MIN.equals(function))
+            {
+                if (columnCount == 0)
+                {
+                    return null;
+                }
+                return exactColumn ? (Object) this.exactMin[column] : new Double(this.min[column]);
+            }
+            if (MAX.equals(function))
+            {
+                if (columnCount == 0)
+                {
+                    return null;
+                }
+                return exactColumn ? (Object) this.exactMax[column] : new Double(this.max[column]);
+            }
+            if (AVG.equals(function))
+            {
+                if (columnCount == 0)
+                {
+                    return null;
+                }
+                if (exactColumn)
+                {
+                    BigDecimal total = this.exactSum[column];
+                    return total.divide(BigDecimal.valueOf(columnCount), total.scale(), BigDecimal.ROUND_HALF_EVEN);
+                }
+                return new Double(this.sum[column] / columnCount);
+            }
+            return exactColumn ? (Object) this.exactSum[column] : new Double(this.sum[column]);
+        }
+
+        /**
+         * Resets all the totals.
+         */
+        void reset()
+        {
+            for (int j = 0; j < this.sum.length; j++)
+            {
+                this.sum[j] = 0;
+                this.count[j] = 0;
+                if (this.exact != null)
+                {
+                    this.exactSum[j] = new BigDecimal(BigInteger.ZERO);
+                    this.exactMin[j] = null;
+                    this.exactMax[j] = null;
+                }
+            }
+        }
+
+        /**
+         * Converts a Number to BigDecimal without losing precision.
+         * @param value Number
+         * @return BigDecimal
+         */
+        private static BigDecimal toBigDecimal(Number value)
+        {
+            if (value instanceof BigDecimal)
+            {
+                return (BigDecimal) value;
+            }
+            if (value instanceof BigInteger)
+            {
+                return new BigDecimal((BigInteger) value);
+            }
+            if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            {
+                return BigDecimal.valueOf(value.longValue());
+            }
+            // shortest decimal representation of the double
+            return new BigDecimal(Double.toString(value.doubleValue()));
+        }
+    }
+
 }
@@ -66,6 +66,12 @@ public abstract class BaseExportView implements TextExportView
      */
     private boolean decorated;
 
+    /**
+     * Does a subclass override <code>escapeColumnValue()</code>? Lazily computed by
+     * <code>isEscapeColumnValueOverridden()</code>.
+     */
+    private Boolean escapeOverridden;
+
     /**
      * @see org.displaytag.export.ExportView#setParameters(org.displaytag.model.TableModel, boolean, boolean, boolean)
      */
@@ -210,10 +216,55 @@ public abstract class BaseExportView implements TextExportView
 
     }
 
+    /**
+     * Checks if <code>escapeColumnValue()</code> has been overridden by a subclass of the given view class. Views
+     * escaping values directly in <code>writeColumnValue()</code> must then write the value returned by
+     * <code>escapeColumnValue()</code> instead, so that the customized escaping is used for both headers and values.
+     * @param viewClass the view class declaring the escaping being bypassed
+     * @return <code>true</code> if a subclass of viewClass declares <code>escapeColumnValue(Object)</code>
+     */
+    protected boolean isEscapeColumnValueOverridden(Class viewClass)
+    {
+        if (this.escapeOverridden == null)
+        {
+            boolean overridden = false;
+            for (Class current = getClass(); current != null && current != viewClass; current = current
+                .getSuperclass())
+            {
+                try
+                {
+                    current.getDeclaredMethod("escapeColumnValue", new Class[]{Object.class}); //$NON-NLS-1$
+                    overridden = true;
+                    break;
+                }
+                catch (NoSuchMethodException e)
+                {
+                    // not declared in this class
+                }
+            }
+            this.escapeOverridden = Boolean.valueOf(overridden);
+        }
+        return this.escapeOverridden.booleanValue();
+    }
+
+    /**
+     * Writes an escaped column value. The default implementation simply writes the value returned by
+     * <code>escapeColumnValue()</code>; views can override this method to escape values directly into the export
+     * buffer, avoiding intermediate String copies. Such views should fall back to this implementation when
+     * <code>isEscapeColumnValueOverridden()</code> returns <code>true</code>.
+     * @param out export buffer
+     * @param value original column value
+     * @throws IOException thrown by out.write
+     */
+    protected void writeColumnValue(Writer out, Object value) throws IOException
+    {
+        write(out, escapeColumnValue(value));
+    }
+
     /**
      * @see org.displaytag.export.TextExportView#doExport(java.io.Writer)
      */
-    public void doExport(Writer out) throws IOException, JspException
+    public void doExport(Writer writer) throws IOException, JspException
     {
         if (log.isDebugEnabled())
         {
@@ -229,6 +280,9 @@ public abstract class BaseExportView implements TextExportView
         final boolean ALWAYS_APPEND_CELL_END = getAlwaysAppendCellEnd();
         final boolean ALWAYS_APPEND_ROW_END = getAlwaysAppendRowEnd();
 
+        // all the output goes through a single unsynchronized buffer
+        ExportWriter out = new ExportWriter(writer);
+
         // document start
         write(out, DOCUMENT_START);
 
@@ -243,6 +297,11 @@ public abstract class BaseExportView implements TextExportView
         // iterator on rows
         while (rowIterator.hasNext())
         {
+            if (this.model.isCancelled())
+            {
+                throw new ExportCancelledException();
+            }
+
             Row row = rowIterator.next();
 
             if (this.model.getTableDecorator() != null)
@@ -261,12 +320,10 @@ public abstract class BaseExportView implements TextExportView
             {
                 Column column = columnIterator.nextColumn();
 
-                // Get the value to be displayed for the column
-                String value = escapeColumnValue(column.getValue(this.decorated));
-
                 write(out, CELL_START);
 
-                write(out, value);
+                // Get the value to be displayed for the column
+                writeColumnValue(out, column.getValue(this.decorated));
 
                 if (ALWAYS_APPEND_CELL_END || columnIterator.hasNext())
                 {
@@ -283,6 +340,9 @@ public abstract class BaseExportView implements TextExportView
         // document end
         write(out, DOCUMENT_END);
 
+        // hand the remaining content to the original writer, without flushing it
+        out.flushBuffer();
+
     }
 
     /**
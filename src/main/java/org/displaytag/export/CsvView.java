@@ -11,7 +11,11 @@
  */
 package org.displaytag.export;
 
-import org.apache.commons.lang.StringUtils;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.apache.commons.lang.UnhandledException;
 import org.displaytag.model.TableModel;
 
 
@@ -73,24 +77,102 @@ public class CsvView extends BaseExportView
     }
 
     /**
-     * Escaping for csv format.
+     * Escaping for csv format, according to RFC 4180.
      * <ul>
-     * <li>Quotes inside quoted strings are escaped with a /</li>
-     * <li>Fields containings newlines or , are surrounded by "</li>
+     * <li>Quotes inside quoted strings are escaped with another quote</li>
+     * <li>Fields containings newlines, carriage returns, quotes or , are surrounded by "</li>
      * </ul>
-     * Note this is the standard CVS format and it's not handled well by excel.
      * @see org.displaytag.export.BaseExportView#escapeColumnValue(java.lang.Object)
      */
     protected String escapeColumnValue(Object value)
     {
-        String stringValue = StringUtils.trim(value.toString());
-        if (!StringUtils.containsNone(stringValue, new char[]{'\n', ','}))
+        StringWriter writer = new StringWriter();
+        try
+        {
+            writeEscaped(writer, value);
+        }
+        catch (IOException e)
+        {
+            // should never happen with a StringWriter
+            throw new UnhandledException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the escaped value directly into the export buffer, unless a subclass customizes
+     * <code>escapeColumnValue()</code>.
+     * @see org.displaytag.export.BaseExportView#writeColumnValue(java.io.Writer, java.lang.Object)
+     */
+    protected void writeColumnValue(Writer out, Object value) throws IOException
+    {
+        if (isEscapeColumnValueOverridden(CsvView.class))
+        {
+            super.writeColumnValue(out, value);
+        }
+        else
         {
-            return "\"" + //$NON-NLS-1$
-                StringUtils.replace(stringValue, "\"", "\\\"") + "\""; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            writeEscaped(out, value);
         }
+    }
 
-        return stringValue;
+    /**
+     * Writes the trimmed value, quoting it only if needed. The value is scanned once: chars before the first one that
+     * requires quoting are copied as a block, the rest is escaped char by char.
+     * @param out export buffer
+     * @param value original column value
+     * @throws IOException thrown by out.write
+     */
+    private void writeEscaped(Writer out, Object value) throws IOException
+    {
+        String stringValue = value.toString();
+
+        // trim without creating a new String
+        int start = 0;
+        int end = stringValue.length();
+        while (start < end && stringValue.charAt(start) <= ' ')
+        {
+            start++;
+        }
+        while (end > start && stringValue.charAt(end - 1) <= ' ')
+        {
+            end--;
+        }
+
+        int special = start;
+        while (special < end && !needsQuotes(stringValue.charAt(special)))
+        {
+            special++;
+        }
+
+        if (special == end)
+        {
+            out.write(stringValue, start, end - start);
+            return;
+        }
+
+        out.write('"');
+        out.write(stringValue, start, special - start);
+        for (int j = special; j < end; j++)
+        {
+            char c = stringValue.charAt(j);
+            if (c == '"')
+            {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    /**
+     * Does the given char force the field to be enclosed in quotes?
+     * @param c char
+     * @return <code>true</code> for separators, quotes and line breaks
+     */
+    private static boolean needsQuotes(char c)
+    {
+        return c == ',' || c == '"' || c == '\n' || c == '\r';
     }
 
 }
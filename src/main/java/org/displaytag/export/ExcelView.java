@@ -11,7 +11,11 @@
  */
 package org.displaytag.export;
 
-import org.apache.commons.lang.StringUtils;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.apache.commons.lang.UnhandledException;
 import org.displaytag.model.TableModel;
 
 
@@ -87,13 +91,81 @@ public class ExcelView extends BaseExportView
     {
         if (value != null)
         {
-            // quotes around fields are needed to avoid occasional "Sylk format invalid" messages from excel
-            return "\"" //$NON-NLS-1$
-                + StringUtils.replace(StringUtils.trim(value.toString()), "\"", "\"\"") //$NON-NLS-1$ //$NON-NLS-2$ 
-                + "\""; //$NON-NLS-1$ 
+            StringWriter writer = new StringWriter();
+            try
+            {
+                writeEscaped(writer, value);
+            }
+            catch (IOException e)
+            {
+                // should never happen with a StringWriter
+                throw new UnhandledException(e);
+            }
+            return writer.toString();
         }
 
         return null;
     }
 
+    /**
+     * Writes the escaped value directly into the export buffer, unless a subclass customizes
+     * <code>escapeColumnValue()</code>.
+     * @see org.displaytag.export.BaseExportView#writeColumnValue(java.io.Writer, java.lang.Object)
+     */
+    protected void writeColumnValue(Writer out, Object value) throws IOException
+    {
+        if (isEscapeColumnValueOverridden(ExcelView.class))
+        {
+            super.writeColumnValue(out, value);
+        }
+        else
+        {
+            writeEscaped(out, value);
+        }
+    }
+
+    /**
+     * Writes the trimmed value surrounded by quotes, doubling any quote found, in a single scan.
+     * @param out export buffer
+     * @param value original column value
+     * @throws IOException thrown by out.write
+     */
+    private void writeEscaped(Writer out, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            return;
+        }
+
+        String stringValue = value.toString();
+
+        // trim without creating a new String
+        int start = 0;
+        int end = stringValue.length();
+        while (start < end && stringValue.charAt(start) <= ' ')
+        {
+            start++;
+        }
+        while (end > start && stringValue.charAt(end - 1) <= ' ')
+        {
+            end--;
+        }
+
+        // quotes around fields are needed to avoid occasional "Sylk format invalid" messages from excel
+        out.write('"');
+        int blockStart = start;
+        for (int j = start; j < end; j++)
+        {
+            if (stringValue.charAt(j) == '"')
+            {
+                // copy everything up to and including the quote, then double it
+                out.write(stringValue, blockStart, j + 1 - blockStart);
+                out.write('"');
+                blockStart = j + 1;
+            }
+        }
+        out.write(stringValue, blockStart, end - blockStart);
+        out.write('"');
+    }
+
 }
@@ -0,0 +1,785 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.jsp.JspException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.displaytag.Messages;
+import org.displaytag.model.TableModel;
+import org.displaytag.properties.TableProperties;
+
+
+/**
+ * <p>
+ * Cache for generated exports, bounded by size with LRU eviction. Cached exports are returned as export views which
+ * simply replay the stored content, so they can be written exactly as a freshly generated export.
+ * </p>
+ * <p>
+ * Only one export is generated for each key at a time: a thread which finds the export for its key already being
+ * generated waits for it instead of generating its own, up to a timeout after which it generates its own copy.
+ * Generated exports are not buffered: they are written to the response as usual, and a copy is kept while they are
+ * written, until it exceeds the size of the cache. Usage:
+ * </p>
+ *
+ * <pre>
+ * ExportView view = cache.acquire(key);
+ * if (view == null)
+ * {
+ *     // this thread must generate the export
+ *     view = cache.store(key, factory.getView(...));
+ * }
+ * try
+ * {
+ *     // write view
+ * }
+ * finally
+ * {
+ *     cache.release(key);
+ * }
+ * </pre>
+ * @version $Revision$ ($Author$)
+ */
+public final class ExportCache
+{
+
+    /**
+     * Singleton.
+     */
+    private static ExportCache instance;
+
+    /**
+     * logger.
+     */
+    private static Log log = LogFactory.getLog(ExportCache.class);
+
+    /**
+     * Map containing key - CachedExport, in access order.
+     */
+    private final LinkedHashMap entries = new LinkedHashMap(16, 0.75f, true);
+
+    /**
+     * Map containing key - Thread, for the exports being generated.
+     */
+    private final Map inFlight = new HashMap();
+
+    /**
+     * Max size of cached content, in bytes.
+     */
+    private final long maxSize;
+
+    /**
+     * Time after which cached exports are discarded, in milliseconds.
+     */
+    private final long expiration;
+
+    /**
+     * Max time a thread waits for the export being generated by another thread, in milliseconds.
+     */
+    private final long timeout;
+
+    /**
+     * Current size of cached content, in bytes.
+     */
+    private long size;
+
+    /**
+     * Instantiates a new ExportCache. Use getInstance() for the shared, configured, instance.
+     * @param cacheSize max size of cached content, in bytes
+     * @param expirationTime time after which cached exports are discarded, in milliseconds
+     * @param timeoutMillis max time a thread waits for the export being generated by another thread, in milliseconds
+     */
+    ExportCache(long cacheSize, long expirationTime, long timeoutMillis)
+    {
+        this.maxSize = cacheSize;
+        this.expiration = expirationTime;
+        this.timeout = timeoutMillis;
+    }
+
+    /**
+     * Returns the simgleton for this class.
+     * @return ExportCache instance
+     */
+    public static synchronized ExportCache getInstance()
+    {
+        if (instance == null)
+        {
+            TableProperties properties = TableProperties.getInstance(null);
+            int size = properties.getExportCacheSize();
+            int expiration = properties.getExportCacheExpiration();
+            int timeout = properties.getExportCacheTimeout();
+
+            if (log.isInfoEnabled())
+            {
+                log.info(Messages.getString("ExportCache.initializing", //$NON-NLS-1$
+                    new Object[]{new Integer(size), new Integer(expiration), new Integer(timeout)}));
+            }
+            instance = new ExportCache(size, expiration * 1000L, timeout * 1000L);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the cached export for the given key, waiting if the same export is being generated by another thread. If
+     * <code>null</code> is returned the calling thread is in charge of generating the export, through the view
+     * returned by <code>store()</code>, and must call <code>release()</code> when done. <code>null</code> is also
+     * returned if the other thread hasn't finished within the timeout: the export is then generated twice.
+     * @param key cache key
+     * @return cached export view, or <code>null</code> if the export must be generated
+     * @throws JspException if the thread is interrupted while waiting
+     */
+    public synchronized ExportView acquire(String key) throws JspException
+    {
+        long deadline = System.currentTimeMillis() + this.timeout;
+        while (true)
+        {
+            CachedExport cached = (CachedExport) this.entries.get(key);
+            if (cached != null)
+            {
+                if (System.currentTimeMillis() - cached.created < this.expiration)
+                {
+                    if (log.isDebugEnabled())
+                    {
+                        log.debug("Export found in cache: " + key); //$NON-NLS-1$
+                    }
+                    return cached;
+                }
+                remove(key);
+            }
+
+            if (!this.inFlight.containsKey(key))
+            {
+                break;
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+            {
+                if (log.isDebugEnabled())
+                {
+                    log.debug("Timeout waiting for export, generating it again: " + key); //$NON-NLS-1$
+                }
+                return null;
+            }
+            try
+            {
+                wait(remaining);
+            }
+            catch (InterruptedException e)
+            {
+                throw new JspException(e);
+            }
+        }
+
+        this.inFlight.put(key, Thread.currentThread());
+        return null;
+    }
+
+    /**
+     * Returns an export view which runs the given view and keeps a copy of its content, if within the size of the
+     * cache. When the returned view has been written the copy is cached and any thread waiting for the same key is
+     * woken up. The key is released without caching anything if the export fails.
+     * @param key cache key, previously acquired
+     * @param exportView export view to generate
+     * @return an export view writing and caching the generated content
+     * @throws JspException for invalid export views
+     */
+    public ExportView store(String key, ExportView exportView) throws JspException
+    {
+        if (exportView instanceof TextExportView)
+        {
+            return new CachingTextExport(key, (TextExportView) exportView);
+        }
+        else if (exportView instanceof BinaryExportView)
+        {
+            return new CachingBinaryExport(key, (BinaryExportView) exportView);
+        }
+        release(key);
+        throw new JspException("Export view " //$NON-NLS-1$
+            + exportView.getClass().getName()
+            + " must implement TextExportView or BinaryExportView"); //$NON-NLS-1$
+    }
+
+    /**
+     * Releases a key acquired by the current thread without caching anything, if the view returned by
+     * <code>store()</code> has not been written. Does nothing if the key is not held by the current thread.
+     * @param key cache key
+     */
+    public void release(String key)
+    {
+        release(key, null);
+    }
+
+    /**
+     * Removes all the cached exports.
+     */
+    public synchronized void clear()
+    {
+        this.entries.clear();
+        this.size = 0;
+    }
+
+    /**
+     * Returns the size of cached content.
+     * @return size in bytes
+     */
+    public synchronized long getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Releases a key, if held by the current thread, and stores the generated export.
+     * @param key cache key
+     * @param cached generated export, null if the export failed or was too big
+     */
+    private synchronized void release(String key, CachedExport cached)
+    {
+        if (this.inFlight.get(key) == Thread.currentThread())
+        {
+            this.inFlight.remove(key);
+            notifyAll();
+        }
+
+        if (cached == null || cached.size > this.maxSize)
+        {
+            return;
+        }
+
+        remove(key);
+        this.entries.put(key, cached);
+        this.size += cached.size;
+
+        // evict least recently used exports
+        Iterator iterator = this.entries.values().iterator();
+        while (this.size > this.maxSize && iterator.hasNext())
+        {
+            CachedExport eldest = (CachedExport) iterator.next();
+            iterator.remove();
+            this.size -= eldest.size;
+        }
+    }
+
+    /**
+     * Removes a cached export.
+     * @param key cache key
+     */
+    private void remove(Object key)
+    {
+        CachedExport removed = (CachedExport) this.entries.remove(key);
+        if (removed != null)
+        {
+            this.size -= removed.size;
+        }
+    }
+
+    /**
+     * Text export view which writes the original view and caches a copy of the written text.
+     */
+    private class CachingTextExport implements TextExportView
+    {
+
+        /**
+         * Cache key.
+         */
+        private final String key;
+
+        /**
+         * Original view.
+         */
+        private final TextExportView view;
+
+        /**
+         * Instantiates a new caching text export.
+         * @param cacheKey cache key, acquired by the current thread
+         * @param exportView original view
+         */
+        CachingTextExport(String cacheKey, TextExportView exportView)
+        {
+            this.key = cacheKey;
+            this.view = exportView;
+        }
+
+        /**
+         * @see org.displaytag.export.TextExportView#doExport(java.io.Writer)
+         */
+        public void doExport(Writer out) throws IOException, JspException
+        {
+            // two bytes for each char
+            TeeWriter tee = new TeeWriter(out, maxSize / 2);
+            CachedExport cached = null;
+            try
+            {
+                // keep the PrintWriter visible, ExportWriter checks it for errors when the client has gone away
+                this.view.doExport(out instanceof PrintWriter ? new TeePrintWriter((PrintWriter) out, tee) : tee);
+                if (tee.copy != null)
+                {
+                    cached = new CachedTextExport(getMimeType(), outputPage(), tee.copy.toString());
+                }
+            }
+            finally
+            {
+                release(this.key, cached);
+            }
+        }
+
+        /**
+         * @see org.displaytag.export.TextExportView#outputPage()
+         */
+        public boolean outputPage()
+        {
+            return this.view.outputPage();
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#getMimeType()
+         */
+        public String getMimeType()
+        {
+            return this.view.getMimeType();
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#setParameters(TableModel, boolean, boolean, boolean)
+         */
+        public void setParameters(TableModel model, boolean exportFullList, boolean includeHeader,
+            boolean decorateValues)
+        {
+            this.view.setParameters(model, exportFullList, includeHeader, decorateValues);
+        }
+    }
+
+    /**
+     * Binary export view which writes the original view and caches a copy of the written bytes.
+     */
+    private class CachingBinaryExport implements BinaryExportView
+    {
+
+        /**
+         * Cache key.
+         */
+        private final String key;
+
+        /**
+         * Original view.
+         */
+        private final BinaryExportView view;
+
+        /**
+         * Instantiates a new caching binary export.
+         * @param cacheKey cache key, acquired by the current thread
+         * @param exportView original view
+         */
+        CachingBinaryExport(String cacheKey, BinaryExportView exportView)
+        {
+            this.key = cacheKey;
+            this.view = exportView;
+        }
+
+        /**
+         * @see org.displaytag.export.BinaryExportView#doExport(java.io.OutputStream)
+         */
+        public void doExport(OutputStream out) throws IOException, JspException
+        {
+            TeeOutputStream tee = new TeeOutputStream(out, maxSize);
+            CachedExport cached = null;
+            try
+            {
+                this.view.doExport(tee);
+                if (tee.copy != null)
+                {
+                    cached = new CachedBinaryExport(getMimeType(), tee.copy.toByteArray());
+                }
+            }
+            finally
+            {
+                release(this.key, cached);
+            }
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#getMimeType()
+         */
+        public String getMimeType()
+        {
+            return this.view.getMimeType();
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#setParameters(TableModel, boolean, boolean, boolean)
+         */
+        public void setParameters(TableModel model, boolean exportFullList, boolean includeHeader,
+            boolean decorateValues)
+        {
+            this.view.setParameters(model, exportFullList, includeHeader, decorateValues);
+        }
+    }
+
+    /**
+     * Writer which copies the written text, until the copy exceeds a limit.
+     */
+    private static class TeeWriter extends Writer
+    {
+
+        /**
+         * Wrapped writer.
+         */
+        private final Writer out;
+
+        /**
+         * Max length of the copy.
+         */
+        private final long limit;
+
+        /**
+         * Copy of the written text, null if over the limit.
+         */
+        StringBuffer copy = new StringBuffer();
+
+        /**
+         * Instantiates a new TeeWriter.
+         * @param writer wrapped writer
+         * @param maxLength max length of the copy
+         */
+        TeeWriter(Writer writer, long maxLength)
+        {
+            this.out = writer;
+            this.limit = maxLength;
+        }
+
+        /**
+         * @see java.io.Writer#write(int)
+         */
+        public void write(int c) throws IOException
+        {
+            this.out.write(c);
+            if (fits(1))
+            {
+                this.copy.append((char) c);
+            }
+        }
+
+        /**
+         * @see java.io.Writer#write(char[], int, int)
+         */
+        public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            this.out.write(cbuf, off, len);
+            if (fits(len))
+            {
+                this.copy.append(cbuf, off, len);
+            }
+        }
+
+        /**
+         * @see java.io.Writer#write(java.lang.String, int, int)
+         */
+        public void write(String str, int off, int len) throws IOException
+        {
+            this.out.write(str, off, len);
+            if (fits(len))
+            {
+                this.copy.append(str.substring(off, off + len));
+            }
+        }
+
+        /**
+         * @see java.io.Writer#flush()
+         */
+        public void flush() throws IOException
+        {
+            this.out.flush();
+        }
+
+        /**
+         * @see java.io.Writer#close()
+         */
+        public void close() throws IOException
+        {
+            this.out.close();
+        }
+
+        /**
+         * Checks if the copy can grow, dropping it if not.
+         * @param len length of the written text
+         * @return <code>true</code> if the text must be copied
+         */
+        private boolean fits(int len)
+        {
+            if (this.copy != null && this.copy.length() + len > this.limit)
+            {
+                this.copy = null;
+            }
+            return this.copy != null;
+        }
+    }
+
+    /**
+     * PrintWriter writing through a TeeWriter, which reports the errors of the original PrintWriter.
+     */
+    private static class TeePrintWriter extends PrintWriter
+    {
+
+        /**
+         * Original writer.
+         */
+        private final PrintWriter writer;
+
+        /**
+         * Instantiates a new TeePrintWriter.
+         * @param printWriter original writer
+         * @param tee TeeWriter wrapping the original writer
+         */
+        TeePrintWriter(PrintWriter printWriter, TeeWriter tee)
+        {
+            super(tee);
+            this.writer = printWriter;
+        }
+
+        /**
+         * Doesn't flush, unlike <code>PrintWriter.checkError()</code>: the original writer decides when flushing is
+         * needed.
+         * @see java.io.PrintWriter#checkError()
+         */
+        public boolean checkError()
+        {
+            return this.writer.checkError();
+        }
+    }
+
+    /**
+     * OutputStream which copies the written bytes, until the copy exceeds a limit.
+     */
+    private static class TeeOutputStream extends OutputStream
+    {
+
+        /**
+         * Wrapped stream.
+         */
+        private final OutputStream out;
+
+        /**
+         * Max size of the copy.
+         */
+        private final long limit;
+
+        /**
+         * Copy of the written bytes, null if over the limit.
+         */
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        /**
+         * Instantiates a new TeeOutputStream.
+         * @param stream wrapped stream
+         * @param maxSize max size of the copy
+         */
+        TeeOutputStream(OutputStream stream, long maxSize)
+        {
+            this.out = stream;
+            this.limit = maxSize;
+        }
+
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        public void write(int b) throws IOException
+        {
+            this.out.write(b);
+            if (fits(1))
+            {
+                this.copy.write(b);
+            }
+        }
+
+        /**
+         * @see java.io.OutputStream#write(byte[], int, int)
+         */
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            this.out.write(b, off, len);
+            if (fits(len))
+            {
+                this.copy.write(b, off, len);
+            }
+        }
+
+        /**
+         * @see java.io.OutputStream#flush()
+         */
+        public void flush() throws IOException
+        {
+            this.out.flush();
+        }
+
+        /**
+         * @see java.io.OutputStream#close()
+         */
+        public void close() throws IOException
+        {
+            this.out.close();
+        }
+
+        /**
+         * Checks if the copy can grow, dropping it if not.
+         * @param len number of written bytes
+         * @return <code>true</code> if the bytes must be copied
+         */
+        private boolean fits(int len)
+        {
+            if (this.copy != null && this.copy.size() + len > this.limit)
+            {
+                this.copy = null;
+            }
+            return this.copy != null;
+        }
+    }
+
+    /**
+     * Base class for cached exports.
+     */
+    private abstract static class CachedExport implements ExportView
+    {
+
+        /**
+         * Content type.
+         */
+        private final String mimeType;
+
+        /**
+         * Creation time.
+         */
+        final long created = System.currentTimeMillis();
+
+        /**
+         * Size in bytes.
+         */
+        final long size;
+
+        /**
+         * Instantiates a new cached export.
+         * @param contentType content type
+         * @param contentSize size in bytes
+         */
+        CachedExport(String contentType, long contentSize)
+        {
+            this.mimeType = contentType;
+            this.size = contentSize;
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#getMimeType()
+         */
+        public String getMimeType()
+        {
+            return this.mimeType;
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#setParameters(TableModel, boolean, boolean, boolean)
+         */
+        public void setParameters(TableModel model, boolean exportFullList, boolean includeHeader,
+            boolean decorateValues)
+        {
+            // content is already generated
+        }
+    }
+
+    /**
+     * Cached text export.
+     */
+    private static class CachedTextExport extends CachedExport implements TextExportView
+    {
+
+        /**
+         * Exported text.
+         */
+        private final String content;
+
+        /**
+         * value of outputPage() for the original view.
+         */
+        private final boolean outputPage;
+
+        /**
+         * Instantiates a new cached text export.
+         * @param contentType content type
+         * @param outputPageValue value of outputPage() for the original view
+         * @param text exported text
+         */
+        CachedTextExport(String contentType, boolean outputPageValue, String text)
+        {
+            // two bytes for each char
+            super(contentType, text.length() * 2L);
+            this.outputPage = outputPageValue;
+            this.content = text;
+        }
+
+        /**
+         * @see org.displaytag.export.TextExportView#doExport(java.io.Writer)
+         */
+        public void doExport(Writer out) throws IOException
+        {
+            out.write(this.content);
+        }
+
+        /**
+         * @see org.displaytag.export.TextExportView#outputPage()
+         */
+        public boolean outputPage()
+        {
+            return this.outputPage;
+        }
+    }
+
+    /**
+     * Cached binary export.
+     */
+    private static class CachedBinaryExport extends CachedExport implements BinaryExportView
+    {
+
+        /**
+         * Exported bytes.
+         */
+        private final byte[] content;
+
+        /**
+         * Instantiates a new cached binary export.
+         * @param contentType content type
+         * @param bytes exported content
+         */
+        CachedBinaryExport(String contentType, byte[] bytes)
+        {
+            super(contentType, bytes.length);
+            this.content = bytes;
+        }
+
+        /**
+         * @see org.displaytag.export.BinaryExportView#doExport(java.io.OutputStream)
+         */
+        public void doExport(OutputStream out) throws IOException
+        {
+            out.write(this.content);
+        }
+    }
+
+}
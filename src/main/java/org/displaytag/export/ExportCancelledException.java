@@ -0,0 +1,41 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.export;
+
+import java.io.IOException;
+
+import org.displaytag.Messages;
+
+
+/**
+ * Thrown by export views when the export is cancelled, because the client has gone away (writing to the response
+ * failed) or because <code>TableModel.cancel()</code> has been called. Extends IOException so that it can be thrown
+ * by writers.
+ * @version $Revision$ ($Author$)
+ */
+public class ExportCancelledException extends IOException
+{
+
+    /**
+     * D1597A17A6.
+     */
+    private static final long serialVersionUID = 899149338534L;
+
+    /**
+     * Instantiate a new Exception with a fixed message.
+     */
+    public ExportCancelledException()
+    {
+        super(Messages.getString("ExportCancelledException.msg")); //$NON-NLS-1$
+    }
+
+}
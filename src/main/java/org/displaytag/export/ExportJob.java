@@ -0,0 +1,275 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.export;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.displaytag.Messages;
+
+
+/**
+ * An export running in background. The export view is written to a file in the configured export directory; once
+ * completed the file can be served by <code>org.displaytag.filter.ExportJobServlet</code>. Note that decorators used
+ * in background exports are run after the request has been completed, so they should not rely on the page context.
+ * @version $Revision$ ($Author$)
+ */
+public class ExportJob implements Runnable
+{
+
+    /**
+     * Job is waiting for a free worker.
+     */
+    public static final int STATUS_QUEUED = 0;
+
+    /**
+     * Job is running.
+     */
+    public static final int STATUS_RUNNING = 1;
+
+    /**
+     * Export file is ready.
+     */
+    public static final int STATUS_COMPLETED = 2;
+
+    /**
+     * Export failed.
+     */
+    public static final int STATUS_FAILED = 3;
+
+    /**
+     * logger.
+     */
+    private static Log log = LogFactory.getLog(ExportJob.class);
+
+    /**
+     * Job id.
+     */
+    private final String id;
+
+    /**
+     * Export file.
+     */
+    private final File file;
+
+    /**
+     * Content type of the exported file.
+     */
+    private final String mimeType;
+
+    /**
+     * File name sent to the client, can be null.
+     */
+    private final String filename;
+
+    /**
+     * Encoding used for text exports.
+     */
+    private final String characterEncoding;
+
+    /**
+     * View to run, released as soon as the export is done.
+     */
+    private ExportView exportView;
+
+    /**
+     * Current status.
+     */
+    private int status = STATUS_QUEUED;
+
+    /**
+     * Time the job was last updated.
+     */
+    private long lastModified = System.currentTimeMillis();
+
+    /**
+     * Exception thrown by a failed export.
+     */
+    private Throwable exception;
+
+    /**
+     * Instantiates a new export job.
+     * @param jobId job id
+     * @param view export view to run
+     * @param exportFile file the export will be written to
+     * @param contentType content type of the exported file
+     * @param exportFilename file name sent to the client, can be null
+     * @param encoding encoding used for text exports
+     */
+    ExportJob(String jobId, ExportView view, File exportFile, String contentType, String exportFilename,
+        String encoding)
+    {
+        this.id = jobId;
+        this.exportView = view;
+        this.file = exportFile;
+        this.mimeType = contentType;
+        this.filename = exportFilename;
+        this.characterEncoding = encoding;
+    }
+
+    /**
+     * Returns the job id.
+     * @return job id
+     */
+    public String getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * Returns the export file. The file is complete only if status is <code>STATUS_COMPLETED</code>.
+     * @return export file
+     */
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * Returns the content type of the exported file.
+     * @return content type
+     */
+    public String getMimeType()
+    {
+        return this.mimeType;
+    }
+
+    /**
+     * Returns the file name sent to the client.
+     * @return file name, can be null
+     */
+    public String getFilename()
+    {
+        return this.filename;
+    }
+
+    /**
+     * Returns the current status.
+     * @return one of the <code>STATUS_*</code> constants
+     */
+    public synchronized int getStatus()
+    {
+        return this.status;
+    }
+
+    /**
+     * Returns the exception thrown by a failed export.
+     * @return Throwable, null if the export didn't fail
+     */
+    public synchronized Throwable getException()
+    {
+        return this.exception;
+    }
+
+    /**
+     * Returns the time the job was last updated.
+     * @return time in milliseconds
+     */
+    public synchronized long getLastModified()
+    {
+        return this.lastModified;
+    }
+
+    /**
+     * Is the job completed or failed?
+     * @return <code>true</code> if the job will not be updated anymore
+     */
+    public synchronized boolean isDone()
+    {
+        return this.status == STATUS_COMPLETED || this.status == STATUS_FAILED;
+    }
+
+    /**
+     * Updates the job status.
+     * @param newStatus one of the <code>STATUS_*</code> constants
+     * @param cause exception for failed jobs
+     */
+    private synchronized void setStatus(int newStatus, Throwable cause)
+    {
+        this.status = newStatus;
+        this.exception = cause;
+        this.lastModified = System.currentTimeMillis();
+    }
+
+    /**
+     * Writes the export to file.
+     * @see java.lang.Runnable#run()
+     */
+    public void run()
+    {
+        setStatus(STATUS_RUNNING, null);
+
+        ExportView view = this.exportView;
+        OutputStream stream = null;
+        try
+        {
+            stream = new BufferedOutputStream(new FileOutputStream(this.file));
+            if (view instanceof TextExportView)
+            {
+                Writer writer = new OutputStreamWriter(stream, this.characterEncoding);
+                ((TextExportView) view).doExport(writer);
+                writer.flush();
+            }
+            else
+            {
+                ((BinaryExportView) view).doExport(stream);
+            }
+            stream.close();
+            stream = null;
+            setStatus(STATUS_COMPLETED, null);
+        }
+        catch (Throwable e)
+        {
+            log.error(Messages.getString("ExportJob.failed", //$NON-NLS-1$
+                new Object[]{this.id, e.getMessage()}), e);
+            setStatus(STATUS_FAILED, e);
+        }
+        finally
+        {
+            if (stream != null)
+            {
+                try
+                {
+                    stream.close();
+                }
+                catch (Exception e)
+                {
+                    // ignore, the export already failed
+                }
+                this.file.delete();
+            }
+            // the view holds the whole table model
+            this.exportView = null;
+        }
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    public String toString()
+    {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE) //
+            .append("id", this.id) //$NON-NLS-1$
+            .append("status", getStatus()) //$NON-NLS-1$
+            .append("file", this.file) //$NON-NLS-1$
+            .toString();
+    }
+
+}
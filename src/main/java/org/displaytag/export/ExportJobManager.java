@@ -0,0 +1,396 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.displaytag.Messages;
+import org.displaytag.properties.TableProperties;
+
+
+/**
+ * Runs export jobs in background, using a fixed number of worker threads and a bounded queue. Exported files are
+ * written to the directory configured with <code>export.background.directory</code> (the system temp directory by
+ * default) and are deleted once served, or when expired. Worker threads are stopped and all the export files are deleted
+ * by <code>shutdown()</code>, called when the web application is stopped by ExportJobServlet and
+ * DisplaytagShutdownListener.
+ * @version $Revision$ ($Author$)
+ */
+public final class ExportJobManager
+{
+
+    /**
+     * Singleton.
+     */
+    private static ExportJobManager instance;
+
+    /**
+     * logger.
+     */
+    private static Log log = LogFactory.getLog(ExportJobManager.class);
+
+    /**
+     * Hex digits used for job ids.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+    /**
+     * Max time waited for each worker to stop, in milliseconds.
+     */
+    private static final long STOP_TIMEOUT = 5000;
+
+    /**
+     * Random generator for job ids, which must not be guessable.
+     */
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Map containing job id - ExportJob.
+     */
+    private final Map jobs = new HashMap();
+
+    /**
+     * Jobs waiting for a free worker.
+     */
+    private final LinkedList queue = new LinkedList();
+
+    /**
+     * Worker threads.
+     */
+    private final List workers = new ArrayList();
+
+    /**
+     * Has the manager been stopped? Guarded by queue.
+     */
+    private boolean stopped;
+
+    /**
+     * Directory export files are written to.
+     */
+    private final File directory;
+
+    /**
+     * Max number of jobs waiting in queue.
+     */
+    private final int queueSize;
+
+    /**
+     * Time after which finished jobs are discarded, in milliseconds.
+     */
+    private final long expiration;
+
+    /**
+     * Private constructor.
+     */
+    private ExportJobManager()
+    {
+        TableProperties properties = TableProperties.getInstance(null);
+
+        String directoryName = properties.getExportBackgroundDirectory();
+        if (StringUtils.isBlank(directoryName))
+        {
+            directoryName = System.getProperty("java.io.tmpdir"); //$NON-NLS-1$
+        }
+        this.directory = new File(directoryName);
+        this.directory.mkdirs();
+
+        this.queueSize = properties.getExportBackgroundQueueSize();
+        this.expiration = properties.getExportBackgroundExpiration() * 1000L;
+
+        int threads = Math.max(1, properties.getExportBackgroundThreads());
+
+        if (log.isInfoEnabled())
+        {
+            log.info(Messages.getString("ExportJobManager.initializing", //$NON-NLS-1$
+                new Object[]{this.directory, new Integer(threads), new Integer(this.queueSize)}));
+        }
+
+        for (int j = 0; j < threads; j++)
+        {
+            Thread worker = new Thread(new Worker(), "displaytag-export-" + j); //$NON-NLS-1$
+            worker.setDaemon(true);
+            worker.start();
+            this.workers.add(worker);
+        }
+    }
+
+    /**
+     * Returns the simgleton for this class.
+     * @return ExportJobManager instance
+     */
+    public static synchronized ExportJobManager getInstance()
+    {
+        if (instance == null)
+        {
+            instance = new ExportJobManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Stops the worker threads and deletes all the export files, also for queued and running jobs. Must be called
+     * when the web application is stopped, to avoid leaking threads and the webapp classloader. A new manager is
+     * created if background exports are requested again.
+     */
+    public static synchronized void shutdown()
+    {
+        if (instance != null)
+        {
+            instance.stop();
+            instance = null;
+        }
+    }
+
+    /**
+     * Queues a new export job.
+     * @param exportView export view to run, already initialized with the table model
+     * @param mimeType content type of the exported file
+     * @param filename file name sent to the client, can be null
+     * @param characterEncoding encoding used for text exports
+     * @return the queued ExportJob, or <code>null</code> if the queue is full and the export should be run on the
+     * request thread
+     * @throws IOException if the export file can't be created
+     */
+    public ExportJob submit(ExportView exportView, String mimeType, String filename, String characterEncoding)
+        throws IOException
+    {
+        removeExpiredJobs();
+
+        if (isQueueFull())
+        {
+            return null;
+        }
+
+        File file = File.createTempFile("displaytag", ".export", this.directory); //$NON-NLS-1$ //$NON-NLS-2$
+        ExportJob job = new ExportJob(nextId(), exportView, file, mimeType, filename, characterEncoding);
+
+        // check again and enqueue atomically, the queue may have been filled meanwhile
+        synchronized (this.queue)
+        {
+            if (isQueueFull())
+            {
+                file.delete();
+                return null;
+            }
+            synchronized (this.jobs)
+            {
+                this.jobs.put(job.getId(), job);
+            }
+            this.queue.addLast(job);
+            this.queue.notify();
+        }
+
+        if (log.isDebugEnabled())
+        {
+            log.debug("Export job queued: " + job); //$NON-NLS-1$
+        }
+        return job;
+    }
+
+    /**
+     * Checks if a new job can't be queued, because the queue is full or the manager has been stopped.
+     * @return <code>true</code> if the export should be run on the request thread
+     */
+    private boolean isQueueFull()
+    {
+        synchronized (this.queue)
+        {
+            if (this.stopped)
+            {
+                return true;
+            }
+            if (this.queue.size() >= this.queueSize)
+            {
+                log.warn(Messages.getString("ExportJobManager.queuefull", //$NON-NLS-1$
+                    new Object[]{new Integer(this.queueSize)}));
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Stops the workers and deletes all the export files.
+     */
+    private void stop()
+    {
+        synchronized (this.queue)
+        {
+            this.stopped = true;
+            this.queue.clear();
+            this.queue.notifyAll();
+        }
+
+        Iterator iterator = this.workers.iterator();
+        while (iterator.hasNext())
+        {
+            ((Thread) iterator.next()).interrupt();
+        }
+        iterator = this.workers.iterator();
+        while (iterator.hasNext())
+        {
+            try
+            {
+                ((Thread) iterator.next()).join(STOP_TIMEOUT);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        synchronized (this.jobs)
+        {
+            if (log.isInfoEnabled())
+            {
+                log.info(Messages.getString("ExportJobManager.stopping", //$NON-NLS-1$
+                    new Object[]{new Integer(this.jobs.size())}));
+            }
+            iterator = this.jobs.values().iterator();
+            while (iterator.hasNext())
+            {
+                ((ExportJob) iterator.next()).getFile().delete();
+            }
+            this.jobs.clear();
+        }
+    }
+
+    /**
+     * Returns the job with the given id.
+     * @param id job id
+     * @return ExportJob, null if not found or expired
+     */
+    public ExportJob getJob(String id)
+    {
+        if (id == null)
+        {
+            return null;
+        }
+        synchronized (this.jobs)
+        {
+            return (ExportJob) this.jobs.get(id);
+        }
+    }
+
+    /**
+     * Removes a finished job, deleting its file. Running jobs are not removed.
+     * @param id job id
+     */
+    public void removeJob(String id)
+    {
+        ExportJob job;
+        synchronized (this.jobs)
+        {
+            job = (ExportJob) this.jobs.get(id);
+            if (job == null || !job.isDone())
+            {
+                return;
+            }
+            this.jobs.remove(id);
+        }
+        job.getFile().delete();
+    }
+
+    /**
+     * Discards finished jobs which have not been collected before expiration.
+     */
+    private void removeExpiredJobs()
+    {
+        long limit = System.currentTimeMillis() - this.expiration;
+        synchronized (this.jobs)
+        {
+            Iterator iterator = this.jobs.values().iterator();
+            while (iterator.hasNext())
+            {
+                ExportJob job = (ExportJob) iterator.next();
+                if (job.isDone() && job.getLastModified() < limit)
+                {
+                    iterator.remove();
+                    job.getFile().delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates a new random job id.
+     * @return job id
+     */
+    private String nextId()
+    {
+        byte[] bytes = new byte[16];
+        synchronized (this.random)
+        {
+            this.random.nextBytes(bytes);
+        }
+        char[] chars = new char[bytes.length * 2];
+        for (int j = 0; j < bytes.length; j++)
+        {
+            chars[j * 2] = HEX[(bytes[j] >> 4) & 0xf];
+            chars[j * 2 + 1] = HEX[bytes[j] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Worker thread, runs queued jobs one at a time.
+     */
+    private class Worker implements Runnable
+    {
+
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run()
+        {
+            while (true)
+            {
+                ExportJob job;
+                synchronized (queue)
+                {
+                    while (queue.isEmpty())
+                    {
+                        if (stopped)
+                        {
+                            return;
+                        }
+                        try
+                        {
+                            queue.wait();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            return;
+                        }
+                    }
+                    job = (ExportJob) queue.removeFirst();
+                }
+
+                // ExportJob.run() never throws
+                job.run();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,362 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.export;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.jsp.JspException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.displaytag.Messages;
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.properties.TableProperties;
+import org.displaytag.util.JmxUtil;
+
+
+/**
+ * <p>
+ * Limits the number of exports running at the same time, for all the media (<code>export.limit</code>) and for each
+ * media (<code>export.</code><em>[media]</em><code>.limit</code>). An export over the limit waits for a running one
+ * to finish, up to <code>export.limit.timeout</code> seconds, and is rejected if no slot is freed in time. Waiting
+ * exports are not served in any particular order.
+ * </p>
+ * <p>
+ * Usage:
+ * </p>
+ *
+ * <pre>
+ * if (limiter.acquire(media))
+ * {
+ *     try
+ *     {
+ *         // export
+ *     }
+ *     finally
+ *     {
+ *         limiter.release(media);
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>
+ * The number of running and waiting exports and the time spent waiting are available to size the limits, and are
+ * published as the <code>org.displaytag:type=ExportLimiter</code> MBean in the platform MBean server.
+ * </p>
+ * @version $Revision$ ($Author$)
+ */
+public final class ExportLimiter implements ExportLimiterMBean
+{
+
+    /**
+     * Value of the <code>Retry-After</code> header sent with rejected exports, in seconds.
+     */
+    public static final String RETRY_AFTER = "5"; //$NON-NLS-1$
+
+    /**
+     * Key properties of the object name of the MBean.
+     */
+    private static final String MBEAN_NAME = "type=ExportLimiter"; //$NON-NLS-1$
+
+    /**
+     * Singleton.
+     */
+    private static ExportLimiter instance;
+
+    /**
+     * logger.
+     */
+    private static Log log = LogFactory.getLog(ExportLimiter.class);
+
+    /**
+     * Max number of running exports, 0 if unlimited.
+     */
+    private final int limit;
+
+    /**
+     * Max time an export waits for a free slot, in milliseconds.
+     */
+    private final long timeout;
+
+    /**
+     * Properties used to look up the limits of each media, can be null.
+     */
+    private final TableProperties properties;
+
+    /**
+     * Map containing media name - Integer limit.
+     */
+    private final Map mediaLimits = new HashMap();
+
+    /**
+     * Map containing media name - int[1] number of running exports.
+     */
+    private final Map mediaRunning = new HashMap();
+
+    /**
+     * Number of running exports.
+     */
+    private int running;
+
+    /**
+     * Number of exports waiting for a slot.
+     */
+    private int waiting;
+
+    /**
+     * Number of admitted exports.
+     */
+    private long admitted;
+
+    /**
+     * Number of rejected exports.
+     */
+    private long rejected;
+
+    /**
+     * Total time spent waiting by admitted exports, in milliseconds.
+     */
+    private long totalWaitTime;
+
+    /**
+     * Max time spent waiting by an admitted export, in milliseconds.
+     */
+    private long maxWaitTime;
+
+    /**
+     * Instantiates a new ExportLimiter. Use getInstance() for the shared, configured, instance.
+     * @param globalLimit max number of running exports, 0 if unlimited
+     * @param timeoutMillis max time an export waits for a free slot, in milliseconds
+     * @param tableProperties properties used to look up the limits of each media, can be null
+     */
+    ExportLimiter(int globalLimit, long timeoutMillis, TableProperties tableProperties)
+    {
+        this.limit = globalLimit;
+        this.timeout = timeoutMillis;
+        this.properties = tableProperties;
+    }
+
+    /**
+     * Returns the simgleton for this class.
+     * @return ExportLimiter instance
+     */
+    public static synchronized ExportLimiter getInstance()
+    {
+        if (instance == null)
+        {
+            TableProperties properties = TableProperties.getInstance(null);
+            int limit = properties.getExportLimit();
+            int timeout = properties.getExportLimitTimeout();
+
+            if (log.isInfoEnabled())
+            {
+                log.info(Messages.getString("ExportLimiter.initializing", //$NON-NLS-1$
+                    new Object[]{new Integer(limit), new Integer(timeout)}));
+            }
+            instance = new ExportLimiter(limit, timeout * 1000L, properties);
+            JmxUtil.register(MBEAN_NAME, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Unregisters the MBean and discards the singleton, a new one is created on the next getInstance() call. Called
+     * by DisplaytagShutdownListener when the application is stopped.
+     */
+    public static synchronized void shutdown()
+    {
+        if (instance != null)
+        {
+            JmxUtil.unregister(MBEAN_NAME);
+            instance = null;
+        }
+    }
+
+    /**
+     * Waits for a free slot for an export of the given media.
+     * @param media exported media
+     * @return <code>true</code> if the export can run, <code>false</code> if it has been rejected. If
+     * <code>true</code> is returned <code>release()</code> must always be called when the export ends
+     * @throws JspException if the thread is interrupted while waiting
+     */
+    public synchronized boolean acquire(MediaTypeEnum media) throws JspException
+    {
+        int mediaLimit = getLimit(media);
+        int[] runningForMedia = getRunning(media);
+
+        long start = System.currentTimeMillis();
+        if (isFull(mediaLimit, runningForMedia))
+        {
+            long deadline = start + this.timeout;
+            this.waiting++;
+            try
+            {
+                while (isFull(mediaLimit, runningForMedia))
+                {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0)
+                    {
+                        this.rejected++;
+                        if (log.isWarnEnabled())
+                        {
+                            log.warn(Messages.getString("ExportLimiter.rejected", new Object[]{ //$NON-NLS-1$
+                                media.getName(),
+                                new Long(System.currentTimeMillis() - start),
+                                new Integer(this.running),
+                                new Integer(this.waiting - 1)}));
+                        }
+                        return false;
+                    }
+                    wait(remaining);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                throw new JspException(e);
+            }
+            finally
+            {
+                this.waiting--;
+            }
+
+            long waited = System.currentTimeMillis() - start;
+            this.totalWaitTime += waited;
+            this.maxWaitTime = Math.max(this.maxWaitTime, waited);
+        }
+
+        this.running++;
+        runningForMedia[0]++;
+        this.admitted++;
+        return true;
+    }
+
+    /**
+     * Releases the slot of a finished export, waking up waiting exports.
+     * @param media exported media, the same given to <code>acquire()</code>
+     */
+    public synchronized void release(MediaTypeEnum media)
+    {
+        this.running--;
+        getRunning(media)[0]--;
+        notifyAll();
+    }
+
+    /**
+     * Returns the number of running exports.
+     * @return number of running exports
+     */
+    public synchronized int getRunning()
+    {
+        return this.running;
+    }
+
+    /**
+     * Returns the number of exports waiting for a free slot.
+     * @return queue depth
+     */
+    public synchronized int getWaiting()
+    {
+        return this.waiting;
+    }
+
+    /**
+     * Returns the number of exports admitted since startup.
+     * @return admitted exports
+     */
+    public synchronized long getAdmitted()
+    {
+        return this.admitted;
+    }
+
+    /**
+     * Returns the number of exports rejected since startup.
+     * @return rejected exports
+     */
+    public synchronized long getRejected()
+    {
+        return this.rejected;
+    }
+
+    /**
+     * Returns the total time admitted exports have spent waiting for a slot.
+     * @return time in milliseconds
+     */
+    public synchronized long getTotalWaitTime()
+    {
+        return this.totalWaitTime;
+    }
+
+    /**
+     * Returns the longest time an admitted export has spent waiting for a slot.
+     * @return time in milliseconds
+     */
+    public synchronized long getMaxWaitTime()
+    {
+        return this.maxWaitTime;
+    }
+
+    /**
+     * Sets the limit for a media, overriding the configured one.
+     * @param media exported media
+     * @param mediaLimit max number of running exports for the media, 0 if unlimited
+     */
+    synchronized void setLimit(MediaTypeEnum media, int mediaLimit)
+    {
+        this.mediaLimits.put(media.getName(), new Integer(mediaLimit));
+    }
+
+    /**
+     * Checks if a new export of a media must wait.
+     * @param mediaLimit limit for the media
+     * @param runningForMedia running exports for the media
+     * @return <code>true</code> if a limit has been reached
+     */
+    private boolean isFull(int mediaLimit, int[] runningForMedia)
+    {
+        return (this.limit > 0 && this.running >= this.limit)
+            || (mediaLimit > 0 && runningForMedia[0] >= mediaLimit);
+    }
+
+    /**
+     * Returns the limit for a media, reading it from properties the first time.
+     * @param media exported media
+     * @return max number of running exports for the media, 0 if unlimited
+     */
+    private int getLimit(MediaTypeEnum media)
+    {
+        Integer mediaLimit = (Integer) this.mediaLimits.get(media.getName());
+        if (mediaLimit == null)
+        {
+            mediaLimit = new Integer(this.properties != null ? this.properties.getExportLimit(media) : 0);
+            this.mediaLimits.put(media.getName(), mediaLimit);
+        }
+        return mediaLimit.intValue();
+    }
+
+    /**
+     * Returns the counter of running exports for a media.
+     * @param media exported media
+     * @return int[1] counter
+     */
+    private int[] getRunning(MediaTypeEnum media)
+    {
+        int[] counter = (int[]) this.mediaRunning.get(media.getName());
+        if (counter == null)
+        {
+            counter = new int[1];
+            this.mediaRunning.put(media.getName(), counter);
+        }
+        return counter;
+    }
+
+}
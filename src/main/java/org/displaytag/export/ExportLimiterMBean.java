@@ -0,0 +1,52 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.export;
+
+/**
+ * Management interface of ExportLimiter, registered as <code>org.displaytag:type=ExportLimiter</code>. Times are in
+ * milliseconds.
+ * @version $Revision$ ($Author$)
+ */
+public interface ExportLimiterMBean
+{
+
+    /**
+     * @return number of running exports
+     */
+    int getRunning();
+
+    /**
+     * @return number of exports waiting for a free slot (queue depth)
+     */
+    int getWaiting();
+
+    /**
+     * @return number of exports admitted since startup
+     */
+    long getAdmitted();
+
+    /**
+     * @return number of exports rejected since startup
+     */
+    long getRejected();
+
+    /**
+     * @return total time admitted exports have spent waiting for a slot
+     */
+    long getTotalWaitTime();
+
+    /**
+     * @return longest time an admitted export has spent waiting for a slot
+     */
+    long getMaxWaitTime();
+
+}
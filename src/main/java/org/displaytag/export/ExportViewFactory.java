@@ -11,9 +11,6 @@
  */
 package org.displaytag.export;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -22,6 +19,7 @@ import org.displaytag.exception.WrappedRuntimeException;
 import org.displaytag.model.TableModel;
 import org.displaytag.properties.MediaTypeEnum;
 import org.displaytag.properties.TableProperties;
+import org.displaytag.util.CopyOnWriteCache;
 import org.displaytag.util.ReflectHelper;
 
 
@@ -33,11 +31,6 @@ import org.displaytag.util.ReflectHelper;
 public final class ExportViewFactory
 {
 
-    /**
-     * Singleton.
-     */
-    private static ExportViewFactory instance;
-
     /**
      * logger.
      */
@@ -46,7 +39,7 @@ public final class ExportViewFactory
     /**
      * Map containing MediaTypeEnum - View class.
      */
-    private final Map viewClasses = new HashMap();
+    private final CopyOnWriteCache viewClasses = new CopyOnWriteCache();
 
     /**
      * Private constructor.
@@ -72,13 +65,10 @@ public final class ExportViewFactory
      * Returns the simgleton for this class.
      * @return ExportViewFactory instance
      */
-    public static synchronized ExportViewFactory getInstance()
+    public static ExportViewFactory getInstance()
     {
-        if (instance == null)
-        {
-            instance = new ExportViewFactory();
-        }
-        return instance;
+        // no lock needed, the jvm initializes the holder class once, on first use
+        return InstanceHolder.INSTANCE;
     }
 
     /**
@@ -175,4 +165,16 @@ public final class ExportViewFactory
         return view;
     }
 
+    /**
+     * Holds the singleton, created when getInstance() is called for the first time.
+     */
+    private static final class InstanceHolder
+    {
+
+        /**
+         * Singleton.
+         */
+        static final ExportViewFactory INSTANCE = new ExportViewFactory();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,186 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.export;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+
+/**
+ * Unsynchronized buffered writer used by text export views. Escaped values are copied char by char into a single
+ * buffer, which is handed to the underlying writer only when full or when <code>flushBuffer()</code> is called. Unlike
+ * <code>java.io.BufferedWriter</code> no lock is taken on each write, and flushing the buffer never flushes (and so
+ * never commits) the wrapped writer. A wrapped <code>PrintWriter</code>, which silently swallows write errors, is checked
+ * each time the buffer is written, and an ExportCancelledException is thrown as soon as the client has gone away. Since
+ * <code>PrintWriter.checkError()</code> flushes, the table tag hands a ResponseWriter to text export views, which
+ * doesn't flush the response before it has been committed.
+ * @version $Revision$ ($Author$)
+ */
+final class ExportWriter extends Writer
+{
+
+    /**
+     * Default buffer size.
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * Wrapped writer.
+     */
+    private Writer out;
+
+    /**
+     * Char buffer.
+     */
+    private char[] buffer;
+
+    /**
+     * Next free position in buffer.
+     */
+    private int count;
+
+    /**
+     * Instantiates a new ExportWriter with the default buffer size.
+     * @param writer wrapped writer
+     */
+    ExportWriter(Writer writer)
+    {
+        this(writer, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Instantiates a new ExportWriter.
+     * @param writer wrapped writer
+     * @param size buffer size
+     */
+    ExportWriter(Writer writer, int size)
+    {
+        this.out = writer;
+        this.buffer = new char[size];
+    }
+
+    /**
+     * Returns the wrapped writer.
+     * @return wrapped writer
+     */
+    Writer getWrappedWriter()
+    {
+        return this.out;
+    }
+
+    /**
+     * @see java.io.Writer#write(int)
+     */
+    public void write(int c) throws IOException
+    {
+        if (this.count == this.buffer.length)
+        {
+            flushBuffer();
+        }
+        this.buffer[this.count++] = (char) c;
+    }
+
+    /**
+     * @see java.io.Writer#write(java.lang.String)
+     */
+    public void write(String str) throws IOException
+    {
+        if (str != null)
+        {
+            write(str, 0, str.length());
+        }
+    }
+
+    /**
+     * @see java.io.Writer#write(java.lang.String, int, int)
+     */
+    public void write(String str, int off, int len) throws IOException
+    {
+        int start = off;
+        int remaining = len;
+        while (remaining > 0)
+        {
+            if (this.count == this.buffer.length)
+            {
+                flushBuffer();
+            }
+            int chunk = Math.min(remaining, this.buffer.length - this.count);
+            str.getChars(start, start + chunk, this.buffer, this.count);
+            this.count += chunk;
+            start += chunk;
+            remaining -= chunk;
+        }
+    }
+
+    /**
+     * @see java.io.Writer#write(char[], int, int)
+     */
+    public void write(char[] cbuf, int off, int len) throws IOException
+    {
+        if (len >= this.buffer.length)
+        {
+            // no point in copying large arrays
+            flushBuffer();
+            this.out.write(cbuf, off, len);
+            if (this.out instanceof PrintWriter && ((PrintWriter) this.out).checkError())
+            {
+                throw new ExportCancelledException();
+            }
+            return;
+        }
+        if (len > this.buffer.length - this.count)
+        {
+            flushBuffer();
+        }
+        System.arraycopy(cbuf, off, this.buffer, this.count, len);
+        this.count += len;
+    }
+
+    /**
+     * Writes buffered chars to the wrapped writer, without flushing it.
+     * @throws IOException thrown by the wrapped writer, ExportCancelledException if the wrapped PrintWriter has
+     * encountered an error
+     */
+    public void flushBuffer() throws IOException
+    {
+        if (this.count > 0)
+        {
+            this.out.write(this.buffer, 0, this.count);
+            this.count = 0;
+
+            if (this.out instanceof PrintWriter && ((PrintWriter) this.out).checkError())
+            {
+                throw new ExportCancelledException();
+            }
+        }
+    }
+
+    /**
+     * @see java.io.Writer#flush()
+     */
+    public void flush() throws IOException
+    {
+        flushBuffer();
+        this.out.flush();
+    }
+
+    /**
+     * @see java.io.Writer#close()
+     */
+    public void close() throws IOException
+    {
+        flushBuffer();
+        this.out.close();
+    }
+
+}
@@ -0,0 +1,324 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.export;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+
+import javax.servlet.jsp.JspException;
+
+import org.apache.commons.lang.UnhandledException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.displaytag.model.Column;
+import org.displaytag.model.ColumnIterator;
+import org.displaytag.model.HeaderCell;
+import org.displaytag.model.Row;
+import org.displaytag.model.RowIterator;
+import org.displaytag.model.TableModel;
+
+
+/**
+ * Export view for json exporting. The table is written as an array of objects, one for each row, keyed by the column
+ * property (or by the column title for columns without a property). Rows are streamed one at a time from the table
+ * model, no object tree is built.
+ * @version $Revision$ ($Author$)
+ */
+public class JsonView implements TextExportView
+{
+
+    /**
+     * logger.
+     */
+    private static Log log = LogFactory.getLog(JsonView.class);
+
+    /**
+     * Hex digits used for unicode escapes.
+     */
+    private static final char[] HEX = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+    /**
+     * TableModel to render.
+     */
+    private TableModel model;
+
+    /**
+     * export full list?
+     */
+    private boolean exportFull;
+
+    /**
+     * decorate export?
+     */
+    private boolean decorated;
+
+    /**
+     * @see org.displaytag.export.ExportView#setParameters(TableModel, boolean, boolean, boolean)
+     */
+    public void setParameters(TableModel tableModel, boolean exportFullList, boolean includeHeader,
+        boolean decorateValues)
+    {
+        this.model = tableModel;
+        this.exportFull = exportFullList;
+        this.decorated = decorateValues;
+    }
+
+    /**
+     * @see org.displaytag.export.ExportView#getMimeType()
+     */
+    public String getMimeType()
+    {
+        return "application/json"; //$NON-NLS-1$
+    }
+
+    /**
+     * String to add to the top of document.
+     * @return String
+     */
+    protected String getDocumentStart()
+    {
+        return "["; //$NON-NLS-1$
+    }
+
+    /**
+     * String to add between two rows.
+     * @return String
+     */
+    protected String getRowSeparator()
+    {
+        return ",\n"; //$NON-NLS-1$
+    }
+
+    /**
+     * String to add after each row.
+     * @return String
+     */
+    protected String getRowEnd()
+    {
+        return ""; //$NON-NLS-1$
+    }
+
+    /**
+     * String to add to the end of document.
+     * @return String
+     */
+    protected String getDocumentEnd()
+    {
+        return "]\n"; //$NON-NLS-1$
+    }
+
+    /**
+     * @see org.displaytag.export.TextExportView#doExport(java.io.Writer)
+     */
+    public void doExport(Writer writer) throws IOException, JspException
+    {
+        if (log.isDebugEnabled())
+        {
+            log.debug(getClass().getName());
+        }
+
+        ExportWriter out = new ExportWriter(writer);
+
+        // keys are escaped only once
+        List headers = this.model.getHeaderCellList();
+        String[] keys = new String[headers.size()];
+        for (int j = 0; j < keys.length; j++)
+        {
+            keys[j] = getKey((HeaderCell) headers.get(j), j);
+        }
+
+        final String ROW_SEPARATOR = getRowSeparator();
+        final String ROW_END = getRowEnd();
+
+        out.write(getDocumentStart());
+
+        RowIterator rowIterator = this.model.getRowIterator(this.exportFull);
+        while (rowIterator.hasNext())
+        {
+            if (this.model.isCancelled())
+            {
+                throw new ExportCancelledException();
+            }
+
+            Row row = rowIterator.next();
+            ColumnIterator columnIterator = row.getColumnIterator(headers);
+
+            out.write('{');
+            int columnNumber = 0;
+            while (columnIterator.hasNext())
+            {
+                Column column = columnIterator.nextColumn();
+                if (columnNumber > 0)
+                {
+                    out.write(',');
+                }
+                out.write(keys[columnNumber++]);
+                out.write(':');
+                writeValue(out, column.getValue(this.decorated));
+            }
+            out.write('}');
+            out.write(ROW_END);
+
+            if (rowIterator.hasNext())
+            {
+                out.write(ROW_SEPARATOR);
+            }
+        }
+
+        out.write(getDocumentEnd());
+        out.flushBuffer();
+    }
+
+    /**
+     * Returns the already quoted and escaped key used for a column.
+     * @param headerCell column header
+     * @param index column index, used for columns without property and title
+     * @return json string
+     */
+    private String getKey(HeaderCell headerCell, int index)
+    {
+        String key = headerCell.getBeanPropertyName();
+        if (key == null)
+        {
+            key = headerCell.getTitle();
+        }
+        if (key == null)
+        {
+            key = Integer.toString(index);
+        }
+
+        StringWriter writer = new StringWriter(key.length() + 2);
+        try
+        {
+            writeString(writer, key);
+        }
+        catch (IOException e)
+        {
+            // should never happen with a StringWriter
+            throw new UnhandledException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes a single value. Numbers and booleans are written as json literals, any other object as a json string.
+     * @param out export buffer
+     * @param value column value
+     * @throws IOException thrown by out.write
+     */
+    protected void writeValue(Writer out, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            out.write("null"); //$NON-NLS-1$
+        }
+        else if (value instanceof Boolean || value instanceof Integer || value instanceof Long)
+        {
+            out.write(value.toString());
+        }
+        else if (value instanceof Number && isFinite(((Number) value).doubleValue()))
+        {
+            out.write(value.toString());
+        }
+        else
+        {
+            writeString(out, value.toString());
+        }
+    }
+
+    /**
+     * Is the given number a valid json number?
+     * @param number double value
+     * @return <code>false</code> for NaN and infinite values
+     */
+    private static boolean isFinite(double number)
+    {
+        return !Double.isNaN(number) && !Double.isInfinite(number);
+    }
+
+    /**
+     * Writes a quoted json string. Chars which don't need escaping are copied in blocks; control chars and the unicode
+     * line separators (invalid in javascript strings) are escaped.
+     * @param out export buffer
+     * @param value String value
+     * @throws IOException thrown by out.write
+     */
+    protected static void writeString(Writer out, String value) throws IOException
+    {
+        out.write('"');
+        int length = value.length();
+        int blockStart = 0;
+        for (int j = 0; j < length; j++)
+        {
+            char c = value.charAt(j);
+            if (c >= ' ' && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029')
+            {
+                continue;
+            }
+            out.write(value, blockStart, j - blockStart);
+            blockStart = j + 1;
+            writeEscaped(out, c);
+        }
+        out.write(value, blockStart, length - blockStart);
+        out.write('"');
+    }
+
+    /**
+     * Writes the escape sequence for a single char.
+     * @param out export buffer
+     * @param c char to escape
+     * @throws IOException thrown by out.write
+     */
+    private static void writeEscaped(Writer out, char c) throws IOException
+    {
+        out.write('\\');
+        switch (c)
+        {
+            case '"' :
+            case '\\' :
+                out.write(c);
+                break;
+            case '\n' :
+                out.write('n');
+                break;
+            case '\r' :
+                out.write('r');
+                break;
+            case '\t' :
+                out.write('t');
+                break;
+            case '\b' :
+                out.write('b');
+                break;
+            case '\f' :
+                out.write('f');
+                break;
+            default :
+                out.write('u');
+                out.write(HEX[(c >> 12) & 0xf]);
+                out.write(HEX[(c >> 8) & 0xf]);
+                out.write(HEX[(c >> 4) & 0xf]);
+                out.write(HEX[c & 0xf]);
+        }
+    }
+
+    /**
+     * @see org.displaytag.export.TextExportView#outputPage()
+     */
+    public boolean outputPage()
+    {
+        return false;
+    }
+
+}
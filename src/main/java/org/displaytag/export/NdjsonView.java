@@ -0,0 +1,62 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.export;
+
+/**
+ * Export view for newline delimited json: one json object for each row, one row per line, without an enclosing array.
+ * @version $Revision$ ($Author$)
+ */
+public class NdjsonView extends JsonView
+{
+
+    /**
+     * @see org.displaytag.export.ExportView#getMimeType()
+     */
+    public String getMimeType()
+    {
+        return "application/x-ndjson"; //$NON-NLS-1$
+    }
+
+    /**
+     * @see org.displaytag.export.JsonView#getDocumentStart()
+     */
+    protected String getDocumentStart()
+    {
+        return ""; //$NON-NLS-1$
+    }
+
+    /**
+     * @see org.displaytag.export.JsonView#getRowSeparator()
+     */
+    protected String getRowSeparator()
+    {
+        return ""; //$NON-NLS-1$
+    }
+
+    /**
+     * Every record is terminated by its own newline.
+     * @see org.displaytag.export.JsonView#getRowEnd()
+     */
+    protected String getRowEnd()
+    {
+        return "\n"; //$NON-NLS-1$
+    }
+
+    /**
+     * @see org.displaytag.export.JsonView#getDocumentEnd()
+     */
+    protected String getDocumentEnd()
+    {
+        return ""; //$NON-NLS-1$
+    }
+
+}
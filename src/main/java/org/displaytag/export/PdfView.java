@@ -129,8 +129,9 @@ public class PdfView implements BinaryExportView
      * The overall PDF table generator.
      * @throws JspException for errors during value retrieving from the table model
      * @throws BadElementException IText exception
+     * @throws ExportCancelledException if the export has been cancelled
      */
-    protected void generatePDFTable() throws JspException, BadElementException
+    protected void generatePDFTable() throws JspException, BadElementException, ExportCancelledException
     {
         if (this.header)
         {
@@ -143,7 +144,7 @@ public class PdfView implements BinaryExportView
     /**
      * @see org.displaytag.export.BinaryExportView#doExport(OutputStream)
      */
-    public void doExport(OutputStream out) throws JspException
+    public void doExport(OutputStream out) throws JspException, ExportCancelledException
     {
         try
         {
@@ -167,6 +168,10 @@ public class PdfView implements BinaryExportView
             document.close();
 
         }
+        catch (ExportCancelledException e)
+        {
+            throw e;
+        }
         catch (Exception e)
         {
             throw new PdfGenerationException(e);
@@ -204,14 +209,20 @@ public class PdfView implements BinaryExportView
      * Generates all the row cells.
      * @throws JspException for errors during value retrieving from the table model
      * @throws BadElementException errors while generating content
+     * @throws ExportCancelledException if the export has been cancelled
      */
-    protected void generateRows() throws JspException, BadElementException
+    protected void generateRows() throws JspException, BadElementException, ExportCancelledException
     {
         // get the correct iterator (full or partial list according to the exportFull field)
         RowIterator rowIterator = this.model.getRowIterator(this.exportFull);
         // iterator on rows
         while (rowIterator.hasNext())
         {
+            if (this.model.isCancelled())
+            {
+                throw new ExportCancelledException();
+            }
+
             Row row = rowIterator.next();
 
             // iterator on columns
@@ -0,0 +1,115 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.export;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import javax.servlet.ServletResponse;
+
+
+/**
+ * Writer used by the table tag for writing text exports to the response, wrapping the JspWriter or the response
+ * writer. Like any <code>PrintWriter</code> it never throws exceptions: when the client has gone away the
+ * IOException thrown by a JspWriter is recorded, and <code>checkError()</code> returns <code>true</code>, so that
+ * ExportWriter stops the export quietly.
+ * <p>
+ * <code>PrintWriter.checkError()</code> flushes the wrapped writer, which would commit the response. Since nothing
+ * can fail before content has actually been sent to the client, the wrapped writer is checked only once the response
+ * has been committed.
+ * </p>
+ * @version $Revision$ ($Author$)
+ */
+public class ResponseWriter extends PrintWriter
+{
+
+    /**
+     * Response the content is written to.
+     */
+    private final ServletResponse response;
+
+    /**
+     * Has writing to the wrapped writer failed?
+     */
+    private boolean failed;
+
+    /**
+     * Instantiates a new ResponseWriter.
+     * @param writer JspWriter or response writer
+     * @param servletResponse response the content is written to
+     */
+    public ResponseWriter(Writer writer, ServletResponse servletResponse)
+    {
+        super(writer);
+        this.response = servletResponse;
+    }
+
+    /**
+     * @see java.io.PrintWriter#write(int)
+     */
+    public void write(int c)
+    {
+        try
+        {
+            this.out.write(c);
+        }
+        catch (IOException e)
+        {
+            this.failed = true;
+        }
+    }
+
+    /**
+     * @see java.io.PrintWriter#write(char[], int, int)
+     */
+    public void write(char[] buf, int off, int len)
+    {
+        try
+        {
+            this.out.write(buf, off, len);
+        }
+        catch (IOException e)
+        {
+            this.failed = true;
+        }
+    }
+
+    /**
+     * @see java.io.PrintWriter#write(java.lang.String, int, int)
+     */
+    public void write(String s, int off, int len)
+    {
+        try
+        {
+            this.out.write(s, off, len);
+        }
+        catch (IOException e)
+        {
+            this.failed = true;
+        }
+    }
+
+    /**
+     * Doesn't flush the wrapped writer until the response has been committed.
+     * @see java.io.PrintWriter#checkError()
+     */
+    public boolean checkError()
+    {
+        if (this.failed)
+        {
+            return true;
+        }
+        return this.response.isCommitted() && super.checkError();
+    }
+
+}
@@ -11,6 +11,9 @@
  */
 package org.displaytag.export;
 
+import java.io.IOException;
+import java.io.Writer;
+
 import org.apache.commons.lang.StringEscapeUtils;
 import org.displaytag.model.TableModel;
 
@@ -112,4 +115,68 @@ public class XmlView extends BaseExportView
         return StringEscapeUtils.escapeXml(value.toString());
     }
 
+    /**
+     * Escapes the value directly into the export buffer, unless a subclass customizes
+     * <code>escapeColumnValue()</code>. Produces the same output as <code>StringEscapeUtils.escapeXml()</code>: the
+     * five xml entities are used for markup chars and any char above 0x7f is written as a numeric entity.
+     * @see org.displaytag.export.BaseExportView#writeColumnValue(java.io.Writer, java.lang.Object)
+     */
+    protected void writeColumnValue(Writer out, Object value) throws IOException
+    {
+        if (isEscapeColumnValueOverridden(XmlView.class))
+        {
+            super.writeColumnValue(out, value);
+            return;
+        }
+
+        String stringValue = value.toString();
+        int length = stringValue.length();
+        int blockStart = 0;
+        for (int j = 0; j < length; j++)
+        {
+            char c = stringValue.charAt(j);
+            String entity;
+            switch (c)
+            {
+                case '&' :
+                    entity = "&amp;"; //$NON-NLS-1$
+                    break;
+                case '<' :
+                    entity = "&lt;"; //$NON-NLS-1$
+                    break;
+                case '>' :
+                    entity = "&gt;"; //$NON-NLS-1$
+                    break;
+                case '"' :
+                    entity = "&quot;"; //$NON-NLS-1$
+                    break;
+                case '\'' :
+                    entity = "&apos;"; //$NON-NLS-1$
+                    break;
+                default :
+                    if (c <= 0x7f)
+                    {
+                        continue;
+                    }
+                    entity = null;
+            }
+
+            // copy the unescaped block before this char
+            out.write(stringValue, blockStart, j - blockStart);
+            blockStart = j + 1;
+
+            if (entity != null)
+            {
+                out.write(entity);
+            }
+            else
+            {
+                out.write("&#"); //$NON-NLS-1$
+                out.write(Integer.toString(c));
+                out.write(';');
+            }
+        }
+        out.write(stringValue, blockStart, length - blockStart);
+    }
+
 }
\ No newline at end of file
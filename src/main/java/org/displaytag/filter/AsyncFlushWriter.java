@@ -0,0 +1,371 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.filter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.apache.commons.beanutils.MethodUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.displaytag.util.ReflectHelper;
+
+
+/**
+ * <p>
+ * Flushes the buffer of an export using the Servlet 3.1 non blocking io: the request is put in asynchronous mode and
+ * bytes are pushed from a <code>WriteListener</code> only when the output stream is ready, so the container thread is
+ * released while a slow client is downloading.
+ * </p>
+ * <p>
+ * This is an asynchronous flush of buffered exports, not an asynchronous export: the whole export has already been
+ * generated and buffered in memory on the request thread, so row production is not decoupled from the socket and
+ * memory usage is the same as for a synchronous buffered export.
+ * </p>
+ * <p>
+ * The asynchronous context is started with the configured timeout (0 for no timeout, the container default is usually
+ * 30 seconds) and is completed once all the content has been written, or as soon as the container reports a timeout
+ * or an error through <code>AsyncListener</code> or <code>WriteListener</code>.
+ * </p>
+ * <p>
+ * Displaytag is compiled against an older servlet api, so the Servlet 3.1 methods are looked up by reflection on the
+ * request, response stream and async context; when they are not available, or the request doesn't support
+ * asynchronous mode, <code>start()</code> returns <code>false</code> and the export must be written as usual.
+ * </p>
+ * @version $Revision$ ($Author$)
+ */
+final class AsyncFlushWriter implements InvocationHandler
+{
+
+    /**
+     * Size of the chunks written on each write.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * logger.
+     */
+    private static Log log = LogFactory.getLog(AsyncFlushWriter.class);
+
+    /**
+     * javax.servlet.WriteListener, null if the Servlet 3.1 api is not available.
+     */
+    private static Class writeListenerClass;
+
+    /**
+     * javax.servlet.AsyncListener, null if the Servlet 3.1 api is not available.
+     */
+    private static Class asyncListenerClass;
+
+    static
+    {
+        try
+        {
+            writeListenerClass = ReflectHelper.classForName("javax.servlet.WriteListener"); //$NON-NLS-1$
+            asyncListenerClass = ReflectHelper.classForName("javax.servlet.AsyncListener"); //$NON-NLS-1$
+        }
+        catch (Throwable e)
+        {
+            // ClassNotFoundException
+            log.debug("Servlet 3.1 api not available, asynchronous flush disabled"); //$NON-NLS-1$
+            writeListenerClass = null;
+            asyncListenerClass = null;
+        }
+    }
+
+    /**
+     * Async context.
+     */
+    private final Object asyncContext;
+
+    /**
+     * AsyncContext.complete().
+     */
+    private final Method complete;
+
+    /**
+     * Response output stream.
+     */
+    private final ServletOutputStream out;
+
+    /**
+     * ServletOutputStream.isReady().
+     */
+    private final Method isReady;
+
+    /**
+     * Content to write.
+     */
+    private final byte[] content;
+
+    /**
+     * Bytes already written.
+     */
+    private int offset;
+
+    /**
+     * Has the async context been completed? Guarded by this.
+     */
+    private boolean completed;
+
+    /**
+     * Instantiates a new AsyncFlushWriter.
+     * @param context AsyncContext
+     * @param completeMethod AsyncContext.complete()
+     * @param stream response output stream
+     * @param isReadyMethod ServletOutputStream.isReady()
+     * @param bytes content to write
+     */
+    private AsyncFlushWriter(Object context, Method completeMethod, ServletOutputStream stream,
+        Method isReadyMethod, byte[] bytes)
+    {
+        this.asyncContext = context;
+        this.complete = completeMethod;
+        this.out = stream;
+        this.isReady = isReadyMethod;
+        this.content = bytes;
+    }
+
+    /**
+     * Starts writing the given content asynchronously. Headers must have already been set.
+     * @param request ServletRequest, as received by the filter
+     * @param response ServletResponse
+     * @param content content to write
+     * @param timeout timeout of the asynchronous context in milliseconds, 0 for no timeout
+     * @return <code>false</code> if asynchronous writing is not supported, and the content must be written as usual
+     */
+    static boolean start(ServletRequest request, ServletResponse response, byte[] content, long timeout)
+    {
+        if (writeListenerClass == null)
+        {
+            return false;
+        }
+
+        Method isAsyncSupported = getMethod(request, "isAsyncSupported", null); //$NON-NLS-1$
+        Method startAsync = getMethod(request, "startAsync", null); //$NON-NLS-1$
+        if (isAsyncSupported == null || startAsync == null)
+        {
+            log.debug("Request doesn't implement the Servlet 3.1 api"); //$NON-NLS-1$
+            return false;
+        }
+
+        Object asyncContext = null;
+        AsyncFlushWriter handler = null;
+        try
+        {
+            if (!((Boolean) isAsyncSupported.invoke(request, null)).booleanValue())
+            {
+                log.debug("Request doesn't support asynchronous mode"); //$NON-NLS-1$
+                return false;
+            }
+
+            ServletOutputStream out = response.getOutputStream();
+            Method isReady = getMethod(out, "isReady", null); //$NON-NLS-1$
+            Method setWriteListener = getMethod(out, "setWriteListener", new Class[]{writeListenerClass}); //$NON-NLS-1$
+            if (isReady == null || setWriteListener == null)
+            {
+                log.debug("Output stream doesn't implement the Servlet 3.1 api"); //$NON-NLS-1$
+                return false;
+            }
+
+            asyncContext = startAsync.invoke(request, null);
+            handler = new AsyncFlushWriter(
+                asyncContext,
+                getRequiredMethod(asyncContext, "complete", null), //$NON-NLS-1$
+                out,
+                isReady,
+                content);
+
+            getRequiredMethod(asyncContext, "setTimeout", new Class[]{Long.TYPE}) //$NON-NLS-1$
+                .invoke(asyncContext, new Object[]{new Long(timeout)});
+
+            // a single proxy implements both AsyncListener and WriteListener
+            Object listener = Proxy.newProxyInstance(
+                writeListenerClass.getClassLoader(),
+                new Class[]{writeListenerClass, asyncListenerClass},
+                handler);
+
+            getRequiredMethod(asyncContext, "addListener", new Class[]{asyncListenerClass}) //$NON-NLS-1$
+                .invoke(asyncContext, new Object[]{listener});
+
+            // the container calls onWritePossible() as soon as the stream is ready
+            setWriteListener.invoke(out, new Object[]{listener});
+            return true;
+        }
+        catch (Exception e)
+        {
+            // should not happen after isAsyncSupported() returned true
+            log.warn("Unable to start asynchronous flush: " + e.getMessage(), e); //$NON-NLS-1$
+            if (handler != null)
+            {
+                handler.complete();
+                // the content can't be written synchronously once the request is in asynchronous mode
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Looks up a public method on the runtime class of an object.
+     * @param target object
+     * @param name method name
+     * @param parameterTypes parameter types, null for no parameters
+     * @return accessible Method, null if not found
+     */
+    private static Method getMethod(Object target, String name, Class[] parameterTypes)
+    {
+        return MethodUtils.getAccessibleMethod(target.getClass(), name, parameterTypes != null
+            ? parameterTypes
+            : new Class[0]);
+    }
+
+    /**
+     * Looks up a public method which must exist on the runtime class of an object.
+     * @param target object
+     * @param name method name
+     * @param parameterTypes parameter types, null for no parameters
+     * @return accessible Method
+     * @throws NoSuchMethodException if the method doesn't exist
+     */
+    private static Method getRequiredMethod(Object target, String name, Class[] parameterTypes)
+        throws NoSuchMethodException
+    {
+        Method method = getMethod(target, name, parameterTypes);
+        if (method == null)
+        {
+            throw new NoSuchMethodException(target.getClass().getName() + "." + name); //$NON-NLS-1$
+        }
+        return method;
+    }
+
+    /**
+     * Implements WriteListener and AsyncListener.
+     * @see java.lang.reflect.InvocationHandler#invoke(Object, Method, Object[])
+     */
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        String name = method.getName();
+        if ("onWritePossible".equals(name)) //$NON-NLS-1$
+        {
+            onWritePossible();
+            return null;
+        }
+        if ("onError".equals(name)) //$NON-NLS-1$
+        {
+            // WriteListener.onError(Throwable) or AsyncListener.onError(AsyncEvent), usually the client has gone away
+            log.debug("Asynchronous flush failed: " + args[0]); //$NON-NLS-1$
+            complete();
+            return null;
+        }
+        if ("onTimeout".equals(name)) //$NON-NLS-1$
+        {
+            log.debug("Asynchronous flush timed out"); //$NON-NLS-1$
+            complete();
+            return null;
+        }
+        if ("onComplete".equals(name)) //$NON-NLS-1$
+        {
+            markCompleted();
+            return null;
+        }
+        if ("onStartAsync".equals(name)) //$NON-NLS-1$
+        {
+            return null;
+        }
+        if ("equals".equals(name)) //$NON-NLS-1$
+        {
+            return Boolean.valueOf(proxy == args[0]);
+        }
+        if ("hashCode".equals(name)) //$NON-NLS-1$
+        {
+            return new Integer(System.identityHashCode(proxy));
+        }
+        return toString();
+    }
+
+    /**
+     * Writes chunks while the output stream is ready, completes the request when done.
+     * @throws Exception exception thrown when writing content, handled by the container which calls onError()
+     */
+    private void onWritePossible() throws Exception
+    {
+        try
+        {
+            while (!isCompleted() && ((Boolean) this.isReady.invoke(this.out, null)).booleanValue())
+            {
+                if (this.offset >= this.content.length)
+                {
+                    complete();
+                    return;
+                }
+                int length = Math.min(CHUNK_SIZE, this.content.length - this.offset);
+                this.out.write(this.content, this.offset, length);
+                this.offset += length;
+            }
+        }
+        catch (InvocationTargetException e)
+        {
+            throw (Exception) e.getTargetException();
+        }
+    }
+
+    /**
+     * Completes the async context, only once.
+     */
+    private void complete()
+    {
+        if (!markCompleted())
+        {
+            return;
+        }
+        try
+        {
+            this.complete.invoke(this.asyncContext, null);
+        }
+        catch (Exception e)
+        {
+            // IllegalStateException if the container has already completed the request
+            log.debug("Unable to complete asynchronous flush: " + e); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Marks the async context as completed.
+     * @return <code>false</code> if it was already completed
+     */
+    private synchronized boolean markCompleted()
+    {
+        if (this.completed)
+        {
+            return false;
+        }
+        this.completed = true;
+        return true;
+    }
+
+    /**
+     * Has the async context been completed?
+     * @return <code>true</code> if completed
+     */
+    private synchronized boolean isCompleted()
+    {
+        return this.completed;
+    }
+
+}
@@ -0,0 +1,64 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.filter;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+import org.displaytag.export.ExportJobManager;
+import org.displaytag.export.ExportLimiter;
+import org.displaytag.stats.JmxTableStatsListener;
+import org.displaytag.util.JmxUtil;
+
+
+/**
+ * <p>
+ * Releases the resources held by displaytag when the web application is stopped: background export threads and files,
+ * and the MBeans registered in the platform MBean server. Without it, threads started by displaytag keep running after
+ * an undeploy and, like the MBeans, pin the webapp classloader. Register it
+ * in web.xml using:
+ * </p>
+ *
+ * <pre>
+ *  &lt;listener>
+ *      &lt;listener-class>org.displaytag.filter.DisplaytagShutdownListener&lt;/listener-class>
+ *  &lt;/listener>
+ * </pre>
+ *
+ * <p>
+ * When ExportJobServlet is mapped, background exports are also stopped by its <code>destroy()</code> method.
+ * </p>
+ * @version $Revision$ ($Author$)
+ */
+public class DisplaytagShutdownListener implements ServletContextListener
+{
+
+    /**
+     * @see javax.servlet.ServletContextListener#contextInitialized(javax.servlet.ServletContextEvent)
+     */
+    public void contextInitialized(ServletContextEvent event)
+    {
+        // nothing to do
+    }
+
+    /**
+     * @see javax.servlet.ServletContextListener#contextDestroyed(javax.servlet.ServletContextEvent)
+     */
+    public void contextDestroyed(ServletContextEvent event)
+    {
+        ExportJobManager.shutdown();
+        ExportLimiter.shutdown();
+        JmxTableStatsListener.clear();
+        JmxUtil.unregisterAll();
+    }
+
+}
@@ -22,8 +22,10 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.displaytag.export.ExportLimiter;
 import org.displaytag.tags.TableTag;
 import org.displaytag.tags.TableTagParameters;
+import org.displaytag.util.CompressionUtil;
 
 
 /**
@@ -59,6 +61,23 @@ public final class ExportDelegate
     protected static void writeExport(HttpServletResponse response, ServletRequest request,
         BufferedResponseWrapper wrapper) throws IOException
     {
+        writeExport(response, request, wrapper, false, 0);
+    }
+
+    /**
+     * Actually writes exported data. Extracts content from the Map stored in request with the
+     * <code>TableTag.FILTER_CONTENT_OVERRIDE_BODY</code> key.
+     * @param wrapper BufferedResponseWrapper implementation
+     * @param response HttpServletResponse
+     * @param request ServletRequest
+     * @param asyncFlush if <code>true</code> the buffered content is flushed using the Servlet 3.1 non blocking io,
+     * when supported by the container
+     * @param asyncFlushTimeout timeout of the asynchronous flush in milliseconds, 0 for no timeout
+     * @throws IOException exception thrown by response writer/outputStream
+     */
+    protected static void writeExport(HttpServletResponse response, ServletRequest request,
+        BufferedResponseWrapper wrapper, boolean asyncFlush, long asyncFlushTimeout) throws IOException
+    {
 
         if (wrapper.isOutRequested())
         {
@@ -101,12 +120,42 @@ public final class ExportDelegate
             response.reset();
         }
 
+        Integer status = (Integer) bean.get(TableTagParameters.BEAN_STATUS);
+        if (status != null)
+        {
+            response.setStatus(status.intValue());
+            if (status.intValue() == HttpServletResponse.SC_SERVICE_UNAVAILABLE)
+            {
+                // export rejected by ExportLimiter
+                response.setHeader("Retry-After", ExportLimiter.RETRY_AFTER);
+            }
+        }
+
+        String location = (String) bean.get(TableTagParameters.BEAN_LOCATION);
+        if (location != null)
+        {
+            // background export job
+            response.setHeader("Location", location);
+        }
+
         String filename = (String) bean.get(TableTagParameters.BEAN_FILENAME);
         String contentType = (String) bean.get(TableTagParameters.BEAN_CONTENTTYPE);
+        String compression = (String) bean.get(TableTagParameters.BEAN_COMPRESSION);
+
+        if (bean.containsKey(TableTagParameters.BEAN_VARY))
+        {
+            CompressionUtil.addVaryHeader(response);
+        }
 
-        if (StringUtils.isNotBlank(filename))
+        String responseFilename = filename;
+        if (CompressionUtil.ZIP.equals(compression))
         {
-            response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+            responseFilename = CompressionUtil.getZipFilename(filename);
+        }
+
+        if (StringUtils.isNotBlank(responseFilename))
+        {
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + responseFilename + "\"");
         }
 
         String characterEncoding = wrapper.getCharacterEncoding();
@@ -125,6 +174,40 @@ public final class ExportDelegate
 
         response.setContentType(contentType);
 
+        if (compression != null || asyncFlush)
+        {
+            byte[] content;
+            if (pageContent instanceof String)
+            {
+                content = characterEncoding != null
+                    ? ((String) pageContent).getBytes(characterEncoding)
+                    : ((String) pageContent).getBytes();
+            }
+            else
+            {
+                content = (byte[]) pageContent;
+            }
+
+            if (compression != null)
+            {
+                // the content length is the compressed one
+                content = CompressionUtil.compress(content, compression, filename);
+                CompressionUtil.setHeaders(response, compression, filename);
+            }
+            response.setContentLength(content.length);
+
+            if (asyncFlush && AsyncFlushWriter.start(request, response, content, asyncFlushTimeout))
+            {
+                log.debug("Export buffer is being flushed asynchronously");
+                return;
+            }
+
+            OutputStream out = response.getOutputStream();
+            out.write(content);
+            out.flush();
+            return;
+        }
+
         if (pageContent instanceof String)
         {
             // text content
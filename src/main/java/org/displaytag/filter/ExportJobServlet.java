@@ -0,0 +1,182 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.filter;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.displaytag.Messages;
+import org.displaytag.export.ExportJob;
+import org.displaytag.export.ExportJobManager;
+
+
+/**
+ * <p>
+ * Reports the status of background exports and serves finished files. Background exports are enabled by setting
+ * <code>export.background</code> to <code>true</code>: instead of the exported file the table tag will then return
+ * the job id (with a 202 status code and a <code>Location</code> header if <code>export.background.url</code> is
+ * set). Map this servlet in web.xml using something like:
+ * </p>
+ *
+ * <pre>
+ *  &lt;servlet>
+ *      &lt;servlet-name>ExportJobServlet&lt;/servlet-name>
+ *      &lt;servlet-class>org.displaytag.filter.ExportJobServlet&lt;/servlet-class>
+ *  &lt;/servlet>
+ *  &lt;servlet-mapping>
+ *      &lt;servlet-name>ExportJobServlet&lt;/servlet-name>
+ *      &lt;url-pattern>/displaytag/export&lt;/url-pattern>
+ *  &lt;/servlet-mapping>
+ * </pre>
+ *
+ * <p>
+ * A request to <code>/displaytag/export?id=</code><em>[job id]</em> returns <code>202</code> and a plain text
+ * status (<code>queued</code> or <code>running</code>) while the job is running, the exported file once completed,
+ * <code>500</code> if the export failed (the cause is only logged) or <code>404</code> for unknown or already
+ * collected jobs. Files are deleted once served. Background export threads are stopped when the servlet is destroyed.
+ * </p>
+ * @version $Revision$ ($Author$)
+ */
+public class ExportJobServlet extends HttpServlet
+{
+
+    /**
+     * name of the parameter holding the job id.
+     */
+    public static final String PARAMETER_ID = "id"; //$NON-NLS-1$
+
+    /**
+     * D1597A17A6.
+     */
+    private static final long serialVersionUID = 899149338534L;
+
+    /**
+     * Suggested polling interval, in seconds.
+     */
+    private static final String RETRY_AFTER = "2"; //$NON-NLS-1$
+
+    /**
+     * logger.
+     */
+    private static Log log = LogFactory.getLog(ExportJobServlet.class);
+
+    /**
+     * @see javax.servlet.http.HttpServlet#doGet(HttpServletRequest, HttpServletResponse)
+     */
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        ExportJobManager manager = ExportJobManager.getInstance();
+        ExportJob job = manager.getJob(request.getParameter(PARAMETER_ID));
+
+        if (job == null)
+        {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        switch (job.getStatus())
+        {
+            case ExportJob.STATUS_QUEUED :
+                writeStatus(response, "queued"); //$NON-NLS-1$
+                break;
+            case ExportJob.STATUS_RUNNING :
+                writeStatus(response, "running"); //$NON-NLS-1$
+                break;
+            case ExportJob.STATUS_FAILED :
+                manager.removeJob(job.getId());
+                // the exception has already been logged with its stack trace by the job, never send it to the client
+                log.warn(Messages.getString("ExportJobServlet.failed", new Object[]{job.getId()})); //$NON-NLS-1$
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                break;
+            default :
+                writeFile(response, job);
+                manager.removeJob(job.getId());
+        }
+    }
+
+    /**
+     * Stops background exports.
+     * @see javax.servlet.GenericServlet#destroy()
+     */
+    public void destroy()
+    {
+        ExportJobManager.shutdown();
+        super.destroy();
+    }
+
+    /**
+     * Writes the status of a running job.
+     * @param response HttpServletResponse
+     * @param status status description
+     * @throws IOException exception thrown by response writer
+     */
+    private void writeStatus(HttpServletResponse response, String status) throws IOException
+    {
+        response.setStatus(HttpServletResponse.SC_ACCEPTED);
+        response.setHeader("Retry-After", RETRY_AFTER); //$NON-NLS-1$
+        response.setHeader("Cache-Control", "no-cache"); //$NON-NLS-1$ //$NON-NLS-2$
+        response.setContentType("text/plain"); //$NON-NLS-1$
+        PrintWriter out = response.getWriter();
+        out.write(status);
+        out.flush();
+    }
+
+    /**
+     * Writes the exported file.
+     * @param response HttpServletResponse
+     * @param job completed job
+     * @throws IOException exception thrown when reading the file or writing to the response
+     */
+    private void writeFile(HttpServletResponse response, ExportJob job) throws IOException
+    {
+        if (log.isDebugEnabled())
+        {
+            log.debug("Serving export " + job); //$NON-NLS-1$
+        }
+
+        response.setContentType(job.getMimeType());
+        if (StringUtils.isNotEmpty(job.getFilename()))
+        {
+            response.setHeader("Content-Disposition", //$NON-NLS-1$
+                "attachment; filename=\"" + job.getFilename() + "\""); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        response.setContentLength((int) job.getFile().length());
+
+        InputStream in = new FileInputStream(job.getFile());
+        try
+        {
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, read);
+            }
+            out.flush();
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+}
@@ -25,6 +25,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.displaytag.Messages;
@@ -75,6 +76,33 @@ import org.displaytag.tags.TableTagParameters;
  *  &lt;/filter>
  *  </pre>
  * 
+ * <p>
+ * On Servlet 3.1 containers the buffer of an export can be flushed asynchronously, releasing the request thread while
+ * the content is sent to slow clients, by setting the optional parameter <code>asyncFlush</code> to <code>true</code>.
+ * This is an asynchronous flush of buffered exports only: the export is still generated and fully buffered on the
+ * request thread, with the same memory usage, before the flush starts. The filter must also be declared as
+ * <code>&lt;async-supported>true&lt;/async-supported></code> in a Servlet 3.1 web.xml, else the buffer is flushed
+ * synchronously as usual. The parameter is ignored when buffering is disabled. The optional parameter
+ * <code>asyncFlushTimeout</code> sets the timeout of the flush in seconds; the default, <code>0</code>, disables the
+ * timeout, so that large exports to slow clients are not truncated by the container default (usually 30 seconds).
+ * </p>
+ * 
+ * <pre>
+ *  &lt;filter>
+ *      &lt;filter-name>ResponseOverrideFilter&lt;/filter-name>
+ *      &lt;filter-class>org.displaytag.filter.ResponseOverrideFilter&lt;/filter-class>
+ *      &lt;async-supported>true&lt;/async-supported>
+ *      &lt;init-param>
+ *          &lt;param-name>asyncFlush&lt;/param-name>
+ *          &lt;param-value>true&lt;/param-value>
+ *      &lt;/init-param>
+ *      &lt;init-param>
+ *          &lt;param-name>asyncFlushTimeout&lt;/param-name>
+ *          &lt;param-value>600&lt;/param-value>
+ *      &lt;/init-param>
+ *  &lt;/filter>
+ *  </pre>
+ * 
  * @author rapruitt
  * @author Fabrizio Giustina
  * @version $Revision: 1081 $ ($Author: fgiust $)
@@ -92,6 +120,16 @@ public class ResponseOverrideFilter implements Filter
      */
     private boolean buffer = true;
 
+    /**
+     * Flush buffered exports asynchronously. Disabled by default.
+     */
+    private boolean asyncFlush;
+
+    /**
+     * Timeout of the asynchronous flush in milliseconds, 0 for no timeout.
+     */
+    private long asyncFlushTimeout;
+
     /**
      * {@inheritDoc}
      */
@@ -104,8 +142,13 @@ public class ResponseOverrideFilter implements Filter
             log.debug("bufferParam=" + bufferParam);
         }
         buffer = bufferParam == null || StringUtils.equalsIgnoreCase("true", bufferParam);
+        asyncFlush = buffer && StringUtils.equalsIgnoreCase("true", filterConfig.getInitParameter("asyncFlush"));
+        asyncFlushTimeout = NumberUtils.toLong(filterConfig.getInitParameter("asyncFlushTimeout")) * 1000L;
 
-        log.info("Filter initialized. Response buffering is " + (buffer ? "enabled" : "disabled"));
+        log.info("Filter initialized. Response buffering is "
+            + (buffer ? "enabled" : "disabled")
+            + ", asynchronous flush is "
+            + (asyncFlush ? "enabled" : "disabled"));
     }
 
     /**
@@ -139,7 +182,8 @@ public class ResponseOverrideFilter implements Filter
 
         filterChain.doFilter(request, wrapper);
 
-        ExportDelegate.writeExport((HttpServletResponse) servletResponse, servletRequest, wrapper);
+        ExportDelegate.writeExport((HttpServletResponse) servletResponse, servletRequest, wrapper, asyncFlush,
+            asyncFlushTimeout);
     }
 
     /**
@@ -144,21 +144,30 @@ public class I18nJstlAdapter implements I18nResourceProvider, LocaleResolver
             }
         }
 
-        if (bundle != null)
+        if (bundle != null && key != null)
         {
-            try
+            title = I18nResourceCache.get(bundle, null, key);
+            if (title == null)
             {
-                title = bundle.getString(key);
+                try
+                {
+                    title = bundle.getString(key);
+                }
+                catch (MissingResourceException e)
+                {
+                    log.debug(Messages.getString("Localization.missingkey", key)); //$NON-NLS-1$
+                }
+                I18nResourceCache.put(bundle, null, key, title);
             }
-            catch (MissingResourceException e)
+            else if (title == I18nResourceCache.MISSING)
             {
-                log.debug(Messages.getString("Localization.missingkey", key)); //$NON-NLS-1$
+                title = null;
+            }
 
-                // if user explicitely added a titleKey we guess this is an error
-                if (resourceKey != null)
-                {
-                    title = UNDEFINED_KEY + resourceKey + UNDEFINED_KEY;
-                }
+            // if user explicitely added a titleKey we guess this is an error
+            if (title == null && resourceKey != null)
+            {
+                title = UNDEFINED_KEY + resourceKey + UNDEFINED_KEY;
             }
         }
 
@@ -0,0 +1,90 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.localization;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+/**
+ * Cache for the resources resolved by the resource providers, so column titles are looked up only once for each
+ * message source (resource bundle, Spring MessageSource, Struts MessageResources), locale and key. Message sources are
+ * weakly referenced, and the cache is cleared by <code>TableProperties.clearProperties()</code>.
+ * @version $Revision$ ($Author$)
+ */
+public final class I18nResourceCache
+{
+
+    /**
+     * Value cached for missing resources.
+     */
+    static final String MISSING = new String("???"); //$NON-NLS-1$
+
+    /**
+     * Map containing message source - map of locale and key - resource.
+     */
+    private static Map cache = new WeakHashMap();
+
+    /**
+     * Don't instantiate I18nResourceCache.
+     */
+    private I18nResourceCache()
+    {
+    }
+
+    /**
+     * Returns a cached resource.
+     * @param source message source
+     * @param locale locale, null if the message source is already localized
+     * @param key resource key
+     * @return cached resource, <code>MISSING</code> if the resource is known to be missing, <code>null</code> if the
+     * resource has not been looked up yet
+     */
+    static synchronized String get(Object source, Locale locale, String key)
+    {
+        Map resources = (Map) cache.get(source);
+        if (resources == null)
+        {
+            return null;
+        }
+        return (String) resources.get(locale == null ? key : locale + "|" + key); //$NON-NLS-1$
+    }
+
+    /**
+     * Caches a resource.
+     * @param source message source
+     * @param locale locale, null if the message source is already localized
+     * @param key resource key
+     * @param value resource, null if missing
+     */
+    static synchronized void put(Object source, Locale locale, String key, String value)
+    {
+        Map resources = (Map) cache.get(source);
+        if (resources == null)
+        {
+            resources = new HashMap();
+            cache.put(source, resources);
+        }
+        resources.put(locale == null ? key : locale + "|" + key, value != null ? value : MISSING); //$NON-NLS-1$
+    }
+
+    /**
+     * Removes all the cached resources.
+     */
+    public static synchronized void clear()
+    {
+        cache.clear();
+    }
+
+}
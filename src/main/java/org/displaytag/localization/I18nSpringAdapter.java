@@ -68,8 +68,17 @@ public class I18nSpringAdapter implements LocaleResolver, I18nResourceProvider
 
         String message = null;
 
-        message = messageSource.getMessage(key, null, null, RequestContextUtils
-            .getLocale((HttpServletRequest) pageContext.getRequest()));
+        Locale locale = RequestContextUtils.getLocale((HttpServletRequest) pageContext.getRequest());
+        message = I18nResourceCache.get(messageSource, locale, key);
+        if (message == null)
+        {
+            message = messageSource.getMessage(key, null, null, locale);
+            I18nResourceCache.put(messageSource, locale, key, message);
+        }
+        else if (message == I18nResourceCache.MISSING)
+        {
+            message = null;
+        }
 
         // if user explicitely added a titleKey we guess this is an error
         if (message == null && resourceKey != null)
@@ -99,7 +99,16 @@ public class I18nStrutsAdapter implements I18nResourceProvider, LocaleResolver
         if (resources != null)
         {
             Locale userLocale = resolveLocale((HttpServletRequest) pageContext.getRequest());
-            title = resources.getMessage(userLocale, key);
+            title = I18nResourceCache.get(resources, userLocale, key);
+            if (title == null)
+            {
+                title = resources.getMessage(userLocale, key);
+                I18nResourceCache.put(resources, userLocale, key, title);
+            }
+            else if (title == I18nResourceCache.MISSING)
+            {
+                title = null;
+            }
         }
 
         // if user explicitely added a titleKey we guess this is an error
@@ -22,6 +22,8 @@ import org.apache.commons.lang.builder.ToStringStyle;
 import org.displaytag.decorator.DisplaytagColumnDecorator;
 import org.displaytag.exception.DecoratorException;
 import org.displaytag.exception.ObjectLookupException;
+import org.displaytag.stats.ColumnProfile;
+import org.displaytag.stats.TableStats;
 import org.displaytag.util.Anchor;
 import org.displaytag.util.Href;
 import org.displaytag.util.HtmlAttributeMap;
@@ -100,6 +102,9 @@ public class Column
 
         Object object = null;
 
+        ColumnProfile profile = getProfile();
+        long time = profile != null ? TableStats.now() : 0;
+
         // a static value has been set?
         if (this.cell.getStaticValue() != null)
         {
@@ -117,11 +122,19 @@ public class Column
 
                 object = LookupUtil.getBeanProperty(this.row.getParentTable().getTableDecorator(), this.header
                     .getBeanPropertyName());
+                if (profile != null)
+                {
+                    time = profile.add(this.header.getColumnNumber(), ColumnProfile.TABLE_DECORATOR, time);
+                }
             }
             else
             {
                 // else check underlining object
-                object = LookupUtil.getBeanProperty(this.row.getObject(), this.header.getBeanPropertyName());
+                object = getRowAdapter().getProperty(this.row.getObject(), this.header.getBeanPropertyName());
+                if (profile != null)
+                {
+                    time = profile.add(this.header.getColumnNumber(), ColumnProfile.LOOKUP, time);
+                }
             }
         }
 
@@ -133,6 +146,10 @@ public class Column
                 object = decorators[j].decorate(object, row.getParentTable().getPageContext(), row
                     .getParentTable()
                     .getMedia());
+                if (profile != null)
+                {
+                    time = profile.add(this.header.getColumnNumber(), ColumnProfile.COLUMN_DECORATOR + j, time);
+                }
             }
         }
 
@@ -201,6 +218,9 @@ public class Column
         String fullValue = ObjectUtils.toString(getValue(true));
         String choppedValue;
 
+        ColumnProfile profile = getProfile();
+        long time = profile != null ? TableStats.now() : 0;
+
         // trim the string if a maxLength or maxWords is defined
         if (this.header.getMaxLength() > 0)
         {
@@ -234,9 +254,35 @@ public class Column
             choppedValue = anchor.toString();
         }
 
+        if (profile != null)
+        {
+            profile.add(this.header.getColumnNumber(), ColumnProfile.CHOP_AND_LINK, time);
+        }
         return choppedValue;
     }
 
+    /**
+     * Returns the profile of the columns, if this row must be measured.
+     * @return ColumnProfile, null if profiling is disabled or this row is not sampled
+     */
+    private ColumnProfile getProfile()
+    {
+        // totals are computed while the table is evaluated, when the row is not yet attached to the table
+        TableModel model = this.row.getParentTable();
+        ColumnProfile profile = model != null ? model.getColumnProfile() : null;
+        return profile != null && profile.isSampled(this.row.getRowNumber()) ? profile : null;
+    }
+
+    /**
+     * Returns the adapter used to read values from the row object.
+     * @return RowAdapter of the table, <code>RowAdapter.BEAN</code> if the row is not yet attached to the table
+     */
+    private RowAdapter getRowAdapter()
+    {
+        TableModel model = this.row.getParentTable();
+        return model != null ? model.getRowAdapter() : RowAdapter.BEAN;
+    }
+
     /**
      * Generates the href for the column using paramName/property/scope.
      * @param columnContent column body
@@ -257,7 +303,7 @@ public class Column
             if (this.header.getParamProperty() != null)
             {
                 // different property, go get it
-                paramValue = LookupUtil.getBeanProperty(this.row.getObject(), this.header.getParamProperty());
+                paramValue = getRowAdapter().getProperty(this.row.getObject(), this.header.getParamProperty());
 
             }
             else
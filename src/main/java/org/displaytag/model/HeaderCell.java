@@ -137,6 +137,11 @@ public class HeaderCell
      */
     private double total;
 
+    /**
+     * Total of the full list, computed at the data source.
+     */
+    private Number fullListTotal;
+
     /**
      * Use this comparator for sorting.
      */
@@ -595,14 +600,28 @@ public class HeaderCell
     }
 
     /**
-     * Get the current total.
+     * Get the current total: the total of the full list if it has been set, else the total of the added cells.
      * @return the current total.
      */
     public double getTotal()
     {
+        if (this.fullListTotal != null)
+        {
+            return this.fullListTotal.doubleValue();
+        }
         return this.total;
     }
 
+    /**
+     * Sets the total of the full list, computed at the data source, which will be returned by <code>getTotal()</code>
+     * instead of the total of the added cells.
+     * @param value total of the full list, null to use the total of the added cells
+     */
+    public void setFullListTotal(Number value)
+    {
+        this.fullListTotal = value;
+    }
+
     /**
      * Add a new cell to this column.
      * @param column the value
@@ -0,0 +1,181 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.model;
+
+import java.util.List;
+import java.util.Map;
+
+import org.displaytag.exception.ObjectLookupException;
+import org.displaytag.util.LookupUtil;
+
+
+/**
+ * Reads column values from the objects in a table. The adapter is chosen once for each table from the first row:
+ * <ul>
+ * <li>Map rows: simple keys are read with <code>Map.get()</code></li>
+ * <li>Object[] and List rows: <code>[index]</code> properties are read directly from the array or list</li>
+ * <li>other rows (and rows of a different type in the same table) use <code>LookupUtil.getBeanProperty()</code></li>
+ * </ul>
+ * Fast paths return the same values as <code>LookupUtil</code>, without parsing the property name.
+ * @version $Revision$ ($Author$)
+ */
+public class RowAdapter
+{
+
+    /**
+     * Adapter for javabeans, always uses <code>LookupUtil</code>.
+     */
+    public static final RowAdapter BEAN = new RowAdapter();
+
+    /**
+     * Adapter for Map rows.
+     */
+    public static final RowAdapter MAP = new MapRowAdapter();
+
+    /**
+     * Adapter for Object[] and List rows.
+     */
+    public static final RowAdapter INDEXED = new IndexedRowAdapter();
+
+    /**
+     * Adapter for the rows copied by <code>TableModel.snapshot()</code>: Maps keyed by the whole property name.
+     */
+    static final RowAdapter SNAPSHOT = new SnapshotRowAdapter();
+
+    /**
+     * Use one of the constants.
+     */
+    protected RowAdapter()
+    {
+    }
+
+    /**
+     * Returns the adapter for the rows of a table.
+     * @param row first row object, can be null
+     * @return RowAdapter
+     */
+    public static RowAdapter forRow(Object row)
+    {
+        if (row instanceof Map)
+        {
+            return MAP;
+        }
+        if (row instanceof Object[] || row instanceof List)
+        {
+            return INDEXED;
+        }
+        return BEAN;
+    }
+
+    /**
+     * Returns the value of a property in a row.
+     * @param row row object
+     * @param propertyName property name, may be nested
+     * @return property value
+     * @throws ObjectLookupException for errors while retrieving a property in the bean
+     * @see LookupUtil#getBeanProperty(Object, String)
+     */
+    public Object getProperty(Object row, String propertyName) throws ObjectLookupException
+    {
+        return LookupUtil.getBeanProperty(row, propertyName);
+    }
+
+    /**
+     * Reads keys from Map rows.
+     */
+    private static final class MapRowAdapter extends RowAdapter
+    {
+
+        /**
+         * @see org.displaytag.model.RowAdapter#getProperty(Object, String)
+         */
+        public Object getProperty(Object row, String propertyName) throws ObjectLookupException
+        {
+            // LookupUtil uses the whole name as key when it's not nested, even if it contains [] or ()
+            if (row instanceof Map && propertyName.indexOf('.') == -1)
+            {
+                return ((Map) row).get(propertyName);
+            }
+            return super.getProperty(row, propertyName);
+        }
+    }
+
+    /**
+     * Reads values copied from the original rows, also for nested properties.
+     */
+    private static final class SnapshotRowAdapter extends RowAdapter
+    {
+
+        /**
+         * @see org.displaytag.model.RowAdapter#getProperty(Object, String)
+         */
+        public Object getProperty(Object row, String propertyName)
+        {
+            return ((Map) row).get(propertyName);
+        }
+    }
+
+    /**
+     * Reads elements from Object[] and List rows.
+     */
+    private static final class IndexedRowAdapter extends RowAdapter
+    {
+
+        /**
+         * @see org.displaytag.model.RowAdapter#getProperty(Object, String)
+         */
+        public Object getProperty(Object row, String propertyName) throws ObjectLookupException
+        {
+            int index = getIndex(propertyName);
+            if (index != -1)
+            {
+                if (row instanceof Object[])
+                {
+                    return ((Object[]) row)[index];
+                }
+                if (row instanceof List)
+                {
+                    return ((List) row).get(index);
+                }
+            }
+            return super.getProperty(row, propertyName);
+        }
+
+        /**
+         * Parses an index property.
+         * @param propertyName property name
+         * @return index, -1 if the property name is not in the <code>[index]</code> form
+         */
+        private int getIndex(String propertyName)
+        {
+            int length = propertyName.length();
+            // also limits the index to 8 digits, so it doesn't overflow
+            if (length < 3 || length > 10 || propertyName.charAt(0) != '[' || propertyName.charAt(length - 1) != ']')
+            {
+                return -1;
+            }
+
+            int index = 0;
+            for (int j = 1; j < length - 1; j++)
+            {
+                char digit = propertyName.charAt(j);
+                if (digit < '0' || digit > '9')
+                {
+                    return -1;
+                }
+                index = index * 10 + digit - '0';
+            }
+            return index;
+        }
+    }
+
+}
@@ -54,6 +54,11 @@ public class RowSorter implements Comparator
      */
     private Comparator comparator;
 
+    /**
+     * Reads the sorted property from the row objects.
+     */
+    private RowAdapter rowAdapter;
+
     /**
      * Initialize a new RowSorter.
      * @param sortedColumnIndex index of the sorted column
@@ -69,8 +74,30 @@ public class RowSorter implements Comparator
         TableDecorator tableDecorator,
         boolean ascendingOrder,
         Comparator compar)
+    {
+        this(sortedColumnIndex, beanProperty, tableDecorator, ascendingOrder, compar, RowAdapter.BEAN);
+    }
+
+    /**
+     * Initialize a new RowSorter.
+     * @param sortedColumnIndex index of the sorted column
+     * @param beanProperty name of the property. If pProperty is null column index is used to get a static cell value
+     * from the row object
+     * @param tableDecorator TableDecorator instance
+     * @param ascendingOrder boolean ascending order?
+     * @param compar the comparator to use
+     * @param adapter RowAdapter of the table
+     */
+    public RowSorter(
+        int sortedColumnIndex,
+        String beanProperty,
+        TableDecorator tableDecorator,
+        boolean ascendingOrder,
+        Comparator compar,
+        RowAdapter adapter)
     {
         this.columnIndex = sortedColumnIndex;
+        this.rowAdapter = adapter;
         this.property = beanProperty;
         this.decorator = tableDecorator;
         this.ascending = ascendingOrder;
@@ -142,8 +169,8 @@ public class RowSorter implements Comparator
             }
             else
             {
-                result1 = LookupUtil.getBeanProperty(obj1, this.property);
-                result2 = LookupUtil.getBeanProperty(obj2, this.property);
+                result1 = this.rowAdapter.getProperty(obj1, this.property);
+                result2 = this.rowAdapter.getProperty(obj2, this.property);
             }
 
             return checkNullsAndCompare(result1, result2);
@@ -13,7 +13,10 @@ package org.displaytag.model;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.jsp.PageContext;
 
@@ -22,8 +25,11 @@ import org.apache.commons.lang.builder.ToStringStyle;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.displaytag.decorator.TableDecorator;
+import org.displaytag.exception.ObjectLookupException;
+import org.displaytag.pagination.AggregatingPaginatedList;
 import org.displaytag.properties.MediaTypeEnum;
 import org.displaytag.properties.TableProperties;
+import org.displaytag.stats.ColumnProfile;
 
 
 /**
@@ -129,6 +135,26 @@ public class TableModel
      */
     private String form;
 
+    /**
+     * Set when the export of this table is cancelled.
+     */
+    private volatile boolean cancelled;
+
+    /**
+     * List providing aggregates on the full list, if any.
+     */
+    private AggregatingPaginatedList aggregatingList;
+
+    /**
+     * Profile of the columns, null if profiling is disabled.
+     */
+    private ColumnProfile columnProfile;
+
+    /**
+     * Reads the column values from the row objects, chosen when the first row is added if not set.
+     */
+    private RowAdapter rowAdapter;
+
     /**
      * Constructor for TableModel.
      * @param tableProperties table properties
@@ -258,6 +284,11 @@ public class TableModel
     {
         row.setParentTable(this);
 
+        if (this.rowAdapter == null)
+        {
+            this.rowAdapter = RowAdapter.forRow(row.getObject());
+        }
+
         if (log.isDebugEnabled())
         {
             log.debug("[" + this.id + "] adding row " + row);
@@ -476,7 +507,8 @@ public class TableModel
                         sorted,
                         getTableDecorator(),
                         this.sortOrderAscending,
-                        sortedHeaderCell.getComparator()));
+                        sortedHeaderCell.getComparator(),
+                        getRowAdapter()));
                 }
             }
 
@@ -565,6 +597,84 @@ public class TableModel
     
     
 
+    /**
+     * Cancels the export of this table: export views stop iterating on rows and throw an ExportCancelledException. Can
+     * be called from any thread.
+     */
+    public void cancel()
+    {
+        this.cancelled = true;
+    }
+
+    /**
+     * Has the export of this table been cancelled?
+     * @return <code>true</code> if <code>cancel()</code> has been called
+     */
+    public boolean isCancelled()
+    {
+        return this.cancelled;
+    }
+
+    /**
+     * Sets the list providing aggregates on the full list.
+     * @param list AggregatingPaginatedList
+     */
+    public void setAggregatingList(AggregatingPaginatedList list)
+    {
+        this.aggregatingList = list;
+    }
+
+    /**
+     * Returns an aggregate of a property on the full list, if the table is backed by an AggregatingPaginatedList.
+     * @param propertyName name of the column property
+     * @param function <code>sum</code>, <code>count</code>, <code>min</code>, <code>max</code> or <code>avg</code>
+     * @return aggregate value, <code>null</code> if not available
+     */
+    public Number getAggregate(String propertyName, String function)
+    {
+        if (this.aggregatingList == null || propertyName == null)
+        {
+            return null;
+        }
+        return this.aggregatingList.getAggregate(propertyName, function);
+    }
+
+    /**
+     * Returns the profile of the columns.
+     * @return ColumnProfile, null if profiling is disabled
+     */
+    public ColumnProfile getColumnProfile()
+    {
+        return this.columnProfile;
+    }
+
+    /**
+     * Sets the profile of the columns.
+     * @param profile ColumnProfile, null to disable profiling
+     */
+    public void setColumnProfile(ColumnProfile profile)
+    {
+        this.columnProfile = profile;
+    }
+
+    /**
+     * Returns the adapter used to read column values from the row objects.
+     * @return RowAdapter, chosen from the first row if not set
+     */
+    public RowAdapter getRowAdapter()
+    {
+        return this.rowAdapter != null ? this.rowAdapter : RowAdapter.BEAN;
+    }
+
+    /**
+     * Sets the adapter used to read column values from the row objects, when the type of rows is known in advance.
+     * @param adapter RowAdapter, null to choose it from the first row
+     */
+    public void setRowAdapter(RowAdapter adapter)
+    {
+        this.rowAdapter = adapter;
+    }
+
     public void setHeaderCellList(List headerCellList) {
         this.headerCellList = headerCellList;
     }
@@ -573,6 +683,51 @@ public class TableModel
         this.rowListFull = rowListFull;
     }
 
+    /**
+     * Returns a copy of this table which doesn't reference the row objects, the data source or the page context, for
+     * exports written after the request has ended. Column values are read now, static cell values are kept. Decorators
+     * are not copied: they may need the request, so tables with decorators should not be exported this way.
+     * @param full copy the full list? If <code>false</code> only the rows in page are copied. The copy contains the
+     * same rows in both lists
+     * @return detached TableModel
+     * @throws ObjectLookupException for errors while reading column values
+     */
+    public TableModel snapshot(boolean full) throws ObjectLookupException
+    {
+        TableModel copy = new TableModel(this.properties, this.encoding, null);
+        copy.setId(this.id);
+        copy.setMedia(this.media);
+        copy.setCaption(this.caption);
+        copy.setFooter(this.footer);
+        copy.setHeaderCellList(this.headerCellList);
+        copy.setRowAdapter(RowAdapter.SNAPSHOT);
+
+        RowAdapter adapter = getRowAdapter();
+        Iterator rows = (full ? this.rowListFull : this.rowListPage).iterator();
+        while (rows.hasNext())
+        {
+            Row row = (Row) rows.next();
+            Map values = new HashMap();
+            Row rowCopy = new Row(values, row.getRowNumber());
+
+            Iterator cells = row.getCellList().iterator();
+            Iterator headers = this.headerCellList.iterator();
+            while (cells.hasNext() && headers.hasNext())
+            {
+                Cell cell = (Cell) cells.next();
+                String propertyName = ((HeaderCell) headers.next()).getBeanPropertyName();
+                if (cell.getStaticValue() == null && propertyName != null)
+                {
+                    values.put(propertyName, adapter.getProperty(row.getObject(), propertyName));
+                }
+                rowCopy.addCell(cell);
+            }
+            copy.addRow(rowCopy);
+        }
+        copy.setRowListPage(copy.getRowListFull());
+        return copy;
+    }
+
     /**
      * @see java.lang.Object#toString()
      */
@@ -625,6 +780,9 @@ public class TableModel
         tableModel.setMedia(this.media);
         tableModel.setForm(this.form);
         tableModel.setSortedColumnNumber(this.getSortedColumnNumber());
+        tableModel.setAggregatingList(this.aggregatingList);
+        tableModel.setColumnProfile(this.columnProfile);
+        tableModel.setRowAdapter(this.rowAdapter);
         
         return tableModel;
     }
@@ -0,0 +1,38 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.pagination;
+
+/**
+ * <p>
+ * A PaginatedList which can also compute aggregates on the full list, usually at the data source (for example with a
+ * <code>select sum(amount)</code> query), so that totals of a paginated table cover all the rows and not only the ones
+ * in the current page.
+ * </p>
+ * <p>
+ * Aggregates are used for the totals exposed by <code>varTotals</code> and for the grand totals of
+ * TotalTableDecorator and MultilevelTotalTableDecorator. Subtotals are always computed on the current page.
+ * </p>
+ * @version $Revision$ ($Author$)
+ */
+public interface AggregatingPaginatedList extends PaginatedList
+{
+
+    /**
+     * Returns an aggregate of a property on the full list.
+     * @param propertyName name of the column property
+     * @param function <code>sum</code>, <code>count</code>, <code>min</code>, <code>max</code> or <code>avg</code>
+     * @return aggregate value, or <code>null</code> if it is not available: totals are then computed on the current
+     * page as usual
+     */
+    Number getAggregate(String propertyName, String function);
+
+}
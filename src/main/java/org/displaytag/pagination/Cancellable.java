@@ -0,0 +1,29 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.pagination;
+
+/**
+ * Can be implemented by a <code>PaginatedList</code>, or by any other list given to the table tag, which is backed by
+ * a resource (a running query, an open cursor, ...) that should be released as soon as possible. If an export is
+ * cancelled, for example because the client has closed the connection, the table tag calls <code>cancel()</code>
+ * before returning.
+ * @version $Revision$ ($Author$)
+ */
+public interface Cancellable
+{
+
+    /**
+     * Releases the underlying data source. Called at most once, from the request thread, after iteration has stopped.
+     */
+    void cancel();
+
+}
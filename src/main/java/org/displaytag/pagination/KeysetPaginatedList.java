@@ -0,0 +1,50 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.pagination;
+
+/**
+ * <p>
+ * A PaginatedList fetched with keyset (seek) pagination: instead of skipping <code>offset</code> rows, the data source
+ * reads the rows following (or preceding) the sort key of a given row, for example with a
+ * <code>where (name, id) &gt; (?, ?) order by name, id</code> query. Pages are requested using opaque cursor tokens
+ * and counting the full list is not needed.
+ * </p>
+ * <p>
+ * Navigation links only lead to the first, previous and next page. The cursor is sent in the parameter named by the
+ * <code>pagination.cursor.param</code> property, together with the page number and the sort criterion and direction
+ * (<code>pagination.pagenumber.param</code>, <code>pagination.sort.param</code> and
+ * <code>pagination.sortdirection.param</code>); a link without cursor is a request for the first page. Sorting links
+ * never contain a cursor.
+ * </p>
+ * @version $Revision$ ($Author$)
+ */
+public interface KeysetPaginatedList extends PaginatedList
+{
+
+    /**
+     * Value returned by <code>getFullListSize()</code> when the size of the full list is unknown.
+     */
+    int UNKNOWN_SIZE = -1;
+
+    /**
+     * Returns the cursor of the next page, usually an encoding of the sort key of the last row in the current page.
+     * @return cursor of the next page, or <code>null</code> if this is the last page
+     */
+    String getNextCursor();
+
+    /**
+     * Returns the cursor of the previous page, usually an encoding of the sort key of the first row in the current page.
+     * @return cursor of the previous page, or <code>null</code> if this is the first page
+     */
+    String getPreviousCursor();
+
+}
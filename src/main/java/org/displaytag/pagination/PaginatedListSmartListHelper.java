@@ -30,6 +30,11 @@ public class PaginatedListSmartListHelper extends SmartListHelper
 
     private PaginatedList paginatedList;
 
+    /**
+     * The paginated list, if keyset pagination is used.
+     */
+    private KeysetPaginatedList keysetList;
+
     private TableProperties properties;
 
     private int pageCount;
@@ -39,6 +44,10 @@ public class PaginatedListSmartListHelper extends SmartListHelper
         super();
         this.paginatedList = paginatedList;
         this.properties = tableProperties;
+        if (paginatedList instanceof KeysetPaginatedList)
+        {
+            this.keysetList = (KeysetPaginatedList) paginatedList;
+        }
         this.pageCount = computePageCount();
     }
 
@@ -106,6 +115,10 @@ public class PaginatedListSmartListHelper extends SmartListHelper
 
     public String getPageNavigationBar(Href baseHref, String pageParameter)
     {
+        if (this.keysetList != null)
+        {
+            return getCursorNavigationBar(baseHref, pageParameter);
+        }
 
         int groupSize = this.properties.getPagingGroupSize();
         int startPage;
@@ -167,26 +180,91 @@ public class PaginatedListSmartListHelper extends SmartListHelper
             .getPagingPageSelected(), this.properties.getPagingPageSeparator(), bannerFormat);
     }
 
+    /**
+     * Navigation bar for keyset pagination: only the current page is listed, previous and next links carry the cursors
+     * and there is no link to the last page.
+     * @param baseHref Href used for links
+     * @param pageParameter name for the page parameter
+     * @return String formatted banner
+     */
+    private String getCursorNavigationBar(Href baseHref, String pageParameter)
+    {
+        int pageNumber = paginatedList.getPageNumber();
+        String previousCursor = keysetList.getPreviousCursor();
+        String nextCursor = keysetList.getNextCursor();
+
+        Pagination pagination = new Pagination(baseHref, pageParameter, this.properties);
+        pagination.setCursorParam(this.properties.getPaginationCursorParam());
+        pagination.setCurrent(new Integer(pageNumber));
+        pagination.addPage(pageNumber, true);
+
+        if (previousCursor != null)
+        {
+            pagination.setFirst(new Integer(1));
+            pagination.setPrevious(new Integer(Math.max(pageNumber - 1, 1)));
+            pagination.setPreviousCursor(previousCursor);
+        }
+
+        if (nextCursor != null)
+        {
+            pagination.setNext(new Integer(pageNumber + 1));
+            pagination.setNextCursor(nextCursor);
+        }
+
+        String bannerFormat;
+
+        if (previousCursor == null && nextCursor == null)
+        {
+            bannerFormat = this.properties.getPagingBannerOnePage();
+        }
+        else if (previousCursor == null)
+        {
+            bannerFormat = this.properties.getPagingBannerCursorFirst();
+        }
+        else if (nextCursor == null)
+        {
+            bannerFormat = this.properties.getPagingBannerCursorLast();
+        }
+        else
+        {
+            bannerFormat = this.properties.getPagingBannerCursorFull();
+        }
+
+        return pagination.getFormattedBanner(this.properties.getPagingPageLink(), this.properties
+            .getPagingPageSelected(), this.properties.getPagingPageSeparator(), bannerFormat);
+    }
+
     public String getSearchResultsSummary()
     {
 
         Object[] objs;
         String message;
+        int fullListSize = this.paginatedList.getFullListSize();
+
+        if (this.keysetList != null && fullListSize == KeysetPaginatedList.UNKNOWN_SIZE)
+        {
+            if (this.keysetList.getPreviousCursor() != null || this.keysetList.getNextCursor() != null)
+            {
+                return getDisplayedItemsSummary();
+            }
+            // only one page, the current one is the full list
+            fullListSize = this.paginatedList.getList().size();
+        }
 
-        if (this.paginatedList.getFullListSize() == 0)
+        if (fullListSize == 0)
         {
             objs = new Object[]{this.properties.getPagingItemsName()};
             message = this.properties.getPagingFoundNoItems();
         }
-        else if (this.paginatedList.getFullListSize() == 1)
+        else if (fullListSize == 1)
         {
             objs = new Object[]{this.properties.getPagingItemName()};
             message = this.properties.getPagingFoundOneItem();
         }
-        else if (pageCount == 1)
+        else if (pageCount <= 1)
         {
             objs = new Object[]{
-                new Integer(this.paginatedList.getFullListSize()),
+                new Integer(fullListSize),
                 this.properties.getPagingItemsName(),
                 this.properties.getPagingItemsName()};
             message = this.properties.getPagingFoundAllItems();
@@ -194,7 +272,7 @@ public class PaginatedListSmartListHelper extends SmartListHelper
         else
         {
             objs = new Object[]{
-                new Integer(this.paginatedList.getFullListSize()),
+                new Integer(fullListSize),
                 this.properties.getPagingItemsName(),
                 new Integer(getFirstIndexForCurrentPage() + 1),
                 new Integer(getLastIndexForCurrentPage() + 1),
@@ -206,6 +284,25 @@ public class PaginatedListSmartListHelper extends SmartListHelper
         return MessageFormat.format(message, objs);
     }
 
+    /**
+     * Summary for a page of a keyset paginated list whose full size is unknown.
+     * @return String formatted summary
+     */
+    private String getDisplayedItemsSummary()
+    {
+        int size = this.paginatedList.getList().size();
+        int firstIndex = (this.paginatedList.getPageNumber() - 1) * this.paginatedList.getObjectsPerPage();
+
+        Object[] objs = new Object[]{
+            new Integer(size),
+            this.properties.getPagingItemsName(),
+            new Integer(firstIndex + 1),
+            new Integer(firstIndex + size),
+            new Integer(this.paginatedList.getPageNumber())};
+
+        return MessageFormat.format(this.properties.getPagingDisplayedSomeItems(), objs);
+    }
+
     /**
      * @see java.lang.Object#toString()
      */
@@ -72,6 +72,21 @@ public class Pagination
      */
     private Integer currentPage;
 
+    /**
+     * cursor parameter name, only set for keyset pagination.
+     */
+    private String cursorParam;
+
+    /**
+     * cursor of the previous page.
+     */
+    private String previousCursor;
+
+    /**
+     * cursor of the next page.
+     */
+    private String nextCursor;
+
     /**
      * List containg NumberedPage objects.
      * @see org.displaytag.pagination.NumberedPage
@@ -217,6 +232,72 @@ public class Pagination
         this.currentPage = current;
     }
 
+    /**
+     * Sets the name of the parameter holding the cursor, for keyset pagination. Links to the first page never contain
+     * a cursor.
+     * @param cursorParameter name for the cursor parameter
+     */
+    public void setCursorParam(String cursorParameter)
+    {
+        this.cursorParam = cursorParameter;
+    }
+
+    /**
+     * Gets the cursor of the previous page.
+     * @return String cursor of the previous page
+     */
+    public String getPreviousCursor()
+    {
+        return this.previousCursor;
+    }
+
+    /**
+     * Sets the cursor of the previous page.
+     * @param previous String cursor of the previous page
+     */
+    public void setPreviousCursor(String previous)
+    {
+        this.previousCursor = previous;
+    }
+
+    /**
+     * Gets the cursor of the next page.
+     * @return String cursor of the next page
+     */
+    public String getNextCursor()
+    {
+        return this.nextCursor;
+    }
+
+    /**
+     * Sets the cursor of the next page.
+     * @param next String cursor of the next page
+     */
+    public void setNextCursor(String next)
+    {
+        this.nextCursor = next;
+    }
+
+    /**
+     * Returns the href for a page.
+     * @param page page number
+     * @param cursor cursor for the page, only used for keyset pagination
+     * @return Href
+     */
+    private Href getPageHref(Integer page, String cursor)
+    {
+        Href pageHref = ((Href) this.href.clone()).addParameter(this.pageParam, page);
+        if (this.cursorParam != null)
+        {
+            pageHref.removeParameter(this.cursorParam);
+            if (cursor != null)
+            {
+                pageHref.addParameter(this.cursorParam, cursor);
+            }
+        }
+        return pageHref;
+    }
+
     /**
      * Returns the appropriate banner for the pagination.
      * @param numberedPageFormat String to be used for a not selected page
@@ -276,10 +357,10 @@ public class Pagination
         // {6} total pages
         Object[] pageObjects = {
             numberedPageString,
-            ((Href) this.href.clone()).addParameter(this.pageParam, getFirst()),
-            ((Href) this.href.clone()).addParameter(this.pageParam, getPrevious()),
-            ((Href) this.href.clone()).addParameter(this.pageParam, getNext()),
-            ((Href) this.href.clone()).addParameter(this.pageParam, getLast()),
+            getPageHref(getFirst(), null),
+            getPageHref(getPrevious(), this.previousCursor),
+            getPageHref(getNext(), this.nextCursor),
+            getPageHref(getLast(), null),
             this.currentPage,
             this.isLast() ? this.currentPage : this.lastPage}; // this.lastPage is null if the last page is displayed
 
@@ -301,6 +382,9 @@ public class Pagination
             .append("pages", this.pages) //$NON-NLS-1$
             .append("href", this.href) //$NON-NLS-1$
             .append("pageParam", this.pageParam) //$NON-NLS-1$
+            .append("cursorParam", this.cursorParam) //$NON-NLS-1$
+            .append("previousCursor", this.previousCursor) //$NON-NLS-1$
+            .append("nextCursor", this.nextCursor) //$NON-NLS-1$
             .toString();
     }
 }
\ No newline at end of file
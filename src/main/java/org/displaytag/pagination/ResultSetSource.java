@@ -0,0 +1,420 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.pagination;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.displaytag.exception.WrappedRuntimeException;
+
+
+/**
+ * Reads the rows of a table from a <code>java.sql.ResultSet</code> (or <code>RowSet</code>) given to the table tag,
+ * without copying them to a list of beans first. Column labels are resolved to column indexes once, from the result
+ * set metadata, and each row is returned as a read only Map of column label - value, backed by the values read with
+ * <code>getObject()</code>; keys are also matched in upper and lower case.
+ * <p>
+ * Forward only result sets are read sequentially. For scrollable result sets the number of rows is known in advance
+ * and rows which are not going to be displayed are skipped using <code>absolute()</code>: they are returned as
+ * <code>null</code> and their values are never read.
+ * </p>
+ * <p>
+ * The result set is not closed, since it's owned by the caller, unless the table is cancelled.
+ * </p>
+ * @version $Revision$ ($Author$)
+ */
+public class ResultSetSource implements Cancellable
+{
+
+    /**
+     * logger.
+     */
+    private static Log log = LogFactory.getLog(ResultSetSource.class);
+
+    /**
+     * Source result set.
+     */
+    private final ResultSet resultSet;
+
+    /**
+     * Column labels, in the result set order.
+     */
+    private final String[] columnNames;
+
+    /**
+     * Map containing column label - Integer index in the row values, shared by all the rows.
+     */
+    private final Map columnIndexes = new HashMap();
+
+    /**
+     * Is the result set scrollable?
+     */
+    private final boolean scrollable;
+
+    /**
+     * Number of rows, -1 if not yet counted.
+     */
+    private int size = -1;
+
+    /**
+     * Reads the result set metadata.
+     * @param rs ResultSet, positioned before the first row
+     */
+    public ResultSetSource(ResultSet rs)
+    {
+        this.resultSet = rs;
+        try
+        {
+            ResultSetMetaData metaData = rs.getMetaData();
+            this.columnNames = new String[metaData.getColumnCount()];
+            for (int j = 0; j < this.columnNames.length; j++)
+            {
+                String label = metaData.getColumnLabel(j + 1);
+                this.columnNames[j] = StringUtils.isNotEmpty(label) ? label : metaData.getColumnName(j + 1);
+            }
+            this.scrollable = rs.getType() != ResultSet.TYPE_FORWARD_ONLY;
+        }
+        catch (SQLException e)
+        {
+            throw new WrappedRuntimeException(ResultSetSource.class, e);
+        }
+
+        Integer[] indexes = new Integer[this.columnNames.length];
+        for (int j = 0; j < this.columnNames.length; j++)
+        {
+            indexes[j] = new Integer(j);
+            this.columnIndexes.put(this.columnNames[j], indexes[j]);
+        }
+        // databases usually return upper case labels, also accept other cases if they don't clash with real labels
+        for (int j = 0; j < this.columnNames.length; j++)
+        {
+            addIndex(this.columnNames[j].toUpperCase(Locale.ENGLISH), indexes[j]);
+            addIndex(this.columnNames[j].toLowerCase(Locale.ENGLISH), indexes[j]);
+        }
+    }
+
+    /**
+     * Adds an alternative key for a column.
+     * @param key column key
+     * @param index column index
+     */
+    private void addIndex(String key, Integer index)
+    {
+        if (!this.columnIndexes.containsKey(key))
+        {
+            this.columnIndexes.put(key, index);
+        }
+    }
+
+    /**
+     * Returns the column labels, used for tables without columns.
+     * @return column labels, in the result set order
+     */
+    public String[] getColumnNames()
+    {
+        return (String[]) this.columnNames.clone();
+    }
+
+    /**
+     * Can rows be skipped?
+     * @return <code>true</code> if the result set is scrollable and the number of rows can be known in advance
+     */
+    public boolean isScrollable()
+    {
+        return this.scrollable;
+    }
+
+    /**
+     * Returns the number of rows, moving a scrollable result set to the last row.
+     * @return number of rows
+     * @throws IllegalStateException if the result set is forward only
+     */
+    public int getSize()
+    {
+        if (!this.scrollable)
+        {
+            throw new IllegalStateException("Size of forward only result sets is unknown"); //$NON-NLS-1$
+        }
+        if (this.size == -1)
+        {
+            try
+            {
+                this.size = this.resultSet.last() ? this.resultSet.getRow() : 0;
+                this.resultSet.beforeFirst();
+            }
+            catch (SQLException e)
+            {
+                throw new WrappedRuntimeException(ResultSetSource.class, e);
+            }
+        }
+        return this.size;
+    }
+
+    /**
+     * Returns an iterator on all the rows. The result set must not be moved while iterating.
+     * @param firstRow first row (starting from 1) which must be read
+     * @param lastRow last row which must be read
+     * @return Iterator, rows outside the given range are returned as <code>null</code> if the result set is scrollable
+     */
+    public Iterator iterator(long firstRow, long lastRow)
+    {
+        boolean skip = this.scrollable && (firstRow > 1 || lastRow < Long.MAX_VALUE);
+        return new RowIterator(firstRow, skip ? lastRow : Long.MAX_VALUE, skip ? getSize() : -1);
+    }
+
+    /**
+     * Closes the result set.
+     * @see org.displaytag.pagination.Cancellable#cancel()
+     */
+    public void cancel()
+    {
+        try
+        {
+            this.resultSet.close();
+        }
+        catch (SQLException e)
+        {
+            log.debug("Unable to close cancelled result set: " + e.getMessage()); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Reads the values of the current row.
+     * @return row
+     * @throws SQLException exception thrown by the jdbc driver
+     */
+    private Map readRow() throws SQLException
+    {
+        Object[] values = new Object[this.columnNames.length];
+        for (int j = 0; j < values.length; j++)
+        {
+            values[j] = this.resultSet.getObject(j + 1);
+        }
+        return new RowMap(values);
+    }
+
+    /**
+     * Iterates on the result set rows.
+     */
+    private final class RowIterator implements Iterator
+    {
+
+        /**
+         * First row to read.
+         */
+        private final long firstRow;
+
+        /**
+         * Last row to read.
+         */
+        private final long lastRow;
+
+        /**
+         * Number of rows, -1 if the result set is read sequentially.
+         */
+        private final int rows;
+
+        /**
+         * Number of the last returned row.
+         */
+        private int rowNumber;
+
+        /**
+         * Row the result set is positioned on.
+         */
+        private int cursorRow;
+
+        /**
+         * Has the result set been moved to the next row by hasNext()?
+         */
+        private boolean fetched;
+
+        /**
+         * Result of the last ResultSet.next().
+         */
+        private boolean hasRow;
+
+        /**
+         * Instantiates a new RowIterator.
+         * @param first first row to read
+         * @param last last row to read
+         * @param rowCount number of rows, -1 to read the result set sequentially
+         */
+        RowIterator(long first, long last, int rowCount)
+        {
+            this.firstRow = first;
+            this.lastRow = last;
+            this.rows = rowCount;
+        }
+
+        /**
+         * @see java.util.Iterator#hasNext()
+         */
+        public boolean hasNext()
+        {
+            if (this.rows != -1)
+            {
+                return this.rowNumber < this.rows;
+            }
+            if (!this.fetched)
+            {
+                try
+                {
+                    this.hasRow = resultSet.next();
+                }
+                catch (SQLException e)
+                {
+                    throw new WrappedRuntimeException(ResultSetSource.class, e);
+                }
+                this.fetched = true;
+            }
+            return this.hasRow;
+        }
+
+        /**
+         * @see java.util.Iterator#next()
+         */
+        public Object next()
+        {
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            this.fetched = false;
+            this.rowNumber++;
+
+            if (this.rows == -1)
+            {
+                return readCurrentRow();
+            }
+            if (this.rowNumber < this.firstRow || this.rowNumber > this.lastRow)
+            {
+                return null;
+            }
+
+            try
+            {
+                if (this.cursorRow == this.rowNumber - 1)
+                {
+                    resultSet.next();
+                }
+                else
+                {
+                    resultSet.absolute(this.rowNumber);
+                }
+            }
+            catch (SQLException e)
+            {
+                throw new WrappedRuntimeException(ResultSetSource.class, e);
+            }
+            this.cursorRow = this.rowNumber;
+            return readCurrentRow();
+        }
+
+        /**
+         * Reads the row the result set is positioned on.
+         * @return row
+         */
+        private Object readCurrentRow()
+        {
+            try
+            {
+                return readRow();
+            }
+            catch (SQLException e)
+            {
+                throw new WrappedRuntimeException(ResultSetSource.class, e);
+            }
+        }
+
+        /**
+         * @see java.util.Iterator#remove()
+         */
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Read only Map of column label - value for a row.
+     */
+    private final class RowMap extends AbstractMap
+    {
+
+        /**
+         * Column values.
+         */
+        private final Object[] values;
+
+        /**
+         * Instantiates a new RowMap.
+         * @param rowValues column values
+         */
+        RowMap(Object[] rowValues)
+        {
+            this.values = rowValues;
+        }
+
+        /**
+         * @see java.util.Map#get(java.lang.Object)
+         */
+        public Object get(Object key)
+        {
+            Integer index = (Integer) columnIndexes.get(key);
+            return index != null ? this.values[index.intValue()] : null;
+        }
+
+        /**
+         * @see java.util.Map#containsKey(java.lang.Object)
+         */
+        public boolean containsKey(Object key)
+        {
+            return columnIndexes.containsKey(key);
+        }
+
+        /**
+         * @see java.util.Map#size()
+         */
+        public int size()
+        {
+            return this.values.length;
+        }
+
+        /**
+         * @see java.util.Map#entrySet()
+         */
+        public Set entrySet()
+        {
+            Map copy = new LinkedHashMap();
+            for (int j = 0; j < this.values.length; j++)
+            {
+                copy.put(columnNames[j], this.values[j]);
+            }
+            return Collections.unmodifiableMap(copy).entrySet();
+        }
+    }
+
+}
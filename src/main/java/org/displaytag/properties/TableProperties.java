@@ -27,13 +27,17 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.displaytag.Messages;
 import org.displaytag.model.DefaultComparator;
+import org.displaytag.stats.TableStatsListener;
 import org.displaytag.decorator.DecoratorFactory;
 import org.displaytag.decorator.DefaultDecoratorFactory;
 import org.displaytag.exception.FactoryInstantiationException;
 import org.displaytag.exception.TablePropertiesLoadException;
+import org.displaytag.localization.I18nResourceCache;
 import org.displaytag.localization.I18nResourceProvider;
 import org.displaytag.localization.LocaleResolver;
+import org.displaytag.util.CopyOnWriteCache;
 import org.displaytag.util.DefaultRequestHelperFactory;
+import org.displaytag.util.IntrospectionRegistry;
 import org.displaytag.util.ReflectHelper;
 import org.displaytag.util.RequestHelperFactory;
 
@@ -49,6 +53,11 @@ import org.displaytag.util.RequestHelperFactory;
  * <li>Finally, if this class has a userProperties defined, all of the properties from that Properties object are
  * copied in as well.</li>
  * </ol>
+ * <p>
+ * Properties for each locale are loaded once and never modified: instances returned by <code>getInstance()</code>
+ * share them, and keep any value changed with <code>setProperty()</code> in a local overlay, created at the first
+ * change. The values read while rendering each row, such as css classes, are parsed once into fields.
+ * </p>
  * @author Fabrizio Giustina
  * @author rapruitt
  * @version $Revision: 1096 $ ($Author: rapruitt $)
@@ -87,6 +96,76 @@ public final class TableProperties implements Cloneable
      */
     public static final String PROPERTY_STRING_EXPORTAMOUNT = "export.amount"; //$NON-NLS-1$
 
+    /**
+     * property <code>export.background</code>.
+     */
+    public static final String PROPERTY_BOOLEAN_EXPORTBACKGROUND = "export.background"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.background.directory</code>.
+     */
+    public static final String PROPERTY_STRING_EXPORTBACKGROUND_DIRECTORY = "export.background.directory"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.background.threads</code>.
+     */
+    public static final String PROPERTY_INT_EXPORTBACKGROUND_THREADS = "export.background.threads"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.background.queue</code>.
+     */
+    public static final String PROPERTY_INT_EXPORTBACKGROUND_QUEUE = "export.background.queue"; //$NON-NLS-1$
+
+    /**
+     * property <code>stats.profile.sampling</code>: profile the columns of one row every n, 0 to disable profiling.
+     */
+    public static final String PROPERTY_INT_STATS_PROFILE_SAMPLING = "stats.profile.sampling"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.background.expiration</code>.
+     */
+    public static final String PROPERTY_INT_EXPORTBACKGROUND_EXPIRATION = "export.background.expiration"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.background.url</code>.
+     */
+    public static final String PROPERTY_STRING_EXPORTBACKGROUND_URL = "export.background.url"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.cache</code>.
+     */
+    public static final String PROPERTY_BOOLEAN_EXPORTCACHE = "export.cache"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.cache.size</code>.
+     */
+    public static final String PROPERTY_INT_EXPORTCACHE_SIZE = "export.cache.size"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.cache.expiration</code>.
+     */
+    public static final String PROPERTY_INT_EXPORTCACHE_EXPIRATION = "export.cache.expiration"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.cache.timeout</code>.
+     */
+    public static final String PROPERTY_INT_EXPORTCACHE_TIMEOUT = "export.cache.timeout"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.cache.version</code>.
+     */
+    public static final String PROPERTY_STRING_EXPORTCACHE_VERSION = "export.cache.version"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.limit</code>.
+     */
+    public static final String PROPERTY_INT_EXPORTLIMIT = "export.limit"; //$NON-NLS-1$
+
+    /**
+     * property <code>export.limit.timeout</code>.
+     */
+    public static final String PROPERTY_INT_EXPORTLIMIT_TIMEOUT = "export.limit.timeout"; //$NON-NLS-1$
+
     /**
      * property <code>sort.amount</code>.
      */
@@ -152,6 +231,12 @@ public final class TableProperties implements Cloneable
      */
     public static final String PROPERTY_STRING_PAGING_FOUND_SOMEITEMS = "paging.banner.some_items_found"; //$NON-NLS-1$
 
+    /**
+     * property <code>paging.banner.some_items_displayed</code>. Used instead of
+     * <code>paging.banner.some_items_found</code> when the size of a keyset paginated list is unknown.
+     */
+    public static final String PROPERTY_STRING_PAGING_DISPLAYED_SOMEITEMS = "paging.banner.some_items_displayed"; //$NON-NLS-1$
+
     /**
      * property <code>paging.banner.group_size</code>.
      */
@@ -177,6 +262,21 @@ public final class TableProperties implements Cloneable
      */
     public static final String PROPERTY_STRING_PAGING_BANNER_FULL = "paging.banner.full"; //$NON-NLS-1$
 
+    /**
+     * property <code>paging.banner.cursor.first</code>, used for keyset paginated lists.
+     */
+    public static final String PROPERTY_STRING_PAGING_BANNER_CURSOR_FIRST = "paging.banner.cursor.first"; //$NON-NLS-1$
+
+    /**
+     * property <code>paging.banner.cursor.last</code>, used for keyset paginated lists.
+     */
+    public static final String PROPERTY_STRING_PAGING_BANNER_CURSOR_LAST = "paging.banner.cursor.last"; //$NON-NLS-1$
+
+    /**
+     * property <code>paging.banner.cursor.full</code>, used for keyset paginated lists.
+     */
+    public static final String PROPERTY_STRING_PAGING_BANNER_CURSOR_FULL = "paging.banner.cursor.full"; //$NON-NLS-1$
+
     /**
      * property <code>paging.banner.page.link</code>.
      */
@@ -207,6 +307,11 @@ public final class TableProperties implements Cloneable
      */
     public static final String PROPERTY_CLASS_LOCALEPROVIDER = "locale.provider"; //$NON-NLS-1$
 
+    /**
+     * property <code>stats.listener</code>.
+     */
+    public static final String PROPERTY_CLASS_STATSLISTENER = "stats.listener"; //$NON-NLS-1$
+
     /**
      * property <code>locale.resolver</code>.
      */
@@ -296,6 +401,16 @@ public final class TableProperties implements Cloneable
      */
     public static final String EXPORTPROPERTY_STRING_FILENAME = "filename"; //$NON-NLS-1$
 
+    /**
+     * export property <code>compress</code>.
+     */
+    public static final String EXPORTPROPERTY_STRING_COMPRESS = "compress"; //$NON-NLS-1$
+
+    /**
+     * export property <code>limit</code>.
+     */
+    public static final String EXPORTPROPERTY_INT_LIMIT = "limit"; //$NON-NLS-1$
+
     /**
      * Property <code>pagination.sort.param</code>. If external pagination and sorting is used, it holds the name of
      * the parameter used to hold the sort criterion in generated links
@@ -332,6 +447,12 @@ public final class TableProperties implements Cloneable
      */
     public static final String PROPERTY_STRING_PAGINATION_DESC_VALUE = "pagination.sort.desc.value"; //$NON-NLS-1$
 
+    /**
+     * Property <code>pagination.cursor.param</code>. If keyset pagination is used, it holds the name of the parameter
+     * used to hold the cursor of the requested page in generated links
+     */
+    public static final String PROPERTY_STRING_PAGINATION_CURSOR_PARAM = "pagination.cursor.param"; //$NON-NLS-1$
+
     /**
      * Property <code>pagination.sort.skippagenumber</code>. If external pagination and sorting is used, it
      * determines if the current page number must be added in sort links or not. If this property is true, it means that
@@ -378,22 +499,99 @@ public final class TableProperties implements Cloneable
     /**
      * TableProperties for each locale are loaded as needed, and cloned for public usage.
      */
-    private static Map prototypes = new HashMap();
+    private static CopyOnWriteCache prototypes = new CopyOnWriteCache();
 
     /**
-     * Loaded properties (defaults from defaultProperties + custom from bundle).
+     * Loaded properties (defaults from defaultProperties + custom from bundle), shared by all the clones and never
+     * modified.
      */
     private Properties properties;
 
+    /**
+     * Properties set with <code>setProperty()</code>, backed by the shared properties. Null until a property is set.
+     */
+    private Properties overrides;
+
     /**
      * The locale for these properties.
      */
     private Locale locale;
 
     /**
-     * Cache for dinamically instantiated object (request factory, decorator factory).
+     * Cache for dinamically instantiated object (request factory, decorator factory) and classes, shared by all the
+     * clones.
+     */
+    private CopyOnWriteCache objectCache = new CopyOnWriteCache();
+
+    /**
+     * Cache for objects instantiated from properties set with <code>setProperty()</code>. Null until needed.
+     */
+    private Map localObjectCache;
+
+    /**
+     * Css class for odd rows.
+     */
+    private String cssRowOdd;
+
+    /**
+     * Css class for even rows.
+     */
+    private String cssRowEven;
+
+    /**
+     * Css class for a column sorted in ascending order.
+     */
+    private String cssOrderAscending;
+
+    /**
+     * Css class for a column sorted in descending order.
+     */
+    private String cssOrderDescending;
+
+    /**
+     * Css class for a sorted column.
+     */
+    private String cssSorted;
+
+    /**
+     * Css class for a sortable column.
+     */
+    private String cssSortable;
+
+    /**
+     * Css class for the table.
+     */
+    private String cssTable;
+
+    /**
+     * Number of pages in the pagination banner.
+     */
+    private int pagingGroupSize;
+
+    /**
+     * Show header?
+     */
+    private boolean showHeader;
+
+    /**
+     * Sort the full list?
      */
-    private Map objectCache = new HashMap();
+    private boolean sortFullList;
+
+    /**
+     * Export the full list?
+     */
+    private boolean exportFullList;
+
+    /**
+     * Paging banner placement.
+     */
+    private String bannerPlacement;
+
+    /**
+     * Configured media.
+     */
+    private String[] exportTypes;
 
     /**
      * Setter for I18nResourceProvider. A resource provider is usually set using displaytag properties, this accessor is
@@ -581,6 +779,30 @@ public final class TableProperties implements Cloneable
                 properties.setProperty(key, (String) userProperties.get(key));
             }
         }
+
+        parseProperties();
+    }
+
+    /**
+     * Reads the values used for each row, after loading or changing properties.
+     */
+    private void parseProperties()
+    {
+        this.cssRowOdd = getProperty(PROPERTY_CSS_TR_ODD);
+        this.cssRowEven = getProperty(PROPERTY_CSS_TR_EVEN);
+        this.cssOrderAscending = getProperty(PROPERTY_CSS_TH_SORTED_ASCENDING);
+        this.cssOrderDescending = getProperty(PROPERTY_CSS_TH_SORTED_DESCENDING);
+        this.cssSorted = getProperty(PROPERTY_CSS_TH_SORTED);
+        this.cssSortable = getProperty(PROPERTY_CSS_TH_SORTABLE);
+        this.cssTable = getProperty(PROPERTY_CSS_TABLE);
+        this.pagingGroupSize = getIntProperty(PROPERTY_INT_PAGING_GROUPSIZE, 8);
+        this.showHeader = getBooleanProperty(PROPERTY_BOOLEAN_SHOWHEADER);
+        this.sortFullList = "list".equals(getProperty(PROPERTY_STRING_SORTAMOUNT)); //$NON-NLS-1$
+        this.exportFullList = "list".equals(getProperty(PROPERTY_STRING_EXPORTAMOUNT)); //$NON-NLS-1$
+        this.bannerPlacement = getProperty(PROPERTY_STRING_BANNER_PLACEMENT);
+
+        String list = getProperty(PROPERTY_EXPORTTYPES);
+        this.exportTypes = list == null ? new String[0] : StringUtils.split(list);
     }
 
     /**
@@ -604,7 +826,7 @@ public final class TableProperties implements Cloneable
     }
 
     /**
-     * Clones the properties as well.
+     * Clones share the loaded properties, changes made with <code>setProperty()</code> are kept in the clone.
      * @return a new clone of oneself
      */
     protected Object clone()
@@ -619,7 +841,14 @@ public final class TableProperties implements Cloneable
             // should never happen
             throw new UnhandledException(e);
         }
-        twin.properties = (Properties) this.properties.clone();
+        if (this.overrides != null)
+        {
+            twin.overrides = (Properties) this.overrides.clone();
+        }
+        if (this.localObjectCache != null)
+        {
+            twin.localObjectCache = new HashMap(this.localObjectCache);
+        }
         return twin;
     }
 
@@ -644,20 +873,21 @@ public final class TableProperties implements Cloneable
         TableProperties props = (TableProperties) prototypes.get(locale);
         if (props == null)
         {
-            TableProperties lprops = new TableProperties(locale);
-            prototypes.put(locale, lprops);
-            props = lprops;
+            // loaded outside the lock, if two threads load the same locale only the first one is kept
+            props = (TableProperties) prototypes.putIfAbsent(locale, new TableProperties(locale));
         }
         return (TableProperties) props.clone();
     }
 
     /**
-     * Unload all cached properties. This will not clear properties set by by setUserProperties; you must clear those
-     * manually.
+     * Unload all cached properties and resources. This will not clear properties set by by setUserProperties; you must
+     * clear those manually.
      */
     public static void clearProperties()
     {
         prototypes.clear();
+        I18nResourceCache.clear();
+        IntrospectionRegistry.clear();
     }
 
     /**
@@ -754,14 +984,22 @@ public final class TableProperties implements Cloneable
         return getProperty(PROPERTY_STRING_PAGING_FOUND_SOMEITEMS);
     }
 
+    /**
+     * Getter for the <code>PROPERTY_STRING_PAGING_DISPLAYED_SOMEITEMS</code> property.
+     * @return String
+     */
+    public String getPagingDisplayedSomeItems()
+    {
+        return getProperty(PROPERTY_STRING_PAGING_DISPLAYED_SOMEITEMS);
+    }
+
     /**
      * Getter for the <code>PROPERTY_INT_PAGING_GROUPSIZE</code> property.
      * @return int
      */
     public int getPagingGroupSize()
     {
-        // default size is 8
-        return getIntProperty(PROPERTY_INT_PAGING_GROUPSIZE, 8);
+        return this.pagingGroupSize;
     }
 
     /**
@@ -800,6 +1038,33 @@ public final class TableProperties implements Cloneable
         return getProperty(PROPERTY_STRING_PAGING_BANNER_FULL);
     }
 
+    /**
+     * Getter for the <code>PROPERTY_STRING_PAGING_BANNER_CURSOR_FIRST</code> property.
+     * @return String
+     */
+    public String getPagingBannerCursorFirst()
+    {
+        return getProperty(PROPERTY_STRING_PAGING_BANNER_CURSOR_FIRST);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_STRING_PAGING_BANNER_CURSOR_LAST</code> property.
+     * @return String
+     */
+    public String getPagingBannerCursorLast()
+    {
+        return getProperty(PROPERTY_STRING_PAGING_BANNER_CURSOR_LAST);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_STRING_PAGING_BANNER_CURSOR_FULL</code> property.
+     * @return String
+     */
+    public String getPagingBannerCursorFull()
+    {
+        return getProperty(PROPERTY_STRING_PAGING_BANNER_CURSOR_FULL);
+    }
+
     /**
      * Getter for the <code>PROPERTY_STRING_PAGING_PAGE_LINK</code> property.
      * @return String
@@ -871,6 +1136,33 @@ public final class TableProperties implements Cloneable
         return getProperty(PROPERTY_EXPORT_PREFIX + SEP + exportType.getName() + SEP + EXPORTPROPERTY_STRING_FILENAME);
     }
 
+    /**
+     * Returns the compression configured for the given media: <code>gzip</code>, <code>deflate</code>,
+     * <code>zip</code> or <code>none</code>. Can be null.
+     * @param exportType instance of MediaTypeEnum
+     * @return String compression
+     */
+    public String getExportCompression(MediaTypeEnum exportType)
+    {
+        return getProperty(PROPERTY_EXPORT_PREFIX + SEP + exportType.getName() + SEP + EXPORTPROPERTY_STRING_COMPRESS);
+    }
+
+    /**
+     * Returns the max number of concurrent exports for the given media.
+     * @param exportType instance of MediaTypeEnum
+     * @return int max concurrent exports, 0 if unlimited
+     */
+    public int getExportLimit(MediaTypeEnum exportType)
+    {
+        String key = PROPERTY_EXPORT_PREFIX + SEP + exportType.getName() + SEP + EXPORTPROPERTY_INT_LIMIT;
+        if (StringUtils.isBlank(getProperty(key)))
+        {
+            // optional, don't log a warning for each export
+            return 0;
+        }
+        return getIntProperty(key, 0);
+    }
+
     /**
      * Getter for the <code>PROPERTY_BOOLEAN_EXPORTDECORATED</code> property.
      * @return boolean <code>true</code> if decorators should be used in exporting
@@ -904,7 +1196,7 @@ public final class TableProperties implements Cloneable
      */
     public boolean getShowHeader()
     {
-        return getBooleanProperty(PROPERTY_BOOLEAN_SHOWHEADER);
+        return this.showHeader;
     }
 
     /**
@@ -940,7 +1232,133 @@ public final class TableProperties implements Cloneable
      */
     public boolean getExportFullList()
     {
-        return "list".equals(getProperty(PROPERTY_STRING_EXPORTAMOUNT)); //$NON-NLS-1$
+        return this.exportFullList;
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_BOOLEAN_EXPORTBACKGROUND</code> property.
+     * @return boolean <code>true</code> if exports should be run in background
+     */
+    public boolean getExportBackground()
+    {
+        return getBooleanProperty(PROPERTY_BOOLEAN_EXPORTBACKGROUND);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_STRING_EXPORTBACKGROUND_DIRECTORY</code> property.
+     * @return String directory for background exports, the system temp directory if empty
+     */
+    public String getExportBackgroundDirectory()
+    {
+        return getProperty(PROPERTY_STRING_EXPORTBACKGROUND_DIRECTORY);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_INT_EXPORTBACKGROUND_THREADS</code> property.
+     * @return int number of threads running background exports
+     */
+    public int getExportBackgroundThreads()
+    {
+        return getIntProperty(PROPERTY_INT_EXPORTBACKGROUND_THREADS, 2);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_INT_EXPORTBACKGROUND_QUEUE</code> property.
+     * @return int max number of queued background exports
+     */
+    public int getExportBackgroundQueueSize()
+    {
+        return getIntProperty(PROPERTY_INT_EXPORTBACKGROUND_QUEUE, 20);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_INT_STATS_PROFILE_SAMPLING</code> property.
+     * @return int one row every n is profiled, 0 if profiling is disabled
+     */
+    public int getStatsProfileSampling()
+    {
+        return getIntProperty(PROPERTY_INT_STATS_PROFILE_SAMPLING, 0);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_INT_EXPORTBACKGROUND_EXPIRATION</code> property.
+     * @return int time, in seconds, finished exports are kept if not downloaded
+     */
+    public int getExportBackgroundExpiration()
+    {
+        return getIntProperty(PROPERTY_INT_EXPORTBACKGROUND_EXPIRATION, 3600);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_STRING_EXPORTBACKGROUND_URL</code> property.
+     * @return String url of the ExportJobServlet, can be empty
+     */
+    public String getExportBackgroundUrl()
+    {
+        return getProperty(PROPERTY_STRING_EXPORTBACKGROUND_URL);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_BOOLEAN_EXPORTCACHE</code> property.
+     * @return boolean <code>true</code> if generated exports should be cached
+     */
+    public boolean getExportCache()
+    {
+        return getBooleanProperty(PROPERTY_BOOLEAN_EXPORTCACHE);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_INT_EXPORTCACHE_SIZE</code> property.
+     * @return int max size of cached exports, in bytes
+     */
+    public int getExportCacheSize()
+    {
+        return getIntProperty(PROPERTY_INT_EXPORTCACHE_SIZE, 10485760);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_INT_EXPORTCACHE_EXPIRATION</code> property.
+     * @return int time, in seconds, exports are kept in cache
+     */
+    public int getExportCacheExpiration()
+    {
+        return getIntProperty(PROPERTY_INT_EXPORTCACHE_EXPIRATION, 300);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_INT_EXPORTCACHE_TIMEOUT</code> property.
+     * @return int max time, in seconds, a request waits for the same export being generated by another request
+     */
+    public int getExportCacheTimeout()
+    {
+        return getIntProperty(PROPERTY_INT_EXPORTCACHE_TIMEOUT, 10);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_STRING_EXPORTCACHE_VERSION</code> property.
+     * @return String data version token, can be empty
+     */
+    public String getExportCacheVersion()
+    {
+        return getProperty(PROPERTY_STRING_EXPORTCACHE_VERSION);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_INT_EXPORTLIMIT</code> property.
+     * @return int max concurrent exports for all the media, 0 if unlimited
+     */
+    public int getExportLimit()
+    {
+        return getIntProperty(PROPERTY_INT_EXPORTLIMIT, 0);
+    }
+
+    /**
+     * Getter for the <code>PROPERTY_INT_EXPORTLIMIT_TIMEOUT</code> property.
+     * @return int time, in seconds, an export waits for a free slot before being rejected
+     */
+    public int getExportLimitTimeout()
+    {
+        return getIntProperty(PROPERTY_INT_EXPORTLIMIT_TIMEOUT, 10);
     }
 
     /**
@@ -949,7 +1367,7 @@ public final class TableProperties implements Cloneable
      */
     public boolean getSortFullList()
     {
-        return "list".equals(getProperty(PROPERTY_STRING_SORTAMOUNT)); //$NON-NLS-1$
+        return this.sortFullList;
     }
 
     /**
@@ -958,8 +1376,7 @@ public final class TableProperties implements Cloneable
      */
     public boolean getAddPagingBannerTop()
     {
-        String placement = getProperty(PROPERTY_STRING_BANNER_PLACEMENT);
-        return "top".equals(placement) || "both".equals(placement); //$NON-NLS-1$ //$NON-NLS-2$
+        return "top".equals(this.bannerPlacement) || "both".equals(this.bannerPlacement); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
     /**
@@ -968,8 +1385,7 @@ public final class TableProperties implements Cloneable
      */
     public boolean getAddPagingBannerBottom()
     {
-        String placement = getProperty(PROPERTY_STRING_BANNER_PLACEMENT);
-        return "bottom".equals(placement) || "both".equals(placement); //$NON-NLS-1$ //$NON-NLS-2$
+        return "bottom".equals(this.bannerPlacement) || "both".equals(this.bannerPlacement); //$NON-NLS-1$ //$NON-NLS-2$
     }
 
     /**
@@ -980,7 +1396,7 @@ public final class TableProperties implements Cloneable
      */
     public String getCssRow(int rowNumber)
     {
-        return getProperty((rowNumber % 2 == 0) ? PROPERTY_CSS_TR_ODD : PROPERTY_CSS_TR_EVEN);
+        return (rowNumber % 2 == 0) ? this.cssRowOdd : this.cssRowEven;
     }
 
     /**
@@ -991,7 +1407,7 @@ public final class TableProperties implements Cloneable
      */
     public String getCssOrder(boolean ascending)
     {
-        return getProperty(ascending ? PROPERTY_CSS_TH_SORTED_ASCENDING : PROPERTY_CSS_TH_SORTED_DESCENDING);
+        return ascending ? this.cssOrderAscending : this.cssOrderDescending;
     }
 
     /**
@@ -1000,7 +1416,7 @@ public final class TableProperties implements Cloneable
      */
     public String getCssSorted()
     {
-        return getProperty(PROPERTY_CSS_TH_SORTED);
+        return this.cssSorted;
     }
 
     /**
@@ -1009,7 +1425,7 @@ public final class TableProperties implements Cloneable
      */
     public String getCssTable()
     {
-        return getProperty(PROPERTY_CSS_TABLE);
+        return this.cssTable;
     }
 
     /**
@@ -1018,7 +1434,7 @@ public final class TableProperties implements Cloneable
      */
     public String getCssSortable()
     {
-        return getProperty(PROPERTY_CSS_TH_SORTABLE);
+        return this.cssSortable;
     }
 
     /**
@@ -1027,13 +1443,7 @@ public final class TableProperties implements Cloneable
      */
     public String[] getExportTypes()
     {
-        String list = getProperty(PROPERTY_EXPORTTYPES);
-        if (list == null)
-        {
-            return new String[0];
-        }
-
-        return StringUtils.split(list);
+        return (String[]) this.exportTypes.clone();
     }
 
     /**
@@ -1099,6 +1509,31 @@ public final class TableProperties implements Cloneable
         }
     }
 
+    /**
+     * Returns the configured TableStatsListener.
+     * @return TableStatsListener instance, null if no listener is configured.
+     * @throws FactoryInstantiationException if unable to load or instantiate the configurated class.
+     */
+    public TableStatsListener getStatsListenerInstance() throws FactoryInstantiationException
+    {
+        if (StringUtils.isBlank(getProperty(PROPERTY_CLASS_STATSLISTENER)))
+        {
+            return null;
+        }
+
+        Object loadedObject = getClassPropertyInstance(PROPERTY_CLASS_STATSLISTENER);
+        try
+        {
+            return (TableStatsListener) loadedObject;
+        }
+        catch (ClassCastException e)
+        {
+            throw new FactoryInstantiationException(getClass(), PROPERTY_CLASS_STATSLISTENER, loadedObject
+                .getClass()
+                .getName(), e);
+        }
+    }
+
     public String getPaginationSortParam()
     {
         String result = getProperty(PROPERTY_STRING_PAGINATION_SORT_PARAM);
@@ -1159,6 +1594,16 @@ public final class TableProperties implements Cloneable
         return result;
     }
 
+    public String getPaginationCursorParam()
+    {
+        String result = getProperty(PROPERTY_STRING_PAGINATION_CURSOR_PARAM);
+        if (result == null)
+        {
+            result = "cursor";
+        }
+        return result;
+    }
+
     public boolean getPaginationSkipPageNumberInSort()
     {
         String s = getProperty(PROPERTY_BOOLEAN_PAGINATION_SKIP_PAGE_NUMBER_IN_SORT);
@@ -1237,7 +1682,7 @@ public final class TableProperties implements Cloneable
      */
     private String getProperty(String key)
     {
-        return this.properties.getProperty(key);
+        return (this.overrides != null ? this.overrides : this.properties).getProperty(key);
     }
 
     /**
@@ -1247,7 +1692,16 @@ public final class TableProperties implements Cloneable
      */
     public void setProperty(String key, String value)
     {
-        this.properties.setProperty(key, value);
+        if (this.overrides == null)
+        {
+            this.overrides = new Properties(this.properties);
+        }
+        this.overrides.setProperty(key, value);
+        if (this.localObjectCache != null)
+        {
+            this.localObjectCache.remove(key);
+        }
+        parseProperties();
     }
 
     /**
@@ -1269,7 +1723,14 @@ public final class TableProperties implements Cloneable
      */
     private Object getClassPropertyInstance(String key) throws FactoryInstantiationException
     {
-        Object instance = objectCache.get(key);
+        // objects configured with setProperty() are not shared
+        boolean local = this.overrides != null && this.overrides.containsKey(key);
+        if (local && this.localObjectCache == null)
+        {
+            this.localObjectCache = new HashMap();
+        }
+
+        Object instance = local ? this.localObjectCache.get(key) : this.objectCache.get(key);
         if (instance != null)
         {
             return instance;
@@ -1287,8 +1748,12 @@ public final class TableProperties implements Cloneable
         {
             Class classProperty = ReflectHelper.classForName(className);
             instance = classProperty.newInstance();
-            objectCache.put(key, instance);
-            return instance;
+            if (local)
+            {
+                this.localObjectCache.put(key, instance);
+                return instance;
+            }
+            return this.objectCache.putIfAbsent(key, instance);
         }
         catch (Exception e)
         {
@@ -1346,7 +1811,14 @@ public final class TableProperties implements Cloneable
         {
             try
             {
-                Class classProperty = ReflectHelper.classForName(className);
+                // comparators may keep state, only the class is cached
+                Class classProperty = (Class) this.objectCache.get(className);
+                if (classProperty == null)
+                {
+                    classProperty = (Class) this.objectCache.putIfAbsent(
+                        className,
+                        ReflectHelper.classForName(className));
+                }
                 return (Comparator) classProperty.newInstance();
             }
             catch (Throwable e)
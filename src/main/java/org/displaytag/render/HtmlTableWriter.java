@@ -37,6 +37,7 @@ import org.displaytag.model.HeaderCell;
 import org.displaytag.model.Row;
 import org.displaytag.model.RowIterator;
 import org.displaytag.model.TableModel;
+import org.displaytag.pagination.KeysetPaginatedList;
 import org.displaytag.pagination.PaginatedList;
 import org.displaytag.pagination.SmartListHelper;
 import org.displaytag.properties.MediaTypeEnum;
@@ -141,6 +142,11 @@ public class HtmlTableWriter extends TableWriterAdapter {
 
     private int splitAt;
 
+    /**
+     * Number of characters written.
+     */
+    private long size;
+
     /**
      * This table writer uses a <code>TableTag</code> and a
      * <code>JspWriter</code> to do its work.
@@ -538,9 +544,13 @@ public class HtmlTableWriter extends TableWriterAdapter {
                 href.addParameter(encodeParameter(TableTagParameters.PARAMETER_PAGE), 1);
             }
         } else {
-            if (properties.getPaginationSkipPageNumberInSort()) {
+            if (properties.getPaginationSkipPageNumberInSort() || paginatedList instanceof KeysetPaginatedList) {
                 href.removeParameter(properties.getPaginationPageNumberParam());
             }
+            if (paginatedList instanceof KeysetPaginatedList) {
+                // a cursor is only valid for the sort it has been read with
+                href.removeParameter(properties.getPaginationCursorParam());
+            }
 
             String sortProperty = headerCell.getSortProperty();
             if (sortProperty == null) {
@@ -619,11 +629,33 @@ public class HtmlTableWriter extends TableWriterAdapter {
                         && (!navigationHref.getParameterMap().containsKey(properties.getPaginationSearchIdParam()))) {
                     navigationHref.addParameter(properties.getPaginationSearchIdParam(), paginatedList.getSearchId());
                 }
+                if (paginatedList instanceof KeysetPaginatedList) {
+                    addSortCriterion(navigationHref);
+                }
             }
             write(this.listHelper.getPageNavigationBar(navigationHref, pageParameter));
         }
     }
 
+    /**
+     * Adds the sort criterion and direction of the paginated list to a navigation href, since keyset cursors can only
+     * be used with the sort they have been read with.
+     * 
+     * @param navigationHref
+     *            href for navigation links
+     */
+    private void addSortCriterion(Href navigationHref) {
+        if (paginatedList.getSortCriterion() == null) {
+            return;
+        }
+        navigationHref.addParameter(properties.getPaginationSortParam(), paginatedList.getSortCriterion());
+        if (paginatedList.getSortDirection() != null) {
+            navigationHref.addParameter(properties.getPaginationSortDirectionParam(), SortOrderEnum.DESCENDING
+                    .equals(paginatedList.getSortDirection()) ? properties.getPaginationDescValue() : properties
+                    .getPaginationAscValue());
+        }
+    }
+
     /**
      * Writes the formatted export links section.
      */
@@ -702,6 +734,7 @@ public class HtmlTableWriter extends TableWriterAdapter {
         if (string != null) {
             try {
                 out.write(string);
+                size += string.length();
             } catch (IOException e) {
                 throw new WrappedRuntimeException(getClass(), e);
             }
@@ -709,6 +742,15 @@ public class HtmlTableWriter extends TableWriterAdapter {
 
     }
 
+    /**
+     * Returns the number of characters written.
+     * 
+     * @return number of characters written
+     */
+    public long getSize() {
+        return size;
+    }
+
     public void writeTable(TableModel model, String id) throws JspException {
         /*
          * if attribute splitat is null ,call the
@@ -732,7 +774,9 @@ public class HtmlTableWriter extends TableWriterAdapter {
     public void write(Object string) {
         if (string != null) {
             try {
-                out.write(string.toString());
+                String value = string.toString();
+                out.write(value);
+                size += value.length();
             } catch (IOException e) {
                 throw new WrappedRuntimeException(getClass(), e);
             }
@@ -0,0 +1,252 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.stats;
+
+import java.util.List;
+
+import org.apache.commons.lang.ClassUtils;
+import org.displaytag.decorator.DisplaytagColumnDecorator;
+import org.displaytag.model.HeaderCell;
+
+
+/**
+ * <p>
+ * Cumulative time and number of calls of the work done for each column: bean property lookup, lookup through the
+ * table decorator, each column decorator and the chopping and linking of the value. Only one row every
+ * <code>stats.profile.sampling</code> rows is measured, so the profiler can be used in production: times and counts
+ * refer to the sampled rows only.
+ * </p>
+ * <p>
+ * A profile is sent to the TableStatsListener with the statistics of the table, and logged at debug level.
+ * </p>
+ * @version $Revision$ ($Author$)
+ */
+public final class ColumnProfile
+{
+
+    /**
+     * Bean property lookup.
+     */
+    public static final int LOOKUP = 0;
+
+    /**
+     * Property lookup through the table decorator.
+     */
+    public static final int TABLE_DECORATOR = 1;
+
+    /**
+     * Chopping and linking of the value.
+     */
+    public static final int CHOP_AND_LINK = 2;
+
+    /**
+     * Index of the first column decorator, followed by the other decorators of the column.
+     */
+    public static final int COLUMN_DECORATOR = 3;
+
+    /**
+     * Names of the fixed entries.
+     */
+    private static final String[] ENTRY_NAMES = new String[]{
+        "lookup", //$NON-NLS-1$
+        "table decorator", //$NON-NLS-1$
+        "chop and link"}; //$NON-NLS-1$
+
+    /**
+     * Column names.
+     */
+    private final String[] columns;
+
+    /**
+     * Entry names for each column.
+     */
+    private final String[][] entries;
+
+    /**
+     * Time for each column and entry, in nanoseconds.
+     */
+    private final long[][] times;
+
+    /**
+     * Calls for each column and entry.
+     */
+    private final long[][] calls;
+
+    /**
+     * Sampling rate.
+     */
+    private final int sampling;
+
+    /**
+     * Instantiates a new profile for the given columns.
+     * @param headerCells list of HeaderCell
+     * @param samplingRate one row every <code>samplingRate</code> is measured
+     */
+    public ColumnProfile(List headerCells, int samplingRate)
+    {
+        this.sampling = Math.max(1, samplingRate);
+        int size = headerCells.size();
+        this.columns = new String[size];
+        this.entries = new String[size][];
+        this.times = new long[size][];
+        this.calls = new long[size][];
+
+        for (int j = 0; j < size; j++)
+        {
+            HeaderCell header = (HeaderCell) headerCells.get(j);
+            this.columns[j] = header.getBeanPropertyName() != null ? header.getBeanPropertyName() : String
+                .valueOf(j + 1);
+
+            DisplaytagColumnDecorator[] decorators = header.getColumnDecorators();
+            this.entries[j] = new String[COLUMN_DECORATOR + decorators.length];
+            System.arraycopy(ENTRY_NAMES, 0, this.entries[j], 0, COLUMN_DECORATOR);
+            for (int k = 0; k < decorators.length; k++)
+            {
+                this.entries[j][COLUMN_DECORATOR + k] = ClassUtils.getShortClassName(decorators[k].getClass());
+            }
+            this.times[j] = new long[this.entries[j].length];
+            this.calls[j] = new long[this.entries[j].length];
+        }
+    }
+
+    /**
+     * Instantiates a copy of a profile.
+     * @param profile ColumnProfile
+     */
+    private ColumnProfile(ColumnProfile profile)
+    {
+        this.sampling = profile.sampling;
+        this.columns = profile.columns;
+        this.entries = profile.entries;
+        this.times = new long[this.columns.length][];
+        this.calls = new long[this.columns.length][];
+        for (int j = 0; j < this.columns.length; j++)
+        {
+            this.times[j] = (long[]) profile.times[j].clone();
+            this.calls[j] = (long[]) profile.calls[j].clone();
+        }
+    }
+
+    /**
+     * Should the given row be measured?
+     * @param rowNumber row number
+     * @return <code>true</code> for one row every <code>stats.profile.sampling</code>
+     */
+    public boolean isSampled(int rowNumber)
+    {
+        return rowNumber % this.sampling == 0;
+    }
+
+    /**
+     * Adds a call.
+     * @param column column number (0 based)
+     * @param entry entry, one of the constants of this class, COLUMN_DECORATOR plus the index of a column decorator
+     * @param startTime start time of the call, as returned by TableStats.now()
+     * @return current time, which can be used as start time of the next call
+     */
+    public long add(int column, int entry, long startTime)
+    {
+        long now = TableStats.now();
+        if (column < this.times.length && entry < this.times[column].length)
+        {
+            this.times[column][entry] += now - startTime;
+            this.calls[column][entry]++;
+        }
+        return now;
+    }
+
+    /**
+     * Returns the time of an entry.
+     * @param column column number (0 based)
+     * @param entry entry
+     * @return time in nanoseconds
+     */
+    public long getTime(int column, int entry)
+    {
+        return this.times[column][entry];
+    }
+
+    /**
+     * Returns the number of calls of an entry.
+     * @param column column number (0 based)
+     * @param entry entry
+     * @return number of calls
+     */
+    public long getCalls(int column, int entry)
+    {
+        return this.calls[column][entry];
+    }
+
+    /**
+     * Adds the times and calls of another profile of the same table.
+     * @param profile ColumnProfile
+     * @return <code>false</code> if the profile is for different columns and has not been added
+     */
+    public boolean merge(ColumnProfile profile)
+    {
+        if (profile.columns.length != this.columns.length)
+        {
+            return false;
+        }
+        for (int j = 0; j < this.columns.length; j++)
+        {
+            if (profile.times[j].length != this.times[j].length)
+            {
+                return false;
+            }
+        }
+
+        for (int j = 0; j < this.columns.length; j++)
+        {
+            for (int k = 0; k < this.times[j].length; k++)
+            {
+                this.times[j][k] += profile.times[j][k];
+                this.calls[j][k] += profile.calls[j][k];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a copy of this profile, which can be used to aggregate profiles.
+     * @return ColumnProfile
+     */
+    public ColumnProfile copy()
+    {
+        return new ColumnProfile(this);
+    }
+
+    /**
+     * Summary with the time in milliseconds and the number of calls of each entry, one line for each column.
+     * @see java.lang.Object#toString()
+     */
+    public String toString()
+    {
+        StringBuffer buffer = new StringBuffer(100 * this.columns.length);
+        buffer.append("sampling 1/").append(this.sampling); //$NON-NLS-1$
+        for (int j = 0; j < this.columns.length; j++)
+        {
+            buffer.append('\n').append(this.columns[j]).append(':');
+            for (int k = 0; k < this.times[j].length; k++)
+            {
+                if (this.calls[j][k] > 0)
+                {
+                    buffer.append(' ').append(this.entries[j][k]).append(' ');
+                    buffer.append(this.times[j][k] / 1000000d).append("ms/"); //$NON-NLS-1$
+                    buffer.append(this.calls[j][k]).append(';');
+                }
+            }
+        }
+        return buffer.toString();
+    }
+
+}
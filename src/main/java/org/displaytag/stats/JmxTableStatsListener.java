@@ -0,0 +1,134 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.stats;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.displaytag.util.JmxUtil;
+
+
+/**
+ * <p>
+ * Aggregates the statistics of each table uid in a TableStatsSummary, registered in the platform MBean server as
+ * <code>org.displaytag:type=TableStats,uid=</code><em>[table uid]</em>. Enable it in displaytag.properties with:
+ * </p>
+ *
+ * <pre>
+ * stats.listener=org.displaytag.stats.JmxTableStatsListener
+ * </pre>
+ *
+ * <p>
+ * The JMX api is accessed by reflection, since displaytag can run on jvms without it: summaries are then still
+ * collected and available from <code>getSummary()</code>. MBeans are unregistered by <code>clear()</code>, called by
+ * DisplaytagShutdownListener when the application is stopped.
+ * </p>
+ * @version $Revision$ ($Author$)
+ */
+public class JmxTableStatsListener implements TableStatsListener
+{
+
+    /**
+     * Domain of the registered MBeans.
+     */
+    public static final String DOMAIN = JmxUtil.DOMAIN;
+
+    /**
+     * Uid used for tables without uid.
+     */
+    private static final String NO_UID = "[none]"; //$NON-NLS-1$
+
+    /**
+     * Map containing table uid - TableStatsSummary, shared by all the instances since a summary can be registered only
+     * once.
+     */
+    private static Map summaries = new HashMap();
+
+    /**
+     * @see org.displaytag.stats.TableStatsListener#tableRendered(org.displaytag.stats.TableStats)
+     */
+    public void tableRendered(TableStats stats)
+    {
+        String uid = stats.getUid() != null ? stats.getUid() : NO_UID;
+
+        TableStatsSummary summary;
+        boolean created = false;
+        synchronized (summaries)
+        {
+            summary = (TableStatsSummary) summaries.get(uid);
+            if (summary == null)
+            {
+                summary = new TableStatsSummary();
+                summaries.put(uid, summary);
+                created = true;
+            }
+        }
+
+        if (created)
+        {
+            register(uid, summary);
+        }
+        summary.add(stats);
+    }
+
+    /**
+     * Returns the summary for a table.
+     * @param uid table uid, null for tables without uid
+     * @return TableStatsSummary, null if the table has never been rendered
+     */
+    public static TableStatsSummary getSummary(String uid)
+    {
+        synchronized (summaries)
+        {
+            return (TableStatsSummary) summaries.get(uid != null ? uid : NO_UID);
+        }
+    }
+
+    /**
+     * Unregisters all the summaries and discards the collected statistics. Called by DisplaytagShutdownListener when
+     * the application is stopped.
+     */
+    public static void clear()
+    {
+        synchronized (summaries)
+        {
+            Iterator iterator = summaries.keySet().iterator();
+            while (iterator.hasNext())
+            {
+                JmxUtil.unregister(getNameProperties((String) iterator.next()));
+            }
+            summaries.clear();
+        }
+    }
+
+    /**
+     * Registers a summary in the platform MBean server.
+     * @param uid table uid
+     * @param summary TableStatsSummary
+     */
+    private static void register(String uid, TableStatsSummary summary)
+    {
+        JmxUtil.register(getNameProperties(uid), summary);
+    }
+
+    /**
+     * Returns the key properties of the object name of a summary.
+     * @param uid table uid
+     * @return <code>type=TableStats,uid=</code><em>[quoted uid]</em>
+     */
+    private static String getNameProperties(String uid)
+    {
+        return "type=TableStats,uid=" + JmxUtil.quote(uid); //$NON-NLS-1$
+    }
+
+}
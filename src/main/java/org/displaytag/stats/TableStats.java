@@ -0,0 +1,519 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.stats;
+
+import java.io.FilterOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+
+import javax.servlet.jsp.JspException;
+
+import org.displaytag.export.BinaryExportView;
+import org.displaytag.export.ExportView;
+import org.displaytag.export.TextExportView;
+import org.displaytag.model.TableModel;
+import org.displaytag.properties.MediaTypeEnum;
+
+
+/**
+ * Timings and sizes recorded while rendering a table, published to the <code>TableStatsListener</code> configured with
+ * the <code>stats.listener</code> property. Times are in nanoseconds (with a millisecond resolution on jvms without
+ * <code>System.nanoTime()</code>). The setup time includes the sorting of the full list, which is also reported as
+ * sort time.
+ * @version $Revision$ ($Author$)
+ */
+public final class TableStats
+{
+
+    /**
+     * Evaluation of the tag attributes and of the data source.
+     */
+    public static final int EVALUATION = 0;
+
+    /**
+     * Iteration on the rows, including the evaluation of the tag body.
+     */
+    public static final int ITERATION = 1;
+
+    /**
+     * Sorting.
+     */
+    public static final int SORT = 2;
+
+    /**
+     * Setup of the viewable data: pagination, grouping and sorting of the full list.
+     */
+    public static final int SETUP = 3;
+
+    /**
+     * Html rendering.
+     */
+    public static final int RENDER = 4;
+
+    /**
+     * Export.
+     */
+    public static final int EXPORT = 5;
+
+    /**
+     * Number of phases.
+     */
+    public static final int PHASES = 6;
+
+    /**
+     * System.nanoTime(), null if not available.
+     */
+    private static Method nanoTime;
+
+    static
+    {
+        try
+        {
+            nanoTime = System.class.getMethod("nanoTime", null); //$NON-NLS-1$
+        }
+        catch (NoSuchMethodException e)
+        {
+            // jdk 1.4
+            nanoTime = null;
+        }
+    }
+
+    /**
+     * Table uid.
+     */
+    private final String uid;
+
+    /**
+     * Rendered media.
+     */
+    private final MediaTypeEnum media;
+
+    /**
+     * Time spent in each phase.
+     */
+    private final long[] times = new long[PHASES];
+
+    /**
+     * Number of rows.
+     */
+    private int rows;
+
+    /**
+     * Number of columns.
+     */
+    private int columns;
+
+    /**
+     * Characters (or bytes, for binary exports) written.
+     */
+    private long size;
+
+    /**
+     * Profile of the columns, null if profiling is disabled.
+     */
+    private ColumnProfile columnProfile;
+
+    /**
+     * Instantiates a new TableStats.
+     * @param tableUid table uid
+     * @param renderedMedia rendered media
+     */
+    public TableStats(String tableUid, MediaTypeEnum renderedMedia)
+    {
+        this.uid = tableUid;
+        this.media = renderedMedia;
+    }
+
+    /**
+     * Returns the current time, used to measure elapsed times.
+     * @return current time in nanoseconds, not related to the wall clock time
+     */
+    public static long now()
+    {
+        if (nanoTime != null)
+        {
+            try
+            {
+                return ((Long) nanoTime.invoke(null, null)).longValue();
+            }
+            catch (Exception e)
+            {
+                // should never happen
+            }
+        }
+        return System.currentTimeMillis() * 1000000L;
+    }
+
+    /**
+     * Adds the time elapsed since the given start time to a phase.
+     * @param phase phase, one of the constants of this class
+     * @param startTime start time, as returned by <code>now()</code>
+     */
+    public void stop(int phase, long startTime)
+    {
+        addTime(phase, now() - startTime);
+    }
+
+    /**
+     * Adds time to a phase.
+     * @param phase phase, one of the constants of this class
+     * @param time time in nanoseconds
+     */
+    public void addTime(int phase, long time)
+    {
+        this.times[phase] += time;
+    }
+
+    /**
+     * Returns the time spent in a phase.
+     * @param phase phase, one of the constants of this class
+     * @return time in nanoseconds
+     */
+    public long getTime(int phase)
+    {
+        return this.times[phase];
+    }
+
+    /**
+     * Returns the table uid.
+     * @return table uid, may be null
+     */
+    public String getUid()
+    {
+        return this.uid;
+    }
+
+    /**
+     * Returns the rendered media.
+     * @return MediaTypeEnum
+     */
+    public MediaTypeEnum getMedia()
+    {
+        return this.media;
+    }
+
+    /**
+     * Returns the number of rows in the table.
+     * @return number of rows
+     */
+    public int getRows()
+    {
+        return this.rows;
+    }
+
+    /**
+     * Sets the number of rows in the table.
+     * @param value number of rows
+     */
+    public void setRows(int value)
+    {
+        this.rows = value;
+    }
+
+    /**
+     * Returns the number of columns.
+     * @return number of columns
+     */
+    public int getColumns()
+    {
+        return this.columns;
+    }
+
+    /**
+     * Sets the number of columns.
+     * @param value number of columns
+     */
+    public void setColumns(int value)
+    {
+        this.columns = value;
+    }
+
+    /**
+     * Returns the number of characters written, or of bytes for binary exports. Exports generated in background are not
+     * counted.
+     * @return size of the output
+     */
+    public long getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Adds to the number of characters or bytes written.
+     * @param value characters or bytes written
+     */
+    public void addSize(long value)
+    {
+        this.size += value;
+    }
+
+    /**
+     * Returns the profile of the columns.
+     * @return ColumnProfile, null if profiling is disabled
+     */
+    public ColumnProfile getColumnProfile()
+    {
+        return this.columnProfile;
+    }
+
+    /**
+     * Sets the profile of the columns.
+     * @param profile ColumnProfile
+     */
+    public void setColumnProfile(ColumnProfile profile)
+    {
+        this.columnProfile = profile;
+    }
+
+    /**
+     * Wraps an export view, counting the characters or bytes it writes.
+     * @param exportView TextExportView or BinaryExportView
+     * @return export view writing the same output
+     */
+    public ExportView countSize(ExportView exportView)
+    {
+        if (exportView instanceof TextExportView)
+        {
+            return new CountingTextView((TextExportView) exportView);
+        }
+        if (exportView instanceof BinaryExportView)
+        {
+            return new CountingBinaryView((BinaryExportView) exportView);
+        }
+        return exportView;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    public String toString()
+    {
+        StringBuffer buffer = new StringBuffer(100);
+        buffer.append("TableStats[uid=").append(this.uid); //$NON-NLS-1$
+        buffer.append(", media=").append(this.media); //$NON-NLS-1$
+        buffer.append(", rows=").append(this.rows); //$NON-NLS-1$
+        buffer.append(", columns=").append(this.columns); //$NON-NLS-1$
+        buffer.append(", size=").append(this.size); //$NON-NLS-1$
+        buffer.append(", times=["); //$NON-NLS-1$
+        for (int j = 0; j < PHASES; j++)
+        {
+            buffer.append(j > 0 ? ", " : "").append(this.times[j]); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return buffer.append("]]").toString(); //$NON-NLS-1$
+    }
+
+    /**
+     * Text export view counting the written characters.
+     */
+    private class CountingTextView implements TextExportView
+    {
+
+        /**
+         * Wrapped view.
+         */
+        private final TextExportView view;
+
+        /**
+         * Instantiates a new counting view.
+         * @param exportView wrapped view
+         */
+        CountingTextView(TextExportView exportView)
+        {
+            this.view = exportView;
+        }
+
+        /**
+         * @see org.displaytag.export.TextExportView#doExport(java.io.Writer)
+         */
+        public void doExport(Writer out) throws IOException, JspException
+        {
+            if (out instanceof PrintWriter)
+            {
+                // keep the PrintWriter visible, ExportWriter checks it for errors when the client has gone away
+                this.view.doExport(new CountingPrintWriter((PrintWriter) out));
+                return;
+            }
+
+            this.view.doExport(new FilterWriter(out)
+            {
+
+                public void write(int c) throws IOException
+                {
+                    super.write(c);
+                    addSize(1);
+                }
+
+                public void write(char[] cbuf, int off, int len) throws IOException
+                {
+                    super.write(cbuf, off, len);
+                    addSize(len);
+                }
+
+                public void write(String str, int off, int len) throws IOException
+                {
+                    super.write(str, off, len);
+                    addSize(len);
+                }
+            });
+        }
+
+        /**
+         * @see org.displaytag.export.TextExportView#outputPage()
+         */
+        public boolean outputPage()
+        {
+            return this.view.outputPage();
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#setParameters(TableModel, boolean, boolean, boolean)
+         */
+        public void setParameters(TableModel tableModel, boolean exportFullList, boolean includeHeader,
+            boolean decorateValues)
+        {
+            this.view.setParameters(tableModel, exportFullList, includeHeader, decorateValues);
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#getMimeType()
+         */
+        public String getMimeType()
+        {
+            return this.view.getMimeType();
+        }
+    }
+
+    /**
+     * PrintWriter counting the written characters.
+     */
+    private class CountingPrintWriter extends PrintWriter
+    {
+
+        /**
+         * Wrapped writer.
+         */
+        private final PrintWriter writer;
+
+        /**
+         * Instantiates a new counting writer.
+         * @param printWriter wrapped writer
+         */
+        CountingPrintWriter(PrintWriter printWriter)
+        {
+            super(printWriter);
+            this.writer = printWriter;
+        }
+
+        /**
+         * @see java.io.PrintWriter#write(int)
+         */
+        public void write(int c)
+        {
+            this.writer.write(c);
+            addSize(1);
+        }
+
+        /**
+         * @see java.io.PrintWriter#write(char[], int, int)
+         */
+        public void write(char[] buf, int off, int len)
+        {
+            this.writer.write(buf, off, len);
+            addSize(len);
+        }
+
+        /**
+         * @see java.io.PrintWriter#write(java.lang.String, int, int)
+         */
+        public void write(String s, int off, int len)
+        {
+            this.writer.write(s, off, len);
+            addSize(len);
+        }
+
+        /**
+         * Doesn't flush, unlike <code>PrintWriter.checkError()</code>: the wrapped writer decides when flushing is
+         * needed.
+         * @see java.io.PrintWriter#checkError()
+         */
+        public boolean checkError()
+        {
+            return this.writer.checkError();
+        }
+    }
+
+    /**
+     * Binary export view counting the written bytes.
+     */
+    private class CountingBinaryView implements BinaryExportView
+    {
+
+        /**
+         * Wrapped view.
+         */
+        private final BinaryExportView view;
+
+        /**
+         * Instantiates a new counting view.
+         * @param exportView wrapped view
+         */
+        CountingBinaryView(BinaryExportView exportView)
+        {
+            this.view = exportView;
+        }
+
+        /**
+         * @see org.displaytag.export.BinaryExportView#doExport(java.io.OutputStream)
+         */
+        public void doExport(OutputStream out) throws IOException, JspException
+        {
+            this.view.doExport(new FilterOutputStream(out)
+            {
+
+                public void write(int b) throws IOException
+                {
+                    this.out.write(b);
+                    addSize(1);
+                }
+
+                public void write(byte[] b, int off, int len) throws IOException
+                {
+                    // FilterOutputStream writes one byte at a time
+                    this.out.write(b, off, len);
+                    addSize(len);
+                }
+            });
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#setParameters(TableModel, boolean, boolean, boolean)
+         */
+        public void setParameters(TableModel tableModel, boolean exportFullList, boolean includeHeader,
+            boolean decorateValues)
+        {
+            this.view.setParameters(tableModel, exportFullList, includeHeader, decorateValues);
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#getMimeType()
+         */
+        public String getMimeType()
+        {
+            return this.view.getMimeType();
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.stats;
+
+/**
+ * Receives the statistics of each rendered table. A listener is configured with the <code>stats.listener</code>
+ * property; a single instance is used for all the tables, so implementations must be thread safe.
+ * @version $Revision$ ($Author$)
+ */
+public interface TableStatsListener
+{
+
+    /**
+     * Called after a table has been rendered or exported.
+     * @param stats statistics of the table
+     */
+    void tableRendered(TableStats stats);
+
+}
@@ -0,0 +1,252 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.stats;
+
+import org.displaytag.properties.MediaTypeEnum;
+
+
+/**
+ * Statistics aggregated for all the renders of a table.
+ * @version $Revision$ ($Author$)
+ */
+public class TableStatsSummary implements TableStatsSummaryMBean
+{
+
+    /**
+     * Nanoseconds in a millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1000000d;
+
+    /**
+     * Number of html renders.
+     */
+    private long renders;
+
+    /**
+     * Number of exports.
+     */
+    private long exports;
+
+    /**
+     * Total number of rows.
+     */
+    private long totalRows;
+
+    /**
+     * Max number of rows.
+     */
+    private int maxRows;
+
+    /**
+     * Columns of the last render.
+     */
+    private int columns;
+
+    /**
+     * Total size.
+     */
+    private long totalSize;
+
+    /**
+     * Total time for each phase, in nanoseconds.
+     */
+    private final long[] times = new long[TableStats.PHASES];
+
+    /**
+     * Aggregated profile of the columns.
+     */
+    private ColumnProfile columnProfile;
+
+    /**
+     * Adds the statistics of a render.
+     * @param stats TableStats
+     */
+    public synchronized void add(TableStats stats)
+    {
+        if (MediaTypeEnum.HTML.equals(stats.getMedia()))
+        {
+            this.renders++;
+        }
+        else
+        {
+            this.exports++;
+        }
+        this.totalRows += stats.getRows();
+        this.maxRows = Math.max(this.maxRows, stats.getRows());
+        this.columns = stats.getColumns();
+        this.totalSize += stats.getSize();
+        for (int j = 0; j < TableStats.PHASES; j++)
+        {
+            this.times[j] += stats.getTime(j);
+        }
+
+        ColumnProfile profile = stats.getColumnProfile();
+        if (profile != null && (this.columnProfile == null || !this.columnProfile.merge(profile)))
+        {
+            // first profile, or columns have changed
+            this.columnProfile = profile.copy();
+        }
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getRenders()
+     */
+    public synchronized long getRenders()
+    {
+        return this.renders;
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getExports()
+     */
+    public synchronized long getExports()
+    {
+        return this.exports;
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getTotalRows()
+     */
+    public synchronized long getTotalRows()
+    {
+        return this.totalRows;
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getMaxRows()
+     */
+    public synchronized int getMaxRows()
+    {
+        return this.maxRows;
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getColumns()
+     */
+    public synchronized int getColumns()
+    {
+        return this.columns;
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getTotalSize()
+     */
+    public synchronized long getTotalSize()
+    {
+        return this.totalSize;
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getAverageTime()
+     */
+    public synchronized double getAverageTime()
+    {
+        long count = this.renders + this.exports;
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        long total = 0;
+        for (int j = 0; j < TableStats.PHASES; j++)
+        {
+            // sorting of the full list is already included in setup
+            total += j != TableStats.SORT ? this.times[j] : 0;
+        }
+        return total / NANOS_PER_MILLI / count;
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getEvaluationTime()
+     */
+    public double getEvaluationTime()
+    {
+        return getTime(TableStats.EVALUATION);
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getIterationTime()
+     */
+    public double getIterationTime()
+    {
+        return getTime(TableStats.ITERATION);
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getSortTime()
+     */
+    public double getSortTime()
+    {
+        return getTime(TableStats.SORT);
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getSetupTime()
+     */
+    public double getSetupTime()
+    {
+        return getTime(TableStats.SETUP);
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getRenderTime()
+     */
+    public double getRenderTime()
+    {
+        return getTime(TableStats.RENDER);
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getExportTime()
+     */
+    public double getExportTime()
+    {
+        return getTime(TableStats.EXPORT);
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#getColumnProfile()
+     */
+    public synchronized String getColumnProfile()
+    {
+        return this.columnProfile != null ? this.columnProfile.toString() : null;
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsSummaryMBean#reset()
+     */
+    public synchronized void reset()
+    {
+        this.columnProfile = null;
+        this.renders = 0;
+        this.exports = 0;
+        this.totalRows = 0;
+        this.maxRows = 0;
+        this.columns = 0;
+        this.totalSize = 0;
+        for (int j = 0; j < TableStats.PHASES; j++)
+        {
+            this.times[j] = 0;
+        }
+    }
+
+    /**
+     * Returns the total time of a phase.
+     * @param phase phase
+     * @return time in milliseconds
+     */
+    private synchronized double getTime(int phase)
+    {
+        return this.times[phase] / NANOS_PER_MILLI;
+    }
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.stats;
+
+/**
+ * Management interface of TableStatsSummary. Times are in milliseconds.
+ * @version $Revision$ ($Author$)
+ */
+public interface TableStatsSummaryMBean
+{
+
+    /**
+     * @return number of html renders
+     */
+    long getRenders();
+
+    /**
+     * @return number of exports
+     */
+    long getExports();
+
+    /**
+     * @return number of rows of all the renders and exports
+     */
+    long getTotalRows();
+
+    /**
+     * @return max number of rows
+     */
+    int getMaxRows();
+
+    /**
+     * @return number of columns of the last render
+     */
+    int getColumns();
+
+    /**
+     * @return characters or bytes written by all the renders and exports
+     */
+    long getTotalSize();
+
+    /**
+     * @return average time of a render or export
+     */
+    double getAverageTime();
+
+    /**
+     * @return time spent evaluating attributes and data
+     */
+    double getEvaluationTime();
+
+    /**
+     * @return time spent iterating on rows
+     */
+    double getIterationTime();
+
+    /**
+     * @return time spent sorting
+     */
+    double getSortTime();
+
+    /**
+     * @return time spent in the setup of viewable data
+     */
+    double getSetupTime();
+
+    /**
+     * @return time spent rendering html
+     */
+    double getRenderTime();
+
+    /**
+     * @return time spent exporting
+     */
+    double getExportTime();
+
+    /**
+     * @return time and calls for the work done on each column, null if profiling is disabled
+     */
+    String getColumnProfile();
+
+    /**
+     * Resets all the counters.
+     */
+    void reset();
+
+}
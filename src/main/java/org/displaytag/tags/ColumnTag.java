@@ -13,6 +13,7 @@ package org.displaytag.tags;
 
 import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
@@ -27,6 +28,8 @@ import org.apache.commons.lang.builder.ToStringStyle;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.displaytag.decorator.AutolinkColumnDecorator;
+import org.displaytag.decorator.DecoratorFactory;
+import org.displaytag.decorator.DefaultDecoratorFactory;
 import org.displaytag.decorator.DisplaytagColumnDecorator;
 import org.displaytag.decorator.EscapeXmlColumnDecorator;
 import org.displaytag.decorator.MessageFormatColumnDecorator;
@@ -699,12 +702,20 @@ public class ColumnTag extends BodyTagSupport implements MediaUtil.SupportsMedia
         // handle multiple chained decorators, whitespace separated
         if (StringUtils.isNotEmpty(this.decorator))
         {
-            String[] decoratorNames = StringUtils.split(this.decorator);
-            for (int j = 0; j < decoratorNames.length; j++)
+            DecoratorFactory decoratorFactory = tableTag.getProperties().getDecoratorFactoryInstance();
+            if (decoratorFactory instanceof DefaultDecoratorFactory)
             {
-                decorators.add(tableTag.getProperties().getDecoratorFactoryInstance().loadColumnDecorator(
+                decorators.addAll(Arrays.asList(((DefaultDecoratorFactory) decoratorFactory).loadColumnDecorators(
                     this.pageContext,
-                    decoratorNames[j]));
+                    this.decorator)));
+            }
+            else
+            {
+                String[] decoratorNames = StringUtils.split(this.decorator);
+                for (int j = 0; j < decoratorNames.length; j++)
+                {
+                    decorators.add(decoratorFactory.loadColumnDecorator(this.pageContext, decoratorNames[j]));
+                }
             }
         }
 
@@ -719,7 +730,7 @@ public class ColumnTag extends BodyTagSupport implements MediaUtil.SupportsMedia
         }
         if (StringUtils.isNotBlank(this.format))
         {
-            decorators.add(new MessageFormatColumnDecorator(this.format, tableTag.getProperties().getLocale()));
+            decorators.add(MessageFormatColumnDecorator.getInstance(this.format, tableTag.getProperties().getLocale()));
         }
 
         headerCell.setColumnDecorators((DisplaytagColumnDecorator[]) decorators
@@ -13,23 +13,30 @@ package org.displaytag.tags;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.sql.ResultSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.DeflaterOutputStream;
 
+import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.JspTagException;
 import javax.servlet.jsp.JspWriter;
+import javax.servlet.jsp.tagext.TryCatchFinally;
 
-import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.collections.IteratorUtils;
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.LongRange;
@@ -39,30 +46,47 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.displaytag.Messages;
 import org.displaytag.decorator.TableDecorator;
+import org.displaytag.decorator.TotalTableDecorator;
 import org.displaytag.exception.ExportException;
 import org.displaytag.exception.FactoryInstantiationException;
 import org.displaytag.exception.InvalidTagAttributeValueException;
 import org.displaytag.exception.WrappedRuntimeException;
 import org.displaytag.export.BinaryExportView;
+import org.displaytag.export.ExportCache;
+import org.displaytag.export.ExportCancelledException;
+import org.displaytag.export.ExportJob;
+import org.displaytag.export.ExportJobManager;
+import org.displaytag.export.ExportLimiter;
 import org.displaytag.export.ExportView;
 import org.displaytag.export.ExportViewFactory;
+import org.displaytag.export.ResponseWriter;
 import org.displaytag.export.TextExportView;
+import org.displaytag.filter.ExportJobServlet;
 import org.displaytag.model.Cell;
 import org.displaytag.model.Column;
 import org.displaytag.model.HeaderCell;
 import org.displaytag.model.Row;
+import org.displaytag.model.RowAdapter;
 import org.displaytag.model.TableModel;
+import org.displaytag.pagination.AggregatingPaginatedList;
+import org.displaytag.pagination.Cancellable;
 import org.displaytag.pagination.PaginatedList;
 import org.displaytag.pagination.PaginatedListSmartListHelper;
 import org.displaytag.pagination.PaginationHelper;
+import org.displaytag.pagination.ResultSetSource;
 import org.displaytag.pagination.SmartListHelper;
 import org.displaytag.properties.MediaTypeEnum;
 import org.displaytag.properties.SortOrderEnum;
 import org.displaytag.properties.TableProperties;
 import org.displaytag.render.HtmlTableWriter;
+import org.displaytag.stats.ColumnProfile;
+import org.displaytag.stats.TableStats;
+import org.displaytag.stats.TableStatsListener;
 import org.displaytag.util.CollectionUtil;
+import org.displaytag.util.CompressionUtil;
 import org.displaytag.util.DependencyChecker;
 import org.displaytag.util.Href;
+import org.displaytag.util.IntrospectionRegistry;
 import org.displaytag.util.ParamEncoder;
 import org.displaytag.util.RequestHelper;
 import org.displaytag.util.RequestHelperFactory;
@@ -78,7 +102,7 @@ import org.displaytag.util.TagConstants;
  * @author Fabrizio Giustina
  * @version $Revision: 1144 $ ($Author: fgiust $)
  */
-public class TableTag extends HtmlTableTag
+public class TableTag extends HtmlTableTag implements TryCatchFinally
 {
 
     /**
@@ -217,6 +241,21 @@ public class TableTag extends HtmlTableTag
      */
     private String varTotals;
 
+    /**
+     * Time at which the tag started, used for statistics.
+     */
+    private long startTime;
+
+    /**
+     * Time at which the iteration started, used for statistics.
+     */
+    private long iterationStartTime;
+
+    /**
+     * Statistics for the current render, null if no TableStatsListener is configured.
+     */
+    private TableStats stats;
+
     /**
      * Preserve the current page and sort.
      */
@@ -278,6 +317,16 @@ public class TableTag extends HtmlTableTag
      */
     private MediaTypeEnum currentMediaType;
 
+    /**
+     * Media type of the ExportLimiter slot held by this export, released in doFinally(). Set in initParameters().
+     */
+    private MediaTypeEnum exportSlot;
+
+    /**
+     * Has this export been rejected by the ExportLimiter? Set in initParameters().
+     */
+    private boolean exportRejected;
+
     /**
      * daAfterBody() has been executed at least once?
      */
@@ -322,6 +371,11 @@ public class TableTag extends HtmlTableTag
      */
     private PaginatedList paginatedList;
 
+    /**
+     * Reads rows from the list, if it's a <code>java.sql.ResultSet</code>.
+     */
+    private ResultSetSource resultSetSource;
+
     /**
      * Is this the last iteration?
      * @return boolean <code>true</code> if this is the last iteration
@@ -692,6 +746,11 @@ public class TableTag extends HtmlTableTag
             }
         }
 
+        if (column.isTotaled())
+        {
+            column.setFullListTotal(this.tableModel.getAggregate(column.getBeanPropertyName(), TotalTableDecorator.SUM));
+        }
+
         this.tableModel.addColumnHeader(column);
     }
 
@@ -764,7 +823,23 @@ public class TableTag extends HtmlTableTag
         this.tableModel.setId(getUid());
         this.tableModel.setForm(this.form);
 
+        this.startTime = TableStats.now();
         initParameters();
+        this.iterationStartTime = TableStats.now();
+
+        if (this.exportRejected)
+        {
+            // the list is not read, the 503 response is written before the tag body
+            try
+            {
+                writeExportRejected();
+            }
+            catch (IOException e)
+            {
+                throw new WrappedRuntimeException(getClass(), e);
+            }
+            return SKIP_BODY;
+        }
 
         this.tableModel.setMedia(this.currentMediaType);
 
@@ -914,8 +989,9 @@ public class TableTag extends HtmlTableTag
     /**
      * Reads parameters from the request and initialize all the needed table model attributes.
      * @throws FactoryInstantiationException for problems in instantiating a RequestHelperFactory
+     * @throws JspException if interrupted while waiting for an export slot
      */
-    private void initParameters() throws JspTagException, FactoryInstantiationException
+    private void initParameters() throws JspException, FactoryInstantiationException
     {
 
         if (rhf == null)
@@ -941,6 +1017,19 @@ public class TableTag extends HtmlTableTag
         {
             this.paginatedList = (PaginatedList) this.list;
             this.list = this.paginatedList.getList();
+
+            if (this.paginatedList instanceof AggregatingPaginatedList)
+            {
+                // totals are computed on the full list by the data source
+                this.tableModel.setAggregatingList((AggregatingPaginatedList) this.paginatedList);
+            }
+        }
+
+        if (this.list instanceof ResultSet)
+        {
+            // rows are read as maps while iterating, the iterator is created when the displayed rows are known
+            this.resultSetSource = new ResultSetSource((ResultSet) this.list);
+            this.tableModel.setRowAdapter(RowAdapter.MAP);
         }
 
         // set the table model to perform in memory local sorting
@@ -1039,6 +1128,17 @@ public class TableTag extends HtmlTableTag
             MediaTypeEnum.fromCode(exportTypeParameter),
             MediaTypeEnum.HTML);
 
+        if (!MediaTypeEnum.HTML.equals(this.currentMediaType))
+        {
+            // take the export slot before the list is iterated, sorted and decorated
+            if (!ExportLimiter.getInstance().acquire(this.currentMediaType))
+            {
+                this.exportRejected = true;
+                return;
+            }
+            this.exportSlot = this.currentMediaType;
+        }
+
         // if we are doing partialLists then ensure we have our size object
         if (this.partialList)
         {
@@ -1075,7 +1175,8 @@ public class TableTag extends HtmlTableTag
         ) && !partialList); // only optimize if we have the full list
 
         // can we actually skip any row?
-        if (wishOptimizedIteration && (this.list instanceof Collection) // we need to know the size
+        if (wishOptimizedIteration && (this.list instanceof Collection // we need to know the size
+            || this.resultSetSource != null && this.resultSetSource.isScrollable())
             && ((sortColumn == -1 // and we are not sorting
             || !finalSortFull // or we are sorting with the "page" behaviour
             ) && (this.currentMediaType == MediaTypeEnum.HTML // and we are not exporting
@@ -1095,7 +1196,9 @@ public class TableTag extends HtmlTableTag
 
             if (this.pagesize > 0)
             {
-                int fullSize = ((Collection) this.list).size();
+                int fullSize = (this.resultSetSource != null)
+                    ? this.resultSetSource.getSize()
+                    : ((Collection) this.list).size();
                 start = (this.pageNumber - 1) * this.pagesize;
 
                 // invalid page requested, go back to last page
@@ -1115,6 +1218,15 @@ public class TableTag extends HtmlTableTag
         {
             filteredRows = new LongRange(1, Long.MAX_VALUE);
         }
+
+        if (this.resultSetSource != null)
+        {
+            // rows which are not evaluated are not read, unless a decorator may need them
+            Range readRows = (getConfiguredDecoratorName() == null) ? (Range) filteredRows : new LongRange(
+                1,
+                Long.MAX_VALUE);
+            this.tableIterator = this.resultSetSource.iterator(readRows.getMinimumLong(), readRows.getMaximumLong());
+        }
     }
 
     /**
@@ -1233,6 +1345,12 @@ public class TableTag extends HtmlTableTag
             log.debug("[" + getUid() + "] doEndTag called");
         }
 
+        if (this.exportRejected)
+        {
+            cleanUp();
+            return SKIP_PAGE;
+        }
+
         if (!this.doAfterBodyExecuted)
         {
             if (log.isDebugEnabled())
@@ -1266,6 +1384,23 @@ public class TableTag extends HtmlTableTag
             describeEmptyTable();
         }
 
+        // read at the end, so the listener can also be set with setProperty
+        TableStatsListener statsListener = this.properties.getStatsListenerInstance();
+        if (statsListener != null)
+        {
+            this.stats = new TableStats(getUid(), this.currentMediaType);
+            this.stats.addTime(TableStats.EVALUATION, this.iterationStartTime - this.startTime);
+            this.stats.stop(TableStats.ITERATION, this.iterationStartTime);
+
+            int sampling = this.properties.getStatsProfileSampling();
+            if (sampling > 0)
+            {
+                ColumnProfile profile = new ColumnProfile(this.tableModel.getHeaderCellList(), sampling);
+                this.stats.setColumnProfile(profile);
+                this.tableModel.setColumnProfile(profile);
+            }
+        }
+
         TableDecorator tableDecorator = this.properties.getDecoratorFactoryInstance().loadTableDecorator(
             this.pageContext,
             getConfiguredDecoratorName());
@@ -1276,7 +1411,9 @@ public class TableTag extends HtmlTableTag
             this.tableModel.setTableDecorator(tableDecorator);
         }
 
+        long phaseStartTime = startTimer();
         setupViewableData();
+        stopTimer(TableStats.SETUP, phaseStartTime);
 
         // Figure out how we should sort this data, typically we just sort
         // the data being shown, but the programmer can override this behavior
@@ -1284,7 +1421,9 @@ public class TableTag extends HtmlTableTag
         {
             if (!this.tableModel.isSortFullTable())
             {
+                phaseStartTime = startTimer();
                 this.tableModel.sortPageList();
+                stopTimer(TableStats.SORT, phaseStartTime);
             }
         }
 
@@ -1297,7 +1436,9 @@ public class TableTag extends HtmlTableTag
         if (MediaTypeEnum.HTML.equals(this.currentMediaType)
             && (previousMediaType == null || MediaTypeEnum.HTML.equals(previousMediaType)))
         {
+            phaseStartTime = startTimer();
             writeHTMLData();
+            stopTimer(TableStats.RENDER, phaseStartTime);
         }
         else if (!MediaTypeEnum.HTML.equals(this.currentMediaType))
         {
@@ -1306,7 +1447,14 @@ public class TableTag extends HtmlTableTag
                 log.debug("[" + getUid() + "] doEndTag - exporting");
             }
 
+            phaseStartTime = startTimer();
             returnValue = doExport();
+            stopTimer(TableStats.EXPORT, phaseStartTime);
+        }
+
+        if (statsListener != null)
+        {
+            publishStats(statsListener);
         }
 
         // do not remove media attribute! if the table is nested in other tables this is still needed
@@ -1321,6 +1469,51 @@ public class TableTag extends HtmlTableTag
         return returnValue;
     }
 
+    /**
+     * Starts measuring the time of a phase.
+     * @return start time, 0 if no statistics are recorded
+     */
+    private long startTimer()
+    {
+        return this.stats != null ? TableStats.now() : 0;
+    }
+
+    /**
+     * Adds the time elapsed since the given start time to a phase.
+     * @param phase phase, one of the TableStats constants
+     * @param phaseStartTime value returned by startTimer()
+     */
+    private void stopTimer(int phase, long phaseStartTime)
+    {
+        if (this.stats != null)
+        {
+            this.stats.stop(phase, phaseStartTime);
+        }
+    }
+
+    /**
+     * Sends the statistics of this render to the configured listener. Errors in the listener are logged, not
+     * propagated.
+     * @param statsListener TableStatsListener
+     */
+    private void publishStats(TableStatsListener statsListener)
+    {
+        this.stats.setRows(this.tableModel.getRowListFull().size());
+        this.stats.setColumns(this.tableModel.getNumberOfColumns());
+        if (this.stats.getColumnProfile() != null && log.isDebugEnabled())
+        {
+            log.debug("[" + getUid() + "] column profile, " + this.stats.getColumnProfile()); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        try
+        {
+            statsListener.tableRendered(this.stats);
+        }
+        catch (RuntimeException e)
+        {
+            log.warn("[" + getUid() + "] error in TableStatsListener: " + e.getMessage(), e); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
     /**
      * Returns the name of the table decorator that should be applied to this table, which is either the decorator
      * configured in the property "decorator", or if none is configured in said property, a decorator configured with
@@ -1343,6 +1536,7 @@ public class TableTag extends HtmlTableTag
     {
         // reset instance variables (non attributes)
         this.currentMediaType = null;
+        this.exportRejected = false;
         this.baseHref = null;
         this.caption = null;
         this.captionTag = null;
@@ -1358,46 +1552,52 @@ public class TableTag extends HtmlTableTag
         this.tableModel = null;
         this.list = null;
         this.paginatedList = null;
+        this.resultSetSource = null;
+        this.stats = null;
     }
 
     /**
      * If no columns are provided, automatically add them from bean properties. Get the first object in the list and get
      * all the properties (except the "class" property which is automatically skipped). Of course this isn't possible
-     * for empty lists.
+     * for empty lists. Bean properties are introspected once for each class, property values are not read. For result
+     * sets columns are added from the metadata.
      */
     private void describeEmptyTable()
     {
-        this.tableIterator = IteratorUtils.getIterator(this.list);
-
-        if (this.tableIterator.hasNext())
+        Collection propertyNames = null;
+        if (this.resultSetSource != null)
         {
-            Object iteratedObject = this.tableIterator.next();
-            Map objectProperties = new HashMap();
-
-            // if it's a String don't add the "Bytes" column
-            if (iteratedObject instanceof String)
-            {
-                return;
-            }
-            // if it's a map already use key names for column headers
-            if (iteratedObject instanceof Map)
-            {
-                objectProperties = (Map) iteratedObject;
-            }
-            else
+            propertyNames = Arrays.asList(this.resultSetSource.getColumnNames());
+        }
+        else
+        {
+            this.tableIterator = IteratorUtils.getIterator(this.list);
+            if (this.tableIterator.hasNext())
             {
-                try
+                Object iteratedObject = this.tableIterator.next();
+
+                // if it's a String don't add the "Bytes" column
+                if (iteratedObject instanceof String)
                 {
-                    objectProperties = BeanUtils.describe(iteratedObject);
+                    return;
                 }
-                catch (Exception e)
+
+                // if it's a map already use key names for column headers
+                if (iteratedObject instanceof Map)
                 {
-                    log.warn("Unable to automatically add columns: " + e.getMessage(), e);
+                    propertyNames = ((Map) iteratedObject).keySet();
+                }
+                else
+                {
+                    propertyNames = Arrays.asList(IntrospectionRegistry.getPropertyNames(iteratedObject));
                 }
             }
+        }
 
+        if (propertyNames != null)
+        {
             // iterator on properties names
-            Iterator propertiesIterator = objectProperties.keySet().iterator();
+            Iterator propertiesIterator = propertyNames.iterator();
 
             while (propertiesIterator.hasNext())
             {
@@ -1451,25 +1651,353 @@ public class TableTag extends HtmlTableTag
 
         try
         {
-            writeExport(exportView);
+            if (this.properties.getExportCache())
+            {
+                writeCachedExport(exportView);
+            }
+            else if (!this.properties.getExportBackground() || !writeExportJob(exportView))
+            {
+                writeExport(exportView);
+            }
+        }
+        catch (ExportCancelledException e)
+        {
+            // the client has gone away, nobody will receive the remaining rows
+            log.debug("[" + getUid() + "] " + e.getMessage());
+            this.tableModel.cancel();
         }
         catch (IOException e)
         {
-            throw new WrappedRuntimeException(getClass(), e);
+            this.tableModel.cancel();
+            if (!this.pageContext.getResponse().isCommitted())
+            {
+                throw new WrappedRuntimeException(getClass(), e);
+            }
+            // content has already been sent, the client has gone away while reading a binary export
+            log.debug("[" + getUid() + "] export aborted: " + e.getMessage());
+        }
+        finally
+        {
+            releaseExportSlot();
+            if (this.tableModel.isCancelled())
+            {
+                cancelDataSource();
+            }
         }
 
         return SKIP_PAGE;
     }
 
+    /**
+     * Has this table a table decorator or any column decorator?
+     * @return <code>true</code> if values are decorated
+     */
+    private boolean isDecorated()
+    {
+        if (this.tableModel.getTableDecorator() != null)
+        {
+            return true;
+        }
+        Iterator headers = this.tableModel.getHeaderCellList().iterator();
+        while (headers.hasNext())
+        {
+            if (((HeaderCell) headers.next()).getColumnDecorators().length > 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Releases the ExportLimiter slot taken in initParameters(), if still held.
+     */
+    private void releaseExportSlot()
+    {
+        if (this.exportSlot != null)
+        {
+            ExportLimiter.getInstance().release(this.exportSlot);
+            this.exportSlot = null;
+        }
+    }
+
+    /**
+     * Answers an export rejected by the ExportLimiter with a 503 (Service Unavailable) status code, a
+     * <code>Retry-After</code> header and a plain text message.
+     * @throws JspException for problem in clearing the response
+     * @throws IOException exception thrown when writing to the response
+     */
+    protected void writeExportRejected() throws IOException, JspException
+    {
+        HttpServletResponse response = (HttpServletResponse) this.pageContext.getResponse();
+        HttpServletRequest request = (HttpServletRequest) this.pageContext.getRequest();
+        String message = Messages.getString("ExportLimiter.busy"); //$NON-NLS-1$
+
+        Map bean = (Map) request.getAttribute(FILTER_CONTENT_OVERRIDE_BODY);
+        boolean usingFilter = bean != null;
+
+        if (usingFilter && bean.containsKey(TableTagParameters.BEAN_BUFFER))
+        {
+            bean.put(TableTagParameters.BEAN_STATUS, new Integer(HttpServletResponse.SC_SERVICE_UNAVAILABLE));
+            bean.put(TableTagParameters.BEAN_CONTENTTYPE, "text/plain"); //$NON-NLS-1$
+            bean.put(TableTagParameters.BEAN_BODY, message);
+            return;
+        }
+
+        if (usingFilter)
+        {
+            response.addHeader(TableTagParameters.PARAMETER_EXPORTING, TagConstants.EMPTY_STRING);
+        }
+        else
+        {
+            if (response.isCommitted())
+            {
+                throw new ExportException(getClass());
+            }
+
+            try
+            {
+                response.reset();
+                pageContext.getOut().clearBuffer();
+            }
+            catch (Exception e)
+            {
+                throw new ExportException(getClass());
+            }
+        }
+
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", ExportLimiter.RETRY_AFTER); //$NON-NLS-1$
+        response.setContentType("text/plain"); //$NON-NLS-1$
+
+        Writer writer = getResponseWriter(usingFilter);
+        writer.write(message);
+    }
+
+    /**
+     * Returns the writer for text content written to the response: the response writer if the export filter is used,
+     * else the JspWriter. Both are wrapped in a ResponseWriter, so a client which has gone away stops the export
+     * quietly instead of failing the request.
+     * @param usingFilter is the export filter used, in unbuffered mode?
+     * @return ResponseWriter
+     * @throws IOException exception thrown when getting the response writer
+     */
+    private Writer getResponseWriter(boolean usingFilter) throws IOException
+    {
+        ServletResponse response = this.pageContext.getResponse();
+        return new ResponseWriter(usingFilter ? (Writer) response.getWriter() : this.pageContext.getOut(), response);
+    }
+
+    /**
+     * Releases the list backing this table, if it implements <code>Cancellable</code>. Called when an export has been
+     * cancelled.
+     */
+    private void cancelDataSource()
+    {
+        Object source = this.paginatedList != null ? (Object) this.paginatedList : this.list;
+        if (this.paginatedList == null && this.resultSetSource != null)
+        {
+            source = this.resultSetSource;
+        }
+        if (source instanceof Cancellable)
+        {
+            log.debug("[" + getUid() + "] releasing cancelled data source");
+            ((Cancellable) source).cancel();
+        }
+    }
+
+    /**
+     * Writes the export from the ExportCache, generating it only if not already cached. If the same export is being
+     * generated by another request, waits for it up to <code>export.cache.timeout</code> seconds. A generated export
+     * is written to the response as usual, and cached while written.
+     * @param exportView export view, used only if the export is not cached
+     * @throws JspException for problem in clearing the response or for invalid export views
+     * @throws IOException exception thrown when writing content to the response
+     */
+    protected void writeCachedExport(ExportView exportView) throws IOException, JspException
+    {
+        ExportCache cache = ExportCache.getInstance();
+        String key = getExportCacheKey();
+
+        ExportView cachedView = cache.acquire(key);
+        if (cachedView == null)
+        {
+            // streamed to the response as usual, and cached while written
+            cachedView = cache.store(key, exportView);
+        }
+
+        try
+        {
+            writeExport(cachedView);
+        }
+        finally
+        {
+            // if the view has not been written
+            cache.release(key);
+        }
+    }
+
+    /**
+     * Returns the key used for caching the export of this table. The key contains the request uri, the table uid, the
+     * media type, the locale, the optional data version token and all the request parameters (sorting, paging and any
+     * other parameter which could affect the list).
+     * @return cache key
+     */
+    private String getExportCacheKey()
+    {
+        HttpServletRequest request = (HttpServletRequest) this.pageContext.getRequest();
+
+        StringBuffer key = new StringBuffer(request.getRequestURI());
+        key.append('|').append(getUid());
+        key.append('|').append(this.currentMediaType.getName());
+        key.append('|').append(this.properties.getLocale());
+        key.append('|').append(this.properties.getExportCacheVersion());
+
+        // sorted, parameter order doesn't matter
+        Iterator iterator = new TreeMap(request.getParameterMap()).entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry parameter = (Map.Entry) iterator.next();
+            key.append('|').append(parameter.getKey()).append('=');
+            key.append(ArrayUtils.toString(parameter.getValue()));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Hands the export to the ExportJobManager, which will write it to file in background. The response only contains
+     * the job id, as plain text, with a 202 status code and a <code>Location</code> header pointing to the
+     * ExportJobServlet if <code>export.background.url</code> is set. If the ResponseOverrideFilter is configured in
+     * buffered mode the job id, status code and location are written to the filter Map. The job works on a snapshot
+     * of the exported rows, since the list, the page context and the request are gone when it runs; tables with
+     * decorators, which may need them, are always exported immediately.
+     * @param exportView export view
+     * @return <code>false</code> if the table is decorated or the export queue is full, and the export should be
+     * written immediately
+     * @throws JspException for problem in clearing the response or in reading the exported rows
+     * @throws IOException exception thrown when creating the export file or writing to the response
+     */
+    protected boolean writeExportJob(ExportView exportView) throws IOException, JspException
+    {
+        if (!(exportView instanceof TextExportView) && !(exportView instanceof BinaryExportView))
+        {
+            // let writeExport() complain
+            return false;
+        }
+
+        if (isDecorated())
+        {
+            log.debug("[" + getUid() + "] decorated table, background export disabled"); //$NON-NLS-1$ //$NON-NLS-2$
+            return false;
+        }
+
+        boolean exportFullList = this.properties.getExportFullList();
+        ExportView jobView = ExportViewFactory.getInstance().getView(
+            this.currentMediaType,
+            this.tableModel.snapshot(exportFullList),
+            exportFullList,
+            this.properties.getExportHeader(this.currentMediaType),
+            this.properties.getExportDecorated());
+
+        HttpServletResponse response = (HttpServletResponse) this.pageContext.getResponse();
+        HttpServletRequest request = (HttpServletRequest) this.pageContext.getRequest();
+
+        String characterEncoding = response.getCharacterEncoding();
+        if (characterEncoding == null)
+        {
+            characterEncoding = "ISO-8859-1"; //$NON-NLS-1$
+        }
+
+        String mimeType = jobView.getMimeType();
+        if (jobView instanceof TextExportView && mimeType.indexOf("charset") == -1) //$NON-NLS-1$
+        {
+            mimeType += "; charset=" + characterEncoding; //$NON-NLS-1$
+        }
+
+        ExportJob job = ExportJobManager.getInstance().submit(
+            jobView,
+            mimeType,
+            this.properties.getExportFileName(this.currentMediaType),
+            characterEncoding);
+
+        if (job == null)
+        {
+            return false;
+        }
+
+        String location = null;
+        String url = this.properties.getExportBackgroundUrl();
+        if (StringUtils.isNotEmpty(url))
+        {
+            if (url.startsWith("/")) //$NON-NLS-1$
+            {
+                url = request.getContextPath() + url;
+            }
+            url += (url.indexOf('?') == -1 ? '?' : '&') + ExportJobServlet.PARAMETER_ID + "=" + job.getId(); //$NON-NLS-1$
+            location = response.encodeURL(url);
+        }
+
+        Map bean = (Map) request.getAttribute(FILTER_CONTENT_OVERRIDE_BODY);
+        boolean usingFilter = bean != null;
+
+        if (usingFilter && bean.containsKey(TableTagParameters.BEAN_BUFFER))
+        {
+            bean.put(TableTagParameters.BEAN_STATUS, new Integer(HttpServletResponse.SC_ACCEPTED));
+            if (location != null)
+            {
+                bean.put(TableTagParameters.BEAN_LOCATION, location);
+            }
+            bean.put(TableTagParameters.BEAN_CONTENTTYPE, "text/plain"); //$NON-NLS-1$
+            bean.put(TableTagParameters.BEAN_BODY, job.getId());
+            return true;
+        }
+
+        if (usingFilter)
+        {
+            response.addHeader(TableTagParameters.PARAMETER_EXPORTING, TagConstants.EMPTY_STRING);
+        }
+        else
+        {
+            if (response.isCommitted())
+            {
+                throw new ExportException(getClass());
+            }
+
+            try
+            {
+                response.reset();
+                pageContext.getOut().clearBuffer();
+            }
+            catch (Exception e)
+            {
+                throw new ExportException(getClass());
+            }
+        }
+
+        response.setStatus(HttpServletResponse.SC_ACCEPTED);
+        response.setContentType("text/plain"); //$NON-NLS-1$
+        if (location != null)
+        {
+            response.setHeader("Location", location); //$NON-NLS-1$
+        }
+
+        Writer writer = getResponseWriter(usingFilter);
+        writer.write(job.getId());
+
+        return true;
+    }
+
     /**
      * Will write the export. The default behavior is to write directly to the response. If the ResponseOverrideFilter
      * is configured for this request, will instead write the exported content to a map in the Request object.
-     * @param exportView export view
+     * @param view export view
      * @throws JspException for problem in clearing the response or for invalid export views
      * @throws IOException exception thrown when writing content to the response
      */
-    protected void writeExport(ExportView exportView) throws IOException, JspException
+    protected void writeExport(ExportView view) throws IOException, JspException
     {
+        ExportView exportView = this.stats != null ? this.stats.countSize(view) : view;
+
         String filename = properties.getExportFileName(this.currentMediaType);
 
         HttpServletResponse response = (HttpServletResponse) this.pageContext.getResponse();
@@ -1482,6 +2010,15 @@ public class TableTag extends HtmlTableTag
         // original encoding, be sure to add it back after reset()
         String characterEncoding = response.getCharacterEncoding();
 
+        String configuredCompression = this.properties.getExportCompression(this.currentMediaType);
+        String compression = CompressionUtil.getCompression(configuredCompression, request);
+        boolean vary = CompressionUtil.isNegotiated(configuredCompression);
+        if (CompressionUtil.ZIP.equals(compression) && StringUtils.isEmpty(filename))
+        {
+            // also used as the name of the zipped file
+            filename = "export." + this.currentMediaType.getName(); //$NON-NLS-1$
+        }
+
         if (usingFilter)
         {
             if (!bean.containsKey(TableTagParameters.BEAN_BUFFER))
@@ -1495,6 +2032,14 @@ public class TableTag extends HtmlTableTag
                 // We are running under the export filter in buffered mode
                 bean.put(TableTagParameters.BEAN_CONTENTTYPE, mimeType);
                 bean.put(TableTagParameters.BEAN_FILENAME, filename);
+                if (compression != null)
+                {
+                    bean.put(TableTagParameters.BEAN_COMPRESSION, compression);
+                }
+                if (vary)
+                {
+                    bean.put(TableTagParameters.BEAN_VARY, Boolean.TRUE);
+                }
 
                 if (exportView instanceof TextExportView)
                 {
@@ -1546,25 +2091,44 @@ public class TableTag extends HtmlTableTag
 
         response.setContentType(mimeType);
 
-        if (StringUtils.isNotEmpty(filename))
+        if (vary)
+        {
+            CompressionUtil.addVaryHeader(response);
+        }
+
+        String responseFilename = filename;
+        if (compression != null)
+        {
+            responseFilename = CompressionUtil.setHeaders(response, compression, filename);
+        }
+
+        if (StringUtils.isNotEmpty(responseFilename))
         {
             response.setHeader("Content-Disposition", //$NON-NLS-1$
-                "attachment; filename=\"" + filename + "\""); //$NON-NLS-1$ //$NON-NLS-2$
+                "attachment; filename=\"" + responseFilename + "\""); //$NON-NLS-1$ //$NON-NLS-2$
         }
 
-        if (exportView instanceof TextExportView)
+        if (compression != null
+            && (exportView instanceof TextExportView || exportView instanceof BinaryExportView))
         {
-            Writer writer;
-            if (usingFilter)
+            // compressed content is always written to the output stream, with no content length
+            DeflaterOutputStream out = CompressionUtil.wrap(response.getOutputStream(), compression, filename);
+            if (exportView instanceof TextExportView)
             {
-                writer = response.getWriter();
+                String encoding = response.getCharacterEncoding();
+                Writer writer = new OutputStreamWriter(out, encoding != null ? encoding : "ISO-8859-1"); //$NON-NLS-1$
+                ((TextExportView) exportView).doExport(writer);
+                writer.flush();
             }
             else
             {
-                writer = pageContext.getOut();
+                ((BinaryExportView) exportView).doExport(out);
             }
-
-            ((TextExportView) exportView).doExport(writer);
+            out.finish();
+        }
+        else if (exportView instanceof TextExportView)
+        {
+            ((TextExportView) exportView).doExport(getResponseWriter(usingFilter));
         }
         else if (exportView instanceof BinaryExportView)
         {
@@ -1601,7 +2165,9 @@ public class TableTag extends HtmlTableTag
             if (this.tableModel.isSortFullTable())
             {
                 // Sort the total list...
+                long sortStartTime = startTimer();
                 this.tableModel.sortFullList();
+                stopTimer(TableStats.SORT, sortStartTime);
             }
         }
 
@@ -1644,7 +2210,7 @@ public class TableTag extends HtmlTableTag
             this.addClass(css);
         }
         // use HtmlTableWriter to write table
-        new HtmlTableWriter(
+        HtmlTableWriter tableWriter = new HtmlTableWriter(
             this.tableModel,
             this.properties,
             this.baseHref,
@@ -1655,7 +2221,13 @@ public class TableTag extends HtmlTableTag
             this.listHelper,
             this.pagesize,
             getAttributeMap(),
-            this.uid).writeTable(this.tableModel, this.getUid());
+            this.uid);
+        tableWriter.writeTable(this.tableModel, this.getUid());
+
+        if (this.stats != null)
+        {
+            this.stats.addSize(tableWriter.getSize());
+        }
 
         if (this.varTotals != null)
         {
@@ -1706,6 +2278,24 @@ public class TableTag extends HtmlTableTag
         this.properties.setProperty(propertyName, propertyValue);
     }
 
+    /**
+     * @see javax.servlet.jsp.tagext.TryCatchFinally#doCatch(java.lang.Throwable)
+     */
+    public void doCatch(Throwable t) throws Throwable
+    {
+        throw t;
+    }
+
+    /**
+     * Releases the export slot if the tag body or the export failed before doEndTag() completed.
+     * @see javax.servlet.jsp.tagext.TryCatchFinally#doFinally()
+     */
+    public void doFinally()
+    {
+        releaseExportSlot();
+        this.exportRejected = false;
+    }
+
     /**
      * @see javax.servlet.jsp.tagext.Tag#release()
      */
@@ -1716,6 +2306,7 @@ public class TableTag extends HtmlTableTag
             log.debug("[" + getUid() + "] release() called");
         }
 
+        releaseExportSlot();
         super.release();
 
         // tag attributes
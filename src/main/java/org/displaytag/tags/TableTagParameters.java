@@ -90,6 +90,27 @@ public final class TableTagParameters
      */
     public static final String BEAN_BODY = "body";
 
+    /**
+     * Key on the map passed to the filter containg the compression to apply, if any.
+     */
+    public static final String BEAN_COMPRESSION = "compression";
+
+    /**
+     * Key on the map passed to the filter containg Boolean.TRUE if the response must vary on
+     * <code>Accept-Encoding</code>, also when no compression is applied.
+     */
+    public static final String BEAN_VARY = "vary";
+
+    /**
+     * Key on the map passed to the filter containg the status code (an Integer) to send instead of 200, if any.
+     */
+    public static final String BEAN_STATUS = "status";
+
+    /**
+     * Key on the map passed to the filter containg the value of the <code>Location</code> header, if any.
+     */
+    public static final String BEAN_LOCATION = "location";
+
     /**
      * utility class - don't instantiate.
      */
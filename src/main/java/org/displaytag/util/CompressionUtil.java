@@ -0,0 +1,289 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.StringTokenizer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang.StringUtils;
+
+
+/**
+ * Compression of exported content, configured for each media with the <code>export.</code><em>[media]</em>
+ * <code>.compress</code> property:
+ * <ul>
+ * <li><code>gzip</code>: the export is sent with <code>Content-Encoding: gzip</code>, only if accepted by the client</li>
+ * <li><code>deflate</code>: the export is sent with <code>Content-Encoding: deflate</code> (zlib format), only if
+ * accepted by the client</li>
+ * <li><code>zip</code>: the export is always packaged in a zip archive</li>
+ * <li><code>none</code> (default): the export is sent as is</li>
+ * </ul>
+ * @version $Revision$ ($Author$)
+ */
+public final class CompressionUtil
+{
+
+    /**
+     * gzip content encoding.
+     */
+    public static final String GZIP = "gzip"; //$NON-NLS-1$
+
+    /**
+     * deflate content encoding.
+     */
+    public static final String DEFLATE = "deflate"; //$NON-NLS-1$
+
+    /**
+     * zip packaging.
+     */
+    public static final String ZIP = "zip"; //$NON-NLS-1$
+
+    /**
+     * Content type for zip archives.
+     */
+    public static final String ZIP_CONTENT_TYPE = "application/zip"; //$NON-NLS-1$
+
+    /**
+     * Size of the deflater buffer.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Don't instantiate CompressionUtil.
+     */
+    private CompressionUtil()
+    {
+    }
+
+    /**
+     * Returns the compression to apply to a response.
+     * @param configured value of the <code>compress</code> property for the exported media
+     * @param request HttpServletRequest, checked for the <code>Accept-Encoding</code> header
+     * @return <code>GZIP</code>, <code>DEFLATE</code>, <code>ZIP</code> or <code>null</code> if the content should not
+     * be compressed
+     */
+    public static String getCompression(String configured, HttpServletRequest request)
+    {
+        if (ZIP.equalsIgnoreCase(configured))
+        {
+            return ZIP;
+        }
+        if (GZIP.equalsIgnoreCase(configured) && acceptsGzip(request.getHeader("Accept-Encoding"))) //$NON-NLS-1$
+        {
+            return GZIP;
+        }
+        if (DEFLATE.equalsIgnoreCase(configured) && acceptsDeflate(request.getHeader("Accept-Encoding"))) //$NON-NLS-1$
+        {
+            return DEFLATE;
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the content sent for the given <code>compress</code> property depends on the
+     * <code>Accept-Encoding</code> request header. Such responses, compressed or not, must be sent with a
+     * <code>Vary: Accept-Encoding</code> header so that caches don't serve compressed content to other clients.
+     * @param configured value of the <code>compress</code> property for the exported media
+     * @return <code>true</code> if <code>addVaryHeader()</code> must be called
+     */
+    public static boolean isNegotiated(String configured)
+    {
+        return GZIP.equalsIgnoreCase(configured) || DEFLATE.equalsIgnoreCase(configured);
+    }
+
+    /**
+     * Adds the <code>Vary: Accept-Encoding</code> header to a response whose encoding has been negotiated.
+     * @param response HttpServletResponse
+     */
+    public static void addVaryHeader(HttpServletResponse response)
+    {
+        response.addHeader("Vary", "Accept-Encoding"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Checks if gzip is an acceptable encoding, according to the given <code>Accept-Encoding</code> header. All the
+     * listed codings are evaluated: an explicit <code>gzip</code> (or <code>x-gzip</code>) coding takes precedence
+     * over <code>*</code>, and a quality value of 0 means "not acceptable".
+     * @param acceptEncoding value of the <code>Accept-Encoding</code> header, can be null
+     * @return <code>true</code> if the content can be sent gzipped
+     */
+    public static boolean acceptsGzip(String acceptEncoding)
+    {
+        return accepts(acceptEncoding, GZIP, "x-gzip"); //$NON-NLS-1$
+    }
+
+    /**
+     * Checks if deflate is an acceptable encoding, according to the given <code>Accept-Encoding</code> header. The
+     * header is evaluated as in <code>acceptsGzip()</code>.
+     * @param acceptEncoding value of the <code>Accept-Encoding</code> header, can be null
+     * @return <code>true</code> if the content can be sent deflated
+     */
+    public static boolean acceptsDeflate(String acceptEncoding)
+    {
+        return accepts(acceptEncoding, DEFLATE, DEFLATE);
+    }
+
+    /**
+     * Checks if a coding is acceptable, according to the given <code>Accept-Encoding</code> header.
+     * @param acceptEncoding value of the <code>Accept-Encoding</code> header, can be null
+     * @param coding name of the coding
+     * @param alias alternative name of the coding
+     * @return <code>true</code> if the coding is acceptable
+     */
+    private static boolean accepts(String acceptEncoding, String coding, String alias)
+    {
+        if (acceptEncoding == null)
+        {
+            return false;
+        }
+
+        // -1 if not listed
+        float codingQuality = -1;
+        float anyQuality = -1;
+
+        StringTokenizer tokenizer = new StringTokenizer(acceptEncoding, ","); //$NON-NLS-1$
+        while (tokenizer.hasMoreTokens())
+        {
+            String token = tokenizer.nextToken();
+            String listed = StringUtils.substringBefore(token, ";").trim(); //$NON-NLS-1$
+            if (coding.equalsIgnoreCase(listed) || alias.equalsIgnoreCase(listed))
+            {
+                codingQuality = Math.max(codingQuality, getQuality(token));
+            }
+            else if ("*".equals(listed)) //$NON-NLS-1$
+            {
+                anyQuality = Math.max(anyQuality, getQuality(token));
+            }
+        }
+
+        if (codingQuality >= 0)
+        {
+            return codingQuality > 0;
+        }
+        return anyQuality > 0;
+    }
+
+    /**
+     * Returns the quality value of a coding in the <code>Accept-Encoding</code> header.
+     * @param token coding with its parameters, for example <code>gzip;q=0.5</code>
+     * @return quality value, 1 if not specified or invalid
+     */
+    private static float getQuality(String token)
+    {
+        StringTokenizer tokenizer = new StringTokenizer(token, ";"); //$NON-NLS-1$
+        // skip the coding
+        tokenizer.nextToken();
+        while (tokenizer.hasMoreTokens())
+        {
+            String parameter = tokenizer.nextToken().trim();
+            if (parameter.length() > 2 && parameter.regionMatches(true, 0, "q=", 0, 2)) //$NON-NLS-1$
+            {
+                try
+                {
+                    return Float.parseFloat(parameter.substring(2).trim());
+                }
+                catch (NumberFormatException e)
+                {
+                    return 1;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Returns the name of the zip archive for an export.
+     * @param filename export file name, also used for the zipped file
+     * @return zip file name
+     */
+    public static String getZipFilename(String filename)
+    {
+        String name = filename;
+        if (name.lastIndexOf('.') > 0)
+        {
+            name = name.substring(0, name.lastIndexOf('.'));
+        }
+        return name + ".zip"; //$NON-NLS-1$
+    }
+
+    /**
+     * Sets the response headers for compressed content. For zip archives the content type is changed and the returned
+     * file name must be used in the <code>Content-Disposition</code> header.
+     * @param response HttpServletResponse
+     * @param compression <code>GZIP</code>, <code>DEFLATE</code> or <code>ZIP</code>
+     * @param filename export file name, can be empty only for gzip and deflate
+     * @return file name to send to the client
+     */
+    public static String setHeaders(HttpServletResponse response, String compression, String filename)
+    {
+        if (ZIP.equals(compression))
+        {
+            response.setContentType(ZIP_CONTENT_TYPE);
+            return getZipFilename(filename);
+        }
+        // Vary is added by the caller, also when gzip is not accepted
+        response.setHeader("Content-Encoding", compression); //$NON-NLS-1$
+        return filename;
+    }
+
+    /**
+     * Wraps an output stream, compressing all the content written. <code>finish()</code> must be called when done.
+     * @param out output stream
+     * @param compression <code>GZIP</code>, <code>DEFLATE</code> or <code>ZIP</code>
+     * @param entryName name of the zipped file
+     * @return compressing output stream
+     * @throws IOException exception thrown while writing the zip entry header
+     */
+    public static DeflaterOutputStream wrap(OutputStream out, String compression, String entryName)
+        throws IOException
+    {
+        if (ZIP.equals(compression))
+        {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            zip.putNextEntry(new ZipEntry(entryName));
+            return zip;
+        }
+        if (DEFLATE.equals(compression))
+        {
+            return new DeflaterOutputStream(out, new Deflater(), BUFFER_SIZE);
+        }
+        return new GZIPOutputStream(out, BUFFER_SIZE);
+    }
+
+    /**
+     * Compresses the given content.
+     * @param content uncompressed content
+     * @param compression <code>GZIP</code>, <code>DEFLATE</code> or <code>ZIP</code>
+     * @param entryName name of the zipped file
+     * @return compressed content
+     * @throws IOException never thrown
+     */
+    public static byte[] compress(byte[] content, String compression, String entryName) throws IOException
+    {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4 + 64);
+        DeflaterOutputStream out = wrap(buffer, compression, entryName);
+        out.write(content);
+        out.finish();
+        return buffer.toByteArray();
+    }
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Cache for metadata which is computed once and then read on every render, like the getters of a decorator class or
+ * the properties for a locale. The content is an immutable map, replaced by a copy on each change: reads don't lock
+ * and don't allocate, so they can be done from many threads without contention, while writes are serialized and
+ * expected to be rare.
+ * @version $Revision$ ($Author$)
+ */
+public final class CopyOnWriteCache
+{
+
+    /**
+     * Current content, never modified after being published.
+     */
+    private volatile Map map = new HashMap();
+
+    /**
+     * Returns a cached value.
+     * @param key key
+     * @return cached value, <code>null</code> if not cached
+     */
+    public Object get(Object key)
+    {
+        return this.map.get(key);
+    }
+
+    /**
+     * Caches a value, unless another thread has already cached a value for the same key.
+     * @param key key
+     * @param value value, not null
+     * @return the value in cache, which should be used instead of the given one
+     */
+    public synchronized Object putIfAbsent(Object key, Object value)
+    {
+        Object cached = this.map.get(key);
+        if (cached != null)
+        {
+            return cached;
+        }
+
+        Map copy = new HashMap(this.map);
+        copy.put(key, value);
+        this.map = copy;
+        return value;
+    }
+
+    /**
+     * Caches a value, replacing the one already cached for the same key.
+     * @param key key
+     * @param value value, not null
+     */
+    public synchronized void put(Object key, Object value)
+    {
+        Map copy = new HashMap(this.map);
+        copy.put(key, value);
+        this.map = copy;
+    }
+
+    /**
+     * Returns the number of cached values.
+     * @return number of cached values
+     */
+    public int size()
+    {
+        return this.map.size();
+    }
+
+    /**
+     * Removes all the cached values.
+     */
+    public synchronized void clear()
+    {
+        this.map = new HashMap();
+    }
+
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.util;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.beanutils.DynaProperty;
+import org.apache.commons.beanutils.MethodUtils;
+import org.apache.commons.beanutils.PropertyUtils;
+
+
+/**
+ * Readable properties of the beans displayed in tables, introspected once for each class: property names are used to
+ * add columns to tables without columns, read methods are invoked for each cell. Dynabeans are not introspected, their
+ * properties are read from the dyna class. The registry is cleared by <code>TableProperties.clearProperties()</code>.
+ * @version $Revision$ ($Author$)
+ */
+public final class IntrospectionRegistry
+{
+
+    /**
+     * Map containing bean class - BeanInfo.
+     */
+    private static CopyOnWriteCache registry = new CopyOnWriteCache();
+
+    /**
+     * Don't instantiate IntrospectionRegistry.
+     */
+    private IntrospectionRegistry()
+    {
+    }
+
+    /**
+     * Returns the names of the readable properties of a bean, except the <code>class</code> property.
+     * @param bean javabean or DynaBean
+     * @return property names, sorted by name for javabeans and in the dyna class order for DynaBeans
+     */
+    public static String[] getPropertyNames(Object bean)
+    {
+        if (bean instanceof DynaBean)
+        {
+            DynaProperty[] dynaProperties = ((DynaBean) bean).getDynaClass().getDynaProperties();
+            String[] names = new String[dynaProperties.length];
+            for (int j = 0; j < dynaProperties.length; j++)
+            {
+                names[j] = dynaProperties[j].getName();
+            }
+            return names;
+        }
+        return (String[]) getBeanInfo(bean.getClass()).names.clone();
+    }
+
+    /**
+     * Returns the read method for a simple (not nested, indexed or mapped) property.
+     * @param bean javabean
+     * @param propertyName property name
+     * @return accessible read method, <code>null</code> for DynaBeans and for properties without a public getter
+     */
+    public static Method getReadMethod(Object bean, String propertyName)
+    {
+        if (bean instanceof DynaBean)
+        {
+            return null;
+        }
+        return (Method) getBeanInfo(bean.getClass()).readMethods.get(propertyName);
+    }
+
+    /**
+     * Removes all the introspected classes.
+     */
+    public static void clear()
+    {
+        registry.clear();
+    }
+
+    /**
+     * Returns the properties of a class, introspecting it if needed.
+     * @param beanClass bean class
+     * @return BeanInfo
+     */
+    private static BeanInfo getBeanInfo(Class beanClass)
+    {
+        BeanInfo info = (BeanInfo) registry.get(beanClass);
+        if (info == null)
+        {
+            info = (BeanInfo) registry.putIfAbsent(beanClass, new BeanInfo(beanClass));
+        }
+        return info;
+    }
+
+    /**
+     * Readable properties of a class.
+     */
+    private static final class BeanInfo
+    {
+
+        /**
+         * Property names, sorted.
+         */
+        final String[] names;
+
+        /**
+         * Map containing property name - read method, never modified after construction.
+         */
+        final Map readMethods = new HashMap();
+
+        /**
+         * Introspects a class.
+         * @param beanClass bean class
+         */
+        BeanInfo(Class beanClass)
+        {
+            // descriptors are sorted by name by the java.beans.Introspector
+            PropertyDescriptor[] descriptors = PropertyUtils.getPropertyDescriptors(beanClass);
+            List readable = new ArrayList(descriptors.length);
+            for (int j = 0; j < descriptors.length; j++)
+            {
+                // same lookup done by PropertyUtils.getSimpleProperty(), handles public methods of non-public classes
+                Method readMethod = MethodUtils.getAccessibleMethod(descriptors[j].getReadMethod());
+                if (readMethod != null)
+                {
+                    this.readMethods.put(descriptors[j].getName(), readMethod);
+                    if (!"class".equals(descriptors[j].getName())) //$NON-NLS-1$
+                    {
+                        readable.add(descriptors[j].getName());
+                    }
+                }
+            }
+            this.names = (String[]) readable.toArray(new String[readable.size()]);
+        }
+    }
+
+}
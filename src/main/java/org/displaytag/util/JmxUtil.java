@@ -0,0 +1,205 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.util;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+
+/**
+ * Registers displaytag MBeans in the platform MBean server, in the <code>org.displaytag</code> domain. The JMX api is
+ * accessed by reflection, since displaytag can run on jvms without it: registration is then silently skipped. Names of
+ * the registered MBeans are kept so that <code>unregisterAll()</code>, called by DisplaytagShutdownListener, can
+ * release them when the application is stopped.
+ * @version $Revision$ ($Author$)
+ */
+public final class JmxUtil
+{
+
+    /**
+     * Domain of the registered MBeans.
+     */
+    public static final String DOMAIN = "org.displaytag"; //$NON-NLS-1$
+
+    /**
+     * logger.
+     */
+    private static Log log = LogFactory.getLog(JmxUtil.class);
+
+    /**
+     * Names (String) of the MBeans registered by displaytag.
+     */
+    private static Set registered = new HashSet();
+
+    /**
+     * Don't instantiate JmxUtil.
+     */
+    private JmxUtil()
+    {
+        // unused
+    }
+
+    /**
+     * Quotes a value for use in an object name, as <code>ObjectName.quote()</code>.
+     * @param value property value
+     * @return quoted value, or the original value if JMX is not available
+     */
+    public static String quote(String value)
+    {
+        try
+        {
+            return (String) getObjectNameClass()
+                .getMethod("quote", new Class[]{String.class}).invoke(null, new Object[]{value}); //$NON-NLS-1$
+        }
+        catch (Exception e)
+        {
+            return value;
+        }
+    }
+
+    /**
+     * Registers an MBean in the platform MBean server.
+     * @param properties key properties of the object name, such as <code>type=ExportLimiter</code>
+     * @param mbean MBean
+     * @return <code>true</code> if the MBean has been registered
+     */
+    public static boolean register(String properties, Object mbean)
+    {
+        String name = DOMAIN + ":" + properties; //$NON-NLS-1$
+        try
+        {
+            getServerMethod("registerMBean", new Class[]{Object.class, getObjectNameClass()}).invoke( //$NON-NLS-1$
+                getServer(),
+                new Object[]{mbean, toObjectName(name)});
+        }
+        catch (Exception e)
+        {
+            // jmx not available, or already registered by another application
+            log.debug("Unable to register MBean " + name + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+            return false;
+        }
+
+        synchronized (registered)
+        {
+            registered.add(name);
+        }
+        return true;
+    }
+
+    /**
+     * Unregisters an MBean registered with <code>register()</code>.
+     * @param properties key properties of the object name
+     */
+    public static void unregister(String properties)
+    {
+        String name = DOMAIN + ":" + properties; //$NON-NLS-1$
+        synchronized (registered)
+        {
+            if (!registered.remove(name))
+            {
+                return;
+            }
+        }
+        unregisterName(name);
+    }
+
+    /**
+     * Unregisters all the MBeans registered with <code>register()</code>.
+     */
+    public static void unregisterAll()
+    {
+        List names;
+        synchronized (registered)
+        {
+            names = new ArrayList(registered);
+            registered.clear();
+        }
+
+        Iterator iterator = names.iterator();
+        while (iterator.hasNext())
+        {
+            unregisterName((String) iterator.next());
+        }
+    }
+
+    /**
+     * Unregisters an MBean from the platform MBean server.
+     * @param name full object name
+     */
+    private static void unregisterName(String name)
+    {
+        try
+        {
+            getServerMethod("unregisterMBean", new Class[]{getObjectNameClass()}).invoke( //$NON-NLS-1$
+                getServer(),
+                new Object[]{toObjectName(name)});
+        }
+        catch (Exception e)
+        {
+            // already unregistered
+            log.debug("Unable to unregister MBean " + name + ": " + e); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    /**
+     * Returns the platform MBean server.
+     * @return MBeanServer
+     * @throws Exception if JMX is not available
+     */
+    private static Object getServer() throws Exception
+    {
+        Class factoryClass = ReflectHelper.classForName("java.lang.management.ManagementFactory"); //$NON-NLS-1$
+        return factoryClass.getMethod("getPlatformMBeanServer", null).invoke(null, null); //$NON-NLS-1$
+    }
+
+    /**
+     * Returns a method of the MBeanServer interface. Methods must not be looked up on the class of the platform server,
+     * which is not accessible on jvms with modules.
+     * @param name method name
+     * @param parameterTypes parameter types
+     * @return Method
+     * @throws Exception if JMX is not available
+     */
+    private static Method getServerMethod(String name, Class[] parameterTypes) throws Exception
+    {
+        return ReflectHelper.classForName("javax.management.MBeanServer").getMethod(name, parameterTypes); //$NON-NLS-1$
+    }
+
+    /**
+     * Returns the ObjectName class.
+     * @return javax.management.ObjectName
+     * @throws ClassNotFoundException if JMX is not available
+     */
+    private static Class getObjectNameClass() throws ClassNotFoundException
+    {
+        return ReflectHelper.classForName("javax.management.ObjectName"); //$NON-NLS-1$
+    }
+
+    /**
+     * Creates an ObjectName.
+     * @param name full object name
+     * @return ObjectName
+     * @throws Exception if JMX is not available or the name is not valid
+     */
+    private static Object toObjectName(String name) throws Exception
+    {
+        return getObjectNameClass().getConstructor(new Class[]{String.class}).newInstance(new Object[]{name});
+    }
+
+}
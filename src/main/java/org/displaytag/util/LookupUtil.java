@@ -12,6 +12,7 @@
 package org.displaytag.util;
 
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 
@@ -234,7 +235,7 @@ public final class LookupUtil
             }
             else
             {
-                evalBean = PropertyUtils.getSimpleProperty(evalBean, next);
+                evalBean = getSimpleProperty(evalBean, next);
             }
 
             if (evalBean == null)
@@ -268,13 +269,35 @@ public final class LookupUtil
         }
         else
         {
-            evalBean = PropertyUtils.getSimpleProperty(evalBean, evalName);
+            evalBean = getSimpleProperty(evalBean, evalName);
         }
 
         return evalBean;
 
     }
 
+    /**
+     * Returns the value of a simple property, using the read method from the <code>IntrospectionRegistry</code>.
+     * Falls back to <code>PropertyUtils</code> for DynaBeans and for unknown properties, so that the same exceptions
+     * are thrown.
+     * @param bean Bean whose property is to be extracted
+     * @param name name of a simple (not nested, indexed or mapped) property
+     * @return Object
+     * @throws NoSuchMethodException
+     * @throws InvocationTargetException
+     * @throws IllegalAccessException
+     */
+    private static Object getSimpleProperty(Object bean, String name) throws IllegalAccessException,
+        InvocationTargetException, NoSuchMethodException
+    {
+        Method readMethod = IntrospectionRegistry.getReadMethod(bean, name);
+        if (readMethod != null)
+        {
+            return readMethod.invoke(bean, null);
+        }
+        return PropertyUtils.getSimpleProperty(bean, name);
+    }
+
     /**
      * Return the value of the specified indexed property of the specified bean, with no type conversions. The
      * zero-relative index of the required value must be included (in square brackets) as a suffix to the property name,
@@ -0,0 +1,33 @@
+package javax.servlet;
+
+/**
+ * Test stub of the Servlet 3.0 <code>AsyncEvent</code>, the servlet api used to build displaytag doesn't include it.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class AsyncEvent
+{
+
+    /**
+     * Error, if any.
+     */
+    private Throwable throwable;
+
+    /**
+     * Instantiates a new AsyncEvent.
+     * @param throwable error, can be null
+     */
+    public AsyncEvent(Throwable throwable)
+    {
+        this.throwable = throwable;
+    }
+
+    /**
+     * Returns the error.
+     * @return Throwable, can be null
+     */
+    public Throwable getThrowable()
+    {
+        return this.throwable;
+    }
+}
@@ -0,0 +1,43 @@
+package javax.servlet;
+
+import java.io.IOException;
+import java.util.EventListener;
+
+
+/**
+ * Test stub of the Servlet 3.0 <code>AsyncListener</code>, the servlet api used to build displaytag doesn't include
+ * it.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public interface AsyncListener extends EventListener
+{
+
+    /**
+     * Called when the asynchronous operation has been completed.
+     * @param event AsyncEvent
+     * @throws IOException if an I/O error occurs
+     */
+    void onComplete(AsyncEvent event) throws IOException;
+
+    /**
+     * Called when the asynchronous operation has timed out.
+     * @param event AsyncEvent
+     * @throws IOException if an I/O error occurs
+     */
+    void onTimeout(AsyncEvent event) throws IOException;
+
+    /**
+     * Called when the asynchronous operation has failed.
+     * @param event AsyncEvent
+     * @throws IOException if an I/O error occurs
+     */
+    void onError(AsyncEvent event) throws IOException;
+
+    /**
+     * Called when a new asynchronous cycle is started.
+     * @param event AsyncEvent
+     * @throws IOException if an I/O error occurs
+     */
+    void onStartAsync(AsyncEvent event) throws IOException;
+}
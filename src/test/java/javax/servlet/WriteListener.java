@@ -0,0 +1,27 @@
+package javax.servlet;
+
+import java.io.IOException;
+import java.util.EventListener;
+
+
+/**
+ * Test stub of the Servlet 3.1 <code>WriteListener</code>, the servlet api used to build displaytag doesn't include
+ * it.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public interface WriteListener extends EventListener
+{
+
+    /**
+     * Called when it is possible to write data.
+     * @throws IOException if an I/O error occurs
+     */
+    void onWritePossible() throws IOException;
+
+    /**
+     * Called when an error occurs writing data.
+     * @param throwable error
+     */
+    void onError(Throwable throwable);
+}
@@ -0,0 +1,51 @@
+package org.displaytag.decorator;
+
+import javax.servlet.jsp.PageContext;
+
+import org.displaytag.properties.MediaTypeEnum;
+
+
+/**
+ * A stateless column decorator which counts the number of created instances, used for testing the caches of each
+ * classloader.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ClassLoaderColumnDecorator implements StatelessColumnDecorator
+{
+
+    /**
+     * Number of created instances.
+     */
+    private static int instances;
+
+    /**
+     * Instantiates a new decorator.
+     */
+    public ClassLoaderColumnDecorator()
+    {
+        synchronized (ClassLoaderColumnDecorator.class)
+        {
+            instances++;
+        }
+    }
+
+    /**
+     * Returns the number of created instances.
+     * @return number of created instances
+     */
+    public static synchronized int getInstances()
+    {
+        return instances;
+    }
+
+    /**
+     * @see org.displaytag.decorator.DisplaytagColumnDecorator#decorate(java.lang.Object, javax.servlet.jsp.PageContext,
+     * org.displaytag.properties.MediaTypeEnum)
+     */
+    public Object decorate(Object columnValue, PageContext pageContext, MediaTypeEnum media)
+    {
+        return "<" + columnValue + ">";
+    }
+
+}
@@ -1,7 +1,11 @@
 package org.displaytag.decorator;
 
+import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 import junit.framework.TestCase;
@@ -47,4 +51,94 @@ public class MessageFormatColumnDecoratorTest extends TestCase
         assertEquals("abc", result);
     }
 
+    /**
+     * Patterns with a single number element give the same result of MessageFormat, also when the element is surrounded
+     * by whitespace.
+     */
+    public void testNumber()
+    {
+        String[] patterns = new String[]{
+            "{0,number,#,##0.00}",
+            "{0,number}",
+            "{0, number, integer}",
+            "{0,number} items",
+            " {0,number} "};
+        Object[] values = new Object[]{new Double(12345.678), new Integer(-3), null};
+        for (int j = 0; j < patterns.length; j++)
+        {
+            for (int k = 0; k < values.length; k++)
+            {
+                assertEquals(patterns[j], new MessageFormat(patterns[j], Locale.ITALIAN).format(new Object[]{values[k]}),
+                    new MessageFormatColumnDecorator(patterns[j], Locale.ITALIAN).decorate(values[k], null, null));
+            }
+        }
+    }
+
+    /**
+     * Test with <code>{0,number,#,##0.00}</code> and a string.
+     */
+    public void testWrongNumber()
+    {
+        Object result = new MessageFormatColumnDecorator("{0,number,#,##0.00}", Locale.ENGLISH).decorate(
+            "abc",
+            null,
+            null);
+        assertEquals("abc", result);
+    }
+
+    /**
+     * Shared instances are cached by pattern and locale.
+     */
+    public void testGetInstance()
+    {
+        MessageFormatColumnDecorator decorator = MessageFormatColumnDecorator.getInstance("{0,date}", Locale.ENGLISH);
+        assertSame(decorator, MessageFormatColumnDecorator.getInstance("{0,date}", Locale.ENGLISH));
+        assertNotSame(decorator, MessageFormatColumnDecorator.getInstance("{0,date}", Locale.ITALIAN));
+        assertNotSame(decorator, MessageFormatColumnDecorator.getInstance("{0,time}", Locale.ENGLISH));
+    }
+
+    /**
+     * A shared instance can be used by many threads at the same time, although formats are not thread safe.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testConcurrentDecorate() throws Exception
+    {
+        final String[] patterns = new String[]{"{0,date,yyyy-MM-dd HH:mm:ss}", "at {0,date,yyyy-MM-dd HH:mm:ss}"};
+        final List errors = Collections.synchronizedList(new ArrayList());
+        Thread[] threads = new Thread[8];
+        for (int j = 0; j < threads.length; j++)
+        {
+            final int offset = j;
+            threads[j] = new Thread()
+            {
+
+                public void run()
+                {
+                    SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.ENGLISH);
+                    for (int k = 0; k < 2000 && errors.isEmpty(); k++)
+                    {
+                        Date date = new Date((offset * 2000L + k) * 86400000L + k * 1000L);
+                        for (int p = 0; p < patterns.length; p++)
+                        {
+                            Object result = MessageFormatColumnDecorator
+                                .getInstance(patterns[p], Locale.ENGLISH)
+                                .decorate(date, null, null);
+                            String value = (p == 0 ? "" : "at ") + expected.format(date);
+                            if (!value.equals(result))
+                            {
+                                errors.add(value + " != " + result);
+                            }
+                        }
+                    }
+                }
+            };
+            threads[j].start();
+        }
+        for (int j = 0; j < threads.length; j++)
+        {
+            threads[j].join();
+        }
+        assertEquals(Collections.EMPTY_LIST, errors);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package org.displaytag.decorator;
+
+/**
+ * Overrides getTotalForColumn() to print the number of rows in each group instead of the sum of the values.
+ * @version $Revision$ ($Author$)
+ */
+public class RowCountTotalTableDecorator extends MultilevelTotalTableDecorator
+{
+
+    /**
+     * @see org.displaytag.decorator.MultilevelTotalTableDecorator#getTotalForColumn(int, int, int)
+     */
+    protected Object getTotalForColumn(int columnNumber, int startRow, int stopRow)
+    {
+        return new Integer(stopRow - startRow + 1);
+    }
+}
@@ -0,0 +1,71 @@
+package org.displaytag.decorator;
+
+import java.math.BigDecimal;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Test case for the accumulators used by TotalTableDecorator.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class TotalTableDecoratorTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Functions on double values.
+     */
+    public void testFunctions()
+    {
+        TotalTableDecorator.Accumulator totals = new TotalTableDecorator.Accumulator(2);
+        totals.add(1, new Integer(4));
+        totals.add(1, new Double(1.5));
+        totals.add(1, new Long(8));
+
+        assertEquals(new Double(13.5), totals.get(1, TotalTableDecorator.SUM));
+        assertEquals(new Long(3), totals.get(1, TotalTableDecorator.COUNT));
+        assertEquals(new Double(1.5), totals.get(1, TotalTableDecorator.MIN));
+        assertEquals(new Double(8), totals.get(1, TotalTableDecorator.MAX));
+        assertEquals(new Double(4.5), totals.get(1, TotalTableDecorator.AVG));
+
+        // no values
+        assertEquals(new Double(0), totals.get(0, TotalTableDecorator.SUM));
+        assertEquals(new Long(0), totals.get(0, TotalTableDecorator.COUNT));
+        assertNull(totals.get(0, TotalTableDecorator.MIN));
+        assertNull(totals.get(0, TotalTableDecorator.AVG));
+
+        totals.reset();
+        assertEquals(new Double(0), totals.get(1, TotalTableDecorator.SUM));
+        assertNull(totals.get(1, TotalTableDecorator.MAX));
+    }
+
+    /**
+     * Exact totals don't suffer from rounding errors.
+     */
+    public void testExact()
+    {
+        TotalTableDecorator.Accumulator totals = new TotalTableDecorator.Accumulator(2);
+        totals.setExact(new boolean[]{false, true});
+        for (int j = 0; j < 10; j++)
+        {
+            totals.add(0, new Double(0.1));
+            totals.add(1, new Double(0.1));
+        }
+        totals.add(1, new BigDecimal("0.15"));
+
+        assertFalse(new Double(1).equals(totals.get(0, TotalTableDecorator.SUM)));
+        assertEquals(new BigDecimal("1.15"), totals.get(1, TotalTableDecorator.SUM));
+        assertEquals(new BigDecimal("0.10"), totals.get(1, TotalTableDecorator.AVG));
+        assertEquals(new BigDecimal("0.1"), totals.get(1, TotalTableDecorator.MIN));
+        assertEquals(new BigDecimal("0.15"), totals.get(1, TotalTableDecorator.MAX));
+    }
+}
@@ -0,0 +1,142 @@
+package org.displaytag.export;
+
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.lang.StringEscapeUtils;
+
+
+/**
+ * Test case for value escaping in org.displaytag.export.CsvView, ExcelView and XmlView.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class CsvViewTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Plain values are only trimmed.
+     */
+    public void testNoQuotes()
+    {
+        assertEquals("ant", new CsvView().escapeColumnValue("  ant "));
+        assertEquals("", new CsvView().escapeColumnValue(""));
+    }
+
+    /**
+     * Fields with separators or line breaks are quoted.
+     */
+    public void testSeparators()
+    {
+        assertEquals("\"ant,bee\"", new CsvView().escapeColumnValue("ant,bee"));
+        assertEquals("\"ant\nbee\"", new CsvView().escapeColumnValue("ant\nbee"));
+        assertEquals("\"ant\rbee\"", new CsvView().escapeColumnValue("ant\rbee"));
+    }
+
+    /**
+     * Quotes are doubled, according to RFC 4180.
+     */
+    public void testQuotes()
+    {
+        assertEquals("\"ant \"\"bee\"\"\"", new CsvView().escapeColumnValue("ant \"bee\""));
+        assertEquals("\"\"\"\"", new CsvView().escapeColumnValue("\""));
+    }
+
+    /**
+     * Excel values are always quoted.
+     */
+    public void testExcel()
+    {
+        assertEquals("\"ant\"", new ExcelView().escapeColumnValue(" ant "));
+        assertEquals("\"a\"\"n\"\"t\"", new ExcelView().escapeColumnValue("a\"n\"t"));
+        assertNull(new ExcelView().escapeColumnValue(null));
+    }
+
+    /**
+     * Xml values escaped in the export buffer must match StringEscapeUtils.escapeXml().
+     * @throws Exception any exception thrown during test.
+     */
+    public void testXml() throws Exception
+    {
+        String value = "<ant> & 'bee' \"camel\" \u00e0\u00e8\u00ec end";
+        StringWriter writer = new StringWriter();
+        new XmlView().writeColumnValue(writer, value);
+        assertEquals(StringEscapeUtils.escapeXml(value), writer.toString());
+    }
+
+    /**
+     * Values larger than the buffer are written correctly.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testBufferBoundaries() throws Exception
+    {
+        StringWriter target = new StringWriter();
+        ExportWriter writer = new ExportWriter(target, 4);
+        new CsvView().writeColumnValue(writer, "ant,bee \"camel\"");
+        writer.write("0123456789".toCharArray(), 0, 10);
+        writer.flushBuffer();
+        assertEquals("\"ant,bee \"\"camel\"\"\"0123456789", target.toString());
+    }
+
+    /**
+     * Escaping customized by subclasses is used also for values written in the export buffer.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testOverriddenEscaping() throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        new UpperCaseCsvView().writeColumnValue(writer, "ant,bee");
+        assertEquals("\"ANT,BEE\"", writer.toString());
+
+        writer = new StringWriter();
+        new ExcelView()
+        {
+
+            protected String escapeColumnValue(Object value)
+            {
+                return "[" + value + "]";
+            }
+        }.writeColumnValue(writer, "ant");
+        assertEquals("[ant]", writer.toString());
+
+        writer = new StringWriter();
+        new XmlView()
+        {
+
+            protected String escapeColumnValue(Object value)
+            {
+                return "<![CDATA[" + value + "]]>";
+            }
+        }.writeColumnValue(writer, "<ant>");
+        assertEquals("<![CDATA[<ant>]]>", writer.toString());
+
+        // subclasses not overriding escapeColumnValue keep the direct path
+        assertFalse(new CsvView()
+        {
+        }.isEscapeColumnValueOverridden(CsvView.class));
+    }
+
+    /**
+     * Csv view with upper case values, reusing the standard escaping.
+     */
+    private static class UpperCaseCsvView extends CsvView
+    {
+
+        /**
+         * @see org.displaytag.export.CsvView#escapeColumnValue(java.lang.Object)
+         */
+        protected String escapeColumnValue(Object value)
+        {
+            return super.escapeColumnValue(value.toString().toUpperCase());
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package org.displaytag.export;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import javax.servlet.jsp.JspException;
+
+import junit.framework.TestCase;
+
+import org.displaytag.model.TableModel;
+
+
+/**
+ * Test case for org.displaytag.export.ExportCache.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ExportCacheTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Exports are generated once and then replayed.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testCached() throws Exception
+    {
+        ExportCache cache = new ExportCache(1000, 60000, 60000);
+        CountingView view = new CountingView("ant");
+
+        assertNull(cache.acquire("key"));
+        assertEquals("ant", export(cache.store("key", view)));
+
+        ExportView cached = cache.acquire("key");
+        assertNotNull(cached);
+        assertEquals("ant", export(cached));
+        assertEquals("text/plain", cached.getMimeType());
+        assertEquals(1, view.count);
+        assertEquals(6, cache.getSize());
+    }
+
+    /**
+     * Least recently used exports are evicted when the cache is full.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testEviction() throws Exception
+    {
+        ExportCache cache = new ExportCache(10, 60000, 60000);
+
+        cache.acquire("ant");
+        export(cache.store("ant", new CountingView("ant")));
+        cache.acquire("bee");
+        export(cache.store("bee", new CountingView("bee")));
+
+        assertEquals(6, cache.getSize());
+        assertNull("ant should have been evicted", cache.acquire("ant"));
+        cache.release("ant");
+        assertNotNull(cache.acquire("bee"));
+    }
+
+    /**
+     * Exports bigger than the cache are written entirely, but not cached.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testTooBig() throws Exception
+    {
+        ExportCache cache = new ExportCache(10, 60000, 60000);
+
+        assertNull(cache.acquire("key"));
+        assertEquals("antbeecamel", export(cache.store("key", new CountingView("antbeecamel"))));
+        assertEquals(0, cache.getSize());
+        assertNull(cache.acquire("key"));
+    }
+
+    /**
+     * A failed export doesn't block other requests.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testFailure() throws Exception
+    {
+        ExportCache cache = new ExportCache(1000, 60000, 60000);
+
+        assertNull(cache.acquire("key"));
+        try
+        {
+            export(cache.store("key", new CountingView(null)));
+            fail("Exception expected");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+        assertNull(cache.acquire("key"));
+    }
+
+    /**
+     * A key is released if the export is never written, but only by the thread which acquired it.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testRelease() throws Exception
+    {
+        final ExportCache cache = new ExportCache(1000, 60000, 0);
+
+        assertNull(cache.acquire("key"));
+        cache.store("key", new CountingView("ant"));
+
+        Thread other = new Thread()
+        {
+
+            public void run()
+            {
+                cache.release("key");
+            }
+        };
+        other.start();
+        other.join(5000);
+
+        // still held, with no timeout acquire() returns at once
+        assertNull(cache.acquire("key"));
+        assertEquals("ant", export(cache.store("key", new CountingView("ant"))));
+        cache.release("key");
+        assertNotNull(cache.acquire("key"));
+    }
+
+    /**
+     * Concurrent requests give up waiting after the timeout and generate the export themselves.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testTimeout() throws Exception
+    {
+        final ExportCache cache = new ExportCache(1000, 60000, 100);
+        CountingView view = new CountingView("ant");
+
+        // acquired by a request which never finishes
+        Thread other = new Thread()
+        {
+
+            public void run()
+            {
+                try
+                {
+                    cache.acquire("key");
+                }
+                catch (JspException e)
+                {
+                    // unexpected, acquire() below will not wait
+                }
+            }
+        };
+        other.start();
+        other.join(5000);
+
+        long start = System.currentTimeMillis();
+        assertNull(cache.acquire("key"));
+        assertTrue(System.currentTimeMillis() - start >= 100);
+
+        assertEquals("ant", export(cache.store("key", view)));
+        assertEquals(1, view.count);
+        assertNotNull(cache.acquire("key"));
+    }
+
+    /**
+     * Concurrent requests wait for the export in progress.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testSingleFlight() throws Exception
+    {
+        final ExportCache cache = new ExportCache(1000, 60000, 60000);
+        final CountingView view = new CountingView("ant");
+        final String[] results = new String[4];
+
+        assertNull(cache.acquire("key"));
+
+        Thread[] threads = new Thread[results.length];
+        for (int j = 0; j < threads.length; j++)
+        {
+            final int index = j;
+            threads[j] = new Thread()
+            {
+
+                public void run()
+                {
+                    try
+                    {
+                        ExportView cached = cache.acquire("key");
+                        if (cached == null)
+                        {
+                            cached = cache.store("key", view);
+                        }
+                        results[index] = export(cached);
+                        cache.release("key");
+                    }
+                    catch (Exception e)
+                    {
+                        results[index] = e.toString();
+                    }
+                }
+            };
+            threads[j].start();
+        }
+
+        Thread.sleep(100);
+        export(cache.store("key", view));
+
+        for (int j = 0; j < threads.length; j++)
+        {
+            threads[j].join(5000);
+            assertEquals("ant", results[j]);
+        }
+        assertEquals(1, view.count);
+    }
+
+    /**
+     * Runs a text export.
+     * @param view export view
+     * @return exported text
+     * @throws Exception any exception thrown during export.
+     */
+    static String export(ExportView view) throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        ((TextExportView) view).doExport(writer);
+        return writer.toString();
+    }
+
+    /**
+     * Text export view counting generations.
+     */
+    private static class CountingView implements TextExportView
+    {
+
+        /**
+         * Number of exports.
+         */
+        int count;
+
+        /**
+         * Exported text, null for failing exports.
+         */
+        private String text;
+
+        /**
+         * @param value exported text, null for failing exports
+         */
+        CountingView(String value)
+        {
+            this.text = value;
+        }
+
+        public void doExport(Writer out) throws IOException, JspException
+        {
+            if (this.text == null)
+            {
+                throw new IOException("failed");
+            }
+            synchronized (this)
+            {
+                this.count++;
+            }
+            out.write(this.text);
+        }
+
+        public boolean outputPage()
+        {
+            return false;
+        }
+
+        public String getMimeType()
+        {
+            return "text/plain";
+        }
+
+        public void setParameters(TableModel tableModel, boolean exportFullList, boolean includeHeader,
+            boolean decorateValues)
+        {
+            // unused
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package org.displaytag.export;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.servlet.ServletResponse;
+
+import junit.framework.TestCase;
+
+import org.displaytag.model.Cell;
+import org.displaytag.model.HeaderCell;
+import org.displaytag.model.Row;
+import org.displaytag.model.TableModel;
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.properties.TableProperties;
+import org.displaytag.stats.TableStats;
+
+
+/**
+ * Tests for export cancellation.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ExportCancellationTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Errors hidden by a PrintWriter, as when the client has closed the connection, stop the export.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testPrintWriterError() throws Exception
+    {
+        ExportWriter writer = new ExportWriter(new PrintWriter(new BrokenWriter()), 4);
+        writer.write("ant");
+        try
+        {
+            writer.write("bee");
+            fail("Expected ExportCancelledException");
+        }
+        catch (ExportCancelledException e)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * An IOException thrown by the JspWriter wrapped in a ResponseWriter stops the export quietly.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testResponseWriterError() throws Exception
+    {
+        ExportWriter writer = new ExportWriter(new ResponseWriter(new BrokenWriter(), new CommitState().proxy()), 4);
+        writer.write("ant");
+        try
+        {
+            writer.write("bee");
+            fail("Expected ExportCancelledException");
+        }
+        catch (ExportCancelledException e)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Checking a ResponseWriter for errors doesn't flush, and so doesn't commit, the response before it has been
+     * committed by the container.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testResponseWriterFlush() throws Exception
+    {
+        CommitState state = new CommitState();
+        FlushCountingWriter responseWriter = new FlushCountingWriter();
+        ExportWriter writer = new ExportWriter(new ResponseWriter(new PrintWriter(responseWriter), state.proxy()), 4);
+
+        writer.write("antbeecamel");
+        writer.flushBuffer();
+        assertEquals("antbeecamel", responseWriter.toString());
+        assertEquals("Response flushed before being committed", 0, responseWriter.flushes);
+
+        state.committed = true;
+        writer.write("dog");
+        writer.flushBuffer();
+        assertTrue(responseWriter.flushes > 0);
+    }
+
+    /**
+     * Counting the size of the export for TableStats doesn't hide PrintWriter errors.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testCountedSize() throws Exception
+    {
+        CsvView view = new CsvView();
+        view.setParameters(createModel(), true, false, false);
+        TableStats stats = new TableStats(null, MediaTypeEnum.CSV);
+        TextExportView countingView = (TextExportView) stats.countSize(view);
+
+        CommitState state = new CommitState();
+        state.committed = true;
+        countingView.doExport(new ResponseWriter(new PrintWriter(new StringWriter()), state.proxy()));
+        assertEquals(4, stats.getSize());
+
+        try
+        {
+            countingView.doExport(new ResponseWriter(new BrokenWriter(), state.proxy()));
+            fail("Expected ExportCancelledException");
+        }
+        catch (ExportCancelledException e)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * A cancelled model stops the export.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testCancelledModel() throws Exception
+    {
+        TableModel model = createModel();
+        CsvView view = new CsvView();
+        view.setParameters(model, true, false, false);
+
+        StringWriter writer = new StringWriter();
+        view.doExport(writer);
+        assertEquals("bee\n", writer.toString());
+
+        model.cancel();
+        try
+        {
+            view.doExport(new StringWriter());
+            fail("Expected ExportCancelledException");
+        }
+        catch (ExportCancelledException e)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Creates a model with a single row and column.
+     * @return TableModel
+     */
+    private TableModel createModel()
+    {
+        TableModel model = new TableModel(TableProperties.getInstance(null), null, null);
+        HeaderCell header = new HeaderCell();
+        header.setTitle("ant");
+        header.setColumnNumber(0);
+        model.addColumnHeader(header);
+        Row row = new Row("ant", 0);
+        row.addCell(new Cell("bee"));
+        model.addRow(row);
+        return model;
+    }
+
+    /**
+     * Response whose only state is the commit flag.
+     */
+    private static class CommitState implements InvocationHandler
+    {
+
+        /**
+         * Is the response committed?
+         */
+        boolean committed;
+
+        /**
+         * Returns a ServletResponse backed by this state.
+         * @return ServletResponse
+         */
+        ServletResponse proxy()
+        {
+            return (ServletResponse) Proxy.newProxyInstance(
+                getClass().getClassLoader(),
+                new Class[]{ServletResponse.class},
+                this);
+        }
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(Object, Method, Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args)
+        {
+            if ("isCommitted".equals(method.getName()))
+            {
+                return Boolean.valueOf(this.committed);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    /**
+     * Writer counting flushes.
+     */
+    private static class FlushCountingWriter extends StringWriter
+    {
+
+        /**
+         * Number of flush() calls.
+         */
+        int flushes;
+
+        /**
+         * @see java.io.StringWriter#flush()
+         */
+        public void flush()
+        {
+            this.flushes++;
+        }
+    }
+
+    /**
+     * Writer which always fails.
+     */
+    private static class BrokenWriter extends Writer
+    {
+
+        /**
+         * @see java.io.Writer#write(char[], int, int)
+         */
+        public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            throw new IOException("Connection reset by peer");
+        }
+
+        /**
+         * @see java.io.Writer#flush()
+         */
+        public void flush() throws IOException
+        {
+            throw new IOException("Connection reset by peer");
+        }
+
+        /**
+         * @see java.io.Writer#close()
+         */
+        public void close()
+        {
+            // nothing to close
+        }
+    }
+}
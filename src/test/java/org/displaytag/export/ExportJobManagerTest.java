@@ -0,0 +1,245 @@
+package org.displaytag.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.displaytag.filter.DisplaytagShutdownListener;
+import org.displaytag.model.TableModel;
+import org.displaytag.properties.TableProperties;
+
+
+/**
+ * Test case for ExportJobManager.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ExportJobManagerTest extends TestCase
+{
+
+    /**
+     * Jobs accepted by concurrent submits.
+     */
+    private List accepted = new ArrayList();
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    protected void tearDown() throws Exception
+    {
+        ExportJobManager.shutdown();
+        super.tearDown();
+    }
+
+    /**
+     * Concurrent submits never queue more jobs than <code>export.background.queue</code>.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testQueueLimit() throws Exception
+    {
+        final ExportJobManager manager = ExportJobManager.getInstance();
+        final BlockingView view = new BlockingView();
+        int threads = TableProperties.getInstance(null).getExportBackgroundThreads();
+        int queueSize = TableProperties.getInstance(null).getExportBackgroundQueueSize();
+
+        // keep all the workers busy
+        for (int j = 0; j < threads; j++)
+        {
+            assertNotNull(manager.submit(view, "text/plain", null, "UTF-8"));
+        }
+        view.awaitRunning(threads);
+
+        Thread[] submitters = new Thread[16];
+        for (int j = 0; j < submitters.length; j++)
+        {
+            submitters[j] = new Thread()
+            {
+
+                public void run()
+                {
+                    for (int k = 0; k < 5; k++)
+                    {
+                        try
+                        {
+                            ExportJob job = manager.submit(view, "text/plain", null, "UTF-8");
+                            if (job != null)
+                            {
+                                synchronized (accepted)
+                                {
+                                    accepted.add(job);
+                                }
+                            }
+                        }
+                        catch (IOException e)
+                        {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }
+            };
+            submitters[j].start();
+        }
+        for (int j = 0; j < submitters.length; j++)
+        {
+            submitters[j].join();
+        }
+
+        assertEquals("Jobs queued over the limit.", queueSize, accepted.size());
+        view.release();
+    }
+
+    /**
+     * Shutdown, called by DisplaytagShutdownListener, stops the workers and deletes the files of pending and finished
+     * jobs.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testShutdown() throws Exception
+    {
+        ExportJobManager manager = ExportJobManager.getInstance();
+        BlockingView view = new BlockingView();
+        int threads = TableProperties.getInstance(null).getExportBackgroundThreads();
+
+        List jobs = new ArrayList();
+        for (int j = 0; j < threads + 2; j++)
+        {
+            jobs.add(manager.submit(view, "text/plain", null, "UTF-8"));
+        }
+        view.awaitRunning(threads);
+        assertEquals(threads, countWorkers());
+
+        new DisplaytagShutdownListener().contextDestroyed(null);
+
+        assertEquals("Workers still running.", 0, countWorkers());
+        for (Iterator iterator = jobs.iterator(); iterator.hasNext();)
+        {
+            ExportJob job = (ExportJob) iterator.next();
+            assertFalse("File not deleted for " + job, job.getFile().exists());
+            assertNull(manager.getJob(job.getId()));
+        }
+
+        // stopped manager runs exports on the request thread
+        assertNull(manager.submit(view, "text/plain", null, "UTF-8"));
+
+        // a new manager is started if needed
+        assertNotSame(manager, ExportJobManager.getInstance());
+    }
+
+    /**
+     * Counts the running worker threads.
+     * @return number of live threads named displaytag-export-*
+     */
+    private int countWorkers()
+    {
+        Thread[] all = new Thread[Thread.activeCount() + 10];
+        int count = Thread.enumerate(all);
+        int workers = 0;
+        for (int j = 0; j < count; j++)
+        {
+            if (all[j].getName().startsWith("displaytag-export-") && all[j].isAlive())
+            {
+                workers++;
+            }
+        }
+        return workers;
+    }
+
+    /**
+     * Text view blocking until released (or interrupted).
+     */
+    private static class BlockingView implements TextExportView
+    {
+
+        /**
+         * Number of exports running.
+         */
+        private int running;
+
+        /**
+         * Have exports been released?
+         */
+        private boolean released;
+
+        /**
+         * @see org.displaytag.export.TextExportView#doExport(java.io.Writer)
+         */
+        public synchronized void doExport(Writer out) throws IOException
+        {
+            this.running++;
+            notifyAll();
+            try
+            {
+                while (!this.released)
+                {
+                    wait();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                throw new IOException("interrupted");
+            }
+            out.write("done");
+        }
+
+        /**
+         * Waits until the given number of exports is running.
+         * @param count number of running exports
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public synchronized void awaitRunning(int count) throws InterruptedException
+        {
+            long end = System.currentTimeMillis() + 5000;
+            while (this.running < count && System.currentTimeMillis() < end)
+            {
+                wait(100);
+            }
+            assertEquals(count, this.running);
+        }
+
+        /**
+         * Lets blocked exports complete.
+         */
+        public synchronized void release()
+        {
+            this.released = true;
+            notifyAll();
+        }
+
+        /**
+         * @see org.displaytag.export.TextExportView#outputPage()
+         */
+        public boolean outputPage()
+        {
+            return false;
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#setParameters(TableModel, boolean, boolean, boolean)
+         */
+        public void setParameters(TableModel tableModel, boolean exportFullList, boolean includeHeader,
+            boolean decorateValues)
+        {
+            // unused
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#getMimeType()
+         */
+        public String getMimeType()
+        {
+            return "text/plain";
+        }
+    }
+
+}
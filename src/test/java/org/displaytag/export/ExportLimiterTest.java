@@ -0,0 +1,152 @@
+package org.displaytag.export;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+import org.displaytag.properties.MediaTypeEnum;
+
+
+/**
+ * Test case for ExportLimiter.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ExportLimiterTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Queue depth and wait times of the shared limiter are published as an MBean, unregistered on shutdown.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testMBean() throws Exception
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.displaytag:type=ExportLimiter");
+
+        ExportLimiter limiter = ExportLimiter.getInstance();
+        try
+        {
+            assertTrue(server.isRegistered(name));
+            assertTrue(limiter.acquire(MediaTypeEnum.CSV));
+            limiter.release(MediaTypeEnum.CSV);
+            assertEquals(new Integer(0), server.getAttribute(name, "Waiting"));
+            assertEquals(new Long(limiter.getAdmitted()), server.getAttribute(name, "Admitted"));
+            assertEquals(new Long(limiter.getMaxWaitTime()), server.getAttribute(name, "MaxWaitTime"));
+        }
+        finally
+        {
+            ExportLimiter.shutdown();
+        }
+        assertFalse(server.isRegistered(name));
+        assertNotSame(limiter, ExportLimiter.getInstance());
+        assertTrue(server.isRegistered(name));
+    }
+
+    /**
+     * No limits.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testUnlimited() throws Exception
+    {
+        ExportLimiter limiter = new ExportLimiter(0, 0, null);
+        for (int j = 0; j < 10; j++)
+        {
+            assertTrue(limiter.acquire(MediaTypeEnum.CSV));
+        }
+        assertEquals(10, limiter.getRunning());
+        assertEquals(10, limiter.getAdmitted());
+    }
+
+    /**
+     * The media limit only applies to exports of the same media, the global limit to all of them.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testLimits() throws Exception
+    {
+        ExportLimiter limiter = new ExportLimiter(3, 0, null);
+        limiter.setLimit(MediaTypeEnum.CSV, 1);
+
+        assertTrue(limiter.acquire(MediaTypeEnum.CSV));
+        assertFalse(limiter.acquire(MediaTypeEnum.CSV));
+        assertTrue(limiter.acquire(MediaTypeEnum.XML));
+        assertTrue(limiter.acquire(MediaTypeEnum.XML));
+        assertFalse(limiter.acquire(MediaTypeEnum.XML));
+        assertEquals(2, limiter.getRejected());
+
+        limiter.release(MediaTypeEnum.CSV);
+        assertTrue(limiter.acquire(MediaTypeEnum.XML));
+        assertFalse(limiter.acquire(MediaTypeEnum.CSV));
+        assertEquals(3, limiter.getRunning());
+        assertEquals(0, limiter.getWaiting());
+    }
+
+    /**
+     * A waiting export is admitted as soon as a slot is released.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testWait() throws Exception
+    {
+        final ExportLimiter limiter = new ExportLimiter(1, 10000, null);
+        assertTrue(limiter.acquire(MediaTypeEnum.CSV));
+
+        final boolean[] admitted = new boolean[1];
+        Thread waiter = new Thread()
+        {
+
+            public void run()
+            {
+                try
+                {
+                    admitted[0] = limiter.acquire(MediaTypeEnum.XML);
+                }
+                catch (Exception e)
+                {
+                    // admitted stays false
+                }
+            }
+        };
+        waiter.start();
+
+        while (limiter.getWaiting() == 0)
+        {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        limiter.release(MediaTypeEnum.CSV);
+        waiter.join(10000);
+
+        assertTrue("Waiting export not admitted.", admitted[0]);
+        assertEquals(0, limiter.getWaiting());
+        assertEquals(0, limiter.getRejected());
+        assertTrue("Wait time not recorded.", limiter.getMaxWaitTime() >= 50);
+        assertEquals(limiter.getMaxWaitTime(), limiter.getTotalWaitTime());
+    }
+
+    /**
+     * An export is rejected when no slot is released before the timeout.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testTimeout() throws Exception
+    {
+        ExportLimiter limiter = new ExportLimiter(1, 100, null);
+        assertTrue(limiter.acquire(MediaTypeEnum.CSV));
+
+        long start = System.currentTimeMillis();
+        assertFalse(limiter.acquire(MediaTypeEnum.CSV));
+        assertTrue("Rejected without waiting.", System.currentTimeMillis() - start >= 100);
+        assertEquals(1, limiter.getRejected());
+        assertEquals(0, limiter.getWaiting());
+    }
+}
@@ -0,0 +1,73 @@
+package org.displaytag.export;
+
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.displaytag.model.Cell;
+import org.displaytag.model.HeaderCell;
+import org.displaytag.model.Row;
+import org.displaytag.model.TableModel;
+import org.displaytag.properties.TableProperties;
+
+
+/**
+ * Tests for line termination in org.displaytag.export.NdjsonView.
+ * @version $Revision$ ($Author$)
+ */
+public class NdjsonViewTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Every record ends with its own newline.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testRows() throws Exception
+    {
+        assertEquals("{\"ant\":\"bee\"}\n{\"ant\":\"bee\"}\n", export(2));
+    }
+
+    /**
+     * An empty table gives an empty document, not a blank line.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testEmpty() throws Exception
+    {
+        assertEquals("", export(0));
+    }
+
+    /**
+     * Exports a model with a single column and the given number of rows.
+     * @param rows number of rows
+     * @return exported content
+     * @throws Exception any exception thrown during export.
+     */
+    private String export(int rows) throws Exception
+    {
+        TableModel model = new TableModel(TableProperties.getInstance(null), null, null);
+        HeaderCell header = new HeaderCell();
+        header.setTitle("ant");
+        header.setColumnNumber(0);
+        model.addColumnHeader(header);
+        for (int j = 0; j < rows; j++)
+        {
+            Row row = new Row("ant", j);
+            row.addCell(new Cell("bee"));
+            model.addRow(row);
+        }
+
+        NdjsonView view = new NdjsonView();
+        view.setParameters(model, true, false, false);
+        StringWriter writer = new StringWriter();
+        view.doExport(writer);
+        return writer.toString();
+    }
+}
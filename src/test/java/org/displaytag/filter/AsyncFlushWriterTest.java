@@ -0,0 +1,509 @@
+package org.displaytag.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import junit.framework.TestCase;
+
+import org.displaytag.tags.TableTag;
+import org.displaytag.tags.TableTagParameters;
+
+
+/**
+ * Test case for AsyncFlushWriter and the <code>asyncFlush</code> mode of ResponseOverrideFilter, using mock Servlet 3.1
+ * requests.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class AsyncFlushWriterTest extends TestCase
+{
+
+    /**
+     * Content larger than a single chunk.
+     */
+    private static final byte[] CONTENT = new byte[20000];
+
+    static
+    {
+        for (int j = 0; j < CONTENT.length; j++)
+        {
+            CONTENT[j] = (byte) ('a' + j % 26);
+        }
+    }
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * A request without the Servlet 3.1 api is written synchronously.
+     */
+    public void testNoAsyncApi()
+    {
+        MockResponse response = new MockResponse();
+        assertFalse(AsyncFlushWriter.start(stubRequest(), response, CONTENT, 0));
+        assertNull(response.out.listener);
+    }
+
+    /**
+     * A request which doesn't support asynchronous mode is written synchronously, and the async context is never
+     * started.
+     */
+    public void testAsyncNotSupported()
+    {
+        MockAsyncRequest request = new MockAsyncRequest(false);
+        MockResponse response = new MockResponse();
+        assertFalse(AsyncFlushWriter.start(request, response, CONTENT, 0));
+        assertNull(request.context);
+        assertNull(response.out.listener);
+    }
+
+    /**
+     * Content is written in chunks while the stream is ready, the async context is completed once.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testWrite() throws Exception
+    {
+        MockAsyncRequest request = new MockAsyncRequest(true);
+        MockResponse response = new MockResponse();
+        assertTrue(AsyncFlushWriter.start(request, response, CONTENT, 60000));
+
+        MockAsyncContext context = request.context;
+        assertNotNull(context);
+        assertEquals(60000, context.timeout);
+        assertNotNull("AsyncListener not registered", context.listener);
+        assertNotNull("WriteListener not registered", response.out.listener);
+        assertEquals("Nothing must be written before onWritePossible()", 0, response.out.content.size());
+
+        // the client can take a single chunk
+        response.out.writesBeforeBlocking = 1;
+        response.out.listener.onWritePossible();
+        assertEquals(8192, response.out.content.size());
+        assertEquals(0, context.completed);
+
+        response.out.writesBeforeBlocking = Integer.MAX_VALUE;
+        response.out.listener.onWritePossible();
+        assertEquals(new String(CONTENT), new String(response.out.content.toByteArray()));
+        assertEquals(1, context.completed);
+
+        context.listener.onComplete(new AsyncEvent(null));
+        response.out.listener.onWritePossible();
+        assertEquals(1, context.completed);
+    }
+
+    /**
+     * On timeout the async context is completed and no more content is written.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testTimeout() throws Exception
+    {
+        MockAsyncRequest request = new MockAsyncRequest(true);
+        MockResponse response = new MockResponse();
+        assertTrue(AsyncFlushWriter.start(request, response, CONTENT, 0));
+        assertEquals(0, request.context.timeout);
+
+        request.context.listener.onTimeout(new AsyncEvent(null));
+        assertEquals(1, request.context.completed);
+
+        response.out.listener.onWritePossible();
+        assertEquals(0, response.out.content.size());
+        assertEquals(1, request.context.completed);
+    }
+
+    /**
+     * Write and async errors complete the async context only once.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testError() throws Exception
+    {
+        MockAsyncRequest request = new MockAsyncRequest(true);
+        MockResponse response = new MockResponse();
+        assertTrue(AsyncFlushWriter.start(request, response, CONTENT, 0));
+
+        IOException error = new IOException("Broken pipe");
+        response.out.listener.onError(error);
+        request.context.listener.onError(new AsyncEvent(error));
+        assertEquals(1, request.context.completed);
+    }
+
+    /**
+     * The filter writes the export synchronously when the container doesn't support asynchronous mode.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testFilterFallback() throws Exception
+    {
+        MockAsyncRequest request = new MockAsyncRequest(false);
+        MockResponse response = new MockResponse();
+
+        doFilter(request, response);
+
+        assertNull(request.context);
+        assertEquals(CONTENT.length, response.contentLength);
+        assertEquals("text/csv", response.contentType);
+        assertEquals(new String(CONTENT), new String(response.out.content.toByteArray()));
+    }
+
+    /**
+     * The filter writes the export asynchronously when supported, using the configured timeout.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testFilterAsync() throws Exception
+    {
+        MockAsyncRequest request = new MockAsyncRequest(true);
+        MockResponse response = new MockResponse();
+
+        doFilter(request, response);
+
+        assertNotNull(request.context);
+        assertEquals(120000, request.context.timeout);
+        assertEquals(CONTENT.length, response.contentLength);
+        assertEquals(0, response.out.content.size());
+
+        response.out.listener.onWritePossible();
+        assertEquals(new String(CONTENT), new String(response.out.content.toByteArray()));
+        assertEquals(1, request.context.completed);
+    }
+
+    /**
+     * Runs a ResponseOverrideFilter in asyncFlush mode, the chain simulates an export from the table tag.
+     * @param request ServletRequest
+     * @param response ServletResponse
+     * @throws Exception any exception thrown by the filter
+     */
+    private void doFilter(ServletRequest request, ServletResponse response) throws Exception
+    {
+        final Map params = new HashMap();
+        params.put("asyncFlush", "true");
+        params.put("asyncFlushTimeout", "120");
+
+        ResponseOverrideFilter filter = new ResponseOverrideFilter();
+        filter.init(new FilterConfig()
+        {
+
+            public String getFilterName()
+            {
+                return "ResponseOverrideFilter";
+            }
+
+            public ServletContext getServletContext()
+            {
+                return null;
+            }
+
+            public String getInitParameter(String name)
+            {
+                return (String) params.get(name);
+            }
+
+            public Enumeration getInitParameterNames()
+            {
+                return null;
+            }
+        });
+
+        filter.doFilter(request, response, new FilterChain()
+        {
+
+            public void doFilter(ServletRequest chainRequest, ServletResponse chainResponse)
+            {
+                Map bean = (Map) chainRequest.getAttribute(TableTag.FILTER_CONTENT_OVERRIDE_BODY);
+                bean.put(TableTagParameters.BEAN_BODY, new String(CONTENT));
+                bean.put(TableTagParameters.BEAN_CONTENTTYPE, "text/csv");
+            }
+        });
+    }
+
+    /**
+     * Creates a stub of a servlet api interface: attributes are stored in a map, the export parameter is always
+     * present and any other method returns a default value.
+     * @param type interface
+     * @return stub instance
+     */
+    static Object stubInstance(Class type)
+    {
+        return Proxy.newProxyInstance(AsyncFlushWriterTest.class.getClassLoader(), new Class[]{type}, new Stub());
+    }
+
+    /**
+     * Creates a stub HttpServletRequest, without the Servlet 3.1 api.
+     * @return stub request
+     */
+    static HttpServletRequest stubRequest()
+    {
+        return (HttpServletRequest) stubInstance(HttpServletRequest.class);
+    }
+
+    /**
+     * Handler for stubs of servlet api interfaces.
+     */
+    static class Stub implements InvocationHandler
+    {
+
+        /**
+         * Attributes.
+         */
+        private Map attributes = new HashMap();
+
+        /**
+         * @see java.lang.reflect.InvocationHandler#invoke(Object, Method, Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args)
+        {
+            String name = method.getName();
+            if ("getAttribute".equals(name))
+            {
+                return this.attributes.get(args[0]);
+            }
+            if ("setAttribute".equals(name))
+            {
+                this.attributes.put(args[0], args[1]);
+                return null;
+            }
+            if ("getParameter".equals(name))
+            {
+                return TableTagParameters.PARAMETER_EXPORTING.equals(args[0]) ? "1" : null;
+            }
+            Class type = method.getReturnType();
+            if (type == Boolean.TYPE)
+            {
+                return Boolean.FALSE;
+            }
+            if (type == Integer.TYPE)
+            {
+                return new Integer(0);
+            }
+            if (type == Long.TYPE)
+            {
+                return new Long(0);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Request implementing the Servlet 3.1 asynchronous api.
+     */
+    public static class MockAsyncRequest extends HttpServletRequestWrapper
+    {
+
+        /**
+         * Value returned by isAsyncSupported().
+         */
+        private boolean asyncSupported;
+
+        /**
+         * Started async context.
+         */
+        MockAsyncContext context;
+
+        /**
+         * Instantiates a new MockAsyncRequest.
+         * @param supported value returned by isAsyncSupported()
+         */
+        public MockAsyncRequest(boolean supported)
+        {
+            super(stubRequest());
+            this.asyncSupported = supported;
+        }
+
+        /**
+         * @return value given in constructor
+         */
+        public boolean isAsyncSupported()
+        {
+            return this.asyncSupported;
+        }
+
+        /**
+         * @return new MockAsyncContext
+         */
+        public MockAsyncContext startAsync()
+        {
+            if (!this.asyncSupported || this.context != null)
+            {
+                throw new IllegalStateException();
+            }
+            this.context = new MockAsyncContext();
+            return this.context;
+        }
+    }
+
+    /**
+     * Servlet 3.0 async context.
+     */
+    public static class MockAsyncContext
+    {
+
+        /**
+         * Number of complete() calls.
+         */
+        int completed;
+
+        /**
+         * Timeout.
+         */
+        long timeout = -1;
+
+        /**
+         * Registered listener.
+         */
+        AsyncListener listener;
+
+        /**
+         * Completes the request.
+         */
+        public void complete()
+        {
+            this.completed++;
+        }
+
+        /**
+         * @param value timeout in milliseconds
+         */
+        public void setTimeout(long value)
+        {
+            this.timeout = value;
+        }
+
+        /**
+         * @param value AsyncListener
+         */
+        public void addListener(AsyncListener value)
+        {
+            this.listener = value;
+        }
+    }
+
+    /**
+     * Response with a Servlet 3.1 output stream.
+     */
+    public static class MockResponse extends HttpServletResponseWrapper
+    {
+
+        /**
+         * Output stream.
+         */
+        MockOutputStream out = new MockOutputStream();
+
+        /**
+         * Content length.
+         */
+        int contentLength = -1;
+
+        /**
+         * Content type.
+         */
+        String contentType;
+
+        /**
+         * Instantiates a new MockResponse.
+         */
+        public MockResponse()
+        {
+            super((HttpServletResponse) stubInstance(HttpServletResponse.class));
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#getOutputStream()
+         */
+        public ServletOutputStream getOutputStream()
+        {
+            return this.out;
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#setContentLength(int)
+         */
+        public void setContentLength(int len)
+        {
+            this.contentLength = len;
+        }
+
+        /**
+         * @see javax.servlet.ServletResponseWrapper#setContentType(java.lang.String)
+         */
+        public void setContentType(String type)
+        {
+            this.contentType = type;
+        }
+    }
+
+    /**
+     * Servlet 3.1 output stream.
+     */
+    public static class MockOutputStream extends ServletOutputStream
+    {
+
+        /**
+         * Written content.
+         */
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        /**
+         * Number of writes before isReady() returns false.
+         */
+        int writesBeforeBlocking = Integer.MAX_VALUE;
+
+        /**
+         * Registered listener.
+         */
+        WriteListener listener;
+
+        /**
+         * @return <code>true</code> if the client can accept more content
+         */
+        public boolean isReady()
+        {
+            return this.writesBeforeBlocking > 0;
+        }
+
+        /**
+         * @param value WriteListener
+         */
+        public void setWriteListener(WriteListener value)
+        {
+            this.listener = value;
+        }
+
+        /**
+         * @see java.io.OutputStream#write(int)
+         */
+        public void write(int b)
+        {
+            this.content.write(b);
+        }
+
+        /**
+         * @see java.io.OutputStream#write(byte[], int, int)
+         */
+        public void write(byte[] b, int off, int len)
+        {
+            this.content.write(b, off, len);
+            this.writesBeforeBlocking--;
+        }
+    }
+}
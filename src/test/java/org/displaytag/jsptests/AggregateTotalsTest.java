@@ -0,0 +1,52 @@
+package org.displaytag.jsptests;
+
+import org.displaytag.test.DisplaytagCase;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+import com.meterware.httpunit.WebTable;
+
+
+/**
+ * Tests for totals computed by an AggregatingPaginatedList.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class AggregateTotalsTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "aggregate-totals.jsp";
+    }
+
+    /**
+     * Only items 3 and 4 are displayed, but totals are computed on the full list.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        WebRequest request = new GetMethodWebRequest(jspName);
+        WebResponse response = runner.getResponse(request);
+
+        if (log.isDebugEnabled())
+        {
+            log.debug(response.getText());
+        }
+
+        WebTable[] tables = response.getTables();
+        assertEquals("Wrong number of tables.", 1, tables.length);
+
+        // header, footer, two rows, grand total
+        assertEquals("Wrong number of rows.", 5, tables[0].getRowCount());
+        assertEquals("Wrong varTotals value.", "55.0", tables[0].getCellAsText(1, 0));
+        assertEquals("3", tables[0].getCellAsText(2, 0));
+        assertEquals("4", tables[0].getCellAsText(3, 0));
+        assertEquals("Wrong grand total.", "55.0", tables[0].getCellAsText(4, 0));
+    }
+}
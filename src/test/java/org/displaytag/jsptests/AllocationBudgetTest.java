@@ -0,0 +1,237 @@
+package org.displaytag.jsptests;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.tags.TableTagParameters;
+import org.displaytag.test.AllocationMeter;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.util.ParamEncoder;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.servletunit.InvocationContext;
+import com.meterware.servletunit.ServletRunner;
+
+
+/**
+ * Upper bounds for the memory allocated for each rendered cell and for each exported row, so that allocation
+ * regressions in the rendering and export code fail the build. Each jsp is run with two list sizes and only the
+ * difference is considered, so the fixed cost of the jsp and servlet engine is not counted. Budgets are about 30% over
+ * the measured values: lower them when allocations are reduced. Skipped when the jvm doesn't support
+ * <code>com.sun.management.ThreadMXBean</code>.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class AllocationBudgetTest extends TestCase
+{
+
+    /**
+     * Rows in the smaller list.
+     */
+    private static final int SMALL = 50;
+
+    /**
+     * Rows in the larger list.
+     */
+    private static final int LARGE = 550;
+
+    /**
+     * Runs for each measure, the lowest value is used.
+     */
+    private static final int RUNS = 3;
+
+    /**
+     * logger.
+     */
+    private static Log log = LogFactory.getLog(AllocationBudgetTest.class);
+
+    /**
+     * HttpUnit ServletRunner.
+     */
+    private ServletRunner runner;
+
+    /**
+     * Level of the displaytag logger, restored after the test.
+     */
+    private Level previousLevel;
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    protected void setUp() throws Exception
+    {
+        runner = DisplaytagCase.createServletRunner();
+
+        // debug logging enabled for tests would be measured
+        previousLevel = Logger.getLogger("org.displaytag").getLevel();
+        Logger.getLogger("org.displaytag").setLevel(Level.WARN);
+        super.setUp();
+    }
+
+    /**
+     * @see junit.framework.TestCase#tearDown()
+     */
+    protected void tearDown() throws Exception
+    {
+        Logger.getLogger("org.displaytag").setLevel(previousLevel);
+        runner.shutDown();
+        super.tearDown();
+    }
+
+    /**
+     * Columns generated from bean properties, as in BasicTableTagTest.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testBasicTable() throws Exception
+    {
+        assertCellBudget("allocation-basic.jsp", 3, 1200);
+    }
+
+    /**
+     * Grouped columns, as in GroupTest.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testGroup() throws Exception
+    {
+        assertCellBudget("allocation-group.jsp", 3, 1300);
+    }
+
+    /**
+     * Totaled columns, as in TotalsTest.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testTotals() throws Exception
+    {
+        assertCellBudget("allocation-totals.jsp", 3, 1500);
+    }
+
+    /**
+     * Split table.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testSplitTable() throws Exception
+    {
+        assertCellBudget("allocation-split.jsp", 3, 3000);
+    }
+
+    /**
+     * Csv export of the full list, as in ExportFullTest.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testExportFull() throws Exception
+    {
+        assertRowBudget(MediaTypeEnum.CSV, 1200);
+    }
+
+    /**
+     * Excel export of the full list.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testExportExcel() throws Exception
+    {
+        assertRowBudget(MediaTypeEnum.EXCEL, 1200);
+    }
+
+    /**
+     * Xml export of the full list.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testExportXml() throws Exception
+    {
+        assertRowBudget(MediaTypeEnum.XML, 1500);
+    }
+
+    /**
+     * Checks the memory allocated for each rendered cell.
+     * @param jspName jsp name
+     * @param columns number of columns in the table
+     * @param budget max bytes for each cell
+     * @throws Exception any exception thrown during test.
+     */
+    private void assertCellBudget(String jspName, int columns, long budget) throws Exception
+    {
+        if (!AllocationMeter.isSupported())
+        {
+            log.warn("Allocation can't be measured on this jvm, skipping " + getName());
+            return;
+        }
+
+        WebRequest request = new GetMethodWebRequest(getUrl(jspName));
+        long perCell = (measure(request, LARGE) - measure(request, SMALL)) / ((LARGE - SMALL) * columns);
+        log.debug(jspName + ": " + perCell + " bytes per cell");
+        assertTrue("Allocated " + perCell + " bytes per cell, budget is " + budget, perCell <= budget);
+    }
+
+    /**
+     * Checks the memory allocated for each exported row.
+     * @param media export media
+     * @param budget max bytes for each row
+     * @throws Exception any exception thrown during test.
+     */
+    private void assertRowBudget(MediaTypeEnum media, long budget) throws Exception
+    {
+        if (!AllocationMeter.isSupported())
+        {
+            log.warn("Allocation can't be measured on this jvm, skipping " + getName());
+            return;
+        }
+
+        ParamEncoder encoder = new ParamEncoder("table");
+        WebRequest request = new GetMethodWebRequest(getUrl("allocation-export.jsp"));
+        request.setParameter(
+            encoder.encodeParameterName(TableTagParameters.PARAMETER_EXPORTTYPE),
+            Integer.toString(media.getCode()));
+
+        long perRow = (measure(request, LARGE) - measure(request, SMALL)) / (LARGE - SMALL);
+        log.debug(media + " export: " + perRow + " bytes per row");
+        assertTrue("Allocated " + perRow + " bytes per exported row, budget is " + budget, perRow <= budget);
+    }
+
+    /**
+     * Returns the url of a jsp.
+     * @param jspName jsp name
+     * @return url
+     */
+    private String getUrl(String jspName)
+    {
+        return "http://localhost" + DisplaytagCase.CONTEXT + "/standard/" + jspName;
+    }
+
+    /**
+     * Runs a request, without parsing the response, and returns the allocated bytes.
+     * @param request WebRequest
+     * @param rows rows in the rendered list
+     * @return lowest number of bytes allocated in <code>RUNS</code> runs, after a warm up run
+     * @throws Exception any exception thrown by the servlet engine
+     */
+    private long measure(WebRequest request, int rows) throws Exception
+    {
+        request.setParameter("rows", Integer.toString(rows));
+
+        // first run compiles the jsp and loads classes
+        runner.newClient().newInvocation(request).service();
+
+        long lowest = Long.MAX_VALUE;
+        for (int j = 0; j < RUNS; j++)
+        {
+            InvocationContext invocation = runner.newClient().newInvocation(request);
+            long before = AllocationMeter.getAllocatedBytes();
+            invocation.service();
+            lowest = Math.min(lowest, AllocationMeter.getAllocatedBytes() - before);
+        }
+        return lowest;
+    }
+}
@@ -0,0 +1,75 @@
+package org.displaytag.jsptests;
+
+import org.displaytag.decorator.ClassLoaderColumnDecorator;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.test.KnownTypes;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebResponse;
+
+
+/**
+ * Tests that decorators are cached for each context classloader, as for web applications sharing the displaytag
+ * library.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class DecoratorClassLoaderTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "decorator-classloader.jsp";
+    }
+
+    /**
+     * A stateless decorator is shared by the requests of the same classloader only.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        render(jspName);
+        int instances = ClassLoaderColumnDecorator.getInstances();
+        render(jspName);
+        assertEquals("Stateless decorator not shared.", instances, ClassLoaderColumnDecorator.getInstances());
+
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        thread.setContextClassLoader(new ClassLoader(original)
+        {
+            // another application
+        });
+        try
+        {
+            render(jspName);
+            assertEquals(
+                "Decorator shared with another classloader.",
+                instances + 1,
+                ClassLoaderColumnDecorator.getInstances());
+            render(jspName);
+            assertEquals("Stateless decorator not shared.", instances + 1, ClassLoaderColumnDecorator.getInstances());
+        }
+        finally
+        {
+            thread.setContextClassLoader(original);
+        }
+
+        render(jspName);
+        assertEquals("Stateless decorator not shared.", instances + 1, ClassLoaderColumnDecorator.getInstances());
+    }
+
+    /**
+     * Renders the jsp and checks the decorated value.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    private void render(String jspName) throws Exception
+    {
+        WebResponse response = runner.getResponse(new GetMethodWebRequest(jspName));
+        assertEquals("<" + KnownTypes.LONG_VALUE + ">", response.getTables()[0].getCellAsText(1, 0));
+    }
+}
@@ -0,0 +1,48 @@
+package org.displaytag.jsptests;
+
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.tags.TableTagParameters;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.util.ParamEncoder;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+
+
+/**
+ * Tests that decorated tables are exported immediately also if background exports are enabled, since decorators may
+ * need the page context.
+ * @version $Revision$ ($Author$)
+ */
+public class ExportBackgroundDecoratedTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "export-background-decorated.jsp";
+    }
+
+    /**
+     * The export is written in the response, decorated.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        ParamEncoder encoder = new ParamEncoder("table");
+        WebRequest request = new GetMethodWebRequest(jspName);
+        request.setParameter(
+            encoder.encodeParameterName(TableTagParameters.PARAMETER_EXPORTTYPE),
+            Integer.toString(MediaTypeEnum.CSV.getCode()));
+
+        WebResponse response = runner.getResponse(request);
+
+        assertEquals(200, response.getResponseCode());
+        assertEquals("Expected a different content type.", "text/csv", response.getContentType());
+        assertEquals("Wrong content.", "ant,xcsv camel\nant,xcsv camel\n", response.getText());
+    }
+}
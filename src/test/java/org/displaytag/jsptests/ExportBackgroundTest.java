@@ -0,0 +1,174 @@
+package org.displaytag.jsptests;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.displaytag.export.ExportJob;
+import org.displaytag.export.ExportJobManager;
+import org.displaytag.export.TextExportView;
+import org.displaytag.filter.ExportJobServlet;
+import org.displaytag.model.TableModel;
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.tags.TableTagParameters;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.util.ParamEncoder;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.HttpNotFoundException;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebClient;
+import com.meterware.httpunit.WebResponse;
+
+
+/**
+ * Tests for background exports.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ExportBackgroundTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "export-background.jsp";
+    }
+
+    /**
+     * The table returns a job id, the file is served by ExportJobServlet once ready and only once.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        assertJob(jspName, false);
+        assertJob(jspName, true);
+        assertFailedJob();
+    }
+
+    /**
+     * Runs a background export, without or with the export filter in buffered mode, and reads the exported file.
+     * @param jspName jsp name, with full path
+     * @param filter enable the export filter?
+     * @throws Exception any axception thrown during test.
+     */
+    private void assertJob(String jspName, boolean filter) throws Exception
+    {
+        ParamEncoder encoder = new ParamEncoder("table");
+        String mediaParameter = encoder.encodeParameterName(TableTagParameters.PARAMETER_EXPORTTYPE);
+
+        WebRequest request = new GetMethodWebRequest(jspName);
+        request.setParameter(mediaParameter, Integer.toString(MediaTypeEnum.CSV.getCode()));
+        if (filter)
+        {
+            request.setParameter(TableTagParameters.PARAMETER_EXPORTING, "1");
+        }
+
+        WebResponse response = runner.getResponse(request);
+
+        assertEquals(202, response.getResponseCode());
+        assertEquals("Expected a different content type.", "text/plain", response.getContentType());
+        String jobId = response.getText();
+        assertEquals("Unexpected job id: " + jobId, 32, jobId.length());
+        assertEquals(
+            CONTEXT + "/exportjob?" + ExportJobServlet.PARAMETER_ID + "=" + jobId,
+            response.getHeaderField("Location"));
+
+        WebRequest statusRequest = new GetMethodWebRequest("http://localhost" + CONTEXT + "/exportjob");
+        statusRequest.setParameter(ExportJobServlet.PARAMETER_ID, jobId);
+
+        response = runner.getResponse(statusRequest);
+        for (int j = 0; j < 50 && response.getResponseCode() == 202; j++)
+        {
+            Thread.sleep(100);
+            response = runner.getResponse(statusRequest);
+        }
+
+        assertEquals("Export not completed.", 200, response.getResponseCode());
+        assertEquals("Expected a different content type.", "text/csv", response.getContentType());
+        assertEquals("Wrong content.", "ant,camel\nant,camel\n", response.getText());
+        assertEquals("attachment; filename=\"table.csv\"", response.getHeaderField("Content-Disposition"));
+
+        // file is served only once
+        try
+        {
+            runner.getResponse(statusRequest);
+            fail("Export served twice.");
+        }
+        catch (HttpNotFoundException e)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Failed jobs return a generic 500 error, without the exception details.
+     * @throws Exception any axception thrown during test.
+     */
+    private void assertFailedJob() throws Exception
+    {
+        ExportJob job = ExportJobManager.getInstance().submit(new FailingView(), "text/plain", null, "UTF-8");
+        for (int j = 0; j < 50 && !job.isDone(); j++)
+        {
+            Thread.sleep(100);
+        }
+
+        WebRequest statusRequest = new GetMethodWebRequest("http://localhost" + CONTEXT + "/exportjob");
+        statusRequest.setParameter(ExportJobServlet.PARAMETER_ID, job.getId());
+        WebClient client = runner.newClient();
+        client.setExceptionsThrownOnErrorStatus(false);
+        WebResponse response = client.getResponse(statusRequest);
+
+        assertEquals(500, response.getResponseCode());
+        String sent = response.getResponseMessage() + response.getText();
+        assertEquals("Exception details sent to the client: " + sent, -1, sent.indexOf(FailingView.DETAILS));
+    }
+
+    /**
+     * Export view which always fails.
+     */
+    private static class FailingView implements TextExportView
+    {
+
+        /**
+         * Exception message, must not be sent to the client.
+         */
+        static final String DETAILS = "jdbc:secret://db";
+
+        /**
+         * @see org.displaytag.export.TextExportView#doExport(java.io.Writer)
+         */
+        public void doExport(Writer out) throws IOException
+        {
+            throw new IOException(DETAILS);
+        }
+
+        /**
+         * @see org.displaytag.export.TextExportView#outputPage()
+         */
+        public boolean outputPage()
+        {
+            return false;
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#setParameters(TableModel, boolean, boolean, boolean)
+         */
+        public void setParameters(TableModel tableModel, boolean exportFullList, boolean includeHeader,
+            boolean decorateValues)
+        {
+            // unused
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#getMimeType()
+         */
+        public String getMimeType()
+        {
+            return "text/plain";
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package org.displaytag.jsptests;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.displaytag.export.ExportCancelledException;
+import org.displaytag.export.ExportViewFactory;
+import org.displaytag.export.TextExportView;
+import org.displaytag.model.TableModel;
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.tags.TableTagParameters;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.test.KnownCancellableList;
+import org.displaytag.util.ParamEncoder;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+import com.meterware.servletunit.ServletRunner;
+
+
+/**
+ * Tests that a <code>Cancellable</code> list is released when an export is cancelled, with and without the export
+ * filter.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ExportCancelTest extends DisplaytagCase
+{
+
+    /**
+     * Media type of the cancelled export.
+     */
+    private static final String MEDIA = "cancelled";
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "export-cancel.jsp";
+    }
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#setUp()
+     */
+    protected void setUp() throws Exception
+    {
+        ExportViewFactory.getInstance().registerExportView(MEDIA, CancelledView.class.getName());
+        super.setUp();
+    }
+
+    /**
+     * The export is stopped quietly and the list is cancelled once, without the filter and with the filter in
+     * buffered and unbuffered mode.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        assertCancelled(runner, jspName, false);
+        assertCancelled(runner, jspName, true);
+
+        ServletRunner unbuffered = createServletRunner("WEB-INF/web-unbuffered.xml");
+        try
+        {
+            assertCancelled(unbuffered, jspName, true);
+        }
+        finally
+        {
+            unbuffered.shutDown();
+        }
+    }
+
+    /**
+     * Runs an export which is cancelled while writing, and checks that the list has been released.
+     * @param servletRunner ServletRunner
+     * @param jspName jsp name, with full path
+     * @param filter enable the export filter?
+     * @throws Exception any axception thrown during test.
+     */
+    private void assertCancelled(ServletRunner servletRunner, String jspName, boolean filter) throws Exception
+    {
+        ParamEncoder encoder = new ParamEncoder("table");
+        WebRequest request = new GetMethodWebRequest(jspName);
+        request.setParameter(
+            encoder.encodeParameterName(TableTagParameters.PARAMETER_EXPORTTYPE),
+            Integer.toString(MediaTypeEnum.fromName(MEDIA).getCode()));
+        if (filter)
+        {
+            request.setParameter(TableTagParameters.PARAMETER_EXPORTING, "1");
+        }
+
+        int cancelCount = KnownCancellableList.getCancelCount();
+        WebResponse response = servletRunner.getResponse(request);
+
+        assertEquals("Cancelled export must not fail.", 200, response.getResponseCode());
+        assertEquals("List not cancelled.", cancelCount + 1, KnownCancellableList.getCancelCount());
+    }
+
+    /**
+     * Export view which stops after the first chars, as when ExportWriter finds that the client has gone away.
+     */
+    public static class CancelledView implements TextExportView
+    {
+
+        /**
+         * @see org.displaytag.export.TextExportView#doExport(java.io.Writer)
+         */
+        public void doExport(Writer out) throws IOException
+        {
+            out.write("ant");
+            throw new ExportCancelledException();
+        }
+
+        /**
+         * @see org.displaytag.export.TextExportView#outputPage()
+         */
+        public boolean outputPage()
+        {
+            return false;
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#setParameters(TableModel, boolean, boolean, boolean)
+         */
+        public void setParameters(TableModel tableModel, boolean exportFullList, boolean includeHeader,
+            boolean decorateValues)
+        {
+            // nothing to set
+        }
+
+        /**
+         * @see org.displaytag.export.ExportView#getMimeType()
+         */
+        public String getMimeType()
+        {
+            return "text/plain";
+        }
+    }
+}
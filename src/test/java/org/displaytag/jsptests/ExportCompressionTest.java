@@ -0,0 +1,180 @@
+package org.displaytag.jsptests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.tags.TableTagParameters;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.util.ParamEncoder;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+import com.meterware.servletunit.ServletRunner;
+
+
+/**
+ * Tests for compressed exports.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ExportCompressionTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "export-compress.jsp";
+    }
+
+    /**
+     * Csv is packaged as zip, xml is gzipped only when accepted by the client. Content length is set only when the
+     * export filter is used in buffered mode, and is always the compressed one.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        // streaming
+        WebResponse response = runner.getResponse(getExportRequest(jspName, MediaTypeEnum.CSV, false));
+        assertZipped(response);
+
+        // filter, buffered
+        response = runner.getResponse(getExportRequest(jspName, MediaTypeEnum.CSV, true));
+        assertEquals("Wrong content length.", assertZipped(response), response.getContentLength());
+
+        // gzip not accepted
+        WebRequest request = getExportRequest(jspName, MediaTypeEnum.XML, false);
+        request.setHeaderField("Accept-Encoding", "identity, gzip;q=0");
+        response = runner.getResponse(request);
+        assertNull(response.getHeaderField("Content-Encoding"));
+        assertEquals("Response must vary on encoding.", "Accept-Encoding", response.getHeaderField("Vary"));
+        String plainXml = response.getText();
+
+        request = getExportRequest(jspName, MediaTypeEnum.XML, true);
+        request.setHeaderField("Accept-Encoding", "gzip;q=0, *");
+        response = runner.getResponse(request);
+        assertNull(response.getHeaderField("Content-Encoding"));
+        assertEquals("Response must vary on encoding.", "Accept-Encoding", response.getHeaderField("Vary"));
+        assertEquals(plainXml, response.getText());
+
+        request = getExportRequest(jspName, MediaTypeEnum.XML, false);
+        request.setHeaderField("Accept-Encoding", "deflate, gzip;q=0.5");
+        response = runner.getResponse(request);
+        assertEquals(plainXml, gunzip(response));
+
+        request = getExportRequest(jspName, MediaTypeEnum.XML, true);
+        request.setHeaderField("Accept-Encoding", "gzip");
+        response = runner.getResponse(request);
+        assertTrue("Content length should be set.", response.getContentLength() > -1);
+        assertEquals(plainXml, gunzip(response));
+
+        assertUnbuffered(jspName, plainXml);
+    }
+
+    /**
+     * Compressed exports through the export filter in unbuffered mode are streamed, with no content length.
+     * @param jspName jsp name, with full path
+     * @param plainXml uncompressed xml export
+     * @throws Exception any axception thrown during test.
+     */
+    private void assertUnbuffered(String jspName, String plainXml) throws Exception
+    {
+        ServletRunner unbuffered = createServletRunner("WEB-INF/web-unbuffered.xml");
+        try
+        {
+            WebResponse response = unbuffered.getResponse(getExportRequest(jspName, MediaTypeEnum.CSV, true));
+            assertZipped(response);
+            assertEquals("Content length must not be set.", -1, response.getContentLength());
+            assertNull(response.getHeaderField("Vary"));
+
+            WebRequest request = getExportRequest(jspName, MediaTypeEnum.XML, true);
+            request.setHeaderField("Accept-Encoding", "*;q=0, gzip");
+            response = unbuffered.getResponse(request);
+            assertEquals("Content length must not be set.", -1, response.getContentLength());
+            assertEquals("Accept-Encoding", response.getHeaderField("Vary"));
+            assertEquals(plainXml, gunzip(response));
+        }
+        finally
+        {
+            unbuffered.shutDown();
+        }
+    }
+
+    /**
+     * Checks a zipped csv export.
+     * @param response WebResponse
+     * @return length of the zip archive
+     * @throws Exception any axception thrown while reading the response.
+     */
+    private int assertZipped(WebResponse response) throws Exception
+    {
+        assertEquals("Expected a different content type.", "application/zip", response.getContentType());
+        assertEquals("attachment; filename=\"table.zip\"", response.getHeaderField("Content-Disposition"));
+
+        byte[] content = readFully(response.getInputStream());
+        ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(content));
+        ZipEntry entry = zip.getNextEntry();
+        assertEquals("table.csv", entry.getName());
+        assertEquals("ant,camel\nant,camel\n", new String(readFully(zip)));
+        return content.length;
+    }
+
+    /**
+     * Decodes a gzipped response (decoding is done by httpunit).
+     * @param response WebResponse
+     * @return decoded content
+     * @throws Exception any axception thrown while reading the response.
+     */
+    private String gunzip(WebResponse response) throws Exception
+    {
+        assertEquals("gzip", response.getHeaderField("Content-Encoding"));
+        return response.getText();
+    }
+
+    /**
+     * Builds an export request for the given media.
+     * @param jspName jsp name, with full path
+     * @param media media type
+     * @param filter enable the export filter?
+     * @return WebRequest
+     */
+    private WebRequest getExportRequest(String jspName, MediaTypeEnum media, boolean filter)
+    {
+        ParamEncoder encoder = new ParamEncoder("table");
+        String mediaParameter = encoder.encodeParameterName(TableTagParameters.PARAMETER_EXPORTTYPE);
+
+        WebRequest request = new GetMethodWebRequest(jspName);
+        request.setParameter(mediaParameter, Integer.toString(media.getCode()));
+        if (filter)
+        {
+            request.setParameter(TableTagParameters.PARAMETER_EXPORTING, "1");
+        }
+        return request;
+    }
+
+    /**
+     * Reads a stream.
+     * @param in InputStream
+     * @return content
+     * @throws Exception any axception thrown while reading.
+     */
+    private byte[] readFully(InputStream in) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+        {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+}
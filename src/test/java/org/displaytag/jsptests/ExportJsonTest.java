@@ -0,0 +1,69 @@
+package org.displaytag.jsptests;
+
+import org.displaytag.export.ExportViewFactory;
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.tags.TableTagParameters;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.util.ParamEncoder;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+
+
+/**
+ * Tests for json and ndjson export.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ExportJsonTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "export-json.jsp";
+    }
+
+    /**
+     * Full list is exported as a json array, keyed by property or title.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        // registers json and ndjson media types
+        ExportViewFactory.getInstance();
+
+        WebResponse response = runner.getResponse(getExportRequest(jspName, "json"));
+
+        assertEquals("Expected a different content type.", "application/json", response.getContentType());
+        assertEquals("Wrong content.", "[{\"ant\":\"ant\",\"b\\\"ee\":\"bee\",\"camel\":\"camel\"},\n"
+            + "{\"ant\":\"ant\",\"b\\\"ee\":\"bee\",\"camel\":\"camel\"}]\n", response.getText());
+
+        response = runner.getResponse(getExportRequest(jspName, "ndjson"));
+
+        assertEquals("Expected a different content type.", "application/x-ndjson", response.getContentType());
+        assertEquals("Wrong content.", "{\"ant\":\"ant\",\"b\\\"ee\":\"bee\",\"camel\":\"camel\"}\n"
+            + "{\"ant\":\"ant\",\"b\\\"ee\":\"bee\",\"camel\":\"camel\"}\n", response.getText());
+    }
+
+    /**
+     * Builds an export request for the given media.
+     * @param jspName jsp name, with full path
+     * @param media media name
+     * @return WebRequest
+     */
+    private WebRequest getExportRequest(String jspName, String media)
+    {
+        ParamEncoder encoder = new ParamEncoder("table");
+        String mediaParameter = encoder.encodeParameterName(TableTagParameters.PARAMETER_EXPORTTYPE);
+
+        WebRequest request = new GetMethodWebRequest(jspName);
+        request.setParameter(mediaParameter, Integer.toString(MediaTypeEnum.fromName(media).getCode()));
+        return request;
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.displaytag.jsptests;
+
+import org.displaytag.export.CsvView;
+import org.displaytag.export.ExportLimiter;
+import org.displaytag.export.ExportViewFactory;
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.tags.TableTagParameters;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.test.KnownCancellableList;
+import org.displaytag.util.ParamEncoder;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.HttpException;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+
+
+/**
+ * Tests that an export rejected by the ExportLimiter is answered with a 503 without reading the list, and that the
+ * slot of an admitted export is released.
+ * @version $Revision$ ($Author$)
+ */
+public class ExportLimitTest extends DisplaytagCase
+{
+
+    /**
+     * Media type limited to one running export in displaytag.properties.
+     */
+    private static final String MEDIA = "limited";
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "export-limit.jsp";
+    }
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#setUp()
+     */
+    protected void setUp() throws Exception
+    {
+        ExportViewFactory.getInstance().registerExportView(MEDIA, CsvView.class.getName());
+        super.setUp();
+    }
+
+    /**
+     * While the only slot is taken the export is rejected before the list is iterated, without and with the export
+     * filter. Once the slot is free the export runs and gives its slot back.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        MediaTypeEnum media = MediaTypeEnum.fromName(MEDIA);
+        ExportLimiter limiter = ExportLimiter.getInstance();
+        int running = limiter.getRunning();
+
+        assertTrue(limiter.acquire(media));
+        try
+        {
+            assertRejected(jspName, false);
+            assertRejected(jspName, true);
+        }
+        finally
+        {
+            limiter.release(media);
+        }
+
+        int iteratorCount = KnownCancellableList.getIteratorCount();
+        WebResponse response = runner.getResponse(createRequest(jspName, true));
+        assertEquals(200, response.getResponseCode());
+        assertTrue("List not iterated.", KnownCancellableList.getIteratorCount() > iteratorCount);
+        assertEquals("Export slot not released.", running, limiter.getRunning());
+    }
+
+    /**
+     * Runs an export while the limit is reached, and checks that it is answered with a 503 without iterating the
+     * list.
+     * @param jspName jsp name, with full path
+     * @param filter enable the export filter?
+     * @throws Exception any axception thrown during test.
+     */
+    private void assertRejected(String jspName, boolean filter) throws Exception
+    {
+        int iteratorCount = KnownCancellableList.getIteratorCount();
+        try
+        {
+            runner.getResponse(createRequest(jspName, filter));
+            fail("Expected a 503 response.");
+        }
+        catch (HttpException e)
+        {
+            assertEquals(503, e.getResponseCode());
+        }
+        assertEquals("Rejected export iterated the list.", iteratorCount, KnownCancellableList.getIteratorCount());
+    }
+
+    /**
+     * Creates a request for an export of the limited media.
+     * @param jspName jsp name, with full path
+     * @param filter enable the export filter?
+     * @return WebRequest
+     */
+    private WebRequest createRequest(String jspName, boolean filter)
+    {
+        ParamEncoder encoder = new ParamEncoder("table");
+        WebRequest request = new GetMethodWebRequest(jspName);
+        request.setParameter(
+            encoder.encodeParameterName(TableTagParameters.PARAMETER_EXPORTTYPE),
+            Integer.toString(MediaTypeEnum.fromName(MEDIA).getCode()));
+        if (filter)
+        {
+            request.setParameter(TableTagParameters.PARAMETER_EXPORTING, "1");
+        }
+        return request;
+    }
+}
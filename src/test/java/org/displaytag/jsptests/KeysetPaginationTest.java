@@ -0,0 +1,120 @@
+package org.displaytag.jsptests;
+
+import org.displaytag.test.DisplaytagCase;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebLink;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+import com.meterware.httpunit.WebTable;
+
+
+/**
+ * Tests for keyset paginated lists, with an unknown size.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class KeysetPaginationTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "keyset.jsp";
+    }
+
+    /**
+     * Navigation links carry cursors, page number and sort.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        // first page
+        WebResponse response = runner.getResponse(new GetMethodWebRequest(jspName));
+        assertPage(response, 1, 3);
+        assertEquals("items 1-3", response.getElementWithID("pagebanner").getText());
+        assertNull("No link expected to the first page", response.getLinkWith("First"));
+        assertNull("No link expected to the last page", response.getLinkWith("Last"));
+
+        WebLink next = response.getLinkWith("Next");
+        assertEqualsIgnoreOrder("Wrong parameters.", new String[]{"page", "cursor", "sort", "dir"}, next
+            .getParameterNames());
+        assertEquals("2", next.getParameterValues("page")[0]);
+        assertEquals("a3", next.getParameterValues("cursor")[0]);
+        assertEquals("number", next.getParameterValues("sort")[0]);
+        assertEquals("asc", next.getParameterValues("dir")[0]);
+
+        // second page
+        response = runner.getResponse(getRequest(jspName, "2", "a3"));
+        assertPage(response, 4, 6);
+        assertEquals("items 4-6", response.getElementWithID("pagebanner").getText());
+
+        WebLink previous = response.getLinkWith("Prev");
+        assertEquals("1", previous.getParameterValues("page")[0]);
+        assertEquals("b4", previous.getParameterValues("cursor")[0]);
+        assertEquals("a6", response.getLinkWith("Next").getParameterValues("cursor")[0]);
+
+        WebLink first = response.getLinkWith("First");
+        assertEqualsIgnoreOrder("Wrong parameters.", new String[]{"page", "sort", "dir"}, first.getParameterNames());
+        assertEquals("1", first.getParameterValues("page")[0]);
+
+        // sorting restarts from the first page
+        WebLink sortingLink = response.getTables()[0].getTableCell(0, 0).getLinks()[0];
+        assertEqualsIgnoreOrder("Wrong parameters.", new String[]{"sort", "dir"}, sortingLink.getParameterNames());
+
+        // back to the first page
+        response = runner.getResponse(getRequest(jspName, "1", "b4"));
+        assertPage(response, 1, 3);
+
+        // last page
+        response = runner.getResponse(getRequest(jspName, "4", "a9"));
+        assertPage(response, 10, 10);
+        assertEquals("items 10-10", response.getElementWithID("pagebanner").getText());
+        assertNull("No link expected to the next page", response.getLinkWith("Next"));
+        assertEquals("b10", response.getLinkWith("Prev").getParameterValues("cursor")[0]);
+    }
+
+    /**
+     * Builds a request for a page.
+     * @param jspName jsp name, with full path
+     * @param page page number
+     * @param cursor cursor
+     * @return WebRequest
+     */
+    private WebRequest getRequest(String jspName, String page, String cursor)
+    {
+        WebRequest request = new GetMethodWebRequest(jspName);
+        request.setParameter("page", page);
+        request.setParameter("cursor", cursor);
+        request.setParameter("sort", "number");
+        request.setParameter("dir", "asc");
+        return request;
+    }
+
+    /**
+     * Checks the rows of a page.
+     * @param response WebResponse
+     * @param first first expected number
+     * @param last last expected number
+     * @throws Exception any axception thrown while reading the response.
+     */
+    private void assertPage(WebResponse response, int first, int last) throws Exception
+    {
+        if (log.isDebugEnabled())
+        {
+            log.debug(response.getText());
+        }
+
+        WebTable[] tables = response.getTables();
+        assertEquals("Wrong number of tables.", 1, tables.length);
+        assertEquals("Wrong number of rows.", last - first + 2, tables[0].getRowCount());
+        for (int j = first; j <= last; j++)
+        {
+            assertEquals(Integer.toString(j), tables[0].getCellAsText(j - first + 1, 0));
+        }
+    }
+
+}
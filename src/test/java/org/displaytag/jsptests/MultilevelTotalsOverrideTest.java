@@ -0,0 +1,53 @@
+package org.displaytag.jsptests;
+
+import org.displaytag.test.DisplaytagCase;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+import com.meterware.httpunit.WebTable;
+
+
+/**
+ * Tests that totals are read from getTotalForColumn() when a subclass of MultilevelTotalTableDecorator overrides it.
+ * @version $Revision$ ($Author$)
+ */
+public class MultilevelTotalsOverrideTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "multilevel-totals-override.jsp";
+    }
+
+    /**
+     * Subtotals and grand total are the row counts returned by RowCountTotalTableDecorator.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        WebRequest request = new GetMethodWebRequest(jspName);
+        WebResponse response = runner.getResponse(request);
+
+        WebTable[] tables = response.getTables();
+        assertEquals("Wrong number of tables.", 1, tables.length);
+        WebTable table = tables[0];
+        assertEquals("Wrong number of rows.", 16, table.getRowCount());
+
+        assertEquals("a Total", table.getCellAsText(5, 1));
+        assertEquals("2", table.getCellAsText(5, 2));
+        assertEquals("north Total", table.getCellAsText(8, 0));
+        assertEquals("3", table.getCellAsText(8, 2));
+        assertEquals("c Total", table.getCellAsText(13, 1));
+        assertEquals("2", table.getCellAsText(13, 2));
+        assertEquals("south Total", table.getCellAsText(14, 0));
+        assertEquals("2", table.getCellAsText(14, 2));
+        assertEquals("Grand Total", table.getCellAsText(15, 0));
+        assertEquals("5", table.getCellAsText(15, 2));
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.displaytag.jsptests;
+
+import org.displaytag.test.DisplaytagCase;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+import com.meterware.httpunit.WebTable;
+
+
+/**
+ * Tests for subtotals and totals computed by MultilevelTotalTableDecorator.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class MultilevelTotalsTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "multilevel-totals.jsp";
+    }
+
+    /**
+     * Subtotals are printed for groups with more than one row, single row groups are still included in the totals of
+     * the enclosing groups.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        WebRequest request = new GetMethodWebRequest(jspName);
+        WebResponse response = runner.getResponse(request);
+
+        WebTable[] tables = response.getTables();
+        assertEquals("Wrong number of tables.", 1, tables.length);
+        WebTable table = tables[0];
+        assertEquals("Wrong number of rows.", 16, table.getRowCount());
+
+        assertEquals("a Total", table.getCellAsText(5, 1));
+        assertEquals("3.0", table.getCellAsText(5, 2));
+        assertEquals("north Total", table.getCellAsText(8, 0));
+        assertEquals("7.0", table.getCellAsText(8, 2));
+        assertEquals("c Total", table.getCellAsText(13, 1));
+        assertEquals("24.0", table.getCellAsText(13, 2));
+        assertEquals("south Total", table.getCellAsText(14, 0));
+        assertEquals("24.0", table.getCellAsText(14, 2));
+        assertEquals("Grand Total", table.getCellAsText(15, 0));
+        assertEquals("31.0", table.getCellAsText(15, 2));
+    }
+
+}
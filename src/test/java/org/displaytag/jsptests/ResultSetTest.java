@@ -0,0 +1,97 @@
+package org.displaytag.jsptests;
+
+import org.displaytag.tags.TableTagParameters;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.util.ParamEncoder;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+import com.meterware.httpunit.WebTable;
+
+
+/**
+ * Tests for tables with a java.sql.ResultSet as data source.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ResultSetTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "resultset.jsp";
+    }
+
+    /**
+     * Columns are read from the result set, only displayed rows are read from scrollable result sets.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        // forward only, all the rows are read
+        WebResponse response = runner.getResponse(getRequest(jspName, false));
+        assertPage(response, 2);
+        assertEquals("[1, 2, 3, 4, 5, 6, 7, 8, 9, 10]", response.getElementWithID("read").getText());
+
+        // scrollable, only the current page is read
+        response = runner.getResponse(getRequest(jspName, true));
+        assertPage(response, 2);
+        assertEquals("[4, 5, 6]", response.getElementWithID("read").getText());
+
+        // columns from metadata
+        response = runner.getResponse(new GetMethodWebRequest(jspName.replaceAll("resultset", "resultset-auto")));
+        WebTable[] tables = response.getTables();
+        assertEquals("Wrong number of tables.", 1, tables.length);
+        assertEquals("Bad number of generated columns.", 3, tables[0].getColumnCount());
+        assertEquals("ID", tables[0].getCellAsText(0, 0));
+        assertEquals("name2", tables[0].getCellAsText(2, 1));
+    }
+
+    /**
+     * Builds a request for the second page.
+     * @param jspName jsp name, with full path
+     * @param scrollable use a scrollable result set?
+     * @return WebRequest
+     */
+    private WebRequest getRequest(String jspName, boolean scrollable)
+    {
+        WebRequest request = new GetMethodWebRequest(jspName);
+        request.setParameter(new ParamEncoder("table").encodeParameterName(TableTagParameters.PARAMETER_PAGE), "2");
+        if (scrollable)
+        {
+            request.setParameter("scroll", "true");
+        }
+        return request;
+    }
+
+    /**
+     * Checks a page of the table.
+     * @param response WebResponse
+     * @param page expected page
+     * @throws Exception any axception thrown while reading the response.
+     */
+    private void assertPage(WebResponse response, int page) throws Exception
+    {
+        if (log.isDebugEnabled())
+        {
+            log.debug(response.getText());
+        }
+
+        WebTable[] tables = response.getTables();
+        assertEquals("Wrong number of tables.", 1, tables.length);
+        assertEquals("Wrong number of rows.", 4, tables[0].getRowCount());
+
+        int first = (page - 1) * 3 + 1;
+        for (int j = 0; j < 3; j++)
+        {
+            assertEquals("name" + (first + j), tables[0].getCellAsText(j + 1, 0));
+            assertEquals(Double.toString((first + j) * 10), tables[0].getCellAsText(j + 1, 1));
+        }
+    }
+
+}
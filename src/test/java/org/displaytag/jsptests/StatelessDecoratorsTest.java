@@ -0,0 +1,55 @@
+package org.displaytag.jsptests;
+
+import org.displaytag.decorator.CountingStatelessColumnDecorator;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.test.KnownTypes;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+import com.meterware.httpunit.WebTable;
+
+
+/**
+ * Tests for shared instances of stateless column decorators.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class StatelessDecoratorsTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "stateless-decorators.jsp";
+    }
+
+    /**
+     * A single instance of a stateless decorator is used for all the columns and requests.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        for (int j = 0; j < 2; j++)
+        {
+            WebRequest request = new GetMethodWebRequest(jspName);
+            WebResponse response = runner.getResponse(request);
+
+            if (log.isDebugEnabled())
+            {
+                log.debug(response.getText());
+            }
+
+            WebTable[] tables = response.getTables();
+            assertEquals("Wrong number of tables.", 1, tables.length);
+            assertEquals("[" + KnownTypes.LONG_VALUE + "]", tables[0].getCellAsText(1, 0));
+            assertEquals("[[" + KnownTypes.LONG_VALUE + "]]", tables[0].getCellAsText(1, 1));
+        }
+
+        assertEquals("Stateless decorator instantiated more than once.", 1, CountingStatelessColumnDecorator
+            .getInstances());
+    }
+}
@@ -0,0 +1,68 @@
+package org.displaytag.jsptests;
+
+import org.displaytag.properties.MediaTypeEnum;
+import org.displaytag.stats.ColumnProfile;
+import org.displaytag.stats.RecordingStatsListener;
+import org.displaytag.stats.TableStats;
+import org.displaytag.tags.TableTagParameters;
+import org.displaytag.test.DisplaytagCase;
+import org.displaytag.util.ParamEncoder;
+
+import com.meterware.httpunit.GetMethodWebRequest;
+import com.meterware.httpunit.WebRequest;
+import com.meterware.httpunit.WebResponse;
+
+
+/**
+ * Tests for the statistics sent to a TableStatsListener.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class TableStatsTest extends DisplaytagCase
+{
+
+    /**
+     * @see org.displaytag.test.DisplaytagCase#getJspName()
+     */
+    public String getJspName()
+    {
+        return "table-stats.jsp";
+    }
+
+    /**
+     * Statistics are recorded for html and exports.
+     * @param jspName jsp name, with full path
+     * @throws Exception any axception thrown during test.
+     */
+    public void doTest(String jspName) throws Exception
+    {
+        WebRequest request = new GetMethodWebRequest(jspName);
+        runner.getResponse(request);
+
+        TableStats stats = RecordingStatsListener.getLast();
+        assertEquals("stats", stats.getUid());
+        assertEquals(MediaTypeEnum.HTML, stats.getMedia());
+        assertEquals(3, stats.getRows());
+        assertEquals(2, stats.getColumns());
+        assertTrue("Html size not recorded.", stats.getSize() > 0);
+        assertTrue("Render time not recorded.", stats.getTime(TableStats.RENDER) > 0);
+        assertEquals(0, stats.getTime(TableStats.EXPORT));
+
+        ColumnProfile profile = stats.getColumnProfile();
+        assertEquals(3, profile.getCalls(0, ColumnProfile.LOOKUP));
+        assertEquals(3, profile.getCalls(1, ColumnProfile.CHOP_AND_LINK));
+        assertEquals(0, profile.getCalls(0, ColumnProfile.TABLE_DECORATOR));
+
+        ParamEncoder encoder = new ParamEncoder("stats");
+        request.setParameter(
+            encoder.encodeParameterName(TableTagParameters.PARAMETER_EXPORTTYPE),
+            Integer.toString(MediaTypeEnum.CSV.getCode()));
+        WebResponse response = runner.getResponse(request);
+
+        stats = RecordingStatsListener.getLast();
+        assertEquals(MediaTypeEnum.CSV, stats.getMedia());
+        assertEquals(response.getText().length(), stats.getSize());
+        assertTrue("Export time not recorded.", stats.getTime(TableStats.EXPORT) > 0);
+        assertEquals(0, stats.getTime(TableStats.RENDER));
+    }
+}
@@ -0,0 +1,56 @@
+package org.displaytag.localization;
+
+import java.util.Locale;
+
+import junit.framework.TestCase;
+
+import org.displaytag.properties.TableProperties;
+
+
+/**
+ * Test case for I18nResourceCache.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class I18nResourceCacheTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Resources are cached by message source, locale and key.
+     */
+    public void testCache()
+    {
+        Object source = new Object();
+        assertNull(I18nResourceCache.get(source, Locale.ENGLISH, "key"));
+
+        I18nResourceCache.put(source, Locale.ENGLISH, "key", "value");
+        I18nResourceCache.put(source, Locale.ITALIAN, "missing", null);
+
+        assertEquals("value", I18nResourceCache.get(source, Locale.ENGLISH, "key"));
+        assertNull(I18nResourceCache.get(source, Locale.ITALIAN, "key"));
+        assertNull(I18nResourceCache.get(new Object(), Locale.ENGLISH, "key"));
+        assertSame(I18nResourceCache.MISSING, I18nResourceCache.get(source, Locale.ITALIAN, "missing"));
+    }
+
+    /**
+     * The cache is cleared with the table properties.
+     */
+    public void testClear()
+    {
+        Object source = new Object();
+        I18nResourceCache.put(source, null, "key", "value");
+        assertEquals("value", I18nResourceCache.get(source, null, "key"));
+
+        TableProperties.clearProperties();
+        assertNull(I18nResourceCache.get(source, null, "key"));
+    }
+
+}
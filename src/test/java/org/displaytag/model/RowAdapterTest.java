@@ -0,0 +1,107 @@
+package org.displaytag.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.displaytag.test.KnownValue;
+
+
+/**
+ * Test case for RowAdapter.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class RowAdapterTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Adapter is chosen from the row type.
+     */
+    public void testForRow()
+    {
+        assertSame(RowAdapter.MAP, RowAdapter.forRow(new HashMap()));
+        assertSame(RowAdapter.INDEXED, RowAdapter.forRow(new Object[0]));
+        assertSame(RowAdapter.INDEXED, RowAdapter.forRow(new ArrayList()));
+        assertSame(RowAdapter.BEAN, RowAdapter.forRow(new KnownValue()));
+        assertSame(RowAdapter.BEAN, RowAdapter.forRow(new int[0]));
+        assertSame(RowAdapter.BEAN, RowAdapter.forRow(null));
+    }
+
+    /**
+     * Map rows, also with nested keys.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testMap() throws Exception
+    {
+        Map nested = new HashMap();
+        nested.put("key", "nested");
+        Map row = new HashMap();
+        row.put("key", "value");
+        row.put("map(key)", "mapped");
+        row.put("inner", nested);
+
+        assertEquals("value", RowAdapter.MAP.getProperty(row, "key"));
+        assertEquals("mapped", RowAdapter.MAP.getProperty(row, "map(key)"));
+        assertEquals("nested", RowAdapter.MAP.getProperty(row, "inner.key"));
+        assertNull(RowAdapter.MAP.getProperty(row, "missing"));
+
+        // not a map
+        assertEquals("ant", RowAdapter.MAP.getProperty(new KnownValue(), "ant"));
+    }
+
+    /**
+     * Array and list rows.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testIndexed() throws Exception
+    {
+        Object[] row = new Object[]{"zero", new KnownValue()};
+
+        assertEquals("zero", RowAdapter.INDEXED.getProperty(row, "[0]"));
+        assertEquals("zero", RowAdapter.INDEXED.getProperty(Arrays.asList(row), "[0]"));
+        assertEquals("ant", RowAdapter.INDEXED.getProperty(row, "[1].ant"));
+        assertEquals("ant", RowAdapter.INDEXED.getProperty(new KnownValue(), "ant"));
+
+        try
+        {
+            RowAdapter.INDEXED.getProperty(row, "[2]");
+            fail("Expected ArrayIndexOutOfBoundsException, as thrown by LookupUtil");
+        }
+        catch (ArrayIndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Rows are sorted using the adapter.
+     */
+    public void testSort()
+    {
+        List rows = new ArrayList();
+        rows.add(new Row(new Object[]{"b"}, 0));
+        rows.add(new Row(new Object[]{"c"}, 1));
+        rows.add(new Row(new Object[]{"a"}, 2));
+
+        Collections.sort(rows, new RowSorter(0, "[0]", null, true, new DefaultComparator(), RowAdapter.INDEXED));
+
+        assertEquals("a", ((Object[]) ((Row) rows.get(0)).getObject())[0]);
+        assertEquals("b", ((Object[]) ((Row) rows.get(1)).getObject())[0]);
+        assertEquals("c", ((Object[]) ((Row) rows.get(2)).getObject())[0]);
+    }
+
+}
@@ -0,0 +1,131 @@
+package org.displaytag.pagination;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.displaytag.test.KnownResultSet;
+
+
+/**
+ * Test case for ResultSetSource.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ResultSetSourceTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Rows are maps of column label - value.
+     */
+    public void testRows()
+    {
+        ResultSetSource source = new ResultSetSource(new KnownResultSet(2, ResultSet.TYPE_FORWARD_ONLY)
+            .getResultSet());
+        assertEquals(Arrays.asList(KnownResultSet.COLUMNS), Arrays.asList(source.getColumnNames()));
+        assertFalse(source.isScrollable());
+
+        Iterator iterator = source.iterator(1, Long.MAX_VALUE);
+        Map row = (Map) iterator.next();
+        assertEquals(new Integer(1), row.get("ID"));
+        assertEquals("name1", row.get("NAME"));
+        assertEquals("name1", row.get("name"));
+        assertNull(row.get("Name"));
+        assertEquals(new Double(10), row.get("AMOUNT"));
+        assertEquals(Arrays.asList(KnownResultSet.COLUMNS), Arrays.asList(row.keySet().toArray()));
+
+        assertTrue(iterator.hasNext());
+        assertEquals("name2", ((Map) iterator.next()).get("NAME"));
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * Forward only result sets are read sequentially, the range is ignored.
+     */
+    public void testForwardOnly()
+    {
+        KnownResultSet resultSet = new KnownResultSet(5, ResultSet.TYPE_FORWARD_ONLY);
+        ResultSetSource source = new ResultSetSource(resultSet.getResultSet());
+
+        int rows = 0;
+        for (Iterator iterator = source.iterator(3, 4); iterator.hasNext();)
+        {
+            assertNotNull(iterator.next());
+            rows++;
+        }
+        assertEquals(5, rows);
+        assertEquals(5, resultSet.getReadRows().size());
+
+        try
+        {
+            source.getSize();
+            fail("Size of forward only result sets can't be known");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Rows outside the range are skipped in scrollable result sets.
+     */
+    public void testScrollable()
+    {
+        KnownResultSet resultSet = new KnownResultSet(10, ResultSet.TYPE_SCROLL_INSENSITIVE);
+        ResultSetSource source = new ResultSetSource(resultSet.getResultSet());
+        assertTrue(source.isScrollable());
+        assertEquals(10, source.getSize());
+
+        Iterator iterator = source.iterator(4, 6);
+        for (int j = 1; j <= 10; j++)
+        {
+            Map row = (Map) iterator.next();
+            if (j < 4 || j > 6)
+            {
+                assertNull("Row " + j + " should be skipped", row);
+            }
+            else
+            {
+                assertEquals(new Integer(j), row.get("ID"));
+            }
+        }
+        assertFalse(iterator.hasNext());
+        assertEquals(Arrays.asList(new Integer[]{new Integer(4), new Integer(5), new Integer(6)}), resultSet
+            .getReadRows());
+    }
+
+    /**
+     * Empty scrollable result set.
+     */
+    public void testEmpty()
+    {
+        ResultSetSource source = new ResultSetSource(new KnownResultSet(0, ResultSet.TYPE_SCROLL_INSENSITIVE)
+            .getResultSet());
+        assertEquals(0, source.getSize());
+        assertFalse(source.iterator(1, 10).hasNext());
+        assertFalse(source.iterator(1, Long.MAX_VALUE).hasNext());
+    }
+
+    /**
+     * Cancel closes the result set.
+     */
+    public void testCancel()
+    {
+        KnownResultSet resultSet = new KnownResultSet(1, ResultSet.TYPE_FORWARD_ONLY);
+        new ResultSetSource(resultSet.getResultSet()).cancel();
+        assertTrue(resultSet.isClosed());
+    }
+
+}
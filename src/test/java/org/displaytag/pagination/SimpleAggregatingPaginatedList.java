@@ -0,0 +1,43 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.pagination;
+
+/**
+ * Paginated list of ten numbered items which computes the sum of the full list.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class SimpleAggregatingPaginatedList extends SimplePaginatedList implements AggregatingPaginatedList
+{
+
+    /**
+     * Instantiates a new paginated list.
+     */
+    public SimpleAggregatingPaginatedList(int objectsPerPage, int currentPage)
+    {
+        super(objectsPerPage, currentPage);
+    }
+
+    /**
+     * @see org.displaytag.pagination.AggregatingPaginatedList#getAggregate(java.lang.String, java.lang.String)
+     */
+    public Number getAggregate(String propertyName, String function)
+    {
+        if ("number".equals(propertyName) && "sum".equals(function))
+        {
+            // 1 + 2 + ... + 10
+            return new Double(55);
+        }
+        return null;
+    }
+
+}
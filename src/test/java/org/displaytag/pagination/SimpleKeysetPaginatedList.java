@@ -0,0 +1,158 @@
+/**
+ * Licensed under the Artistic License; you may not use this file
+ * except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://displaytag.sourceforge.net/license.html
+ *
+ * THIS PACKAGE IS PROVIDED "AS IS" AND WITHOUT ANY EXPRESS OR
+ * IMPLIED WARRANTIES, INCLUDING, WITHOUT LIMITATION, THE IMPLIED
+ * WARRANTIES OF MERCHANTIBILITY AND FITNESS FOR A PARTICULAR PURPOSE.
+ */
+package org.displaytag.pagination;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.displaytag.properties.SortOrderEnum;
+import org.displaytag.test.NumberedItem;
+
+
+/**
+ * Keyset paginated list of 10 NumberedItems sorted by number, with an unknown size. Cursors are <code>a</code> (after)
+ * or <code>b</code> (before) followed by an item number.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class SimpleKeysetPaginatedList implements KeysetPaginatedList
+{
+
+    /**
+     * wrapped list
+     */
+    private List fullList = new ArrayList();
+
+    /**
+     * Number of objects per page.
+     */
+    private int objectsPerPage;
+
+    /**
+     * Current page (starting from 1)
+     */
+    private int currentPage;
+
+    /**
+     * Index of the first item in the page.
+     */
+    private int start;
+
+    /**
+     * Index after the last item in the page.
+     */
+    private int end;
+
+    /**
+     * Instantiates a new paginated list.
+     * @param objectsPerPage number of objects per page
+     * @param page requested page number, may be null
+     * @param cursor requested cursor, null for the first page
+     */
+    public SimpleKeysetPaginatedList(int objectsPerPage, String page, String cursor)
+    {
+        for (int j = 1; j < 11; j++)
+        {
+            fullList.add(new NumberedItem(j));
+        }
+        this.objectsPerPage = objectsPerPage;
+        this.currentPage = page != null ? Integer.parseInt(page) : 1;
+
+        if (cursor == null)
+        {
+            this.start = 0;
+        }
+        else if (cursor.charAt(0) == 'a')
+        {
+            // item numbers start from 1: item n is at index n - 1
+            this.start = Integer.parseInt(cursor.substring(1));
+        }
+        else
+        {
+            this.start = Math.max(0, Integer.parseInt(cursor.substring(1)) - 1 - objectsPerPage);
+        }
+        this.end = Math.min(fullList.size(), start + objectsPerPage);
+    }
+
+    /**
+     * @see org.displaytag.pagination.PaginatedList#getList()
+     */
+    public List getList()
+    {
+        return fullList.subList(start, end);
+    }
+
+    /**
+     * @see org.displaytag.pagination.PaginatedList#getPageNumber()
+     */
+    public int getPageNumber()
+    {
+        return currentPage;
+    }
+
+    /**
+     * @see org.displaytag.pagination.PaginatedList#getObjectsPerPage()
+     */
+    public int getObjectsPerPage()
+    {
+        return objectsPerPage;
+    }
+
+    /**
+     * @see org.displaytag.pagination.PaginatedList#getFullListSize()
+     */
+    public int getFullListSize()
+    {
+        return UNKNOWN_SIZE;
+    }
+
+    /**
+     * @see org.displaytag.pagination.PaginatedList#getSortCriterion()
+     */
+    public String getSortCriterion()
+    {
+        return "number";
+    }
+
+    /**
+     * @see org.displaytag.pagination.PaginatedList#getSortDirection()
+     */
+    public SortOrderEnum getSortDirection()
+    {
+        return SortOrderEnum.ASCENDING;
+    }
+
+    /**
+     * @see org.displaytag.pagination.PaginatedList#getSearchId()
+     */
+    public String getSearchId()
+    {
+        return null;
+    }
+
+    /**
+     * @see org.displaytag.pagination.KeysetPaginatedList#getNextCursor()
+     */
+    public String getNextCursor()
+    {
+        return end < fullList.size() ? "a" + ((NumberedItem) fullList.get(end - 1)).getNumber() : null;
+    }
+
+    /**
+     * @see org.displaytag.pagination.KeysetPaginatedList#getPreviousCursor()
+     */
+    public String getPreviousCursor()
+    {
+        return start > 0 ? "b" + ((NumberedItem) fullList.get(start)).getNumber() : null;
+    }
+
+}
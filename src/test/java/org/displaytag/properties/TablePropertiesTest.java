@@ -0,0 +1,71 @@
+package org.displaytag.properties;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Test case for TableProperties.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class TablePropertiesTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Properties set on an instance don't affect other instances.
+     */
+    public void testSetProperty()
+    {
+        TableProperties properties = TableProperties.getInstance(null);
+        TableProperties other = TableProperties.getInstance(null);
+
+        properties.setProperty(TableProperties.PROPERTY_CSS_TR_ODD, "first");
+        properties.setProperty(TableProperties.PROPERTY_INT_PAGING_GROUPSIZE, "3");
+
+        assertEquals("first", properties.getCssRow(0));
+        assertEquals("even", properties.getCssRow(1));
+        assertEquals(3, properties.getPagingGroupSize());
+
+        assertEquals("odd", other.getCssRow(0));
+        assertEquals(8, other.getPagingGroupSize());
+        assertEquals("odd", TableProperties.getInstance(null).getCssRow(0));
+    }
+
+    /**
+     * Factories are instantiated once and shared, unless configured with setProperty().
+     * @throws Exception any exception thrown during test.
+     */
+    public void testFactoryInstances() throws Exception
+    {
+        TableProperties properties = TableProperties.getInstance(null);
+        TableProperties other = TableProperties.getInstance(null);
+        assertSame(properties.getDecoratorFactoryInstance(), other.getDecoratorFactoryInstance());
+
+        other.setProperty(
+            TableProperties.PROPERTY_CLASS_DECORATORFACTORY,
+            "org.displaytag.decorator.DefaultDecoratorFactory");
+        assertNotSame(properties.getDecoratorFactoryInstance(), other.getDecoratorFactoryInstance());
+        assertSame(other.getDecoratorFactoryInstance(), other.getDecoratorFactoryInstance());
+    }
+
+    /**
+     * The returned array of media can be modified.
+     */
+    public void testExportTypes()
+    {
+        TableProperties properties = TableProperties.getInstance(null);
+        String[] exportTypes = properties.getExportTypes();
+        assertTrue(exportTypes.length > 0);
+        exportTypes[0] = null;
+        assertNotNull(properties.getExportTypes()[0]);
+    }
+
+}
@@ -0,0 +1,68 @@
+package org.displaytag.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.displaytag.decorator.DisplaytagColumnDecorator;
+import org.displaytag.decorator.EscapeXmlColumnDecorator;
+import org.displaytag.model.HeaderCell;
+
+
+/**
+ * Test case for ColumnProfile.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class ColumnProfileTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Calls are recorded only for sampled rows, profiles for the same columns are merged.
+     */
+    public void testProfile()
+    {
+        List headers = new ArrayList();
+        HeaderCell header = new HeaderCell();
+        header.setBeanPropertyName("ant");
+        headers.add(header);
+        header = new HeaderCell();
+        header.setBeanPropertyName("bee");
+        header.setColumnDecorators(new DisplaytagColumnDecorator[]{EscapeXmlColumnDecorator.INSTANCE});
+        headers.add(header);
+
+        ColumnProfile profile = new ColumnProfile(headers, 10);
+        assertTrue(profile.isSampled(0));
+        assertFalse(profile.isSampled(5));
+        assertTrue(profile.isSampled(20));
+
+        long time = profile.add(0, ColumnProfile.LOOKUP, TableStats.now());
+        profile.add(1, ColumnProfile.COLUMN_DECORATOR, time);
+        profile.add(1, ColumnProfile.COLUMN_DECORATOR, time);
+        assertEquals(1, profile.getCalls(0, ColumnProfile.LOOKUP));
+        assertEquals(2, profile.getCalls(1, ColumnProfile.COLUMN_DECORATOR));
+
+        // no decorators for the first column, ignored
+        profile.add(0, ColumnProfile.COLUMN_DECORATOR, time);
+
+        ColumnProfile total = profile.copy();
+        assertTrue(total.merge(profile));
+        assertEquals(4, total.getCalls(1, ColumnProfile.COLUMN_DECORATOR));
+        assertEquals(2, profile.getCalls(1, ColumnProfile.COLUMN_DECORATOR));
+
+        String summary = total.toString();
+        assertTrue(summary, summary.indexOf("bee: EscapeXmlColumnDecorator") != -1);
+
+        assertFalse(total.merge(new ColumnProfile(headers.subList(0, 1), 10)));
+    }
+
+}
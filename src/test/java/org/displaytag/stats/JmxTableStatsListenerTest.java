@@ -0,0 +1,85 @@
+package org.displaytag.stats;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+import org.displaytag.filter.DisplaytagShutdownListener;
+import org.displaytag.properties.MediaTypeEnum;
+
+
+/**
+ * Test case for JmxTableStatsListener.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class JmxTableStatsListenerTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Statistics are aggregated by uid and published as MBeans.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testSummary() throws Exception
+    {
+        JmxTableStatsListener listener = new JmxTableStatsListener();
+
+        TableStats stats = new TableStats("jmx,test", MediaTypeEnum.HTML);
+        stats.setRows(10);
+        stats.setColumns(3);
+        stats.addSize(1000);
+        stats.addTime(TableStats.RENDER, 3000000);
+        listener.tableRendered(stats);
+
+        stats = new TableStats("jmx,test", MediaTypeEnum.CSV);
+        stats.setRows(20);
+        stats.setColumns(3);
+        stats.addTime(TableStats.EXPORT, 1000000);
+        listener.tableRendered(stats);
+
+        TableStatsSummary summary = JmxTableStatsListener.getSummary("jmx,test");
+        assertEquals(1, summary.getRenders());
+        assertEquals(1, summary.getExports());
+        assertEquals(30, summary.getTotalRows());
+        assertEquals(20, summary.getMaxRows());
+        assertEquals(1000, summary.getTotalSize());
+        assertEquals(3d, summary.getRenderTime(), 0.001);
+        assertEquals(2d, summary.getAverageTime(), 0.001);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.displaytag:type=TableStats,uid=" + ObjectName.quote("jmx,test"));
+        assertEquals(new Long(30), server.getAttribute(name, "TotalRows"));
+
+        server.invoke(name, "reset", null, null);
+        assertEquals(0, summary.getTotalRows());
+    }
+
+    /**
+     * Stopping the application unregisters the MBeans.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testShutdown() throws Exception
+    {
+        new JmxTableStatsListener().tableRendered(new TableStats("jmx-shutdown", MediaTypeEnum.HTML));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.displaytag:type=TableStats,uid=" + ObjectName.quote("jmx-shutdown"));
+        assertTrue(server.isRegistered(name));
+
+        new DisplaytagShutdownListener().contextDestroyed(null);
+        assertFalse(server.isRegistered(name));
+        assertNull(JmxTableStatsListener.getSummary("jmx-shutdown"));
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.displaytag.stats;
+
+/**
+ * Keeps the statistics of the last rendered table.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class RecordingStatsListener implements TableStatsListener
+{
+
+    /**
+     * Last received statistics.
+     */
+    private static TableStats last;
+
+    /**
+     * Returns the last received statistics.
+     * @return TableStats
+     */
+    public static synchronized TableStats getLast()
+    {
+        return last;
+    }
+
+    /**
+     * @see org.displaytag.stats.TableStatsListener#tableRendered(org.displaytag.stats.TableStats)
+     */
+    public void tableRendered(TableStats stats)
+    {
+        synchronized (RecordingStatsListener.class)
+        {
+            last = stats;
+        }
+    }
+
+}
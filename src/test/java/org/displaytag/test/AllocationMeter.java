@@ -0,0 +1,91 @@
+package org.displaytag.test;
+
+import java.lang.reflect.Method;
+
+
+/**
+ * Bytes allocated by the current thread, as reported by <code>com.sun.management.ThreadMXBean</code>. The api is
+ * accessed by reflection, since it's not available on every jvm: when it's missing <code>isSupported()</code> returns
+ * <code>false</code> and no allocation is measured.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public final class AllocationMeter
+{
+
+    /**
+     * ThreadMXBean instance, null if allocation can't be measured.
+     */
+    private static Object threadBean;
+
+    /**
+     * com.sun.management.ThreadMXBean.getThreadAllocatedBytes(long).
+     */
+    private static Method getThreadAllocatedBytes;
+
+    /**
+     * Thread.getId().
+     */
+    private static Method getThreadId;
+
+    static
+    {
+        try
+        {
+            Class factoryClass = Class.forName("java.lang.management.ManagementFactory");
+            Object bean = factoryClass.getMethod("getThreadMXBean", null).invoke(null, null);
+            Class beanClass = Class.forName("com.sun.management.ThreadMXBean");
+            if (beanClass.isInstance(bean))
+            {
+                beanClass.getMethod("setThreadAllocatedMemoryEnabled", new Class[]{Boolean.TYPE}).invoke(
+                    bean,
+                    new Object[]{Boolean.TRUE});
+                getThreadAllocatedBytes = beanClass.getMethod("getThreadAllocatedBytes", new Class[]{Long.TYPE});
+                getThreadId = Thread.class.getMethod("getId", null);
+                threadBean = bean;
+            }
+        }
+        catch (Throwable e)
+        {
+            // ClassNotFoundException, NoSuchMethodException, UnsupportedOperationException
+            threadBean = null;
+        }
+    }
+
+    /**
+     * Don't instantiate.
+     */
+    private AllocationMeter()
+    {
+    }
+
+    /**
+     * Can allocations be measured on this jvm?
+     * @return <code>true</code> if getAllocatedBytes() works
+     */
+    public static boolean isSupported()
+    {
+        return threadBean != null;
+    }
+
+    /**
+     * Returns the total number of bytes allocated by the current thread since it was started.
+     * @return allocated bytes, -1 if not supported
+     */
+    public static long getAllocatedBytes()
+    {
+        if (threadBean == null)
+        {
+            return -1;
+        }
+        try
+        {
+            Object id = getThreadId.invoke(Thread.currentThread(), null);
+            return ((Long) getThreadAllocatedBytes.invoke(threadBean, new Object[]{id})).longValue();
+        }
+        catch (Exception e)
+        {
+            return -1;
+        }
+    }
+}
@@ -74,25 +74,47 @@ public abstract class DisplaytagCase extends TestCase
      * @see junit.framework.TestCase#setUp()
      */
     protected void setUp() throws Exception
+    {
+        runner = createServletRunner();
+
+        log.debug("ServletRunner setup OK");
+
+        super.setUp();
+    }
+
+    /**
+     * Starts a ServletRunner for the test application, with jsp support.
+     * @return ServletRunner, must be shut down when done
+     * @throws Exception any axception thrown while starting the servlet engine.
+     */
+    public static ServletRunner createServletRunner() throws Exception
+    {
+        return createServletRunner("WEB-INF/web.xml");
+    }
+
+    /**
+     * Starts a ServletRunner for the test application, with jsp support, using an alternative deployment descriptor.
+     * @param webXml resource name of the web.xml file, must be in the WEB-INF directory
+     * @return ServletRunner, must be shut down when done
+     * @throws Exception any axception thrown while starting the servlet engine.
+     */
+    public static ServletRunner createServletRunner(String webXml) throws Exception
     {
         // need to pass a web.xml file to setup servletunit working directory
-        ClassLoader classLoader = getClass().getClassLoader();
-        URL webXmlUrl = classLoader.getResource("WEB-INF/web.xml");
+        ClassLoader classLoader = DisplaytagCase.class.getClassLoader();
+        URL webXmlUrl = classLoader.getResource(webXml);
         String path = URLDecoder.decode(webXmlUrl.getFile(), "UTF-8");
 
         HttpUnitOptions.setDefaultCharacterSet("utf-8");
         System.setProperty("file.encoding", "utf-8");
 
         // start servletRunner
-        runner = new ServletRunner(new File(path), CONTEXT);
+        ServletRunner servletRunner = new ServletRunner(new File(path), CONTEXT);
 
         Hashtable params = new Hashtable();
         params.put("javaEncoding", "utf-8");
-        runner.registerServlet("*.jsp", "org.apache.jasper.servlet.JspServlet", params);
-
-        log.debug("ServletRunner setup OK");
-
-        super.setUp();
+        servletRunner.registerServlet("*.jsp", "org.apache.jasper.servlet.JspServlet", params);
+        return servletRunner;
     }
 
     /**
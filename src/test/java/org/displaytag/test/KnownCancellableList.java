@@ -0,0 +1,82 @@
+package org.displaytag.test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.displaytag.pagination.Cancellable;
+
+
+/**
+ * Test data provider. A list of 2 KnownValues which counts, in static fields, how many times it has been cancelled
+ * and iterated.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class KnownCancellableList extends ArrayList implements Cancellable
+{
+
+    /**
+     * D1597A17A6.
+     */
+    private static final long serialVersionUID = 899149338534L;
+
+    /**
+     * Number of cancel() calls on any instance.
+     */
+    private static int cancelCount;
+
+    /**
+     * Number of iterator() calls on any instance.
+     */
+    private static int iteratorCount;
+
+    /**
+     * Instantiates a new list of 2 KnownValues.
+     */
+    public KnownCancellableList()
+    {
+        add(new KnownValue());
+        add(new KnownValue());
+    }
+
+    /**
+     * Returns the number of cancel() calls on any instance.
+     * @return number of cancel() calls
+     */
+    public static synchronized int getCancelCount()
+    {
+        return cancelCount;
+    }
+
+    /**
+     * Returns the number of iterator() calls on any instance.
+     * @return number of iterator() calls
+     */
+    public static synchronized int getIteratorCount()
+    {
+        return iteratorCount;
+    }
+
+    /**
+     * @see java.util.List#iterator()
+     */
+    public Iterator iterator()
+    {
+        synchronized (KnownCancellableList.class)
+        {
+            iteratorCount++;
+        }
+        return super.iterator();
+    }
+
+    /**
+     * @see org.displaytag.pagination.Cancellable#cancel()
+     */
+    public void cancel()
+    {
+        synchronized (KnownCancellableList.class)
+        {
+            cancelCount++;
+        }
+    }
+}
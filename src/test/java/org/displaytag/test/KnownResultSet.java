@@ -0,0 +1,221 @@
+package org.displaytag.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * In memory stand-in for a jdbc result set, with the columns <code>ID</code> (Integer, starting from 1),
+ * <code>NAME</code> (String) and <code>AMOUNT</code> (Double). Only the methods needed by displaytag are implemented.
+ * Keeps track of the rows whose values have been read.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class KnownResultSet implements InvocationHandler
+{
+
+    /**
+     * Column labels.
+     */
+    public static final String[] COLUMNS = new String[]{"ID", "NAME", "AMOUNT"};
+
+    /**
+     * Number of rows.
+     */
+    private final int rows;
+
+    /**
+     * Result set type.
+     */
+    private final int type;
+
+    /**
+     * Current row, 0 is before the first row.
+     */
+    private int current;
+
+    /**
+     * Has the result set been closed?
+     */
+    private boolean closed;
+
+    /**
+     * Numbers (Integer) of the rows read.
+     */
+    private List readRows = new ArrayList();
+
+    /**
+     * Instantiates a new KnownResultSet.
+     * @param rowCount number of rows
+     * @param resultSetType <code>ResultSet.TYPE_FORWARD_ONLY</code> or <code>ResultSet.TYPE_SCROLL_INSENSITIVE</code>
+     */
+    public KnownResultSet(int rowCount, int resultSetType)
+    {
+        this.rows = rowCount;
+        this.type = resultSetType;
+    }
+
+    /**
+     * Returns the result set.
+     * @return ResultSet
+     */
+    public ResultSet getResultSet()
+    {
+        return (ResultSet) Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class[]{ResultSet.class},
+            this);
+    }
+
+    /**
+     * Returns the numbers of the rows whose values have been read.
+     * @return List of Integer
+     */
+    public List getReadRows()
+    {
+        return this.readRows;
+    }
+
+    /**
+     * Has the result set been closed?
+     * @return <code>true</code> if close() has been called
+     */
+    public boolean isClosed()
+    {
+        return this.closed;
+    }
+
+    /**
+     * @see java.lang.reflect.InvocationHandler#invoke(Object, Method, Object[])
+     */
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        String name = method.getName();
+        if ("next".equals(name))
+        {
+            return moveTo(this.current + 1);
+        }
+        if ("absolute".equals(name))
+        {
+            checkScrollable();
+            return moveTo(((Integer) args[0]).intValue());
+        }
+        if ("relative".equals(name))
+        {
+            checkScrollable();
+            return moveTo(this.current + ((Integer) args[0]).intValue());
+        }
+        if ("last".equals(name))
+        {
+            checkScrollable();
+            return moveTo(this.rows);
+        }
+        if ("beforeFirst".equals(name))
+        {
+            checkScrollable();
+            this.current = 0;
+            return null;
+        }
+        if ("getRow".equals(name))
+        {
+            return new Integer(this.current <= this.rows ? this.current : 0);
+        }
+        if ("getType".equals(name))
+        {
+            return new Integer(this.type);
+        }
+        if ("getObject".equals(name) && args[0] instanceof Integer)
+        {
+            return getValue(((Integer) args[0]).intValue());
+        }
+        if ("getMetaData".equals(name))
+        {
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{ResultSetMetaData.class}, this);
+        }
+        if ("getColumnCount".equals(name))
+        {
+            return new Integer(COLUMNS.length);
+        }
+        if ("getColumnLabel".equals(name) || "getColumnName".equals(name))
+        {
+            return COLUMNS[((Integer) args[0]).intValue() - 1];
+        }
+        if ("close".equals(name))
+        {
+            this.closed = true;
+            return null;
+        }
+        if ("hashCode".equals(name))
+        {
+            return new Integer(System.identityHashCode(proxy));
+        }
+        if ("equals".equals(name))
+        {
+            return Boolean.valueOf(proxy == args[0]);
+        }
+        if ("toString".equals(name))
+        {
+            return "KnownResultSet[" + this.rows + " rows]";
+        }
+        throw new UnsupportedOperationException(name);
+    }
+
+    /**
+     * Moves the cursor.
+     * @param row row number, starting from 1
+     * @return <code>true</code> if the cursor is on a row
+     */
+    private Boolean moveTo(int row)
+    {
+        if (this.closed)
+        {
+            throw new IllegalStateException("Result set is closed");
+        }
+        this.current = Math.max(0, Math.min(row, this.rows + 1));
+        return Boolean.valueOf(this.current > 0 && this.current <= this.rows);
+    }
+
+    /**
+     * Checks that the cursor can be moved backward.
+     */
+    private void checkScrollable()
+    {
+        if (this.type == ResultSet.TYPE_FORWARD_ONLY)
+        {
+            throw new IllegalStateException("Result set is forward only");
+        }
+    }
+
+    /**
+     * Returns a value in the current row.
+     * @param column column number, starting from 1
+     * @return value
+     */
+    private Object getValue(int column)
+    {
+        if (this.current < 1 || this.current > this.rows)
+        {
+            throw new IllegalStateException("Not on a row");
+        }
+        Integer row = new Integer(this.current);
+        if (!this.readRows.contains(row))
+        {
+            this.readRows.add(row);
+        }
+        switch (column)
+        {
+            case 1 :
+                return row;
+            case 2 :
+                return "name" + this.current;
+            default :
+                return new Double(this.current * 10);
+        }
+    }
+
+}
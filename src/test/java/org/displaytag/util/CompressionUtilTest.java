@@ -0,0 +1,107 @@
+package org.displaytag.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import junit.framework.TestCase;
+
+
+/**
+ * Test case for org.displaytag.util.CompressionUtil.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class CompressionUtilTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Accept-Encoding parsing.
+     */
+    public void testAcceptsGzip()
+    {
+        assertTrue(CompressionUtil.acceptsGzip("gzip"));
+        assertTrue(CompressionUtil.acceptsGzip("deflate, GZIP;q=0.8"));
+        assertTrue(CompressionUtil.acceptsGzip("x-gzip"));
+        assertTrue(CompressionUtil.acceptsGzip("*"));
+        assertFalse(CompressionUtil.acceptsGzip(null));
+        assertFalse(CompressionUtil.acceptsGzip("deflate, identity"));
+        assertFalse(CompressionUtil.acceptsGzip("gzip;q=0"));
+        assertFalse(CompressionUtil.acceptsGzip("gzip; q=0.0"));
+    }
+
+    /**
+     * All the codings are evaluated, an explicit gzip takes precedence over *.
+     */
+    public void testAcceptsGzipPrecedence()
+    {
+        assertTrue(CompressionUtil.acceptsGzip("*;q=0, gzip"));
+        assertFalse(CompressionUtil.acceptsGzip("gzip;q=0, *"));
+        assertFalse(CompressionUtil.acceptsGzip("*;q=0, deflate"));
+        assertTrue(CompressionUtil.acceptsGzip("identity;q=0, *;q=0.1"));
+        assertTrue(CompressionUtil.acceptsGzip("gzip;level=1;Q=0.5"));
+        assertTrue(CompressionUtil.acceptsGzip("gzip;q=0, x-gzip;q=0.3"));
+    }
+
+    /**
+     * Deflate is negotiated like gzip, without aliases.
+     */
+    public void testAcceptsDeflate()
+    {
+        assertTrue(CompressionUtil.acceptsDeflate("gzip, deflate"));
+        assertTrue(CompressionUtil.acceptsDeflate("gzip;q=0, *"));
+        assertFalse(CompressionUtil.acceptsDeflate("gzip, x-gzip"));
+        assertFalse(CompressionUtil.acceptsDeflate("Deflate;q=0, *"));
+        assertFalse(CompressionUtil.acceptsDeflate(null));
+    }
+
+    /**
+     * Deflated content is in zlib format.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testDeflate() throws Exception
+    {
+        byte[] content = "ant,bee,camel\n".getBytes();
+        byte[] compressed = CompressionUtil.compress(content, CompressionUtil.DEFLATE, null);
+
+        InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int read;
+        while ((read = in.read()) != -1)
+        {
+            out.write(read);
+        }
+        assertEquals(new String(content), new String(out.toByteArray()));
+    }
+
+    /**
+     * Gzip and deflate compression are negotiated.
+     */
+    public void testNegotiated()
+    {
+        assertTrue(CompressionUtil.isNegotiated("GZIP"));
+        assertTrue(CompressionUtil.isNegotiated("deflate"));
+        assertFalse(CompressionUtil.isNegotiated("zip"));
+        assertFalse(CompressionUtil.isNegotiated("none"));
+        assertFalse(CompressionUtil.isNegotiated(null));
+    }
+
+    /**
+     * Zip archive names.
+     */
+    public void testZipFilename()
+    {
+        assertEquals("table.zip", CompressionUtil.getZipFilename("table.csv"));
+        assertEquals("table.zip", CompressionUtil.getZipFilename("table"));
+        assertEquals(".csv.zip", CompressionUtil.getZipFilename(".csv"));
+    }
+
+}
@@ -0,0 +1,237 @@
+package org.displaytag.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.displaytag.decorator.TableDecorator;
+import org.displaytag.decorator.TableDecoratorOne;
+import org.displaytag.decorator.TableDecoratorThree;
+import org.displaytag.export.ExportViewFactory;
+import org.displaytag.properties.TableProperties;
+
+
+/**
+ * Test case for CopyOnWriteCache and for the metadata caches using it, read and written by many threads at the same
+ * time.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class CopyOnWriteCacheTest extends TestCase
+{
+
+    /**
+     * Concurrent threads.
+     */
+    private static final int THREADS = 16;
+
+    /**
+     * Iterations for each thread.
+     */
+    private static final int ITERATIONS = 2000;
+
+    /**
+     * Keys in the cache.
+     */
+    private static final int KEYS = 100;
+
+    /**
+     * Errors found by the threads.
+     */
+    private List errors;
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        this.errors = Collections.synchronizedList(new ArrayList());
+    }
+
+    /**
+     * Basic operations.
+     */
+    public void testPutIfAbsent()
+    {
+        CopyOnWriteCache cache = new CopyOnWriteCache();
+        assertNull(cache.get("key"));
+
+        Object value = new Object();
+        assertSame(value, cache.putIfAbsent("key", value));
+        assertSame("Cached value should be kept.", value, cache.putIfAbsent("key", new Object()));
+        assertSame(value, cache.get("key"));
+        assertEquals(1, cache.size());
+
+        Object replaced = new Object();
+        cache.put("key", replaced);
+        assertSame(replaced, cache.get("key"));
+
+        cache.clear();
+        assertNull(cache.get("key"));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * All the threads must get the same cached value for a key, even if they compute it at the same time.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testConcurrentPutIfAbsent() throws Exception
+    {
+        final CopyOnWriteCache cache = new CopyOnWriteCache();
+        run(new Runnable()
+        {
+
+            public void run()
+            {
+                for (int j = 0; j < ITERATIONS; j++)
+                {
+                    Integer key = new Integer(j % KEYS);
+                    Object cached = cache.get(key);
+                    if (cached == null)
+                    {
+                        cached = cache.putIfAbsent(key, new Object());
+                    }
+                    if (cached != cache.putIfAbsent(key, new Object()))
+                    {
+                        errors.add("Different values cached for " + key);
+                    }
+                }
+            }
+        });
+
+        assertEquals(KEYS, cache.size());
+    }
+
+    /**
+     * Decorator getters are cached by class and property, without mixing results of different decorators.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testDecoratorGetters() throws Exception
+    {
+        run(new Runnable()
+        {
+
+            public void run()
+            {
+                TableDecorator one = new TableDecoratorOne();
+                TableDecorator three = new TableDecoratorThree();
+                for (int j = 0; j < ITERATIONS; j++)
+                {
+                    // a new property for each iteration, so the cache is written concurrently
+                    String missing = "missing" + j;
+                    if (!one.hasGetterFor("one")
+                        || !one.hasGetterFor("one.something")
+                        || !one.hasGetterFor("mapped(one)")
+                        || three.hasGetterFor("one")
+                        || three.hasGetterFor("simple")
+                        || one.hasGetterFor(missing)
+                        || three.hasGetterFor(missing))
+                    {
+                        errors.add("Wrong getter found at iteration " + j);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Properties are loaded once for each locale, also while they are cleared.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testTableProperties() throws Exception
+    {
+        run(new Runnable()
+        {
+
+            public void run()
+            {
+                for (int j = 0; j < ITERATIONS; j++)
+                {
+                    if (j % 500 == 0)
+                    {
+                        TableProperties.clearProperties();
+                    }
+                    if (TableProperties.getInstance(null).getPagingItemName() == null)
+                    {
+                        errors.add("Properties not loaded at iteration " + j);
+                    }
+                }
+            }
+        });
+
+        TableProperties.clearProperties();
+    }
+
+    /**
+     * Only one ExportViewFactory is created.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testExportViewFactory() throws Exception
+    {
+        final ExportViewFactory factory = ExportViewFactory.getInstance();
+        run(new Runnable()
+        {
+
+            public void run()
+            {
+                for (int j = 0; j < ITERATIONS; j++)
+                {
+                    if (ExportViewFactory.getInstance() != factory)
+                    {
+                        errors.add("Different ExportViewFactory instance at iteration " + j);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs a task in <code>THREADS</code> threads and checks that no error has been found.
+     * @param task task to run
+     * @throws Exception any exception thrown while waiting for the threads
+     */
+    private void run(final Runnable task) throws Exception
+    {
+        Thread[] threads = new Thread[THREADS];
+        for (int j = 0; j < threads.length; j++)
+        {
+            threads[j] = new Thread(new Runnable()
+            {
+
+                public void run()
+                {
+                    try
+                    {
+                        task.run();
+                    }
+                    catch (Throwable e)
+                    {
+                        errors.add(e.toString());
+                    }
+                }
+            }, getName() + "-" + j);
+        }
+        for (int j = 0; j < threads.length; j++)
+        {
+            threads[j].start();
+        }
+        for (int j = 0; j < threads.length; j++)
+        {
+            threads[j].join();
+        }
+
+        assertTrue("Errors found: " + this.errors, this.errors.isEmpty());
+    }
+
+}
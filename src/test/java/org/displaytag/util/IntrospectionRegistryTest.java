@@ -0,0 +1,128 @@
+package org.displaytag.util;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.beanutils.BasicDynaClass;
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.commons.beanutils.DynaProperty;
+import org.displaytag.test.KnownValue;
+
+
+/**
+ * Test case for IntrospectionRegistry.
+ * @author Fabrizio Giustina
+ * @version $Revision$ ($Author$)
+ */
+public class IntrospectionRegistryTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * Readable properties, sorted, without "class".
+     */
+    public void testPropertyNames()
+    {
+        assertEquals(
+            Arrays.asList(new String[]{"ant", "bee", "camel"}),
+            Arrays.asList(IntrospectionRegistry.getPropertyNames(new KnownValue())));
+
+        // write only property
+        assertEquals(
+            Arrays.asList(new String[]{"readable"}),
+            Arrays.asList(IntrospectionRegistry.getPropertyNames(new PartiallyReadable())));
+    }
+
+    /**
+     * Returned names can be changed without affecting the registry.
+     */
+    public void testPropertyNamesCopy()
+    {
+        IntrospectionRegistry.getPropertyNames(new KnownValue())[0] = "changed";
+        assertEquals("ant", IntrospectionRegistry.getPropertyNames(new KnownValue())[0]);
+    }
+
+    /**
+     * Read methods are accessible and cached.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testReadMethod() throws Exception
+    {
+        Method readMethod = IntrospectionRegistry.getReadMethod(new KnownValue(), "ant");
+        assertEquals("ant", readMethod.invoke(new KnownValue(), null));
+        assertSame(readMethod, IntrospectionRegistry.getReadMethod(new KnownValue(), "ant"));
+
+        assertNull(IntrospectionRegistry.getReadMethod(new KnownValue(), "missing"));
+        assertNull(IntrospectionRegistry.getReadMethod(new PartiallyReadable(), "writeOnly"));
+    }
+
+    /**
+     * Public getters of a private class are read through the public interface, as done by PropertyUtils.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testNonPublicClass() throws Exception
+    {
+        Map map = new HashMap();
+        map.put("k", "v");
+        Map.Entry entry = (Map.Entry) map.entrySet().iterator().next();
+        Method readMethod = IntrospectionRegistry.getReadMethod(entry, "key");
+        assertEquals("k", readMethod.invoke(entry, null));
+        assertTrue(readMethod.getDeclaringClass().isInterface());
+    }
+
+    /**
+     * DynaBean properties are read from the dyna class.
+     * @throws Exception any exception thrown during test.
+     */
+    public void testDynaBean() throws Exception
+    {
+        BasicDynaClass dynaClass = new BasicDynaClass("dyna", null, new DynaProperty[]{
+            new DynaProperty("zebra", String.class),
+            new DynaProperty("ant", String.class)});
+        DynaBean bean = dynaClass.newInstance();
+        bean.set("ant", "value");
+
+        assertEquals(
+            Arrays.asList(new String[]{"zebra", "ant"}),
+            Arrays.asList(IntrospectionRegistry.getPropertyNames(bean)));
+        assertNull(IntrospectionRegistry.getReadMethod(bean, "ant"));
+        assertEquals("value", LookupUtil.getBeanProperty(bean, "ant"));
+    }
+
+    /**
+     * Bean with a write only property.
+     */
+    public static class PartiallyReadable
+    {
+
+        /**
+         * Readable property.
+         * @return "readable"
+         */
+        public String getReadable()
+        {
+            return "readable";
+        }
+
+        /**
+         * Write only property.
+         * @param value ignored
+         */
+        public void setWriteOnly(String value)
+        {
+            // unused
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.displaytag.util;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+
+import org.displaytag.stats.TableStatsSummary;
+
+
+/**
+ * Test case for JmxUtil.
+ * @version $Revision$ ($Author$)
+ */
+public class JmxUtilTest extends TestCase
+{
+
+    /**
+     * @see junit.framework.TestCase#getName()
+     */
+    public String getName()
+    {
+        return getClass().getName() + "." + super.getName();
+    }
+
+    /**
+     * MBeans are actually registered in the platform server, and removed by unregister() and unregisterAll().
+     * @throws Exception any exception thrown during test.
+     */
+    public void testRegister() throws Exception
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName first = new ObjectName("org.displaytag:type=JmxUtilTest,name=first");
+        ObjectName second = new ObjectName("org.displaytag:type=JmxUtilTest,name=" + ObjectName.quote("a,b"));
+
+        assertTrue(JmxUtil.register("type=JmxUtilTest,name=first", new TableStatsSummary()));
+        assertTrue(JmxUtil.register("type=JmxUtilTest,name=" + JmxUtil.quote("a,b"), new TableStatsSummary()));
+        assertTrue(server.isRegistered(first));
+        assertTrue(server.isRegistered(second));
+        assertEquals(new Long(0), server.getAttribute(first, "Renders"));
+
+        // already registered
+        assertFalse(JmxUtil.register("type=JmxUtilTest,name=first", new TableStatsSummary()));
+
+        JmxUtil.unregister("type=JmxUtilTest,name=first");
+        assertFalse(server.isRegistered(first));
+        assertTrue(server.isRegistered(second));
+
+        JmxUtil.unregisterAll();
+        assertFalse(server.isRegistered(second));
+    }
+
+}
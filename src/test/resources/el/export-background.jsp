@@ -0,0 +1,27 @@
+<jsp:root version="1.2" xmlns:jsp="http://java.sun.com/JSP/Page"
+    xmlns:display="urn:jsptld:http://displaytag.sf.net/el">
+    <jsp:text> <![CDATA[<!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Strict//EN"
+        "http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd"> ]]> </jsp:text>
+    <jsp:directive.page contentType="text/html; charset=UTF8"/>
+    <html xmlns="http://www.w3.org/1999/xhtml" lang="en">
+        <head>
+            <meta http-equiv="content-type" content="text/html; charset=UTF-8" />
+            <title>Displaytag unit test</title>
+        </head>
+        <body>
+            <jsp:scriptlet> <![CDATA[
+                java.util.List testData = new java.util.ArrayList();
+                testData.add(new org.displaytag.test.KnownValue());
+                testData.add(new org.displaytag.test.KnownValue());
+                request.setAttribute( "test", testData);
+            ]]> </jsp:scriptlet>
+            <display:table name="${requestScope.test}" id="table" pagesize="1">
+                <display:setProperty name="export.background" value="true" />
+                <display:setProperty name="export.background.url" value="/exportjob" />
+                <display:setProperty name="export.csv.filename" value="table.csv" />
+                <display:column property="ant" />
+                <display:column property="camel" />
+            </display:table>
+        </body>
+    </html>
+</jsp:root>
@@ -0,0 +1,28 @@
+<jsp:root version="1.2" xmlns:jsp="http://java.sun.com/JSP/Page"
+  xmlns:display="urn:jsptld:http://displaytag.sf.net/el">
+  <jsp:text> <![CDATA[<!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Strict//EN"
+        "http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd"> ]]> </jsp:text>
+    <jsp:directive.page contentType="text/html; charset=UTF8"/>
+  <html xmlns="http://www.w3.org/1999/xhtml" lang="en">
+    <head>
+      <meta http-equiv="content-type" content="text/html; charset=UTF-8" />
+      <title>Displaytag unit test</title>
+    </head>
+    <body>
+      <jsp:scriptlet> <![CDATA[
+          org.displaytag.pagination.SimpleKeysetPaginatedList testData = new org.displaytag.pagination.SimpleKeysetPaginatedList(3,
+              request.getParameter("page"), request.getParameter("cursor"));
+          request.setAttribute( "test", testData);
+      ]]> </jsp:scriptlet>
+      <display:table name="test" uid="table">
+        <display:column property="number" sortable="true"/>
+        <display:setProperty name="paging.banner.some_items_displayed">
+           <div id="pagebanner">{1} {2}-{3}</div>
+        </display:setProperty>
+        <display:setProperty name="paging.banner.one_item_found">
+           <div id="pagebanner">one</div>
+        </display:setProperty>
+      </display:table>
+    </body>
+  </html>
+</jsp:root>
@@ -0,0 +1,33 @@
+<jsp:root version="1.2" xmlns:jsp="http://java.sun.com/JSP/Page"
+  xmlns:display="urn:jsptld:http://displaytag.sf.net/el">
+  <jsp:text> <![CDATA[<!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Strict//EN"
+        "http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd"> ]]> </jsp:text>
+  <jsp:directive.page contentType="text/html; charset=UTF8"/>
+  <html xmlns="http://www.w3.org/1999/xhtml" lang="en">
+    <head>
+      <meta http-equiv="content-type" content="text/html; charset=UTF-8" />
+      <title>Displaytag unit test</title>
+    </head>
+    <body>
+      <jsp:scriptlet> <![CDATA[
+          String[][] values = {{"north", "a", "1"}, {"north", "a", "2"}, {"north", "b", "4"},
+              {"south", "c", "8"}, {"south", "c", "16"}};
+          java.util.List testData = new java.util.ArrayList();
+          for (int j = 0; j < values.length; j++)
+          {
+              java.util.Map row = new java.util.HashMap();
+              row.put("region", values[j][0]);
+              row.put("city", values[j][1]);
+              row.put("amount", new Integer(values[j][2]));
+              testData.add(row);
+          }
+          request.setAttribute( "test", testData);
+      ]]> </jsp:scriptlet>
+      <display:table name="${requestScope.test}" decorator="org.displaytag.decorator.RowCountTotalTableDecorator">
+        <display:column property="region" group="1"/>
+        <display:column property="city" group="2"/>
+        <display:column property="amount" total="true"/>
+      </display:table>
+    </body>
+  </html>
+</jsp:root>
@@ -0,0 +1,28 @@
+<jsp:root version="1.2" xmlns:jsp="http://java.sun.com/JSP/Page"
+  xmlns:display="urn:jsptld:http://displaytag.sf.net">
+  <jsp:text> <![CDATA[<!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Strict//EN"
+        "http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd"> ]]> </jsp:text>
+  <jsp:directive.page contentType="text/html; charset=UTF8"/>
+  <html xmlns="http://www.w3.org/1999/xhtml" lang="en">
+    <head>
+      <meta http-equiv="content-type" content="text/html; charset=UTF-8" />
+      <title>Displaytag unit test</title>
+    </head>
+    <body>
+      <jsp:scriptlet> <![CDATA[
+          int rows = Integer.parseInt(request.getParameter("rows"));
+          java.util.List testData = new java.util.ArrayList(rows);
+          for (int j = 0; j < rows; j++)
+          {
+              testData.add(new org.displaytag.test.KnownValue());
+          }
+          request.setAttribute( "test", testData);
+      ]]> </jsp:scriptlet>
+      <display:table name="requestScope.test" id="table" splitAt="1">
+        <display:column property="ant" style="width:100px" />
+        <display:column property="bee" style="width:100px" />
+        <display:column property="camel" style="width:100px" />
+      </display:table>
+    </body>
+  </html>
+</jsp:root>
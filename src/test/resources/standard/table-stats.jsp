@@ -0,0 +1,25 @@
+<jsp:root version="1.2" xmlns:jsp="http://java.sun.com/JSP/Page"
+  xmlns:display="urn:jsptld:http://displaytag.sf.net">
+  <jsp:text> <![CDATA[<!DOCTYPE html PUBLIC "-//W3C//DTD XHTML 1.0 Strict//EN"
+        "http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd"> ]]> </jsp:text>
+  <jsp:directive.page contentType="text/html; charset=UTF8"/>
+  <html xmlns="http://www.w3.org/1999/xhtml" lang="en">
+    <head>
+      <meta http-equiv="content-type" content="text/html; charset=UTF-8" />
+      <title>Displaytag unit test</title>
+    </head>
+    <body>
+      <jsp:scriptlet> <![CDATA[
+          request.setAttribute( "test", new org.displaytag.test.KnownValue[]{
+              new org.displaytag.test.KnownValue(), new org.displaytag.test.KnownValue(),
+              new org.displaytag.test.KnownValue()});
+      ]]> </jsp:scriptlet>
+      <display:table name="requestScope.test" uid="stats" export="true">
+        <display:column property="ant" sortable="true" />
+        <display:column property="bee" />
+        <display:setProperty name="stats.listener" value="org.displaytag.stats.RecordingStatsListener" />
+        <display:setProperty name="stats.profile.sampling" value="1" />
+      </display:table>
+    </body>
+  </html>
+</jsp:root>